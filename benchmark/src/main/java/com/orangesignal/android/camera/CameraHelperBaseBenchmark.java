@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CameraHelperBase#getOptimalSize(int[], int, int, int)} のベンチマークです。<p>
+ * {@link android.hardware.Camera.Size} は {@link android.hardware.Camera} の内部クラスで JVM 上では生成できないため、
+ * {@link CameraHelperBase#getOptimalSize(java.util.List, int, int, int)} が委譲する幅と高さを交互に並べたサイズの版を計測します。
+ * 
+ * @author 杉澤 浩二
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class CameraHelperBaseBenchmark {
+
+	/**
+	 * 一般的な端末が返すサイズの幅と高さを交互に並べたものです。
+	 */
+	private final int[] mSizes = {
+		4128, 3096, 4128, 2322, 3264, 2448, 3264, 1836, 2592, 1944, 2048, 1536,
+		1920, 1080, 1600, 1200, 1440, 1080, 1280, 960, 1280, 768, 1280, 720,
+		1024, 768, 800, 600, 800, 480, 720, 480, 640, 480, 640, 360,
+		480, 360, 480, 320, 352, 288, 320, 240, 240, 160, 176, 144
+	};
+
+	@Benchmark
+	public int getOptimalSize() {
+		return CameraHelperBase.getOptimalSize(mSizes, 1920, 1080, 0);
+	}
+
+	@Benchmark
+	public int getOptimalSizeWithMaxSize() {
+		return CameraHelperBase.getOptimalSize(mSizes, 1920, 1080, 1280);
+	}
+
+	@Benchmark
+	public int getOptimalSizeWithoutAspectMatch() {
+		// アスペクト比が一致するサイズがないため、全てのサイズから探した結果を返します。
+		return CameraHelperBase.getOptimalSize(mSizes, 1000, 1000, 0);
+	}
+
+}
\ No newline at end of file
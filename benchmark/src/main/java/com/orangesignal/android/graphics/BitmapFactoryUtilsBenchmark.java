@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BitmapFactoryUtils} のサンプリングサイズの計算のベンチマークです。
+ * 
+ * @author 杉澤 浩二
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class BitmapFactoryUtilsBenchmark {
+
+	/**
+	 * 画像の幅です。状態として保持して定数畳み込みされないようにします。
+	 */
+	public int width = 4128;
+
+	/**
+	 * 画像の高さです。
+	 */
+	public int height = 3096;
+
+	/**
+	 * 制限サイズです。
+	 */
+	public int maxSize = 1280;
+
+	@Benchmark
+	public int computeSampleSize() {
+		return BitmapFactoryUtils.computeSampleSize(width, height, maxSize);
+	}
+
+	@Benchmark
+	public int retrySampleSizes() {
+		// 初期サンプリングサイズ 1、加算値 0、乗算値 2 で 8 回読み込みに失敗した場合のサンプリングサイズを計算します。
+		int inSampleSize = BitmapFactoryUtils.computeSampleSize(width, height, maxSize);
+		for (int i = 0; i < 8; i++) {
+			inSampleSize = BitmapFactoryUtils.nextSampleSize(inSampleSize, 0, 2);
+		}
+		return inSampleSize;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+/**
+ * ホスト環境 (x86 Linux など) 向けにビルドしたネイティブコードの YUV 変換を呼び出すクラスを提供します。<p>
+ * ネイティブライブラリは {@code src/main/native} の Makefile で gles20_native と同じソースコードからビルドします。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class NativeYuvDataUtils {
+
+	static {
+		System.loadLibrary("orangesignal-benchmark");
+	}
+
+	/**
+	 * インスタンス化できない事を強制します。
+	 */
+	private NativeYuvDataUtils() {}
+
+	/**
+	 * YUV420sp 形式のデータを RGB 形式へ変換します。
+	 * 
+	 * @param yuv420sp YUV420sp 形式のデータ
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param rgb 変換結果を格納する配列
+	 */
+	public static native void toRGB(byte[] yuv420sp, int width, int height, byte[] rgb);
+
+	/**
+	 * YUV420sp 形式のデータを RGBA 形式へ変換します。
+	 * 
+	 * @param yuv420sp YUV420sp 形式のデータ
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param rgba 変換結果を格納する配列
+	 */
+	public static native void toRGBA(byte[] yuv420sp, int width, int height, byte[] rgba);
+
+	/**
+	 * SIMD 命令とマルチスレッドによる高速な変換を使用するかどうかを設定します。
+	 * 
+	 * @param enabled 高速な変換を使用するかどうか
+	 */
+	public static native void setAccelerationEnabled(boolean enabled);
+
+	/**
+	 * 高速な変換で使用する最大スレッド数を設定します。
+	 * 
+	 * @param count 最大スレッド数。{@code 0} 以下の場合は CPU のコア数から自動的に決定します
+	 */
+	public static native void setMaxThreadCount(int count);
+
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code glReadPixels} で読み込んだピクセルデータの上下反転、回転、ミラー反転のベンチマークです。<p>
+ * {@code GLES20Utils#createBitmap(int[], int, int, Bitmap.Config, int, boolean)} が
+ * {@link android.graphics.Canvas} で行っていた R (赤) と B (青) の交換と座標変換を 1 ピクセルずつ行う実装を基準として、
+ * {@link PixelDataUtils#transform(IntBuffer, int, int, int, boolean, IntBuffer, int[])} と比較します。
+ * 
+ * @author 杉澤 浩二
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class PixelDataUtilsBenchmark {
+
+	/**
+	 * 読み込むフレームバッファのサイズです。
+	 */
+	@Param({ "640x480", "1920x1080" })
+	public String size;
+
+	/**
+	 * 傾きです。
+	 */
+	@Param({ "0", "90" })
+	public int orientation;
+
+	/**
+	 * ミラーモードかどうかです。
+	 */
+	@Param({ "false", "true" })
+	public boolean mirror;
+
+	private int mWidth;
+	private int mHeight;
+	private int[] mPixels;
+	private int[] mResult;
+	private int[] mRow;
+	private IntBuffer mHeapSrc;
+	private IntBuffer mHeapDst;
+	private IntBuffer mDirectSrc;
+	private IntBuffer mDirectDst;
+
+	@Setup
+	public void setup() {
+		final String[] values = size.split("x");
+		mWidth = Integer.parseInt(values[0]);
+		mHeight = Integer.parseInt(values[1]);
+
+		final int length = mWidth * mHeight;
+		mPixels = new int[length];
+		final Random random = new Random(0);
+		for (int i = 0; i < length; i++) {
+			mPixels[i] = random.nextInt();
+		}
+		mResult = new int[length];
+		mRow = new int[mWidth];
+
+		mHeapSrc = IntBuffer.wrap(mPixels);
+		mHeapDst = IntBuffer.allocate(length);
+		mDirectSrc = ByteBuffer.allocateDirect(length * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+		mDirectSrc.put(mPixels).position(0);
+		mDirectDst = ByteBuffer.allocateDirect(length * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	@Benchmark
+	public int[] canvasEquivalent() {
+		transformPerPixel(mPixels, mWidth, mHeight, orientation, mirror, mResult);
+		return mResult;
+	}
+
+	@Benchmark
+	public IntBuffer transformHeapBuffer() {
+		PixelDataUtils.transform(mHeapSrc, mWidth, mHeight, orientation, mirror, mHeapDst, mRow);
+		return mHeapDst;
+	}
+
+	@Benchmark
+	public IntBuffer transformDirectBuffer() {
+		PixelDataUtils.transform(mDirectSrc, mWidth, mHeight, orientation, mirror, mDirectDst, mRow);
+		return mDirectDst;
+	}
+
+	/**
+	 * {@code GLES20Utils#createBitmap(int[], int, int, Bitmap.Config, int, boolean)} と同じ変換を 1 ピクセルずつ行います。
+	 */
+	private static void transformPerPixel(final int[] src, final int width, final int height, final int orientation, final boolean mirror, final int[] dst) {
+		final int dstWidth = (orientation % 180) == 0 ? width : height;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				final int pixel = src[y * width + x];
+				// R (赤) と B (青) を交換します。
+				final int color = (pixel & 0xFF00FF00) | ((pixel >> 16) & 0xFF) | ((pixel & 0xFF) << 16);
+
+				// 垂直方向に反転させます。
+				final int fx = mirror ? width - 1 - x : x;
+				final int fy = height - 1 - y;
+
+				// 傾きを付けます。
+				final int dx;
+				final int dy;
+				switch (orientation) {
+					case 90:
+						dx = fy;
+						dy = width - 1 - fx;
+						break;
+					case 180:
+						dx = width - 1 - fx;
+						dy = height - 1 - fy;
+						break;
+					case 270:
+						dx = height - 1 - fy;
+						dy = fx;
+						break;
+					default:
+						dx = fx;
+						dy = fy;
+						break;
+				}
+				dst[dy * dstWidth + dx] = color;
+			}
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link YuvDataUtils} と、ネイティブコード ({@link NativeYuvDataUtils}) による YUV420sp の変換のベンチマークです。<p>
+ * ネイティブライブラリが読み込めない場合、ネイティブコードのベンチマークのみが失敗します。
+ * 
+ * @author 杉澤 浩二
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class YuvDataUtilsBenchmark {
+
+	/**
+	 * プレビューサイズです。
+	 */
+	@Param({ "640x480", "1280x720", "1920x1080" })
+	public String size;
+
+	private int mWidth;
+	private int mHeight;
+	private byte[] mData;
+	private byte[] mRGB;
+	private byte[] mRGBA;
+	private int[] mARGB;
+
+	@Setup
+	public void setup() {
+		final String[] values = size.split("x");
+		mWidth = Integer.parseInt(values[0]);
+		mHeight = Integer.parseInt(values[1]);
+		mData = new byte[mWidth * mHeight * 3 / 2];
+		new Random(0).nextBytes(mData);
+		mRGB = new byte[mWidth * mHeight * 3];
+		mRGBA = new byte[mWidth * mHeight * 4];
+		mARGB = new int[mWidth * mHeight];
+	}
+
+	@Benchmark
+	public byte[] javaToRGB() {
+		YuvDataUtils.toRGB(mData, mWidth, mHeight, mRGB);
+		return mRGB;
+	}
+
+	@Benchmark
+	public byte[] javaToRGBA() {
+		YuvDataUtils.toRGBA(mData, mWidth, mHeight, mRGBA);
+		return mRGBA;
+	}
+
+	@Benchmark
+	public int[] javaToARGB() {
+		YuvDataUtils.toARGB(mData, mWidth, mHeight, mARGB);
+		return mARGB;
+	}
+
+	@Benchmark
+	public byte[] nativeToRGB(final NativeState state) {
+		NativeYuvDataUtils.toRGB(mData, mWidth, mHeight, mRGB);
+		return mRGB;
+	}
+
+	@Benchmark
+	public byte[] nativeToRGBA(final NativeState state) {
+		NativeYuvDataUtils.toRGBA(mData, mWidth, mHeight, mRGBA);
+		return mRGBA;
+	}
+
+	/**
+	 * ネイティブコードのベンチマークの状態です。
+	 */
+	@State(Scope.Thread)
+	public static class NativeState {
+
+		/**
+		 * SIMD 命令とマルチスレッドによる高速な変換を使用するかどうかです。
+		 */
+		@Param({ "true", "false" })
+		public boolean acceleration;
+
+		/**
+		 * 最大スレッド数です。{@code 0} は CPU のコア数から自動的に決定し、{@code 1} はシングルスレッドのカーネルで変換します。
+		 */
+		@Param({ "0", "1" })
+		public int threads;
+
+		@Setup
+		public void setup() {
+			NativeYuvDataUtils.setAccelerationEnabled(acceleration);
+			NativeYuvDataUtils.setMaxThreadCount(threads);
+		}
+
+	}
+
+}
\ No newline at end of file
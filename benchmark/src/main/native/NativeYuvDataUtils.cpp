@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+/*
+ * ベンチマーク用に com.orangesignal.android.graphics.NativeYuvDataUtils から YuvDataUtils を呼び出す JNI の実装です。
+ */
+
+#include <jni.h>
+
+#include "YuvDataUtils.h"
+
+using namespace orangesignal;
+
+extern "C" {
+
+JNIEXPORT void JNICALL Java_com_orangesignal_android_graphics_NativeYuvDataUtils_toRGB(JNIEnv* env, jclass clazz, jbyteArray data, jint width, jint height, jbyteArray pixels) {
+	unsigned char* _pixels = (unsigned char *) env->GetPrimitiveArrayCritical(pixels, 0);
+	unsigned char* _data = (unsigned char *) env->GetPrimitiveArrayCritical(data, 0);
+
+	YuvDataUtils::toRGB(_data, _data + width * height, width, height, _pixels);
+
+	env->ReleasePrimitiveArrayCritical(data, _data, JNI_ABORT);
+	env->ReleasePrimitiveArrayCritical(pixels, _pixels, 0);
+}
+
+JNIEXPORT void JNICALL Java_com_orangesignal_android_graphics_NativeYuvDataUtils_toRGBA(JNIEnv* env, jclass clazz, jbyteArray data, jint width, jint height, jbyteArray pixels) {
+	unsigned char* _pixels = (unsigned char *) env->GetPrimitiveArrayCritical(pixels, 0);
+	unsigned char* _data = (unsigned char *) env->GetPrimitiveArrayCritical(data, 0);
+
+	YuvDataUtils::toRGBA(_data, width, height, _pixels);
+
+	env->ReleasePrimitiveArrayCritical(data, _data, JNI_ABORT);
+	env->ReleasePrimitiveArrayCritical(pixels, _pixels, 0);
+}
+
+JNIEXPORT void JNICALL Java_com_orangesignal_android_graphics_NativeYuvDataUtils_setAccelerationEnabled(JNIEnv* env, jclass clazz, jboolean enabled) {
+	YuvDataUtils::setAccelerationEnabled(enabled == JNI_TRUE);
+}
+
+JNIEXPORT void JNICALL Java_com_orangesignal_android_graphics_NativeYuvDataUtils_setMaxThreadCount(JNIEnv* env, jclass clazz, jint count) {
+	YuvDataUtils::setMaxThreadCount(count);
+}
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+/**
+ * プレビューの 1 フレームあたりの処理コストを見積もり、目標のフレームレートを維持できるプレビューサイズを選定する {@link PreviewSizeSelector} の実装を提供します。<p>
+ * 従来の選定方法は要求サイズに最も近い高さのプレビューサイズを選ぶため、フィルターを適用する場合に処理が間に合わずフレームレートが低下することがあります。
+ * この実装は、各候補についてテクスチャへの転送と変換、およびシェーダーの描画パスの数に比例する画素の処理量から達成可能なフレームレートを見積もり、
+ * 目標のフレームレートに届かない不足分、要求サイズに対する解像度の不足分、解像度の超過分に重みを付けたスコアが最も小さい候補を選びます。<p>
+ * ピクチャーサイズは従来と同じく要求サイズに最も近いものを選び、プレビューサイズはピクチャーサイズと縦横比が一致する候補から選びます。
+ * フレームレートの範囲は、選定したプレビューサイズで達成可能なフレームレートを含む範囲から、最大値が最も小さく最小値が最も小さいものを選びます。
+ * 
+ * @author 杉澤 浩二
+ */
+public class BandwidthPreviewSizeSelector implements PreviewSizeSelector {
+
+	/**
+	 * 1 秒あたりに処理可能な画素数の既定値です。
+	 * 中程度の性能の端末で、1280x720 のフレームを 3 パスのフィルターと共に 30fps で処理できる程度の値です。
+	 */
+	public static final long DEFAULT_PIXEL_RATE = 200000000L;
+
+	/**
+	 * シェーダーの描画パスとは別に、フレーム毎に必要なテクスチャへの転送と変換のパス数です。
+	 */
+	static final int FIXED_PASSES = 2;
+
+	/**
+	 * 縦横比が一致するとみなす許容値です。
+	 */
+	static final double ASPECT_TOLERANCE = 0.1D;
+
+	/**
+	 * フレームレートの不足分の重みです。
+	 */
+	private static final double FPS_WEIGHT = 4D;
+
+	/**
+	 * 要求サイズに対する解像度の不足分の重みです。
+	 */
+	private static final double UNDERSIZE_WEIGHT = 1D;
+
+	/**
+	 * 要求サイズに対する解像度の超過分の重みです。
+	 */
+	private static final double OVERSIZE_WEIGHT = 0.25D;
+
+	/**
+	 * 目標のフレームレートを保持します。
+	 */
+	private final int mTargetFps;
+
+	/**
+	 * シェーダーの描画パスの数を保持します。
+	 */
+	private final int mShaderPasses;
+
+	/**
+	 * 1 秒あたりに処理可能な画素数を保持します。
+	 */
+	private final long mPixelRate;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * 1 秒あたりに処理可能な画素数を {@link #DEFAULT_PIXEL_RATE} として、このクラスを構築するコンストラクタです。
+	 * 
+	 * @param targetFps 目標のフレームレート
+	 * @param shaderPasses シェーダーの描画パスの数
+	 * @throws IllegalArgumentException 引数が不正な場合
+	 */
+	public BandwidthPreviewSizeSelector(final int targetFps, final int shaderPasses) {
+		this(targetFps, shaderPasses, DEFAULT_PIXEL_RATE);
+	}
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param targetFps 目標のフレームレート
+	 * @param shaderPasses シェーダーの描画パスの数。フィルターを適用しない場合は {@code 0}
+	 * @param pixelRate 1 秒あたりに処理可能な画素数。{@link com.orangesignal.android.graphics.FrameTimingRecorder} の計測結果などから求めます
+	 * @throws IllegalArgumentException 引数が不正な場合
+	 */
+	public BandwidthPreviewSizeSelector(final int targetFps, final int shaderPasses, final long pixelRate) {
+		if (targetFps <= 0) {
+			throw new IllegalArgumentException("Target fps must be greater than 0 " + targetFps);
+		}
+		if (shaderPasses < 0) {
+			throw new IllegalArgumentException("Shader passes must not be negative " + shaderPasses);
+		}
+		if (pixelRate <= 0) {
+			throw new IllegalArgumentException("Pixel rate must be greater than 0 " + pixelRate);
+		}
+		mTargetFps = targetFps;
+		mShaderPasses = shaderPasses;
+		mPixelRate = pixelRate;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public Selection select(final int[] previewSizes, final int[] pictureSizes, final int[] fpsRanges, final int width, final int height, final int maxSize) {
+		if (previewSizes == null || pictureSizes == null) {
+			return null;
+		}
+
+		// まずはピクチャーサイズを選定します。
+		final int picture = CameraHelperBase.getOptimalSize(pictureSizes, width, height, maxSize);
+		if (picture < 0) {
+			return null;
+		}
+		final int pictureWidth = pictureSizes[picture];
+		final int pictureHeight = pictureSizes[picture + 1];
+
+		// ピクチャーサイズと縦横比が一致する候補から選定し、一致する候補がなければ全ての候補から選定します。
+		final int cameraFps = getMaxFps(fpsRanges);
+		int preview = findLowestCostSize(previewSizes, pictureWidth, pictureHeight, width, height, maxSize, cameraFps, true);
+		if (preview < 0) {
+			preview = findLowestCostSize(previewSizes, pictureWidth, pictureHeight, width, height, maxSize, cameraFps, false);
+			if (preview < 0) {
+				return null;
+			}
+		}
+		final int previewWidth = previewSizes[preview];
+		final int previewHeight = previewSizes[preview + 1];
+
+		// 選定したプレビューサイズで達成可能なフレームレートの範囲を選定します。
+		final int range = findFpsRange(fpsRanges, (int) Math.min(estimateFps(previewWidth, previewHeight), mTargetFps) * 1000);
+		if (range < 0) {
+			return new Selection(previewWidth, previewHeight, pictureWidth, pictureHeight, 0, 0);
+		}
+		return new Selection(previewWidth, previewHeight, pictureWidth, pictureHeight, fpsRanges[range], fpsRanges[range + 1]);
+	}
+
+	/**
+	 * 指定されたプレビューサイズで処理が間に合う最大のフレームレートを見積もります。
+	 * 
+	 * @param width プレビューの幅
+	 * @param height プレビューの高さ
+	 * @return フレームレート
+	 */
+	public double estimateFps(final int width, final int height) {
+		final double pixelsPerFrame = (double) width * height * (FIXED_PASSES + mShaderPasses);
+		return mPixelRate / pixelsPerFrame;
+	}
+
+	/**
+	 * 指定されたプレビューサイズのスコアを返します。スコアが小さいほど適しています。
+	 * 
+	 * @param width プレビューの幅
+	 * @param height プレビューの高さ
+	 * @param requestWidth 要求幅
+	 * @param requestHeight 要求高さ
+	 * @param cameraFps カメラが出力可能な最大のフレームレート
+	 * @return スコア
+	 */
+	double score(final int width, final int height, final int requestWidth, final int requestHeight, final int cameraFps) {
+		final double fps = Math.min(estimateFps(width, height), cameraFps);
+		final double fpsShortfall = Math.max(0D, mTargetFps - fps) / mTargetFps;
+
+		final double ratio = (double) width * height / ((double) requestWidth * requestHeight);
+		final double undersize = Math.max(0D, 1D - ratio);
+		final double oversize = Math.max(0D, ratio - 1D);
+
+		return FPS_WEIGHT * fpsShortfall + UNDERSIZE_WEIGHT * undersize + OVERSIZE_WEIGHT * oversize;
+	}
+
+	private int findLowestCostSize(final int[] sizes, final int pictureWidth, final int pictureHeight, final int requestWidth, final int requestHeight, final int maxSize, final int cameraFps, final boolean matchAspect) {
+		final double targetRatio = (double) pictureWidth / (double) pictureHeight;
+		int result = -1;
+		double minScore = Double.MAX_VALUE;
+		for (int i = 0; i + 1 < sizes.length; i += 2) {
+			final int width = sizes[i];
+			final int height = sizes[i + 1];
+			// サイズ制限が有効な場合に、制限を超えていれば無視します。
+			if (maxSize > 0 && (width > maxSize || height > maxSize)) {
+				continue;
+			}
+			// アスペクト比が近似値の範囲外であれば無視します。
+			if (matchAspect && Math.abs((double) width / (double) height - targetRatio) > ASPECT_TOLERANCE) {
+				continue;
+			}
+			final double score = score(width, height, requestWidth, requestHeight, cameraFps);
+			if (score < minScore) {
+				result = i;
+				minScore = score;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 指定されたフレームレートの範囲から、最大のフレームレートを返します。
+	 * 
+	 * @param fpsRanges フレームレートの範囲。または {@code null}
+	 * @return 最大のフレームレート。フレームレートの範囲が不明な場合は {@link Integer#MAX_VALUE}
+	 */
+	static int getMaxFps(final int[] fpsRanges) {
+		if (fpsRanges == null || fpsRanges.length < 2) {
+			return Integer.MAX_VALUE;
+		}
+		int result = 0;
+		for (int i = 1; i < fpsRanges.length; i += 2) {
+			result = Math.max(result, fpsRanges[i]);
+		}
+		return result / 1000;
+	}
+
+	/**
+	 * 指定されたフレームレートを含む範囲から、最大値が最も小さく、最小値が最も小さい範囲を探します。<p>
+	 * 最小値が小さいほど暗い場所で露光時間を長くできます。指定されたフレームレートを含む範囲がない場合は、最大値が最も大きい範囲を返します。
+	 * 
+	 * @param fpsRanges フレームレートの範囲。または {@code null}
+	 * @param fps フレームレート (1000 倍)
+	 * @return 見つかった範囲の最小値の位置。見つからない場合は {@code -1}
+	 */
+	static int findFpsRange(final int[] fpsRanges, final int fps) {
+		if (fpsRanges == null) {
+			return -1;
+		}
+		int result = -1;
+		int fastest = -1;
+		for (int i = 0; i + 1 < fpsRanges.length; i += 2) {
+			final int min = fpsRanges[i];
+			final int max = fpsRanges[i + 1];
+			if (fastest < 0 || max > fpsRanges[fastest + 1] || (max == fpsRanges[fastest + 1] && min < fpsRanges[fastest])) {
+				fastest = i;
+			}
+			if (min <= fps && fps <= max) {
+				if (result < 0 || max < fpsRanges[result + 1] || (max == fpsRanges[result + 1] && min < fpsRanges[result])) {
+					result = i;
+				}
+			}
+		}
+		return result >= 0 ? result : fastest;
+	}
+
+}
\ No newline at end of file
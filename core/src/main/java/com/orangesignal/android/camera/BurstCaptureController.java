@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+/**
+ * 連写 (バーストキャプチャ) の撮影間隔と処理中のフレーム数を管理するクラスを提供します。<p>
+ * 描画されたフレームごとに {@link #onFrame(long)} を呼び出すと、目標の間隔に達したフレームを撮影対象とします。
+ * 処理中のフレームが上限に達している場合は、描画を待たせずにそのフレームを破棄して {@link #getDroppedCount()} へ計上します。
+ * 撮影したフレームの処理を終えたら {@link #release()} を、処理できずに破棄した場合は {@link #discard()} を呼び出します。<p>
+ * このクラスのメソッドは GL スレッドとワーカースレッドから呼び出されるため同期化されています。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class BurstCaptureController {
+
+	/**
+	 * {@link #onFrame(long)} で、撮影間隔に達していないことを表します。
+	 */
+	public static final int NOT_DUE = -1;
+
+	/**
+	 * {@link #onFrame(long)} で、処理中のフレームが上限に達していたためフレームを破棄したことを表します。
+	 */
+	public static final int DROPPED = -2;
+
+	/**
+	 * {@link #onFrame(long)} で、撮影が終了していることを表します。
+	 */
+	public static final int FINISHED = -3;
+
+	/**
+	 * 撮影するフレーム数を保持します。
+	 */
+	private final int mFrameCount;
+
+	/**
+	 * 撮影間隔 (ナノ秒) を保持します。
+	 */
+	private final long mIntervalNanos;
+
+	/**
+	 * 処理中のフレーム数の上限を保持します。
+	 */
+	private final int mMaxInFlight;
+
+	/**
+	 * 次のフレームを撮影する時刻 (ナノ秒) を保持します。
+	 */
+	private long mNextFrameNanos;
+
+	/**
+	 * 最初のフレームが描画されたかどうかを保持します。
+	 */
+	private boolean mStarted;
+
+	/**
+	 * 撮影を中止したかどうかを保持します。
+	 */
+	private boolean mStopped;
+
+	private int mIssuedCount;
+	private int mCapturedCount;
+	private int mDroppedCount;
+	private int mInFlightCount;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param frameCount 撮影するフレーム数
+	 * @param intervalNanos 撮影間隔 (ナノ秒)
+	 * @param maxInFlight 処理中のフレーム数の上限
+	 * @throws IllegalArgumentException {@code frameCount} または {@code maxInFlight} が {@code 0} 以下の場合、{@code intervalNanos} が負数の場合
+	 */
+	public BurstCaptureController(final int frameCount, final long intervalNanos, final int maxInFlight) {
+		if (frameCount <= 0) {
+			throw new IllegalArgumentException("Frame count must be greater than 0");
+		}
+		if (intervalNanos < 0) {
+			throw new IllegalArgumentException("Interval must not be negative");
+		}
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("Max in-flight must be greater than 0");
+		}
+		mFrameCount = frameCount;
+		mIntervalNanos = intervalNanos;
+		mMaxInFlight = maxInFlight;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 指定されたフレームレートの撮影間隔 (ナノ秒) を返します。
+	 * 
+	 * @param fps フレームレート
+	 * @return 撮影間隔 (ナノ秒)
+	 * @throws IllegalArgumentException {@code fps} が {@code 0} 以下の場合
+	 */
+	public static long toIntervalNanos(final float fps) {
+		if (!(fps > 0f)) {
+			throw new IllegalArgumentException("Frame rate must be positive " + fps);
+		}
+		return (long) (1000000000.0 / fps);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * フレームが描画された時に呼び出して、そのフレームを撮影するかどうかを返します。<p>
+	 * 撮影間隔は最初のフレームからの目標時刻で管理するため、描画の間隔がばらついても撮影間隔の誤差は蓄積しません。
+	 * ただし描画が 1 間隔以上遅れた場合は、遅れを取り戻すために連続して撮影せず、現在の時刻から数え直します。
+	 * 
+	 * @param nowNanos 現在の時刻 (ナノ秒)
+	 * @return 撮影する場合は 0 から始まるフレーム番号。それ以外の場合は {@link #NOT_DUE}、{@link #DROPPED} または {@link #FINISHED}
+	 */
+	public synchronized int onFrame(final long nowNanos) {
+		if (mStopped || mIssuedCount >= mFrameCount) {
+			return FINISHED;
+		}
+		if (!mStarted) {
+			mStarted = true;
+			mNextFrameNanos = nowNanos;
+		}
+		if (nowNanos < mNextFrameNanos) {
+			return NOT_DUE;
+		}
+		mNextFrameNanos += mIntervalNanos;
+		if (mNextFrameNanos <= nowNanos) {
+			mNextFrameNanos = nowNanos + mIntervalNanos;
+		}
+
+		if (mInFlightCount >= mMaxInFlight) {
+			mDroppedCount++;
+			return DROPPED;
+		}
+		mInFlightCount++;
+		mCapturedCount++;
+		return mIssuedCount++;
+	}
+
+	/**
+	 * 撮影したフレームの処理を終えた時に呼び出します。
+	 * 
+	 * @return 全てのフレームの処理を終えて撮影が終了した場合は {@code true}
+	 */
+	public synchronized boolean release() {
+		if (mInFlightCount > 0) {
+			mInFlightCount--;
+		}
+		return isFinished();
+	}
+
+	/**
+	 * 撮影したフレームを処理できずに破棄した時に、{@link #release()} の代わりに呼び出します。<p>
+	 * 破棄したフレームは撮影したフレーム数から除いて破棄したフレーム数へ計上します。撮り直しは行いません。
+	 * 
+	 * @return 全てのフレームの処理を終えて撮影が終了した場合は {@code true}
+	 */
+	public synchronized boolean discard() {
+		if (mInFlightCount > 0) {
+			mInFlightCount--;
+			mCapturedCount--;
+			mDroppedCount++;
+		}
+		return isFinished();
+	}
+
+	/**
+	 * 撮影を中止します。<p>
+	 * 処理中のフレームは引き続き処理されます。
+	 * 
+	 * @return 処理中のフレームがなく撮影が終了した場合は {@code true}
+	 */
+	public synchronized boolean stop() {
+		mStopped = true;
+		return isFinished();
+	}
+
+	/**
+	 * 撮影が終了し、処理中のフレームがないかどうかを返します。
+	 * 
+	 * @return 撮影が終了した場合は {@code true}
+	 */
+	public synchronized boolean isFinished() {
+		return (mStopped || mIssuedCount >= mFrameCount) && mInFlightCount == 0;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 統計情報
+
+	/**
+	 * 撮影するフレーム数を返します。
+	 * 
+	 * @return 撮影するフレーム数
+	 */
+	public int getFrameCount() {
+		return mFrameCount;
+	}
+
+	/**
+	 * 撮影したフレーム数を返します。
+	 * 
+	 * @return 撮影したフレーム数
+	 */
+	public synchronized int getCapturedCount() {
+		return mCapturedCount;
+	}
+
+	/**
+	 * 処理中のフレームが上限に達していたため、または {@link #discard()} により破棄したフレーム数を返します。
+	 * 
+	 * @return 破棄したフレーム数
+	 */
+	public synchronized int getDroppedCount() {
+		return mDroppedCount;
+	}
+
+	/**
+	 * 処理中のフレーム数を返します。
+	 * 
+	 * @return 処理中のフレーム数
+	 */
+	public synchronized int getInFlightCount() {
+		return mInFlightCount;
+	}
+
+}
\ No newline at end of file
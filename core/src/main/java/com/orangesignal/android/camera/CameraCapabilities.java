@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import android.hardware.Camera;
+
+/**
+ * カメラがサポートする値の一覧と、サイズの選定結果を保持するクラスを提供します。<p>
+ * サポートする値の一覧は {@link Camera.Parameters} の文字列表現のまま保持して、参照する際に解析します。
+ * サイズの選定結果は {@link CameraHelper#setupOptimalPreviewSizeAndPictureSize(int, int, int)} の引数の組み合わせ毎に保持します。
+ * 
+ * @author 杉澤 浩二
+ */
+final class CameraCapabilities {
+
+	/**
+	 * サポートするプレビューサイズの一覧のキーです。
+	 */
+	static final String KEY_PREVIEW_SIZES = "preview-size-values";
+
+	/**
+	 * サポートするピクチャーサイズの一覧のキーです。
+	 */
+	static final String KEY_PICTURE_SIZES = "picture-size-values";
+
+	static final String KEY_ANTIBANDING = "antibanding-values";
+	static final String KEY_COLOR_EFFECTS = "effect-values";
+	static final String KEY_FLASH_MODES = "flash-mode-values";
+	static final String KEY_FOCUS_MODES = "focus-mode-values";
+	static final String KEY_SCENE_MODES = "scene-mode-values";
+	static final String KEY_WHITE_BALANCE = "whitebalance-values";
+
+	/**
+	 * サポートするフレームレートの範囲の一覧のキーです。
+	 */
+	static final String KEY_FPS_RANGES = "preview-fps-range-values";
+
+	/**
+	 * 保持するキーの一覧です。
+	 */
+	private static final String[] KEYS = {
+		KEY_PREVIEW_SIZES,
+		KEY_PICTURE_SIZES,
+		KEY_ANTIBANDING,
+		KEY_COLOR_EFFECTS,
+		KEY_FLASH_MODES,
+		KEY_FOCUS_MODES,
+		KEY_SCENE_MODES,
+		KEY_WHITE_BALANCE,
+		KEY_FPS_RANGES
+	};
+
+	/**
+	 * キーとサポートする値の一覧の文字列表現のマッピングを保持します。
+	 */
+	private final HashMap<String, String> mValues;
+
+	/**
+	 * 選定条件とサイズの選定結果のマッピングを保持します。
+	 */
+	private final HashMap<Long, int[]> mOptimalSizes = new HashMap<Long, int[]>();
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param values キーとサポートする値の一覧の文字列表現のマッピング
+	 */
+	CameraCapabilities(final HashMap<String, String> values) {
+		mValues = values;
+	}
+
+	/**
+	 * 指定されたパラメータからサポートする値の一覧を読み込みます。
+	 * 
+	 * @param params パラメータ
+	 * @return サポートする値の一覧
+	 */
+	public static CameraCapabilities from(final Camera.Parameters params) {
+		final HashMap<String, String> values = new HashMap<String, String>();
+		for (final String key : KEYS) {
+			final String value = params.get(key);
+			if (value != null) {
+				values.put(key, value);
+			}
+		}
+		return new CameraCapabilities(values);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 指定されたキーのサポートする値の一覧を返します。
+	 * 
+	 * @param key キー
+	 * @return サポートする値の一覧。サポートしていない場合は {@code null}
+	 */
+	public List<String> getValues(final String key) {
+		final String value = mValues.get(key);
+		if (value == null) {
+			return null;
+		}
+		// Camera.Parameters#split(String) と同じく、カンマで区切ります。
+		final ArrayList<String> results = new ArrayList<String>();
+		int start = 0;
+		while (true) {
+			final int end = value.indexOf(',', start);
+			if (end < 0) {
+				results.add(value.substring(start));
+				break;
+			}
+			results.add(value.substring(start, end));
+			start = end + 1;
+		}
+		return results;
+	}
+
+	/**
+	 * 指定されたキーのサポートするサイズの一覧を返します。
+	 * 
+	 * @param key キー
+	 * @return 幅と高さを交互に並べた配列。サポートしていない場合は {@code null}
+	 */
+	public int[] getSizes(final String key) {
+		final List<String> values = getValues(key);
+		if (values == null) {
+			return null;
+		}
+		final int[] results = new int[values.size() * 2];
+		int count = 0;
+		for (final String value : values) {
+			final int index = value.indexOf('x');
+			if (index < 0) {
+				continue;
+			}
+			try {
+				final int width = Integer.parseInt(value.substring(0, index));
+				final int height = Integer.parseInt(value.substring(index + 1));
+				results[count++] = width;
+				results[count++] = height;
+			} catch (final NumberFormatException e) {}	// 無視する
+		}
+		if (count < results.length) {
+			final int[] trimmed = new int[count];
+			System.arraycopy(results, 0, trimmed, 0, count);
+			return trimmed;
+		}
+		return results;
+	}
+
+	/**
+	 * 指定されたキーのサポートする範囲の一覧を返します。<p>
+	 * 範囲の一覧は {@code (15000,30000),(30000,30000)} のような形式です。
+	 * 
+	 * @param key キー
+	 * @return 最小値と最大値を交互に並べた配列。サポートしていない場合は {@code null}
+	 */
+	public int[] getRanges(final String key) {
+		final String value = mValues.get(key);
+		if (value == null) {
+			return null;
+		}
+		final int[] results = new int[value.length()];
+		int count = 0;
+		int start = value.indexOf('(');
+		while (start >= 0) {
+			final int comma = value.indexOf(',', start);
+			final int end = value.indexOf(')', start);
+			if (comma < 0 || end < comma) {
+				break;
+			}
+			try {
+				final int min = Integer.parseInt(value.substring(start + 1, comma).trim());
+				final int max = Integer.parseInt(value.substring(comma + 1, end).trim());
+				results[count++] = min;
+				results[count++] = max;
+			} catch (final NumberFormatException e) {}	// 無視する
+			start = value.indexOf('(', end);
+		}
+		final int[] trimmed = new int[count];
+		System.arraycopy(results, 0, trimmed, 0, count);
+		return trimmed;
+	}
+
+	/**
+	 * 指定されたキーのサポートするサイズの一覧を、指定されたカメラの {@link Camera.Size} として返します。
+	 * 
+	 * @param key キー
+	 * @param camera カメラ
+	 * @return サイズの一覧。サポートしていない場合は {@code null}
+	 */
+	public List<Camera.Size> getSizes(final String key, final Camera camera) {
+		final int[] sizes = getSizes(key);
+		if (sizes == null) {
+			return null;
+		}
+		final ArrayList<Camera.Size> results = new ArrayList<Camera.Size>(sizes.length / 2);
+		for (int i = 0; i < sizes.length; i += 2) {
+			results.add(camera.new Size(sizes[i], sizes[i + 1]));
+		}
+		return results;
+	}
+
+	/**
+	 * 指定された条件で選定したサイズを返します。
+	 * 
+	 * @param width 基準とする幅
+	 * @param height 基準とする高さ
+	 * @param maxSize 制限サイズ
+	 * @return プレビューの幅と高さ、ピクチャーの幅と高さの配列。最適なサイズが見つからなかった場合は空の配列。選定していない場合は {@code null}
+	 */
+	public synchronized int[] getOptimalSizes(final int width, final int height, final int maxSize) {
+		return mOptimalSizes.get(toOptimalSizeKey(width, height, maxSize));
+	}
+
+	/**
+	 * 指定された条件で選定したサイズを保持します。
+	 * 
+	 * @param width 基準とする幅
+	 * @param height 基準とする高さ
+	 * @param maxSize 制限サイズ
+	 * @param sizes プレビューの幅と高さ、ピクチャーの幅と高さの配列。最適なサイズが見つからなかった場合は空の配列
+	 */
+	public synchronized void putOptimalSizes(final int width, final int height, final int maxSize, final int[] sizes) {
+		mOptimalSizes.put(toOptimalSizeKey(width, height, maxSize), sizes);
+	}
+
+	private static Long toOptimalSizeKey(final int width, final int height, final int maxSize) {
+		// 各値を 21 ビットに収めて 1 つの値にまとめます。
+		return Long.valueOf(((long) (width & 0x1FFFFF) << 42) | ((long) (height & 0x1FFFFF) << 21) | (maxSize & 0x1FFFFF));
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 入出力
+
+	/**
+	 * 指定された出力ストリームへ書き込みます。
+	 * 
+	 * @param out 出力ストリーム
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	public synchronized void writeTo(final DataOutputStream out) throws IOException {
+		out.writeShort(mValues.size());
+		for (final Map.Entry<String, String> entry : mValues.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeUTF(entry.getValue());
+		}
+		out.writeShort(mOptimalSizes.size());
+		for (final Map.Entry<Long, int[]> entry : mOptimalSizes.entrySet()) {
+			out.writeLong(entry.getKey());
+			final int[] sizes = entry.getValue();
+			out.writeByte(sizes.length);
+			for (final int size : sizes) {
+				out.writeShort(size);
+			}
+		}
+	}
+
+	/**
+	 * 指定された入力ストリームから読み込みます。
+	 * 
+	 * @param in 入力ストリーム
+	 * @return サポートする値の一覧
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	public static CameraCapabilities readFrom(final DataInputStream in) throws IOException {
+		final HashMap<String, String> values = new HashMap<String, String>();
+		final int valueCount = in.readUnsignedShort();
+		for (int i = 0; i < valueCount; i++) {
+			final String key = in.readUTF();
+			values.put(key, in.readUTF());
+		}
+		final CameraCapabilities result = new CameraCapabilities(values);
+		final int sizeCount = in.readUnsignedShort();
+		for (int i = 0; i < sizeCount; i++) {
+			final Long key = Long.valueOf(in.readLong());
+			final int[] sizes = new int[in.readUnsignedByte()];
+			for (int j = 0; j < sizes.length; j++) {
+				sizes[j] = in.readUnsignedShort();
+			}
+			result.mOptimalSizes.put(key, sizes);
+		}
+		return result;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * カメラ ID 毎の {@link CameraCapabilities} を端末のファイルへ保存して、次回以降の起動時に再利用するキャッシュを提供します。<p>
+ * サポートする値の一覧はファームウェアが更新されない限り変わらないため、{@link Build#FINGERPRINT} と API レベルが一致する場合にのみファイルの内容を使用します。
+ * ファイルは最初に参照した時に読み込み、内容が変更されている場合は {@link #saveAsync()} でワーカースレッドから書き込みます。
+ * 
+ * @author 杉澤 浩二
+ */
+final class CameraCapabilityCache {
+
+	/**
+	 * ログ出力用のタグです。
+	 */
+	private static final String TAG = "CameraCapabilityCache";
+
+	/**
+	 * ファイルの形式を識別する値です。
+	 */
+	private static final int MAGIC = 0x4F534343;	// "OSCC"
+
+	/**
+	 * ファイルの形式のバージョンです。サイズの選定方法を変更した場合は選定結果を破棄するために更新します。
+	 */
+	static final int VERSION = 2;
+
+	/**
+	 * ファイル名です。
+	 */
+	private static final String FILE_NAME = "camera_capabilities.bin";
+
+	/**
+	 * ワーカースレッドが待機する秒数です。
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 3L;
+
+	/**
+	 * ファイルの書き込みを行うワーカースレッドを保持します。<p>
+	 * アイドル状態が続くとスレッドは終了するため、明示的に終了する必要はありません。
+	 */
+	private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "CameraCapabilityCache");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * 唯一のインスタンスを保持します。
+	 */
+	private static CameraCapabilityCache sInstance;
+
+	/**
+	 * 保存先のファイルを保持します。
+	 */
+	private final File mFile;
+
+	/**
+	 * 端末を識別する文字列を保持します。
+	 */
+	private final String mFingerprint;
+
+	/**
+	 * カメラ ID とサポートする値の一覧のマッピングを保持します。
+	 */
+	private HashMap<Integer, CameraCapabilities> mCapabilities;
+
+	/**
+	 * ファイルへ保存していない変更があるかどうかを保持します。
+	 */
+	private boolean mDirty;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param file 保存先のファイル
+	 * @param fingerprint 端末を識別する文字列
+	 */
+	CameraCapabilityCache(final File file, final String fingerprint) {
+		mFile = file;
+		mFingerprint = fingerprint;
+	}
+
+	/**
+	 * キャッシュのインスタンスを返します。
+	 * 
+	 * @param context コンテキスト
+	 * @return キャッシュのインスタンス
+	 */
+	public static synchronized CameraCapabilityCache getInstance(final Context context) {
+		if (sInstance == null) {
+			sInstance = new CameraCapabilityCache(
+					new File(context.getApplicationContext().getCacheDir(), FILE_NAME),
+					Build.FINGERPRINT + "/" + Build.VERSION.SDK_INT
+				);
+		}
+		return sInstance;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 指定されたカメラ ID のサポートする値の一覧を返します。
+	 * 
+	 * @param cameraId カメラ ID
+	 * @return サポートする値の一覧。保持していない場合は {@code null}
+	 */
+	public synchronized CameraCapabilities get(final int cameraId) {
+		return getCapabilities().get(cameraId);
+	}
+
+	/**
+	 * 指定されたカメラ ID のサポートする値の一覧を保持します。
+	 * 
+	 * @param cameraId カメラ ID
+	 * @param capabilities サポートする値の一覧
+	 */
+	public synchronized void put(final int cameraId, final CameraCapabilities capabilities) {
+		getCapabilities().put(cameraId, capabilities);
+		mDirty = true;
+	}
+
+	/**
+	 * 保持している内容が変更されたことを通知します。
+	 */
+	public synchronized void notifyChanged() {
+		mDirty = true;
+	}
+
+	/**
+	 * 保持している内容が変更されている場合は、ワーカースレッドからファイルへ書き込みます。
+	 */
+	public void saveAsync() {
+		final byte[] data;
+		synchronized (this) {
+			if (!mDirty) {
+				return;
+			}
+			mDirty = false;
+			try {
+				data = toByteArray();
+			} catch (final IOException e) {
+				Log.w(TAG, "Could not serialize camera capabilities", e);
+				return;
+			}
+		}
+		EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				write(data);
+			}
+		});
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private HashMap<Integer, CameraCapabilities> getCapabilities() {
+		if (mCapabilities == null && mFile.exists()) {
+			try {
+				final InputStream in = new BufferedInputStream(new FileInputStream(mFile));
+				try {
+					read(in);
+				} finally {
+					in.close();
+				}
+			} catch (final IOException e) {
+				Log.w(TAG, "Could not load camera capabilities", e);
+				mFile.delete();
+			}
+		}
+		if (mCapabilities == null) {
+			mCapabilities = new HashMap<Integer, CameraCapabilities>();
+		}
+		return mCapabilities;
+	}
+
+	/**
+	 * 指定された入力ストリームから読み込みます。<p>
+	 * 端末を識別する文字列やバージョンが一致しない場合は、保持している内容を空にします。
+	 * 
+	 * @param in 入力ストリーム
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	synchronized void read(final InputStream in) throws IOException {
+		final DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Invalid camera capabilities " + mFile);
+		}
+		final HashMap<Integer, CameraCapabilities> capabilities = new HashMap<Integer, CameraCapabilities>();
+		// ファームウェアが更新された場合などは、サポートする値の一覧を読み込み直します。
+		if (data.readInt() == VERSION && mFingerprint.equals(data.readUTF())) {
+			final int count = data.readUnsignedByte();
+			for (int i = 0; i < count; i++) {
+				final int cameraId = data.readInt();
+				capabilities.put(cameraId, CameraCapabilities.readFrom(data));
+			}
+		}
+		mCapabilities = capabilities;
+	}
+
+	/**
+	 * 保持している内容をバイト配列へ変換します。
+	 * 
+	 * @return バイト配列
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	byte[] toByteArray() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(mFingerprint);
+		final HashMap<Integer, CameraCapabilities> capabilities = getCapabilities();
+		out.writeByte(capabilities.size());
+		for (final Map.Entry<Integer, CameraCapabilities> entry : capabilities.entrySet()) {
+			out.writeInt(entry.getKey());
+			entry.getValue().writeTo(out);
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private void write(final byte[] data) {
+		// 書き込み途中のファイルを読み込まないように、一時ファイルへ書き込んでから名前を変更します。
+		final File temp = new File(mFile.getPath() + ".tmp");
+		try {
+			mFile.getParentFile().mkdirs();
+			final BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(temp));
+			try {
+				out.write(data);
+			} finally {
+				out.close();
+			}
+			if (!temp.renameTo(mFile)) {
+				throw new IOException("Could not rename " + temp);
+			}
+		} catch (final IOException e) {
+			Log.w(TAG, "Could not save camera capabilities", e);
+			temp.delete();
+		}
+	}
+
+}
\ No newline at end of file
@@ -131,6 +131,39 @@ public interface CameraHelper {
 	 */
 	void releaseCamera();
 
+	//////////////////////////////////////////////////////////////////////////
+	// パラメータの変更
+
+	/**
+	 * パラメータの変更をまとめるトランザクションを開始します。<p>
+	 * {@link #commitEdit()} を呼び出すまでの間に行った各種パラメータの変更は、個別にカメラへ適用せずに、
+	 * {@link #commitEdit()} で一度の {@link Camera#setParameters(Camera.Parameters)} によって適用します。
+	 * トランザクションは入れ子にでき、最も外側の {@link #commitEdit()} で適用します。
+	 * <pre>
+	 * helper.beginEdit();
+	 * try {
+	 *     helper.setFlashMode(Camera.Parameters.FLASH_MODE_AUTO);
+	 *     helper.setWhiteBalance(Camera.Parameters.WHITE_BALANCE_AUTO);
+	 * } finally {
+	 *     helper.commitEdit();
+	 * }
+	 * </pre>
+	 * 
+	 * @see {@link #commitEdit()}
+	 */
+	void beginEdit();
+
+	/**
+	 * パラメータの変更をまとめるトランザクションを終了して、保留した変更をカメラへ適用します。<p>
+	 * カメラが設定を受け付けなかった場合は、保持しているパラメータを破棄してカメラから読み込み直します。
+	 * トランザクション中にカメラへの接続や切断があった場合は、それまでに保留した変更は破棄され、以降の変更のみを適用します。
+	 * 
+	 * @return 変更を適用した場合や適用する変更がなかった場合は {@code true}。カメラが設定を受け付けなかった場合は {@code false}
+	 * @throws IllegalStateException {@link #beginEdit()} を呼び出していない場合
+	 * @see {@link #beginEdit()}
+	 */
+	boolean commitEdit();
+
 	//////////////////////////////////////////////////////////////////////////
 	// エラーハンドリング
 
@@ -152,6 +185,22 @@ public interface CameraHelper {
 	 */
 	void setupOptimalPreviewSizeAndPictureSize(int measureWidth, int measureHeight, int maxSize);
 
+	/**
+	 * {@link #setupOptimalPreviewSizeAndPictureSize(int, int, int)} でプレビューサイズとピクチャーサイズを選定する戦略を返します。
+	 * 
+	 * @return プレビューサイズとピクチャーサイズを選定する戦略。または {@code null}
+	 */
+	PreviewSizeSelector getPreviewSizeSelector();
+
+	/**
+	 * {@link #setupOptimalPreviewSizeAndPictureSize(int, int, int)} でプレビューサイズとピクチャーサイズを選定する戦略を設定します。<p>
+	 * {@code null} の場合は、要求サイズに最も近い高さのサイズを選定します。デフォルトは {@code null} です。
+	 * 
+	 * @param selector プレビューサイズとピクチャーサイズを選定する戦略。または {@code null}
+	 * @see BandwidthPreviewSizeSelector
+	 */
+	void setPreviewSizeSelector(PreviewSizeSelector selector);
+
 	/**
 	 * 現在のカメラの傾きを返します。
 	 * 
@@ -201,6 +250,31 @@ public interface CameraHelper {
 	 */
 	void onPreviewFrame(Camera.PreviewCallback cb);
 
+	/**
+	 * {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} で通知中のプレビューデータを、呼出しから戻った後も保持することを通知します。<p>
+	 * 実装はコールバックバッファを使用している場合、通知したバッファを既定では {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った時点で再利用します。
+	 * プレビューデータを別のスレッドへ渡すなどして呼出し後も保持する場合は、コールバック中にこのメソッドを呼び出して、
+	 * 使用を終えた後に {@link #addCallbackBuffer(byte[])} でバッファを返却する必要があります。
+	 */
+	void retainPreviewBuffer();
+
+	/**
+	 * {@link #retainPreviewBuffer()} で保持したプレビューデータの使用を終えたことを通知します。<p>
+	 * 実装はコールバックバッファを使用している場合、指定されたバッファをカメラへ登録し直すかプールへ返却して再利用可能にします。
+	 * 通知中のプレビューデータが指定された場合は、{@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った時点で再利用します。
+	 * 
+	 * @param data 使用を終えたプレビューデータ
+	 */
+	void addCallbackBuffer(byte[] data);
+
+	/**
+	 * プレビューコールバック用のバッファプールを返します。
+	 * コールバックバッファを使用していない場合は {@code null} を返します。
+	 * 
+	 * @return プレビューコールバック用のバッファプール。または {@code null}
+	 */
+	PreviewCallbackBufferPool getPreviewCallbackBufferPool();
+
 	/**
 	 * プレビューを停止します。
 	 */
@@ -41,6 +41,30 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 	 */
 	private Camera mCamera;
 
+	/**
+	 * カメラのパラメータのスナップショットを保持します。
+	 */
+	private final CameraParametersCache mParametersCache = new CameraParametersCache(new CameraParametersCache.Accessor() {
+		@Override
+		public Camera.Parameters getParameters() {
+			return mCamera.getParameters();
+		}
+		@Override
+		public void setParameters(final Camera.Parameters params) {
+			mCamera.setParameters(params);
+		}
+	});
+
+	/**
+	 * 現在のカメラがサポートする値の一覧を保持します。
+	 */
+	private CameraCapabilities mCapabilities;
+
+	/**
+	 * プレビューサイズとピクチャーサイズを選定する戦略を保持します。
+	 */
+	private PreviewSizeSelector mPreviewSizeSelector;
+
 	/**
 	 * 画像キャプチャ用コールバックを一時的に (キャプチャ要求から完了までの間) 保持します。
 	 */
@@ -85,6 +109,8 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 	 */
 	protected final void setCamera(final Camera camera) {
 		mCamera = camera;
+		mParametersCache.invalidate();
+		mCapabilities = null;
 	}
 
 	/**
@@ -102,6 +128,7 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 	 */
 	protected final void setCameraId(final int cameraId) {
 		mCameraId = cameraId;
+		mCapabilities = null;
 	}
 
 	@Override
@@ -140,7 +167,7 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 		if (cameraId != DEFAULT_CAMERA_ID) {
 			throw new RuntimeException();
 		}
-		mCamera = Camera.open();
+		setCamera(Camera.open());
 		setCameraId(cameraId);
 		initializeFocusMode();
 	}
@@ -163,7 +190,9 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 			if (mCamera != null) {
 				stopPreview();
 				mCamera.release();
-				mCamera = null;
+				setCamera(null);
+				// 今回の接続で得たサポートする値の一覧と選定結果を、次回以降の起動のために保存します。
+				CameraCapabilityCache.getInstance(mContext).saveAsync();
 			}
 //		}
 	}
@@ -183,41 +212,122 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 
 	@Override
 	public final void setupOptimalPreviewSizeAndPictureSize(final int measureWidth, final int measureHeight, final int maxSize) {
+		// プレビューサイズやピクチャーサイズは横置きを前提としたサイズなので端末が縦置きか横置きかで指定されたサイズを読みかえます。
+		int width;
+		int height;
+		if (getContext().getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT) {
+			width = measureHeight;
+			height = measureWidth;
+		} else {
+			width = measureWidth;
+			height = measureHeight;
+		}
+
+		if (mPreviewSizeSelector != null) {
+			setupSelectedPreviewSizeAndPictureSize(width, height, maxSize);
+			return;
+		}
+
+		// 同じ条件で選定済みの場合は、サイズの一覧を走査せずに選定結果を使用します。
+		final CameraCapabilities capabilities = getCapabilities();
+		int[] sizes = capabilities.getOptimalSizes(width, height, maxSize);
+		if (sizes == null) {
+			sizes = selectOptimalSizes(width, height, maxSize);
+			capabilities.putOptimalSizes(width, height, maxSize, sizes);
+			CameraCapabilityCache.getInstance(mContext).notifyChanged();
+		}
+
+		// 最適なプレビューサイズとピクチャーサイズが共にある場合は設定します。
+		if (sizes.length == 4) {
+			final Camera.Parameters parameters = getParameters();
+			parameters.setPreviewSize(sizes[0], sizes[1]);
+			parameters.setPictureSize(sizes[2], sizes[3]);
+			try {
+				applyParameters();
+			} catch (final RuntimeException e) {}	// 無視する
+		}
+	}
+
+	/**
+	 * 設定された戦略で選定したプレビューサイズ、ピクチャーサイズ、フレームレートの範囲を設定します。<p>
+	 * 選定結果は戦略の設定に依存するため、端末に保存せずに毎回選定します。
+	 * 
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param maxSize 制限サイズ (オプショナル)
+	 */
+	private void setupSelectedPreviewSizeAndPictureSize(final int width, final int height, final int maxSize) {
+		final PreviewSizeSelector.Selection selection = mPreviewSizeSelector.select(
+				toArray(getSupportedPreviewSizes()),
+				toArray(getSupportedPictureSizes()),
+				getCapabilities().getRanges(CameraCapabilities.KEY_FPS_RANGES),
+				width, height, maxSize
+			);
+		if (selection == null) {
+			return;
+		}
+		final Camera.Parameters parameters = getParameters();
+		parameters.setPreviewSize(selection.previewWidth, selection.previewHeight);
+		parameters.setPictureSize(selection.pictureWidth, selection.pictureHeight);
+		if (selection.maxFps > 0) {
+			// Camera.Parameters#setPreviewFpsRange(int, int) は API レベル 9 からのため、キーを直接指定します。
+			// フレームレートの範囲を受け付けない端末があるため、受け付けられなかった場合はトランザクション中でも適用時にサイズのみを適用し直します。
+			mParametersCache.setOptional("preview-fps-range", selection.minFps + "," + selection.maxFps);
+		}
+		try {
+			applyParameters();
+		} catch (final RuntimeException e) {}	// 無視する
+	}
+
+	private static int[] toArray(final List<Camera.Size> sizes) {
+		if (sizes == null) {
+			return null;
+		}
+		final int[] results = new int[sizes.size() * 2];
+		int i = 0;
+		for (final Camera.Size size : sizes) {
+			results[i++] = size.width;
+			results[i++] = size.height;
+		}
+		return results;
+	}
+
+	@Override
+	public final PreviewSizeSelector getPreviewSizeSelector() {
+		return mPreviewSizeSelector;
+	}
+
+	@Override
+	public final void setPreviewSizeSelector(final PreviewSizeSelector selector) {
+		mPreviewSizeSelector = selector;
+	}
+
+	/**
+	 * 指定された横置きのサイズに最適なプレビューサイズとピクチャーサイズを選定します。
+	 * 
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param maxSize 制限サイズ (オプショナル)
+	 * @return プレビューの幅と高さ、ピクチャーの幅と高さの配列。最適なサイズが見つからなかった場合は空の配列
+	 */
+	private int[] selectOptimalSizes(final int width, final int height, final int maxSize) {
 		final List<Camera.Size> supportedPreviewSizes = getSupportedPreviewSizes();
 		final List<Camera.Size> supportedPictureSizes = getSupportedPictureSizes();
 
 		// プレビューサイズの一覧とピクチャーサイズの一覧をサポートしている場合のみ以下の処理ブロックを実行します。
 		if (supportedPreviewSizes != null && supportedPictureSizes != null) {
-			// プレビューサイズやピクチャーサイズは横置きを前提としたサイズなので端末が縦置きか横置きかで指定されたサイズを読みかえます。
-			int width;
-			int height;
-			if (getContext().getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT) {
-				width = measureHeight;
-				height = measureWidth;
-			} else {
-				width = measureWidth;
-				height = measureHeight;
-			}
-
 			// まずはピクチャーサイズを選定します。
 			final Camera.Size pictureSize = getOptimalSize(supportedPictureSizes, width, height, maxSize);
-			if (pictureSize != null) {
-				width = pictureSize.width;
-				height = pictureSize.height;
-			}
 			// 指定されたサイズに最適なプレビューサイズとピクチャーサイズを求めます。
-			final Camera.Size previewSize = getOptimalSize(supportedPreviewSizes, width, height, maxSize);
+			final Camera.Size previewSize = pictureSize != null
+					? getOptimalSize(supportedPreviewSizes, pictureSize.width, pictureSize.height, maxSize)
+					: getOptimalSize(supportedPreviewSizes, width, height, maxSize);
 
-			// 最適なプレビューサイズとピクチャーサイズが共にある場合は設定します。
 			if (previewSize != null && pictureSize != null) {
-				final Camera.Parameters parameters = getCamera().getParameters();
-				parameters.setPreviewSize(previewSize.width, previewSize.height);
-				parameters.setPictureSize(pictureSize.width, pictureSize.height);
-				try {
-					getCamera().setParameters(parameters);
-				} catch (final RuntimeException e) {}	// 無視する
+				return new int[]{ previewSize.width, previewSize.height, pictureSize.width, pictureSize.height };
 			}
 		}
+		return new int[0];
 	}
 
 	private static final double ASPECT_TOLERANCE = 0.1D;
@@ -233,49 +343,49 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 	 * @return 最適なサイズ。または {@code null}
 	 * @see ApiDemos の CameraPreview
 	 */
-	private static Camera.Size getOptimalSize(final List<Camera.Size> sizes, final int width, final int height, final int maxSize) {
+	static Camera.Size getOptimalSize(final List<Camera.Size> sizes, final int width, final int height, final int maxSize) {
 		if (sizes == null) {
 			return null;
 		}
+		final int i = getOptimalSize(toArray(sizes), width, height, maxSize);
+		return i >= 0 ? sizes.get(i / 2) : null;
+	}
 
-		Camera.Size result = null;
-		double minDiff = Double.MAX_VALUE;
-
-		// アスペクト比が一致するサイズを検索します。
+	/**
+	 * 幅と高さを交互に並べたサイズから、指定された幅と高さに最適なサイズを返します。<p>
+	 * 縦横比が一致するサイズの中から最も高さが近いサイズを探し、一致するサイズがない場合は全てのサイズから探します。
+	 * 
+	 * @param sizes 幅と高さを交互に並べたサイズ
+	 * @param width 基準とする幅
+	 * @param height 基準とする高さ
+	 * @param maxSize 制限サイズ (オプショナル)
+	 * @return 最適なサイズの幅の位置。見つからない場合は {@code -1}
+	 */
+	static int getOptimalSize(final int[] sizes, final int width, final int height, final int maxSize) {
 		final double targetRatio = (double) width / (double) height;
-		for (final Camera.Size size : sizes) {
+		int result = -1;
+		int resultWithoutAspect = -1;
+		int minDiff = Integer.MAX_VALUE;
+		int minDiffWithoutAspect = Integer.MAX_VALUE;
+		for (int i = 0; i + 1 < sizes.length; i += 2) {
 			// サイズ制限が有効な場合に、制限を超えていれば無視します。
-			if (maxSize > 0 && (size.width > maxSize || size.height > maxSize)) {
-				continue;
-			}
-			// アスペクト比が近似値の範囲外であれば無視します。
-			final double ratio = (double) size.width / (double) size.height;
-			if (Math.abs(ratio - targetRatio) > ASPECT_TOLERANCE) {
+			if (maxSize > 0 && (sizes[i] > maxSize || sizes[i + 1] > maxSize)) {
 				continue;
 			}
 			// 指定されたサイズにより近ければ採用します。
-			if (Math.abs(size.height - height) < minDiff) {
-				result = size;
-				minDiff = Math.abs(size.height - height);
+			final int diff = Math.abs(sizes[i + 1] - height);
+			if (diff < minDiffWithoutAspect) {
+				resultWithoutAspect = i;
+				minDiffWithoutAspect = diff;
 			}
-		}
-
-		// アスペクト非で一致するサイズが見つからなかった場合
-		if (result == null) {
-			minDiff = Double.MAX_VALUE;
-			for (final Camera.Size size : sizes) {
-				// サイズ制限が有効な場合に、制限を超えていれば無視します。
-				if (maxSize > 0 && (size.width > maxSize || size.height > maxSize)) {
-					continue;
-				}
-				if (Math.abs(size.height - height) < minDiff) {
-					result = size;
-					minDiff = Math.abs(size.height - height);
-				}
+			// アスペクト比が近似値の範囲内であれば、アスペクト比が一致するサイズとして採用します。
+			if (Math.abs((double) sizes[i] / (double) sizes[i + 1] - targetRatio) <= ASPECT_TOLERANCE && diff < minDiff) {
+				result = i;
+				minDiff = diff;
 			}
 		}
-
-		return result;
+		// アスペクト比で一致するサイズが見つからなかった場合は、全てのサイズから最も近いサイズを返します。
+		return result >= 0 ? result : resultWithoutAspect;
 	}
 
 	@Override
@@ -297,7 +407,7 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 	 */
 	@Override
 	public void setDisplayOrientation(final int degrees) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		if (getContext().getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT) {
 			params.set("orientation", "portrait");
 		} else {
@@ -305,7 +415,7 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 		}
 		params.set("rotation", degrees);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException e) {
 			// 無視する
 		}
@@ -350,6 +460,28 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 	public void onPreviewFrame(final Camera.PreviewCallback cb) {
 	}
 
+	/**
+	 * この実装は何も行いません。
+	 */
+	@Override
+	public void retainPreviewBuffer() {
+	}
+
+	/**
+	 * この実装は何も行いません。
+	 */
+	@Override
+	public void addCallbackBuffer(final byte[] data) {
+	}
+
+	/**
+	 * この実装は常に {@code null} を返します。
+	 */
+	@Override
+	public PreviewCallbackBufferPool getPreviewCallbackBufferPool() {
+		return null;
+	}
+
 	@Override
 	public final void stopPreview() {
 		synchronized (this) {
@@ -427,8 +559,53 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	/**
+	 * カメラのパラメータを返します。<p>
+	 * 返されるパラメータはカメラへ接続してから最初に呼び出した時に読み込んだスナップショットです。
+	 * パラメータを変更した場合は {@link #applyParameters()} を呼び出してカメラへ適用する必要があります。
+	 * 
+	 * @return カメラのパラメータ
+	 */
 	protected final Camera.Parameters getParameters() {
-		return mCamera.getParameters();
+		return mParametersCache.get();
+	}
+
+	/**
+	 * {@link #getParameters()} で返したパラメータへの変更をカメラへ適用します。<p>
+	 * {@link #beginEdit()} によるトランザクション中の場合は適用を保留して、{@link #commitEdit()} でまとめて適用します。
+	 * 
+	 * @throws RuntimeException カメラが設定を受け付けなかった場合
+	 */
+	protected final void applyParameters() {
+		mParametersCache.apply();
+	}
+
+	/**
+	 * 現在のカメラがサポートする値の一覧を返します。<p>
+	 * 端末のファイルへ保存された一覧がある場合はそれを使用し、ない場合はカメラのパラメータから読み込んで保存します。
+	 * 
+	 * @return 現在のカメラがサポートする値の一覧
+	 */
+	final CameraCapabilities getCapabilities() {
+		if (mCapabilities == null) {
+			final CameraCapabilityCache cache = CameraCapabilityCache.getInstance(mContext);
+			mCapabilities = cache.get(mCameraId);
+			if (mCapabilities == null) {
+				mCapabilities = CameraCapabilities.from(getParameters());
+				cache.put(mCameraId, mCapabilities);
+			}
+		}
+		return mCapabilities;
+	}
+
+	@Override
+	public final void beginEdit() {
+		mParametersCache.begin();
+	}
+
+	@Override
+	public final boolean commitEdit() {
+		return mParametersCache.commit();
 	}
 
 	/**
@@ -506,7 +683,7 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 			return null;
 		}
 		try {
-			final List<Camera.Size> results = (List<Camera.Size>) method.invoke(mCamera.getParameters());
+			final List<Camera.Size> results = (List<Camera.Size>) method.invoke(getParameters());
 			// サイズを大きい順に並べて返却しない端末があるので、マニュアルで大きい順に並べて返却します。
 			Collections.sort(results, new CameraSizeComparator());
 			return results;
@@ -530,7 +707,7 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 			return null;
 		}
 		try {
-			final List<Camera.Size> results = (List<Camera.Size>) method.invoke(mCamera.getParameters());
+			final List<Camera.Size> results = (List<Camera.Size>) method.invoke(getParameters());
 			// サイズを大きい順に並べて返却しない端末があるので、マニュアルで大きい順に並べて返却します。
 			Collections.sort(results, new CameraSizeComparator());
 			return results;
@@ -542,20 +719,20 @@ class CameraHelperBase implements CameraHelper, Camera.PictureCallback {
 
 	@Override
 	public final Size getPreviewSize() {
-		return mCamera.getParameters().getPreviewSize();
+		return getParameters().getPreviewSize();
 	}
 
 	@Override
 	public final Size getPictureSize() {
-		return mCamera.getParameters().getPictureSize();
+		return getParameters().getPictureSize();
 	}
 
 	@Override
 	public final void setPictureFormat(final int format) {
-		final Camera.Parameters params = mCamera.getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setPictureFormat(format);
 		try {
-			mCamera.setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException e) {
 			// 無視する
 		}
@@ -50,10 +50,10 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public void setDisplayOrientation(final int degrees) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setRotation(degrees);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException e) {
 			// 無視する
 		}
@@ -70,17 +70,17 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 		// 写真撮影に最適なフォーカスモードを設定します。
 		final List<String> supportedFocusModes = getSupportedFocusModes();
 		if (supportedFocusModes != null) {
-			final Camera.Parameters parameters = getCamera().getParameters();
+			final Camera.Parameters parameters = getParameters();
 			// 無限フォーカスをサポートしている場合は設定します。
 			if (supportedFocusModes.contains(Camera.Parameters.FOCUS_MODE_AUTO)) {
 				parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_AUTO);
 				try {
-					getCamera().setParameters(parameters);
+					applyParameters();
 				} catch (final RuntimeException e) {}	// 無視する
 			} else if (supportedFocusModes.contains(Camera.Parameters.FOCUS_MODE_INFINITY)) {
 				parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_INFINITY);
 				try {
-					getCamera().setParameters(parameters);
+					applyParameters();
 				} catch (final RuntimeException e) {}	// 無視する
 			} else {
 				super.initializeFocusMode();
@@ -138,24 +138,28 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	// パラメータ操作
 
 	/**
-	 * この実装は {@link Camera.Parameters#getSupportedPreviewSizes()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedPreviewSizes()} と同じ値を返します。
 	 */
 	@Override
 	public List<Camera.Size> getSupportedPreviewSizes() {
-		final List<Camera.Size> results = getCamera().getParameters().getSupportedPreviewSizes();
-		// サイズを大きい順に並べて返却しない端末があるので、マニュアルで大きい順に並べて返却します。
-		Collections.sort(results, new CameraSizeComparator());
+		final List<Camera.Size> results = getCapabilities().getSizes(CameraCapabilities.KEY_PREVIEW_SIZES, getCamera());
+		if (results != null) {
+			// サイズを大きい順に並べて返却しない端末があるので、マニュアルで大きい順に並べて返却します。
+			Collections.sort(results, new CameraSizeComparator());
+		}
 		return results;
 	}
 
 	/**
-	 * この実装は {@link Camera.Parameters#getSupportedPictureSizes()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedPictureSizes()} と同じ値を返します。
 	 */
 	@Override
 	public List<Camera.Size> getSupportedPictureSizes() {
-		final List<Camera.Size> results = getCamera().getParameters().getSupportedPictureSizes();
-		// サイズを大きい順に並べて返却しない端末があるので、マニュアルで大きい順に並べて返却します。
-		Collections.sort(results, new CameraSizeComparator());
+		final List<Camera.Size> results = getCapabilities().getSizes(CameraCapabilities.KEY_PICTURE_SIZES, getCamera());
+		if (results != null) {
+			// サイズを大きい順に並べて返却しない端末があるので、マニュアルで大きい順に並べて返却します。
+			Collections.sort(results, new CameraSizeComparator());
+		}
 		return results;
 	}
 
@@ -164,7 +168,7 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public String getAntibanding() {
-		return getCamera().getParameters().getAntibanding();
+		return getParameters().getAntibanding();
 	}
 
 	/**
@@ -172,7 +176,7 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public String getColorEffect() {
-		return getCamera().getParameters().getColorEffect();
+		return getParameters().getColorEffect();
 	}
 
 	/**
@@ -180,7 +184,7 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public String getFlashMode() {
-		return getCamera().getParameters().getFlashMode();
+		return getParameters().getFlashMode();
 	}
 
 	/**
@@ -188,7 +192,7 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public String getFocusMode() {
-		return getCamera().getParameters().getFocusMode();
+		return getParameters().getFocusMode();
 	}
 
 	/**
@@ -196,7 +200,7 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public String getSceneMode() {
-		return getCamera().getParameters().getSceneMode();
+		return getParameters().getSceneMode();
 	}
 
 	/**
@@ -204,85 +208,85 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 	 */
 	@Override
 	public String getWhiteBalance() {
-		return getCamera().getParameters().getWhiteBalance();
+		return getParameters().getWhiteBalance();
 	}
 
 	/**
-	 * この実装は単に {@link Camera.Parameters#getSupportedAntibanding()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedAntibanding()} と同じ値を返します。
 	 */
 	@Override
 	public List<String> getSupportedAntibanding() {
-		return getCamera().getParameters().getSupportedAntibanding();
+		return getCapabilities().getValues(CameraCapabilities.KEY_ANTIBANDING);
 	}
 
 	/**
-	 * この実装は単に {@link Camera.Parameters#getSupportedColorEffects()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedColorEffects()} と同じ値を返します。
 	 */
 	@Override
 	public List<String> getSupportedColorEffects() {
-		return getCamera().getParameters().getSupportedColorEffects();
+		return getCapabilities().getValues(CameraCapabilities.KEY_COLOR_EFFECTS);
 	}
 
 	/**
-	 * この実装は単に {@link Camera.Parameters#getSupportedFlashModes()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedFlashModes()} と同じ値を返します。
 	 */
 	@Override
 	public List<String> getSupportedFlashModes() {
-		return getCamera().getParameters().getSupportedFlashModes();
+		return getCapabilities().getValues(CameraCapabilities.KEY_FLASH_MODES);
 	}
 
 	/**
-	 * この実装は単に {@link Camera.Parameters#getSupportedFocusModes()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedFocusModes()} と同じ値を返します。
 	 */
 	@Override
 	public List<String> getSupportedFocusModes() {
-		return getCamera().getParameters().getSupportedFocusModes();
+		return getCapabilities().getValues(CameraCapabilities.KEY_FOCUS_MODES);
 	}
 
 	/**
-	 * この実装は単に {@link Camera.Parameters#getSupportedSceneModes()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedSceneModes()} と同じ値を返します。
 	 */
 	@Override
 	public List<String> getSupportedSceneModes() {
-		return getCamera().getParameters().getSupportedSceneModes();
+		return getCapabilities().getValues(CameraCapabilities.KEY_SCENE_MODES);
 	}
 
 	/**
-	 * この実装は単に {@link Camera.Parameters#getSupportedWhiteBalance()} を呼び出して戻り値を返します。
+	 * この実装は端末に保存した一覧を使用して、{@link Camera.Parameters#getSupportedWhiteBalance()} と同じ値を返します。
 	 */
 	@Override
 	public List<String> getSupportedWhiteBalance() {
-		return getCamera().getParameters().getSupportedWhiteBalance();
+		return getCapabilities().getValues(CameraCapabilities.KEY_WHITE_BALANCE);
 	}
 
 	@Override
 	public List<String> getSupportedAntibanding(final String... values) {
-		return getContainsList(getCamera().getParameters().getSupportedAntibanding(), values);
+		return getContainsList(getCapabilities().getValues(CameraCapabilities.KEY_ANTIBANDING), values);
 	}
 
 	@Override
 	public List<String> getSupportedColorEffects(final String... values) {
-		return getContainsList(getCamera().getParameters().getSupportedColorEffects(), values);
+		return getContainsList(getCapabilities().getValues(CameraCapabilities.KEY_COLOR_EFFECTS), values);
 	}
 
 	@Override
 	public List<String> getSupportedFlashModes(final String... values) {
-		return getContainsList(getCamera().getParameters().getSupportedFlashModes(), values);
+		return getContainsList(getCapabilities().getValues(CameraCapabilities.KEY_FLASH_MODES), values);
 	}
 
 	@Override
 	public List<String> getSupportedFocusModes(final String... values) {
-		return getContainsList(getCamera().getParameters().getSupportedFocusModes(), values);
+		return getContainsList(getCapabilities().getValues(CameraCapabilities.KEY_FOCUS_MODES), values);
 	}
 
 	@Override
 	public List<String> getSupportedSceneModes(final String... values) {
-		return getContainsList(getCamera().getParameters().getSupportedSceneModes(), values);
+		return getContainsList(getCapabilities().getValues(CameraCapabilities.KEY_SCENE_MODES), values);
 	}
 
 	@Override
 	public List<String> getSupportedWhiteBalance(final String... values) {
-		return getContainsList(getCamera().getParameters().getSupportedWhiteBalance(), values);
+		return getContainsList(getCapabilities().getValues(CameraCapabilities.KEY_WHITE_BALANCE), values);
 	}
 
 	private static List<String> getContainsList(final List<String> list, final String... values) {
@@ -304,55 +308,55 @@ class CameraHelperEclair extends CameraHelperDonut implements Camera.AutoFocusCa
 
 	@Override
 	public void setAntibanding(final String antibanding) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setAntibanding(antibanding);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
 	@Override
 	public void setColorEffect(final String value) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setColorEffect(value);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
 	@Override
 	public void setFlashMode(final String value) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setFlashMode(value);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
 	@Override
 	public void setFocusMode(final String value) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setFocusMode(value);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
 	@Override
 	public void setSceneMode(final String value) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setSceneMode(value);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
 	@Override
 	public void setWhiteBalance(final String value) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setWhiteBalance(value);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
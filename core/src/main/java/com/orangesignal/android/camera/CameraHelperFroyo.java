@@ -29,9 +29,19 @@ import android.view.WindowManager;
 class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChangeListener {
 
 	/**
-	 * プレビューコールバック用のバッファを保持します。
+	 * プレビューコールバック用のバッファの最大数です。
 	 */
-	private byte[] mBuffer;
+	private static final int PREVIEW_CALLBACK_BUFFER_COUNT = 3;
+
+	/**
+	 * プレビューコールバック用のバッファプールを保持します。
+	 */
+	private volatile PreviewCallbackBufferPool mBufferPool;
+
+	/**
+	 * コールバックバッファを使用するプレビューコールバックを保持します。
+	 */
+	private volatile PreviewCallbackDispatcher mDispatcher;
 
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
@@ -123,48 +133,98 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 	}
 
 	/**
-	 * この実装は {@link Camera#setPreviewCallbackWithBuffer(android.hardware.Camera.PreviewCallback)} を使用してプレビューコールバックを設定します。
+	 * この実装は {@link Camera#setPreviewCallbackWithBuffer(android.hardware.Camera.PreviewCallback)} を使用してプレビューコールバックを設定します。<p>
+	 * プレビューデータと同じサイズのバッファを {@link #PREVIEW_CALLBACK_BUFFER_COUNT} 個まで確保するバッファプールを構成して、
+	 * 一つを予備として残したバッファを {@link Camera#addCallbackBuffer(byte[])} で登録します。
+	 * 通知したバッファは {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った時点で再び登録されます。
 	 */
 	@Override
 	public void setPreviewCallback(final Camera.PreviewCallback cb) {
 		final Camera camera = getCamera();
 		if (cb != null) {
+			// コールバックバッファのプールを構成します。
+			final Camera.Size previewSize = getPreviewSize();
+			final Camera.Parameters parameters = getParameters();
+			final PreviewCallbackBufferPool pool = new PreviewCallbackBufferPool(
+					previewSize.width * previewSize.height * ImageFormat.getBitsPerPixel(parameters.getPreviewFormat()) / 8,
+					PREVIEW_CALLBACK_BUFFER_COUNT
+				);
+
+			final PreviewCallbackDispatcher dispatcher = new PreviewCallbackDispatcher(cb, pool, PREVIEW_CALLBACK_BUFFER_COUNT - 1) {
+				@Override
+				protected void queueBuffer(final byte[] buffer) {
+					final Camera camera = getCamera();
+					if (camera != null) {
+						camera.addCallbackBuffer(buffer);
+					}
+				}
+			};
+			camera.setPreviewCallbackWithBuffer(dispatcher);
+			int count = 0;
 			try {
-				// コールバックバッファを設定します。
-				final Camera.Size previewSize = getPreviewSize();
-				final Camera.Size pictureSize = getPictureSize();
-				final Camera.Parameters parameters = camera.getParameters();
-				mBuffer = new byte[Math.max(
-						previewSize.width * previewSize.height * ImageFormat.getBitsPerPixel(parameters.getPreviewFormat()) / 8,
-						pictureSize.width * pictureSize.height * ImageFormat.getBitsPerPixel(ImageFormat.RGB_565) / 8
-					)];
-				camera.setPreviewCallbackWithBuffer(cb);
-				camera.addCallbackBuffer(mBuffer);
-			} catch (final OutOfMemoryError e) {
+				for (; count < PREVIEW_CALLBACK_BUFFER_COUNT - 1; count++) {
+					camera.addCallbackBuffer(pool.obtainForQueue(PREVIEW_CALLBACK_BUFFER_COUNT - 1));
+				}
+			} catch (final OutOfMemoryError e) {}	// 確保できた分のバッファで処理します。
+
+			if (count > 0) {
+				mBufferPool = pool;
+				mDispatcher = dispatcher;
+			} else {
 				// メモリ不足の場合は、以前の方式でプレビューコールバックを設定します。
-				mBuffer = null;
+				mBufferPool = null;
+				mDispatcher = null;
 				camera.setPreviewCallbackWithBuffer(null);
 				super.setPreviewCallback(cb);
 			}
 		} else {
-			mBuffer = null;
+			mBufferPool = null;
+			mDispatcher = null;
 			camera.setPreviewCallbackWithBuffer(null);
 			camera.setPreviewCallback(null);
 		}
 	}
 
 	/**
-	 * この実装は {@link Camera#addCallbackBuffer(byte[])} を使用してプレビューのコールバックが再度通知されるようにします。
+	 * この実装はコールバックバッファを使用している場合は何も行いません。
+	 * 通知したバッファは {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った時点で既に登録し直されています。
 	 */
 	@Override
 	public void onPreviewFrame(final Camera.PreviewCallback cb) {
-		if (mBuffer != null) {
-			getCamera().addCallbackBuffer(mBuffer);
-		} else {
+		if (mDispatcher == null) {
 			super.onPreviewFrame(cb);
 		}
 	}
 
+	/**
+	 * この実装は通知中のバッファを {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った後も登録し直さずに保持して、
+	 * 代わりにバッファプールから取得したバッファを {@link Camera#addCallbackBuffer(byte[])} で登録します。
+	 */
+	@Override
+	public void retainPreviewBuffer() {
+		final PreviewCallbackDispatcher dispatcher = mDispatcher;
+		if (dispatcher != null) {
+			dispatcher.retain();
+		}
+	}
+
+	/**
+	 * この実装はカメラへ登録中のバッファが {@link #PREVIEW_CALLBACK_BUFFER_COUNT} - 1 個に満たない場合は、
+	 * 指定されたバッファを直ちに {@link Camera#addCallbackBuffer(byte[])} で登録し直します。それ以外の場合はバッファプールへ返却します。
+	 */
+	@Override
+	public void addCallbackBuffer(final byte[] data) {
+		final PreviewCallbackDispatcher dispatcher = mDispatcher;
+		if (dispatcher != null) {
+			dispatcher.addCallbackBuffer(data);
+		}
+	}
+
+	@Override
+	public PreviewCallbackBufferPool getPreviewCallbackBufferPool() {
+		return mBufferPool;
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// 露出補正
 
@@ -173,7 +233,7 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 	 */
 	@Override
 	public int getMaxExposureCompensation() {
-		return getCamera().getParameters().getMaxExposureCompensation();
+		return getParameters().getMaxExposureCompensation();
 	}
 
 	/**
@@ -181,7 +241,7 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 	 */
 	@Override
 	public int getMinExposureCompensation() {
-		return getCamera().getParameters().getMinExposureCompensation();
+		return getParameters().getMinExposureCompensation();
 	}
 
 	/**
@@ -189,7 +249,7 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 	 */
 	@Override
 	public float getExposureCompensationStep() {
-		return getCamera().getParameters().getExposureCompensationStep();
+		return getParameters().getExposureCompensationStep();
 	}
 
 	/**
@@ -197,15 +257,15 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 	 */
 	@Override
 	public int getExposureCompensation() {
-		return getCamera().getParameters().getExposureCompensation();
+		return getParameters().getExposureCompensation();
 	}
 
 	@Override
 	public void setExposureCompensation(final int value) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setExposureCompensation(value);
 		try {
-			getCamera().setParameters(params);
+			applyParameters();
 		} catch (final RuntimeException  e) {}	// 無視する
 	}
 
@@ -251,7 +311,7 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 	public void setZoom(final int value) {
 		final Camera.Parameters params = getParameters();
 		params.setZoom(value);
-		getCamera().setParameters(params);
+		applyParameters();
 	}
 
 	private OnZoomChangeListener mOnZoomChangeListener;
@@ -267,6 +327,10 @@ class CameraHelperFroyo extends CameraHelperEclair implements Camera.OnZoomChang
 
 	@Override
 	public void onZoomChange(final int zoomValue, final boolean stopped, final Camera camera) {
+		// スムーズズームはパラメータを経由せずにズーム値を変更するため、保持しているパラメータへ反映します。
+		if (getCamera() != null) {
+			getParameters().setZoom(zoomValue);
+		}
 		if (mOnZoomChangeListener != null) {
 			mOnZoomChangeListener.onZoomChange(zoomValue, stopped, this);
 		}
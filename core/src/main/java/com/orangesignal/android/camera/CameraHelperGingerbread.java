@@ -83,10 +83,10 @@ class CameraHelperGingerbread extends CameraHelperFroyo {
 		if (supportedFocusModes != null) {
 			// 動画向けの連続フォーカスをサポートしている場合は設定します。
 			if (supportedFocusModes.contains(Camera.Parameters.FOCUS_MODE_CONTINUOUS_VIDEO)) {
-				final Camera.Parameters parameters = getCamera().getParameters();
+				final Camera.Parameters parameters = getParameters();
 				parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_VIDEO);
 				try {
-					getCamera().setParameters(parameters);
+					applyParameters();
 				} catch (final RuntimeException e) {}	// 無視する
 			} else {
 				super.initializeFocusMode();
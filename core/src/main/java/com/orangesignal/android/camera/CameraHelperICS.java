@@ -58,10 +58,10 @@ class CameraHelperICS extends CameraHelperHonycomb {
 		if (supportedFocusModes != null) {
 			// 動画向けの連続フォーカスをサポートしている場合は設定します。
 			if (supportedFocusModes.contains(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE)) {
-				final Camera.Parameters parameters = getCamera().getParameters();
+				final Camera.Parameters parameters = getParameters();
 				parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE);
 				try {
-					getCamera().setParameters(parameters);
+					applyParameters();
 				} catch (final RuntimeException e) {}	// 無視する
 			} else {
 				super.initializeFocusMode();
@@ -77,7 +77,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public int getMaxNumFocusAreas() {
-		return getCamera().getParameters().getMaxNumFocusAreas();
+		return getParameters().getMaxNumFocusAreas();
 	}
 
 	/**
@@ -85,7 +85,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public List<AreaCompat> getFocusAreas() {
-		return repackCompatAreas(getCamera().getParameters().getFocusAreas());
+		return repackCompatAreas(getParameters().getFocusAreas());
 	}
 
 	/**
@@ -101,9 +101,9 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public void setFocusAreas(final List<AreaCompat> focusAreas) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setFocusAreas(repackInternalAreas(focusAreas));
-		getCamera().setParameters(params);
+		applyParameters();
 	}
 
 	/**
@@ -111,7 +111,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public int getMaxNumMeteringAreas() {
-		return getCamera().getParameters().getMaxNumMeteringAreas();
+		return getParameters().getMaxNumMeteringAreas();
 	}
 
 	/**
@@ -119,7 +119,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public List<AreaCompat> getMeteringAreas() {
-		return repackCompatAreas(getCamera().getParameters().getMeteringAreas());
+		return repackCompatAreas(getParameters().getMeteringAreas());
 	}
 
 	/**
@@ -135,9 +135,9 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public void setMeteringAreas(final List<AreaCompat> meteringAreas) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setMeteringAreas(repackInternalAreas(meteringAreas));
-		getCamera().setParameters(params);
+		applyParameters();
 	}
 
 	protected static final List<AreaCompat> repackCompatAreas(final List<Camera.Area> areas) {
@@ -172,7 +172,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public boolean isAutoExposureLockSupported() {
-		return getCamera().getParameters().isAutoExposureLockSupported();
+		return getParameters().isAutoExposureLockSupported();
 	}
 
 	/**
@@ -180,9 +180,9 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public void setAutoExposureLock(final boolean toggle) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setAutoExposureLock(toggle);
-		getCamera().setParameters(params);
+		applyParameters();
 	};
 
 	/**
@@ -190,7 +190,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public boolean getAutoExposureLock() {
-		return getCamera().getParameters().getAutoExposureLock();
+		return getParameters().getAutoExposureLock();
 	}
 
 	/**
@@ -198,7 +198,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public boolean isAutoWhiteBalanceLockSupported() {
-		return getCamera().getParameters().isAutoWhiteBalanceLockSupported();
+		return getParameters().isAutoWhiteBalanceLockSupported();
 	}
 
 	/**
@@ -206,9 +206,9 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public void setAutoWhiteBalanceLock(final boolean toggle) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setAutoWhiteBalanceLock(toggle);
-		getCamera().setParameters(params);
+		applyParameters();
 	}
 
 	/**
@@ -216,7 +216,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public boolean getAutoWhiteBalanceLock() {
-		return getCamera().getParameters().getAutoWhiteBalanceLock();
+		return getParameters().getAutoWhiteBalanceLock();
 	}
 
 	/**
@@ -224,7 +224,7 @@ class CameraHelperICS extends CameraHelperHonycomb {
 	 */
 	@Override
 	public boolean isVideoSnapshotSupported() {
-		return getCamera().getParameters().isVideoSnapshotSupported();
+		return getParameters().isVideoSnapshotSupported();
 	}
 
 }
\ No newline at end of file
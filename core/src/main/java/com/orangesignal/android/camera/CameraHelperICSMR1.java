@@ -42,7 +42,7 @@ class CameraHelperICSMR1 extends CameraHelperICS {
 	 */
 	@Override
 	public boolean isVideoStabilizationSupported() {
-		return getCamera().getParameters().isVideoStabilizationSupported();
+		return getParameters().isVideoStabilizationSupported();
 	}
 
 	/**
@@ -50,9 +50,9 @@ class CameraHelperICSMR1 extends CameraHelperICS {
 	 */
 	@Override
 	public void setVideoStabilization(final boolean toggle) {
-		final Camera.Parameters params = getCamera().getParameters();
+		final Camera.Parameters params = getParameters();
 		params.setVideoStabilization(toggle);
-		getCamera().setParameters(params);
+		applyParameters();
 	}
 
 	/**
@@ -60,7 +60,7 @@ class CameraHelperICSMR1 extends CameraHelperICS {
 	 */
 	@Override
 	public boolean getVideoStabilization() {
-		return getCamera().getParameters().getVideoStabilization();
+		return getParameters().getVideoStabilization();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import android.hardware.Camera;
+
+/**
+ * カメラのパラメータのスナップショットを保持して、パラメータの変更をまとめて適用するクラスを提供します。<p>
+ * {@link Camera#getParameters()} と {@link Camera#setParameters(Camera.Parameters)} はいずれもパラメータ全体を文字列へ変換してカメラサービスとやり取りするため、
+ * このクラスはカメラへ接続してから最初に参照した時のみパラメータを読み込み、以降の参照や対応値の問い合わせにはスナップショットを使用します。
+ * {@link #begin()} から {@link #commit()} までの間の変更は、最後に一度だけ {@link Camera#setParameters(Camera.Parameters)} で適用します。
+ * カメラが設定を受け付けなかった場合は、スナップショットを破棄して次の参照時にカメラから読み込み直します。
+ * 
+ * @author 杉澤 浩二
+ */
+final class CameraParametersCache {
+
+	/**
+	 * カメラのパラメータを読み書きするためのインタフェースを提供します。
+	 */
+	interface Accessor {
+
+		/**
+		 * カメラからパラメータを読み込みます。
+		 * 
+		 * @return パラメータ
+		 */
+		Camera.Parameters getParameters();
+
+		/**
+		 * カメラへパラメータを設定します。
+		 * 
+		 * @param params パラメータ
+		 * @throws RuntimeException カメラが設定を受け付けなかった場合
+		 */
+		void setParameters(Camera.Parameters params);
+
+	}
+
+	/**
+	 * カメラのパラメータを読み書きするためのインタフェースを保持します。
+	 */
+	private final Accessor mAccessor;
+
+	/**
+	 * パラメータのスナップショットを保持します。
+	 */
+	private Camera.Parameters mParameters;
+
+	/**
+	 * 入れ子になったトランザクションの深さを保持します。
+	 */
+	private int mDepth;
+
+	/**
+	 * トランザクション中に適用を保留した変更があるかどうかを保持します。
+	 */
+	private boolean mDirty;
+
+	/**
+	 * カメラが設定を受け付けなかった場合に取り消す任意のパラメータの、変更前の値を保持します。
+	 */
+	private final HashMap<String, String> mOptionalValues = new HashMap<String, String>();
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param accessor カメラのパラメータを読み書きするためのインタフェース
+	 */
+	public CameraParametersCache(final Accessor accessor) {
+		mAccessor = accessor;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * パラメータのスナップショットを返します。<p>
+	 * スナップショットを変更した場合は {@link #apply()} を呼び出してカメラへ適用する必要があります。
+	 * 
+	 * @return パラメータのスナップショット
+	 */
+	public Camera.Parameters get() {
+		if (mParameters == null) {
+			mParameters = mAccessor.getParameters();
+		}
+		return mParameters;
+	}
+
+	/**
+	 * スナップショットへの変更をカメラへ適用します。<p>
+	 * トランザクション中の場合は適用を保留して、{@link #commit()} でまとめて適用します。
+	 * 
+	 * @throws RuntimeException カメラが設定を受け付けなかった場合
+	 */
+	public void apply() {
+		if (mDepth > 0) {
+			mDirty = true;
+			return;
+		}
+		write();
+	}
+
+	/**
+	 * 端末によっては受け付けられない任意のパラメータをスナップショットへ設定します。<p>
+	 * 次の適用でカメラが設定を受け付けなかった場合は、任意のパラメータのみを変更前の値へ戻して、残りの変更を適用し直します。
+	 * トランザクション中の場合は {@link #commit()} での適用時に同様に処理します。
+	 * 
+	 * @param key キー
+	 * @param value 値
+	 */
+	public void setOptional(final String key, final String value) {
+		final Camera.Parameters params = get();
+		if (!mOptionalValues.containsKey(key)) {
+			mOptionalValues.put(key, params.get(key));
+		}
+		params.set(key, value);
+	}
+
+	/**
+	 * トランザクションを開始します。トランザクションは入れ子にできます。
+	 */
+	public void begin() {
+		mDepth++;
+	}
+
+	/**
+	 * トランザクションを終了します。<p>
+	 * 最も外側のトランザクションを終了した時に、保留した変更を一度の {@link Camera#setParameters(Camera.Parameters)} で適用します。
+	 * 
+	 * @return 変更を適用した場合や適用する変更がなかった場合は {@code true}。カメラが設定を受け付けなかった場合は {@code false}
+	 * @throws IllegalStateException トランザクションが開始されていない場合
+	 */
+	public boolean commit() {
+		if (mDepth == 0) {
+			throw new IllegalStateException("Transaction not started");
+		}
+		if (--mDepth > 0 || !mDirty) {
+			return true;
+		}
+		mDirty = false;
+		try {
+			write();
+			return true;
+		} catch (final RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * トランザクション中かどうかを返します。
+	 * 
+	 * @return トランザクション中かどうか
+	 */
+	public boolean isInTransaction() {
+		return mDepth > 0;
+	}
+
+	/**
+	 * スナップショットを破棄して、次の参照時にカメラから読み込み直すようにします。<p>
+	 * カメラへの接続や切断の際に呼び出します。保留中の変更は破棄しますが、トランザクションの入れ子の深さは維持するため、
+	 * トランザクション中に呼び出された場合も対になる {@link #commit()} はそのまま呼び出せます。
+	 */
+	public void invalidate() {
+		mParameters = null;
+		mDirty = false;
+		mOptionalValues.clear();
+	}
+
+	private void write() {
+		if (mParameters == null) {
+			return;
+		}
+		try {
+			try {
+				mAccessor.setParameters(mParameters);
+			} catch (final RuntimeException e) {
+				if (mOptionalValues.isEmpty()) {
+					throw e;
+				}
+				// 任意のパラメータを変更前の値へ戻して、残りの変更のみを適用し直します。
+				for (final Map.Entry<String, String> entry : mOptionalValues.entrySet()) {
+					if (entry.getValue() != null) {
+						mParameters.set(entry.getKey(), entry.getValue());
+					} else {
+						mParameters.remove(entry.getKey());
+					}
+				}
+				mOptionalValues.clear();
+				mAccessor.setParameters(mParameters);
+			}
+		} catch (final RuntimeException e) {
+			// 受け付けられなかった値がスナップショットに残らないように、カメラから読み込み直します。
+			mParameters = null;
+			mOptionalValues.clear();
+			throw e;
+		}
+		mOptionalValues.clear();
+	}
+
+}
\ No newline at end of file
@@ -5,12 +5,21 @@
 package com.orangesignal.android.camera;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import android.content.Context;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.Point;
 import android.hardware.Camera;
+import android.os.Handler;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.SurfaceHolder;
@@ -138,6 +147,23 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 
 	}
 
+	/**
+	 * カメラの状態に加えて、カメラへの接続を開始してからプレビューを開始するまでの各段階の所要時間を受け取るリスナーのインタフェースを提供します。<p>
+	 * 所要時間はカメラへの接続を開始した時点を起点とするミリ秒で、{@link #onStartPreview()} の直前に通知されます。
+	 */
+	public interface StartupTimingListener extends CameraStateListener {
+
+		/**
+		 * プレビューを開始するまでの各段階の所要時間が確定した時に呼び出されます。
+		 * 
+		 * @param openCameraMillis カメラへの接続に要した時間
+		 * @param surfaceReadyMillis サーフェスが生成されるまでの時間。接続の開始前に生成されていた場合は {@code 0}
+		 * @param startPreviewMillis プレビューを開始するまでの時間
+		 */
+		void onStartupTimings(long openCameraMillis, long surfaceReadyMillis, long startPreviewMillis);
+
+	}
+
 	/**
 	 * エラーを通知するリスナーのインタフェースを提供します。
 	 */
@@ -165,6 +191,24 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 
 	}
 
+	/**
+	 * カメラが出力した JPEG データを復号せずに受け取るコールバックインタフェースを提供します。<p>
+	 * プレビューにフィルターが適用されていない場合は、{@link #onImageCapture(Bitmap)} の代わりに {@link #onJpegCapture(byte[], int)} が呼び出されます。
+	 * プレビューのフレームバッファからの読み込みや JPEG データの復号と再圧縮を行わないため、カメラの解像度のまま低い負荷で保存できます。
+	 * JPEG データは {@link com.orangesignal.android.media.ImageContentBuilder#build(byte[])} でそのまま保存できます。
+	 */
+	public interface JpegCaptureCallback extends CaptureCallback {
+
+		/**
+		 * カメラが出力した JPEG データが利用可能になった時に呼び出されます。
+		 * 
+		 * @param data JPEG データ
+		 * @param orientation 画像の傾き (0, 90, 180, 270)
+		 */
+		void onJpegCapture(byte[] data, int orientation);
+
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 
 	/**
@@ -172,6 +216,26 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	 */
 	private static final String TAG = "CameraView";
 
+	/**
+	 * ワーカースレッドが待機する秒数です。
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 3L;
+
+	/**
+	 * カメラへの接続を行うワーカースレッドを保持します。<p>
+	 * {@link Camera} は接続したスレッドの {@link android.os.Looper} へコールバックを通知するため、
+	 * {@link android.os.Looper} を持たないスレッドで接続して、コールバックが従来通りメインスレッドへ通知されるようにします。
+	 * アイドル状態が続くとスレッドは終了するため、明示的に終了する必要はありません。
+	 */
+	private static final ThreadPoolExecutor OPEN_EXECUTOR = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "CameraView");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	/**
 	 * カメラ操作ヘルパーを保持します。
 	 */
@@ -229,6 +293,85 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	 */
 	private OnErrorListener mOnErrorListener;
 
+	/**
+	 * カメラへの接続をワーカースレッドで行うかどうかを保持します。
+	 */
+	private boolean mOpenCameraAsync = true;
+
+	/**
+	 * メインスレッドへ処理を通知するハンドラーを保持します。
+	 */
+	private Handler mHandler;
+
+	/**
+	 * ワーカースレッドで実行中のカメラへの接続を保持します。接続が完了してメインスレッドで後処理を行うまでの間のみ有効です。
+	 */
+	private Future<Long> mOpenTask;
+
+	/**
+	 * サーフェスが生成されているかどうかを保持します。
+	 */
+	private boolean mSurfaceCreated;
+
+	/**
+	 * カメラへの接続中に変更されたサーフェスを保持します。
+	 */
+	private SurfaceHolder mPendingSurface;
+
+	/**
+	 * カメラへの接続中にプレビューの開始が要求されたかどうかを保持します。
+	 */
+	private boolean mPendingStartPreview;
+
+	/**
+	 * カメラへの接続を開始した時刻 (ナノ秒) を保持します。所要時間を通知した後は {@code 0} です。
+	 */
+	private long mStartupTime;
+
+	/**
+	 * カメラへの接続が完了した時刻 (ナノ秒) を保持します。
+	 */
+	private long mCameraOpenedTime;
+
+	/**
+	 * サーフェスが生成された時刻 (ナノ秒) を保持します。
+	 */
+	private long mSurfaceCreatedTime;
+
+	/**
+	 * プレビューへ渡して、プレビューの開始を記録してから {@link #mCameraStateListener} へ通知するリスナーを保持します。
+	 */
+	private final CameraStateListener mPreviewStateListener = new CameraStateListener() {
+		@Override
+		public void onOpenCamera() {
+			if (mCameraStateListener != null) {
+				mCameraStateListener.onOpenCamera();
+			}
+		}
+		@Override
+		public void onStartPreview() {
+			if (mStartupTime != 0L) {
+				if (mCameraStateListener instanceof StartupTimingListener) {
+					((StartupTimingListener) mCameraStateListener).onStartupTimings(
+							toMillis(mCameraOpenedTime - mStartupTime),
+							toMillis(Math.max(mSurfaceCreatedTime - mStartupTime, 0L)),
+							toMillis(System.nanoTime() - mStartupTime)
+						);
+				}
+				mStartupTime = 0L;
+			}
+			if (mCameraStateListener != null) {
+				mCameraStateListener.onStartPreview();
+			}
+		}
+		@Override
+		public void onReleaseCamera() {
+			if (mCameraStateListener != null) {
+				mCameraStateListener.onReleaseCamera();
+			}
+		}
+	};
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -269,6 +412,7 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	}
 
 	private void initialize(final Context context) {
+		mHandler = new Handler();
 		mCameraHelper = CameraHelperFactory.newCameraHelper(context);
 		mPreviewSurfaceHelper = PreviewSurfaceHelperFactory.newPreviewSurfaceHelper(mCameraHelper);
 
@@ -300,7 +444,7 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 						final int size = Math.min(childWidth, childHeight);
 						childWidth = size;
 						childHeight = size;
-					} else if (mCameraHelper.isOpened()) {
+					} else if (mOpenTask == null && mCameraHelper.isOpened()) {
 						// プレビュー描画用の子ビューの大きさをプレビューサイズの縦横比と合うように調整します。
 						final Camera.Size previewSize = mCameraHelper.getPreviewSize();
 						if (previewSize != null) {
@@ -377,24 +521,47 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 		super.removeViewAt(index);
 	}
 
+	/**
+	 * この実装はウィンドウが表示された時に、サーフェスの生成を待たずにワーカースレッドでカメラへの接続を開始します。<p>
+	 * カメラへの接続はサーフェスの生成や GL スレッドの初期化と並行して行われ、両方が完了してからプレビューを開始します。
+	 * サーフェスが生成される前にウィンドウが非表示になった場合は、接続したカメラから切断します。
+	 */
+	@Override
+	protected void onWindowVisibilityChanged(final int visibility) {
+		super.onWindowVisibilityChanged(visibility);
+		if (visibility == VISIBLE) {
+			openCameraAsync();
+		} else if (!mSurfaceCreated && (mOpenTask != null || mCameraHelper.isOpened())) {
+			releaseCamera();
+		}
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// android.view.SurfaceHolder.Callback
 
 	@Override
 	public void surfaceCreated(final SurfaceHolder holder) {
+		mSurfaceCreated = true;
+		mSurfaceCreatedTime = System.nanoTime();
+
+		// ワーカースレッドで接続中または接続済みの場合は、接続の完了を待たずに戻ります。
+		if (mOpenTask != null || mCameraHelper.isOpened()) {
+			return;
+		}
 		try {
 			openCamera(mCameraHelper.getCameraId());
 		} catch (final RuntimeException e) {
-			if (mOnErrorListener != null) {
-				mOnErrorListener.onError(OnErrorListener.ERROR_CAMERA_INITIAL_OPEN, e, this);
-			} else {
-				throw e;
-			}
+			onOpenCameraError(e);
 		}
 	}
 
 	@Override
 	public void surfaceChanged(final SurfaceHolder holder, final int format, final int width, final int height) {
+		if (mOpenTask != null) {
+			// カメラへの接続が完了してから処理します。
+			mPendingSurface = holder;
+			return;
+		}
 		if (!mCameraHelper.isOpened()) {
 			return;
 		}
@@ -415,6 +582,7 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 
 	@Override
 	public void surfaceDestroyed(final SurfaceHolder holder) {
+		mSurfaceCreated = false;
 		releaseCamera();
 	}
 
@@ -642,6 +810,27 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 		mOnErrorListener = l;
 	}
 
+	/**
+	 * カメラへの接続をワーカースレッドで行うかどうかを返します。
+	 * 
+	 * @return カメラへの接続をワーカースレッドで行うかどうか
+	 */
+	public boolean isOpenCameraAsync() {
+		return mOpenCameraAsync;
+	}
+
+	/**
+	 * カメラへの接続をワーカースレッドで行うかどうかを設定します。<p>
+	 * {@code true} の場合、このビューのウィンドウが表示された時点でワーカースレッドからカメラへの接続を開始します。
+	 * 接続中は {@link CameraStateListener#onOpenCamera()} が呼び出されるまで {@link #getCameraHelper()} でカメラを操作しないでください。
+	 * {@code false} の場合、サーフェスが生成された時にメインスレッドでカメラへ接続します。デフォルトは {@code true} です。
+	 * 
+	 * @param async カメラへの接続をワーカースレッドで行うかどうか
+	 */
+	public void setOpenCameraAsync(final boolean async) {
+		mOpenCameraAsync = async;
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// カメラの接続・切断
 
@@ -651,10 +840,122 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	 * @param cameraId 切り替えるカメラ ID
 	 */
 	public void switchCamera(final int cameraId) {
+		awaitOpenCamera();
 		openCamera(cameraId);
 		startPreview();
 	}
 
+	/**
+	 * ワーカースレッドで現在のカメラへの接続を開始します。<p>
+	 * 接続が完了するとメインスレッドで {@link #finishOpenCamera(Future, boolean)} を呼び出します。
+	 */
+	private void openCameraAsync() {
+		if (!mOpenCameraAsync || mOpenTask != null || mCameraHelper.isOpened()) {
+			return;
+		}
+
+		final int cameraId = mCameraHelper.getCameraId();
+		mStartupTime = System.nanoTime();
+		mSurfaceCreatedTime = mSurfaceCreated ? mStartupTime : 0L;
+		final FutureTask<Long> task = new FutureTask<Long>(new Callable<Long>() {
+			@Override
+			public Long call() {
+				mCameraHelper.openCamera(cameraId);
+				return System.nanoTime();
+			}
+		}) {
+			@Override
+			protected void done() {
+				final Future<Long> self = this;
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						finishOpenCamera(self, true);
+					}
+				});
+			}
+		};
+		mOpenTask = task;
+		OPEN_EXECUTOR.execute(task);
+	}
+
+	/**
+	 * ワーカースレッドで接続中の場合は、接続の完了を待って後処理を行います。
+	 */
+	private void awaitOpenCamera() {
+		if (mOpenTask != null) {
+			finishOpenCamera(mOpenTask, false);
+		}
+	}
+
+	/**
+	 * ワーカースレッドでのカメラへの接続の後処理を行います。<p>
+	 * 接続中にサーフェスが変更された場合やプレビューの開始が要求された場合は、{@code resume} が {@code true} であればそれらを処理します。
+	 * 
+	 * @param task カメラへの接続
+	 * @param resume 接続中に保留した処理を行うかどうか
+	 */
+	private void finishOpenCamera(final Future<Long> task, final boolean resume) {
+		if (mOpenTask != task) {
+			// 既に後処理を行っています。
+			return;
+		}
+		mOpenTask = null;
+		final SurfaceHolder pendingSurface = mPendingSurface;
+		final boolean pendingStartPreview = mPendingStartPreview;
+		mPendingSurface = null;
+		mPendingStartPreview = false;
+
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					mCameraOpenedTime = task.get();
+					break;
+				} catch (final InterruptedException e) {
+					// 接続したカメラを取りこぼさないように、完了まで待機します。
+					interrupted = true;
+				}
+			}
+		} catch (final ExecutionException e) {
+			mStartupTime = 0L;
+			final Throwable cause = e.getCause();
+			onOpenCameraError(cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause));
+			return;
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this) {
+			mPreview.onOpenCamera();
+
+			if (mCameraStateListener != null) {
+				mCameraStateListener.onOpenCamera();
+			}
+		}
+		if (resume) {
+			if (pendingSurface != null) {
+				surfaceChanged(pendingSurface, 0, 0, 0);
+			} else if (pendingStartPreview) {
+				startPreview();
+			}
+		}
+	}
+
+	private void onOpenCameraError(final RuntimeException e) {
+		if (mOnErrorListener != null) {
+			mOnErrorListener.onError(OnErrorListener.ERROR_CAMERA_INITIAL_OPEN, e, this);
+		} else {
+			throw e;
+		}
+	}
+
+	private static long toMillis(final long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
 	/**
 	 * 指定されたカメラを現在のカメラとして接続します。
 	 * カメラの状態を監視するリスナーが設定されている場合は、カメラへ接続後に {@link CameraStateListener#onOpenedCamera(CameraView)} を呼び出します。
@@ -663,7 +964,9 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	 */
 	private void openCamera(final int cameraId) {
 		synchronized (this) {
+			mStartupTime = System.nanoTime();
 			mCameraHelper.openCamera(cameraId);
+			mCameraOpenedTime = System.nanoTime();
 //			requestLayout();
 			mPreview.onOpenCamera();
 
@@ -674,6 +977,7 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	}
 
 	private void releaseCamera() {
+		awaitOpenCamera();
 		stopPreview();
 
 		synchronized (this) {
@@ -692,6 +996,11 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	 * プレビューを開始します。
 	 */
 	public void startPreview() {
+		if (mOpenTask != null) {
+			// カメラへの接続が完了してから開始します。
+			mPendingStartPreview = true;
+			return;
+		}
 		stopPreview();
 
 		synchronized (this) {
@@ -727,7 +1036,7 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 				}
 
 				// プレビューオブジェクトへプレビューの開始を通知して準備をさせてからプレビューを開始します。
-				mPreview.startPreview(width, height, mCameraStateListener);
+				mPreview.startPreview(width, height, mPreviewStateListener);
 			}
 		}
 	}
@@ -736,8 +1045,11 @@ public class CameraView extends ViewGroup implements SurfaceHolder.Callback {
 	 * プレビューを停止します。
 	 */
 	public void stopPreview() {
+		mPendingStartPreview = false;
 		synchronized (this) {
-			mCameraHelper.stopPreview();
+			if (mOpenTask == null) {
+				mCameraHelper.stopPreview();
+			}
 			mPreview.onStopPreview();
 		}
 	}
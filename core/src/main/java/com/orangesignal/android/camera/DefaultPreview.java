@@ -180,6 +180,13 @@ public class DefaultPreview extends SurfaceView implements CameraView.Preview, C
 		// takePicture してもプレビューが停止しない仕様違反な端末 (Xperia P22i) があるためプレビューを停止させます。
 		mCameraHelper.stopPreview();
 
+		// JPEG データを受け取る場合は復号せずにそのまま渡します。
+		if (mCaptureCallback instanceof CameraView.JpegCaptureCallback) {
+			((CameraView.JpegCaptureCallback) mCaptureCallback).onJpegCapture(data, mCameraHelper.getOrientation());
+			mCaptureCallback = null;
+			return;
+		}
+
 		final Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
 		if (!mCaptureCallback.onImageCapture(bitmap) && bitmap != null) {
 			bitmap.recycle();
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2012-2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+/**
+ * {@link android.hardware.Camera#addCallbackBuffer(byte[])} で使用するプレビューコールバック用バッファのプールを提供します。<p>
+ * プールは指定されたサイズのバッファを最大で指定された数だけ保持して、使用を終えたバッファを再利用します。
+ * このクラスのメソッドはカメラのコールバックスレッドと GL スレッドから呼び出されるため同期化されています。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class PreviewCallbackBufferPool {
+
+	/**
+	 * バッファのサイズを保持します。
+	 */
+	private final int mBufferSize;
+
+	/**
+	 * 再利用可能なバッファのスタックを保持します。
+	 */
+	private final byte[][] mFreeBuffers;
+
+	/**
+	 * 再利用可能なバッファの数を保持します。
+	 */
+	private int mFreeCount;
+
+	/**
+	 * これまでに確保したバッファの数を保持します。
+	 */
+	private int mAllocatedCount;
+
+	/**
+	 * 再利用可能なバッファを返せた回数を保持します。
+	 */
+	private long mHitCount;
+
+	/**
+	 * 新しくバッファを確保した回数を保持します。
+	 */
+	private long mMissCount;
+
+	/**
+	 * 上限に達していたためバッファを返せなかった回数を保持します。
+	 */
+	private long mStarvationCount;
+
+	/**
+	 * カメラへ登録中のバッファの数を保持します。
+	 */
+	private int mQueuedCount;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param bufferSize バッファのサイズ
+	 * @param capacity プールが確保するバッファの最大数
+	 * @throws IllegalArgumentException {@code bufferSize} または {@code capacity} が {@code 0} 以下の場合
+	 */
+	public PreviewCallbackBufferPool(final int bufferSize, final int capacity) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be greater than 0");
+		}
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0");
+		}
+		mBufferSize = bufferSize;
+		mFreeBuffers = new byte[capacity][];
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * バッファのサイズを返します。
+	 * 
+	 * @return バッファのサイズ
+	 */
+	public int getBufferSize() {
+		return mBufferSize;
+	}
+
+	/**
+	 * プールが確保するバッファの最大数を返します。
+	 * 
+	 * @return プールが確保するバッファの最大数
+	 */
+	public int getCapacity() {
+		return mFreeBuffers.length;
+	}
+
+	/**
+	 * 再利用可能なバッファを返します。<p>
+	 * 再利用可能なバッファがない場合は、最大数に達していなければ新しいバッファを確保して返します。
+	 * 最大数に達している場合は {@code null} を返します。
+	 * 
+	 * @return バッファ。または {@code null}
+	 * @throws OutOfMemoryError バッファを確保できなかった場合
+	 */
+	public synchronized byte[] obtain() {
+		if (mFreeCount > 0) {
+			mFreeCount--;
+			final byte[] buffer = mFreeBuffers[mFreeCount];
+			mFreeBuffers[mFreeCount] = null;
+			mHitCount++;
+			return buffer;
+		}
+		if (mAllocatedCount < mFreeBuffers.length) {
+			final byte[] buffer = new byte[mBufferSize];
+			mAllocatedCount++;
+			mMissCount++;
+			return buffer;
+		}
+		mStarvationCount++;
+		return null;
+	}
+
+	/**
+	 * カメラへ登録中のバッファの数が指定された数に満たない場合に、カメラへ登録するバッファを返します。<p>
+	 * 返されたバッファはカメラへ登録中のバッファとして数えます。
+	 * 
+	 * @param maxQueued カメラへ登録するバッファの最大数
+	 * @return カメラへ登録するバッファ。登録中のバッファが最大数に達している場合や、再利用可能なバッファがない場合は {@code null}
+	 * @throws OutOfMemoryError バッファを確保できなかった場合
+	 * @see #obtain()
+	 */
+	public synchronized byte[] obtainForQueue(final int maxQueued) {
+		if (mQueuedCount >= maxQueued) {
+			return null;
+		}
+		final byte[] buffer = obtain();
+		if (buffer != null) {
+			mQueuedCount++;
+		}
+		return buffer;
+	}
+
+	/**
+	 * 使用を終えたバッファを、カメラへ登録中のバッファの数が指定された数に満たない場合はカメラへ登録するバッファとして数えます。
+	 * それ以外の場合はプールへ返却します。<p>
+	 * 使用中のバッファが返却されるまでの間にカメラへ登録中のバッファが不足しないように、返却されたバッファを直ちにカメラへ登録し直すために使用します。
+	 * 
+	 * @param buffer 使用を終えたバッファ
+	 * @param maxQueued カメラへ登録するバッファの最大数
+	 * @return カメラへ登録し直す場合は {@code true}、それ以外の場合は {@code false}
+	 */
+	public synchronized boolean requeue(final byte[] buffer, final int maxQueued) {
+		if (buffer == null || buffer.length != mBufferSize) {
+			return false;
+		}
+		if (mQueuedCount < maxQueued) {
+			mQueuedCount++;
+			return true;
+		}
+		recycle(buffer);
+		return false;
+	}
+
+	/**
+	 * カメラへ登録したバッファにプレビューデータが格納されて通知されたことを記録します。
+	 */
+	public synchronized void onBufferDequeued() {
+		if (mQueuedCount > 0) {
+			mQueuedCount--;
+		}
+	}
+
+	/**
+	 * カメラへ登録中のバッファの数を返します。
+	 * 
+	 * @return カメラへ登録中のバッファの数
+	 */
+	public synchronized int getQueuedCount() {
+		return mQueuedCount;
+	}
+
+	/**
+	 * 使用を終えたバッファをプールへ返却します。<p>
+	 * このプールのバッファサイズと異なるバッファが指定された場合は何も行わずに {@code false} を返します。
+	 * 
+	 * @param buffer 使用を終えたバッファ
+	 * @return 返却できた場合は {@code true}、それ以外の場合は {@code false}
+	 */
+	public synchronized boolean recycle(final byte[] buffer) {
+		if (buffer == null || buffer.length != mBufferSize || mFreeCount >= mFreeBuffers.length) {
+			return false;
+		}
+		mFreeBuffers[mFreeCount] = buffer;
+		mFreeCount++;
+		return true;
+	}
+
+	/**
+	 * 再利用可能なバッファを全て破棄します。
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < mFreeCount; i++) {
+			mFreeBuffers[i] = null;
+		}
+		mFreeCount = 0;
+		mAllocatedCount = 0;
+		mQueuedCount = 0;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 統計情報
+
+	/**
+	 * 再利用可能なバッファを返せた回数を返します。
+	 * 
+	 * @return 再利用可能なバッファを返せた回数
+	 */
+	public synchronized long getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * 新しくバッファを確保した回数を返します。
+	 * 
+	 * @return 新しくバッファを確保した回数
+	 */
+	public synchronized long getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * 最大数に達していたためバッファを返せなかった回数を返します。
+	 * 
+	 * @return バッファを返せなかった回数
+	 */
+	public synchronized long getStarvationCount() {
+		return mStarvationCount;
+	}
+
+	/**
+	 * 統計情報をリセットします。
+	 */
+	public synchronized void resetStatistics() {
+		mHitCount = 0;
+		mMissCount = 0;
+		mStarvationCount = 0;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import android.hardware.Camera;
+
+/**
+ * コールバックバッファを使用するプレビューコールバックへプレビューデータを通知して、通知を終えたバッファをカメラへ登録し直す {@link Camera.PreviewCallback} の実装を提供します。<p>
+ * 通知したバッファは {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った時点で再びカメラへ登録されます。
+ * コールバック中に {@link #retain()} が呼び出された場合はバッファを呼出し元へ預けたままにして、代わりにバッファプールから取得したバッファを登録します。
+ * 預けたバッファは {@link #addCallbackBuffer(byte[])} で返却されます。
+ * 
+ * @author 杉澤 浩二
+ */
+abstract class PreviewCallbackDispatcher implements Camera.PreviewCallback {
+
+	/**
+	 * プレビューデータを通知するコールバックを保持します。
+	 */
+	private final Camera.PreviewCallback mCallback;
+
+	/**
+	 * プレビューコールバック用のバッファプールを保持します。
+	 */
+	private final PreviewCallbackBufferPool mPool;
+
+	/**
+	 * カメラへ登録するバッファの最大数を保持します。
+	 */
+	private final int mMaxQueued;
+
+	/**
+	 * 通知中のバッファを保持します。
+	 */
+	private volatile byte[] mDelivered;
+
+	/**
+	 * 通知中のバッファを呼出し元が保持するかどうかを保持します。
+	 */
+	private volatile boolean mRetained;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param callback プレビューデータを通知するコールバック
+	 * @param pool プレビューコールバック用のバッファプール
+	 * @param maxQueued カメラへ登録するバッファの最大数
+	 */
+	public PreviewCallbackDispatcher(final Camera.PreviewCallback callback, final PreviewCallbackBufferPool pool, final int maxQueued) {
+		mCallback = callback;
+		mPool = pool;
+		mMaxQueued = maxQueued;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * バッファをカメラへ登録します。
+	 * 
+	 * @param buffer 登録するバッファ
+	 */
+	protected abstract void queueBuffer(byte[] buffer);
+
+	/**
+	 * 通知中のバッファを {@link Camera.PreviewCallback#onPreviewFrame(byte[], Camera)} から戻った後も呼出し元が保持することを記録します。<p>
+	 * このメソッドはコールバック中に呼び出す必要があります。
+	 */
+	public void retain() {
+		if (mDelivered != null) {
+			mRetained = true;
+		}
+	}
+
+	/**
+	 * 呼出し元が使用を終えたバッファを返却します。<p>
+	 * 通知中のバッファが指定された場合は、コールバックから戻った時点でカメラへ登録し直します。
+	 * それ以外の場合は、カメラへ登録中のバッファが最大数に満たなければ直ちにカメラへ登録し直し、最大数に達していればバッファプールへ返却します。
+	 * 
+	 * @param buffer 使用を終えたバッファ
+	 */
+	public void addCallbackBuffer(final byte[] buffer) {
+		if (buffer != null && buffer == mDelivered) {
+			mRetained = false;
+			return;
+		}
+		if (mPool.requeue(buffer, mMaxQueued)) {
+			queueBuffer(buffer);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// android.hardware.Camera.PreviewCallback
+
+	@Override
+	public void onPreviewFrame(final byte[] data, final Camera camera) {
+		mPool.onBufferDequeued();
+		mRetained = false;
+		mDelivered = data;
+		try {
+			mCallback.onPreviewFrame(data, camera);
+		} finally {
+			mDelivered = null;
+			if (!mRetained) {
+				if (mPool.requeue(data, mMaxQueued)) {
+					queueBuffer(data);
+				}
+			} else {
+				// 預けたバッファの代わりにバッファプールから取得したバッファを登録します。
+				mRetained = false;
+				byte[] buffer;
+				try {
+					buffer = mPool.obtainForQueue(mMaxQueued);
+				} catch (final OutOfMemoryError e) {
+					buffer = null;	// 登録済みのバッファや返却されたバッファで処理します。
+				}
+				if (buffer != null) {
+					queueBuffer(buffer);
+				}
+			}
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * カメラのコールバックスレッドから GL スレッドへ最新のプレビューデータを受け渡すためのクラスを提供します。<p>
+ * 受け渡しはアトミックな交換のみで行われるため、どちらのスレッドも相手のスレッドを待機しません。
+ * GL スレッドが受け取る前に新しいプレビューデータが公開された場合、古いプレビューデータは破棄されて
+ * {@link PreviewCallbackBufferPool} などへ返却できるように呼び出し元へ返されます。<p>
+ * {@link PreviewCallbackBufferPool} と組み合わせることで、カメラが書き込み中のバッファ、受け渡し待ちのバッファ、
+ * GL スレッドが転送中のバッファを循環させる多重バッファリングとして機能します。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class PreviewFrameExchanger {
+
+	/**
+	 * 受け渡し待ちのプレビューデータを保持します。
+	 */
+	private final AtomicReference<byte[]> mPending = new AtomicReference<byte[]>();
+
+	/**
+	 * 公開されたプレビューデータの数を保持します。
+	 */
+	private final AtomicLong mPublishedCount = new AtomicLong();
+
+	/**
+	 * 受け取られたプレビューデータの数を保持します。
+	 */
+	private final AtomicLong mConsumedCount = new AtomicLong();
+
+	/**
+	 * 受け取られずに破棄されたプレビューデータの数を保持します。
+	 */
+	private final AtomicLong mDroppedCount = new AtomicLong();
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 最新のプレビューデータを公開します。<p>
+	 * まだ受け取られていないプレビューデータがある場合は、そのプレビューデータを破棄して返します。
+	 * 
+	 * @param data 最新のプレビューデータ
+	 * @return 破棄されたプレビューデータ。または {@code null}
+	 * @throws IllegalArgumentException {@code data} が {@code null} の場合
+	 */
+	public byte[] publish(final byte[] data) {
+		if (data == null) {
+			throw new IllegalArgumentException("Data must not be null");
+		}
+		final byte[] stale = mPending.getAndSet(data);
+		mPublishedCount.incrementAndGet();
+		if (stale != null) {
+			mDroppedCount.incrementAndGet();
+		}
+		return stale;
+	}
+
+	/**
+	 * 公開されている最新のプレビューデータを受け取ります。
+	 * 
+	 * @return 最新のプレビューデータ。公開されているプレビューデータがない場合は {@code null}
+	 */
+	public byte[] take() {
+		final byte[] data = mPending.getAndSet(null);
+		if (data != null) {
+			mConsumedCount.incrementAndGet();
+		}
+		return data;
+	}
+
+	/**
+	 * 受け渡し待ちのプレビューデータを破棄します。
+	 * 
+	 * @return 破棄されたプレビューデータ。または {@code null}
+	 */
+	public byte[] clear() {
+		return mPending.getAndSet(null);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 統計情報
+
+	/**
+	 * 公開されたプレビューデータの数を返します。
+	 * 
+	 * @return 公開されたプレビューデータの数
+	 */
+	public long getPublishedCount() {
+		return mPublishedCount.get();
+	}
+
+	/**
+	 * 受け取られたプレビューデータの数を返します。
+	 * 
+	 * @return 受け取られたプレビューデータの数
+	 */
+	public long getConsumedCount() {
+		return mConsumedCount.get();
+	}
+
+	/**
+	 * 受け取られずに破棄されたプレビューデータの数を返します。
+	 * 
+	 * @return 破棄されたプレビューデータの数
+	 */
+	public long getDroppedCount() {
+		return mDroppedCount.get();
+	}
+
+	/**
+	 * 統計情報をリセットします。
+	 */
+	public void resetStatistics() {
+		mPublishedCount.set(0);
+		mConsumedCount.set(0);
+		mDroppedCount.set(0);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+/**
+ * カメラがサポートするサイズとフレームレートの範囲から、プレビューサイズ、ピクチャーサイズ、フレームレートの範囲を選定する戦略のインタフェースを提供します。<p>
+ * {@link CameraView.PreviewSizePolicy} が選定の基準とする要求サイズを決めるのに対して、このインタフェースは要求サイズに対してどのサイズを使用するかを決めます。
+ * 実装は Android のクラスに依存せずに、サイズを幅と高さを交互に並べた配列として扱います。
+ * 
+ * @author 杉澤 浩二
+ * @see CameraHelper#setPreviewSizeSelector(PreviewSizeSelector)
+ */
+public interface PreviewSizeSelector {
+
+	/**
+	 * 選定結果を表します。
+	 */
+	public static final class Selection {
+
+		/**
+		 * プレビューの幅です。
+		 */
+		public final int previewWidth;
+
+		/**
+		 * プレビューの高さです。
+		 */
+		public final int previewHeight;
+
+		/**
+		 * ピクチャーの幅です。
+		 */
+		public final int pictureWidth;
+
+		/**
+		 * ピクチャーの高さです。
+		 */
+		public final int pictureHeight;
+
+		/**
+		 * フレームレートの範囲の最小値 (1 秒あたりのフレーム数の 1000 倍) です。フレームレートの範囲を選定しない場合は {@code 0} です。
+		 */
+		public final int minFps;
+
+		/**
+		 * フレームレートの範囲の最大値 (1 秒あたりのフレーム数の 1000 倍) です。フレームレートの範囲を選定しない場合は {@code 0} です。
+		 */
+		public final int maxFps;
+
+		/**
+		 * コンストラクタです。
+		 * 
+		 * @param previewWidth プレビューの幅
+		 * @param previewHeight プレビューの高さ
+		 * @param pictureWidth ピクチャーの幅
+		 * @param pictureHeight ピクチャーの高さ
+		 * @param minFps フレームレートの範囲の最小値
+		 * @param maxFps フレームレートの範囲の最大値
+		 */
+		public Selection(final int previewWidth, final int previewHeight, final int pictureWidth, final int pictureHeight, final int minFps, final int maxFps) {
+			this.previewWidth = previewWidth;
+			this.previewHeight = previewHeight;
+			this.pictureWidth = pictureWidth;
+			this.pictureHeight = pictureHeight;
+			this.minFps = minFps;
+			this.maxFps = maxFps;
+		}
+
+	}
+
+	/**
+	 * サポートするサイズとフレームレートの範囲から、指定された要求サイズに最適なものを選定します。
+	 * 
+	 * @param previewSizes 幅と高さを交互に並べた、サポートするプレビューサイズ
+	 * @param pictureSizes 幅と高さを交互に並べた、サポートするピクチャーサイズ
+	 * @param fpsRanges 最小値と最大値を交互に並べた、サポートするフレームレートの範囲 (1 秒あたりのフレーム数の 1000 倍)。サポートしていない場合は {@code null}
+	 * @param width 横置きを前提とした要求幅
+	 * @param height 横置きを前提とした要求高さ
+	 * @param maxSize 制限サイズ。{@code 0} 以下の場合は制限しません
+	 * @return 選定結果。最適なサイズが見つからなかった場合は {@code null}
+	 */
+	Selection select(int[] previewSizes, int[] pictureSizes, int[] fpsRanges, int width, int height, int maxSize);
+
+}
\ No newline at end of file
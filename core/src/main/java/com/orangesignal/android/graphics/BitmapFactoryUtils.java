@@ -42,13 +42,7 @@ public final class BitmapFactoryUtils {
 		opts.inJustDecodeBounds = true;
 		BitmapFactory.decodeFile(filename, opts);
 
-		final int size = Math.max(opts.outWidth, opts.outHeight);
-		if (size > maxSize) {
-			// 液晶サイズよりも画像サイズが大きい場合は画像を縮小して読み込む指定をします。
-			opts.inSampleSize = size / maxSize;
-		} else {
-			opts.inSampleSize = 1;
-		}
+		opts.inSampleSize = computeSampleSize(opts.outWidth, opts.outHeight, maxSize);
 
 		// 画像を読み込みます。
 		Bitmap bitmap = decodeFile(filename, opts.inSampleSize, 0, 2);
@@ -75,6 +69,35 @@ public final class BitmapFactoryUtils {
 		return bitmap;
 	}
 
+	/**
+	 * 指定された画像サイズを制限サイズ以下で読み込むためのサンプリングサイズを返します。
+	 * 
+	 * @param width 画像の幅
+	 * @param height 画像の高さ
+	 * @param maxSize 制限サイズ
+	 * @return サンプリングサイズ
+	 */
+	static int computeSampleSize(final int width, final int height, final int maxSize) {
+		final int size = Math.max(width, height);
+		if (size > maxSize) {
+			// 液晶サイズよりも画像サイズが大きい場合は画像を縮小して読み込む指定をします。
+			return size / maxSize;
+		}
+		return 1;
+	}
+
+	/**
+	 * 読み込みに失敗した場合の次のサンプリングサイズを返します。
+	 * 
+	 * @param inSampleSize 現在のサンプリングサイズ
+	 * @param add サンプリングサイズへ加算する値
+	 * @param multi サンプリングサイズへ乗算する値
+	 * @return 次のサンプリングサイズ
+	 */
+	static int nextSampleSize(final int inSampleSize, final int add, final int multi) {
+		return (inSampleSize + add) * multi;
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 
 	/**
@@ -110,7 +133,7 @@ public final class BitmapFactoryUtils {
 			try {
 				return BitmapFactory.decodeStream(is, null, opts);
 			} catch (final OutOfMemoryError e) {
-				inSampleSize = (inSampleSize + add) * multi;
+				inSampleSize = nextSampleSize(inSampleSize, add, multi);
 			}
 		}
 	}
@@ -150,7 +173,7 @@ public final class BitmapFactoryUtils {
 			try {
 				return BitmapFactory.decodeResource(res, id, opts);
 			} catch (final OutOfMemoryError e) {
-				inSampleSize = (inSampleSize + add) * multi;
+				inSampleSize = nextSampleSize(inSampleSize, add, multi);
 			}
 		}
 	}
@@ -188,7 +211,7 @@ public final class BitmapFactoryUtils {
 			try {
 				return BitmapFactory.decodeFile(pathName, opts);
 			} catch (final OutOfMemoryError e) {
-				inSampleSize = (inSampleSize + add) * multi;
+				inSampleSize = nextSampleSize(inSampleSize, add, multi);
 			}
 		}
 	}
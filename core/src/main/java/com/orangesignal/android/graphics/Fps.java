@@ -10,7 +10,9 @@ import android.os.Handler;
  * 1秒間のフレーム数を計測して通知するクラスを提供します。
  * 
  * @author 杉澤 浩二
+ * @deprecated フレームレートに加えてステージ単位の所要時間を計測できる {@link FrameTimingRecorder} を使用してください。
  */
+@Deprecated
 public class Fps implements Runnable {
 
 	/**
@@ -90,6 +92,27 @@ public class Fps implements Runnable {
 		}
 	}
 
+	/**
+	 * {@link FrameTimingRecorder} の計測結果のフレームレートを、このオブジェクトのコールバックへ通知する {@link FrameTimingRecorder.Listener} を返します。<p>
+	 * コールバックはこのオブジェクトを構築したスレッドで呼び出されます。
+	 * 
+	 * @return {@link FrameTimingRecorder.Listener}
+	 */
+	public FrameTimingRecorder.Listener asFrameTimingListener() {
+		return new FrameTimingRecorder.Listener() {
+			@Override
+			public void onFrameTiming(final FrameTimingRecorder.Snapshot snapshot) {
+				final int fps = Math.round(snapshot.getFps());
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						mCallback.onFps(fps);
+					}
+				});
+			}
+		};
+	}
+
 	/**
 	 * フレーム数をカウントアップします。
 	 */
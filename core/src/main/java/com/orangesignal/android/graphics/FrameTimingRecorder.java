@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 1 フレームの描画をステージ単位で計測して、直近のフレームの遅延の分布を通知するクラスを提供します。<p>
+ * カメラからのフレーム到着、変換、テクスチャへの転送、シェーダーの描画パス、合成、スワップのそれぞれの所要時間を
+ * ステージ単位の固定長のリングバッファへマイクロ秒で記録し、一定の間隔で 50, 95, 99 パーセンタイルを {@link Snapshot} として通知します。
+ * 計測中のフレームではメモリの確保を行いません。<p>
+ * {@link #markFrameArrival()} 以外のメソッドは描画を行うスレッド (GL スレッド) から呼び出す必要があります。
+ * OpenGL ES の描画命令は非同期に実行されるため、通常は CPU 側で描画命令の発行に要した時間を計測します。
+ * GPU の実行時間を含めて計測する場合は {@link #setGpuSyncEnabled(boolean)} を使用してください。
+ * 
+ * @author 杉澤 浩二
+ */
+public class FrameTimingRecorder {
+
+	/**
+	 * {@link Snapshot} を受け取るリスナーのインタフェースを提供します。
+	 */
+	public interface Listener {
+
+		/**
+		 * 計測結果を通知します。<p>
+		 * このメソッドは描画を行うスレッドから呼び出されます。
+		 * UI を更新する場合は {@link android.os.Handler} などで UI スレッドへ処理を移す必要があります。
+		 * 
+		 * @param snapshot 計測結果
+		 */
+		void onFrameTiming(Snapshot snapshot);
+
+	}
+
+	/**
+	 * カメラからフレームが到着してから、フレームの描画を開始するまでの待ち時間を表すステージです。
+	 */
+	public static final int STAGE_CAMERA = 0;
+
+	/**
+	 * カメラのフレームや画像をテクスチャへ転送する処理を表すステージです。
+	 */
+	public static final int STAGE_UPLOAD = 1;
+
+	/**
+	 * カメラのフレームを RGB へ変換してオフスクリーンへ描画する処理を表すステージです。
+	 */
+	public static final int STAGE_CONVERSION = 2;
+
+	/**
+	 * オフスクリーンの描画内容を画面へ合成する処理を表すステージです。
+	 */
+	public static final int STAGE_COMPOSITE = 3;
+
+	/**
+	 * バッファのスワップを表すステージです。
+	 */
+	public static final int STAGE_SWAP = 4;
+
+	/**
+	 * フレーム全体を表すステージです。
+	 */
+	public static final int STAGE_FRAME = 5;
+
+	/**
+	 * 最初のシェーダーの描画パスを表すステージです。
+	 * 
+	 * @see #getShaderPassStage(int)
+	 */
+	public static final int STAGE_SHADER_PASS = 6;
+
+	/**
+	 * 個別に計測するシェーダーの描画パスの最大数です。これを超える描画パスは最後のステージへ合算します。
+	 */
+	public static final int MAX_SHADER_PASSES = 8;
+
+	/**
+	 * ステージの数です。
+	 */
+	public static final int STAGE_COUNT = STAGE_SHADER_PASS + MAX_SHADER_PASSES;
+
+	/**
+	 * デフォルトのリングバッファの長さです。
+	 */
+	public static final int DEFAULT_CAPACITY = 128;
+
+	/**
+	 * デフォルトの通知間隔 (ミリ秒) です。
+	 */
+	public static final long DEFAULT_REPORT_INTERVAL_MILLIS = 1000L;
+
+	private static final long NANOS_PER_MICRO = 1000L;
+	private static final long NANOS_PER_MILLI = 1000L * 1000L;
+
+	/**
+	 * リングバッファの長さを保持します。
+	 */
+	private final int mCapacity;
+
+	/**
+	 * 通知間隔 (ナノ秒) を保持します。
+	 */
+	private final long mReportIntervalNanos;
+
+	/**
+	 * ステージ単位のリングバッファ (マイクロ秒) を保持します。ステージ {@code s} の {@code i} 番目は {@code s * mCapacity + i} に格納されます。
+	 */
+	private final int[] mSamples;
+
+	/**
+	 * ステージ単位の次の書き込み位置を保持します。
+	 */
+	private final int[] mHeads;
+
+	/**
+	 * ステージ単位の有効なサンプル数を保持します。
+	 */
+	private final int[] mCounts;
+
+	/**
+	 * 計測中のフレームのステージ単位の累計時間 (ナノ秒) を保持します。
+	 */
+	private final long[] mFrameNanos;
+
+	/**
+	 * 計測中のフレームで記録されたステージを保持します。
+	 */
+	private final boolean[] mFrameRecorded;
+
+	/**
+	 * パーセンタイルの計算で使用する作業用の配列を保持します。
+	 */
+	private final int[] mSortBuffer;
+
+	/**
+	 * リスナーのリストを保持します。
+	 */
+	private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<Listener>();
+
+	/**
+	 * カメラからフレームが到着した時刻 (ナノ秒) を保持します。
+	 */
+	private volatile long mArrivalNanos;
+
+	/**
+	 * 計測中のフレームの開始時刻 (ナノ秒) を保持します。
+	 */
+	private long mFrameStartNanos;
+
+	/**
+	 * フレームを計測中かどうかを保持します。
+	 */
+	private boolean mInFrame;
+
+	/**
+	 * 前回通知した時刻 (ナノ秒) を保持します。
+	 */
+	private long mReportStartNanos;
+
+	/**
+	 * 通知間隔の計測を開始しているかどうかを保持します。
+	 */
+	private boolean mReportStarted;
+
+	/**
+	 * 前回通知してからのフレーム数を保持します。
+	 */
+	private int mReportFrameCount;
+
+	/**
+	 * GPU の処理の完了を待って計測するかどうかを保持します。
+	 */
+	private volatile boolean mGpuSyncEnabled;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * デフォルトコンストラクタです。
+	 */
+	public FrameTimingRecorder() {
+		this(DEFAULT_CAPACITY, DEFAULT_REPORT_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param capacity ステージ単位に保持する直近のフレーム数
+	 * @param reportIntervalMillis {@link Listener} へ通知する間隔 (ミリ秒)
+	 * @throws IllegalArgumentException {@code capacity} または {@code reportIntervalMillis} が {@code 0} 以下の場合
+	 */
+	public FrameTimingRecorder(final int capacity, final long reportIntervalMillis) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		if (reportIntervalMillis <= 0) {
+			throw new IllegalArgumentException("reportIntervalMillis " + reportIntervalMillis);
+		}
+		mCapacity = capacity;
+		mReportIntervalNanos = reportIntervalMillis * NANOS_PER_MILLI;
+		mSamples = new int[STAGE_COUNT * capacity];
+		mHeads = new int[STAGE_COUNT];
+		mCounts = new int[STAGE_COUNT];
+		mFrameNanos = new long[STAGE_COUNT];
+		mFrameRecorded = new boolean[STAGE_COUNT];
+		mSortBuffer = new int[capacity];
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// リスナー
+
+	/**
+	 * 指定されたリスナーを追加します。
+	 * 
+	 * @param listener リスナー
+	 */
+	public void addListener(final Listener listener) {
+		if (listener != null) {
+			mListeners.addIfAbsent(listener);
+		}
+	}
+
+	/**
+	 * 指定されたリスナーを削除します。
+	 * 
+	 * @param listener リスナー
+	 */
+	public void removeListener(final Listener listener) {
+		mListeners.remove(listener);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// セッター / ゲッター
+
+	/**
+	 * 描画命令を発行するステージの計測時に GPU の処理の完了を待つかどうかを設定します。<p>
+	 * 有効にすると GPU の実行時間を含めて計測できますが、CPU と GPU の並列性が失われるため、フレームレートは低下します。
+	 * デフォルトは {@code false} です。
+	 * 
+	 * @param enabled GPU の処理の完了を待つかどうか
+	 */
+	public void setGpuSyncEnabled(final boolean enabled) {
+		mGpuSyncEnabled = enabled;
+	}
+
+	/**
+	 * 描画命令を発行するステージの計測時に GPU の処理の完了を待つかどうかを返します。
+	 * 
+	 * @return GPU の処理の完了を待つかどうか
+	 */
+	public boolean isGpuSyncEnabled() {
+		return mGpuSyncEnabled;
+	}
+
+	/**
+	 * 指定されたシェーダーの描画パスを表すステージを返します。
+	 * 
+	 * @param pass 描画パスのインデックス
+	 * @return ステージ
+	 */
+	public static int getShaderPassStage(final int pass) {
+		return STAGE_SHADER_PASS + Math.max(0, Math.min(pass, MAX_SHADER_PASSES - 1));
+	}
+
+	/**
+	 * 計測に使用する現在時刻 (ナノ秒) を返します。
+	 * 
+	 * @return 現在時刻 (ナノ秒)
+	 */
+	public static long now() {
+		return System.nanoTime();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 計測
+
+	/**
+	 * カメラからフレームが到着した事を記録します。<p>
+	 * このメソッドは任意のスレッドから呼び出す事ができます。
+	 */
+	public void markFrameArrival() {
+		markFrameArrival(now());
+	}
+
+	void markFrameArrival(final long nanos) {
+		mArrivalNanos = nanos;
+	}
+
+	/**
+	 * フレームの計測を開始します。
+	 */
+	public void beginFrame() {
+		beginFrame(now());
+	}
+
+	void beginFrame(final long nanos) {
+		for (int i = 0; i < STAGE_COUNT; i++) {
+			mFrameNanos[i] = 0L;
+			mFrameRecorded[i] = false;
+		}
+		mFrameStartNanos = nanos;
+		mInFrame = true;
+		if (!mReportStarted) {
+			mReportStartNanos = nanos;
+			mReportStarted = true;
+		}
+
+		final long arrival = mArrivalNanos;
+		if (arrival != 0L) {
+			mArrivalNanos = 0L;
+			record(STAGE_CAMERA, arrival, nanos);
+		}
+	}
+
+	/**
+	 * 指定された開始時刻から現在までの時間を、指定されたステージの時間として記録します。<p>
+	 * 同じフレームで同じステージが複数回記録された場合は合算します。
+	 * 
+	 * @param stage ステージ
+	 * @param startNanos {@link #now()} で取得した開始時刻 (ナノ秒)
+	 */
+	public void record(final int stage, final long startNanos) {
+		record(stage, startNanos, now());
+	}
+
+	void record(final int stage, final long startNanos, final long endNanos) {
+		mFrameNanos[stage] += Math.max(0L, endNanos - startNanos);
+		mFrameRecorded[stage] = true;
+	}
+
+	/**
+	 * フレームの計測を終了して、記録した時間をリングバッファへ追加します。<p>
+	 * 前回の通知から通知間隔を経過している場合は、リスナーへ {@link Snapshot} を通知します。
+	 */
+	public void endFrame() {
+		endFrame(now());
+	}
+
+	void endFrame(final long nanos) {
+		if (!mInFrame) {
+			return;
+		}
+		mInFrame = false;
+		record(STAGE_FRAME, mFrameStartNanos, nanos);
+
+		synchronized (this) {
+			for (int stage = 0; stage < STAGE_COUNT; stage++) {
+				if (mFrameRecorded[stage]) {
+					final long micros = mFrameNanos[stage] / NANOS_PER_MICRO;
+					mSamples[stage * mCapacity + mHeads[stage]] = (int) Math.min(micros, Integer.MAX_VALUE);
+					mHeads[stage] = (mHeads[stage] + 1) % mCapacity;
+					if (mCounts[stage] < mCapacity) {
+						mCounts[stage]++;
+					}
+				}
+			}
+		}
+		mReportFrameCount++;
+
+		final long elapsed = nanos - mReportStartNanos;
+		if (elapsed >= mReportIntervalNanos) {
+			if (!mListeners.isEmpty()) {
+				final Snapshot snapshot = createSnapshot(mReportFrameCount * 1000F * NANOS_PER_MILLI / elapsed);
+				for (int i = 0; i < mListeners.size(); i++) {
+					mListeners.get(i).onFrameTiming(snapshot);
+				}
+			}
+			mReportStartNanos = nanos;
+			mReportFrameCount = 0;
+		}
+	}
+
+	/**
+	 * 記録した時間を全て破棄します。
+	 */
+	public synchronized void reset() {
+		Arrays.fill(mHeads, 0);
+		Arrays.fill(mCounts, 0);
+		mArrivalNanos = 0L;
+		mInFrame = false;
+		mReportStarted = false;
+		mReportFrameCount = 0;
+	}
+
+	/**
+	 * 現在の計測結果を返します。
+	 * 
+	 * @return 計測結果
+	 */
+	public Snapshot getSnapshot() {
+		return createSnapshot(0F);
+	}
+
+	private synchronized Snapshot createSnapshot(final float fps) {
+		final int[] counts = new int[STAGE_COUNT];
+		final int[] p50 = new int[STAGE_COUNT];
+		final int[] p95 = new int[STAGE_COUNT];
+		final int[] p99 = new int[STAGE_COUNT];
+		final int[] max = new int[STAGE_COUNT];
+
+		for (int stage = 0; stage < STAGE_COUNT; stage++) {
+			final int count = mCounts[stage];
+			counts[stage] = count;
+			if (count == 0) {
+				continue;
+			}
+			System.arraycopy(mSamples, stage * mCapacity, mSortBuffer, 0, count);
+			Arrays.sort(mSortBuffer, 0, count);
+			p50[stage] = percentile(mSortBuffer, count, 50);
+			p95[stage] = percentile(mSortBuffer, count, 95);
+			p99[stage] = percentile(mSortBuffer, count, 99);
+			max[stage] = mSortBuffer[count - 1];
+		}
+
+		return new Snapshot(fps, counts, p50, p95, p99, max);
+	}
+
+	/**
+	 * 昇順に並べ替えられた値から、最近順位法で指定されたパーセンタイルを返します。
+	 */
+	static int percentile(final int[] sorted, final int count, final int percent) {
+		final int rank = (int) Math.ceil(percent / 100D * count);
+		return sorted[Math.max(0, Math.min(count, rank) - 1)];
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * ある時点の計測結果を表します。時間の単位は全てマイクロ秒です。
+	 */
+	public static final class Snapshot {
+
+		private final float mFps;
+		private final int[] mCounts;
+		private final int[] mP50;
+		private final int[] mP95;
+		private final int[] mP99;
+		private final int[] mMax;
+
+		Snapshot(final float fps, final int[] counts, final int[] p50, final int[] p95, final int[] p99, final int[] max) {
+			mFps = fps;
+			mCounts = counts;
+			mP50 = p50;
+			mP95 = p95;
+			mP99 = p99;
+			mMax = max;
+		}
+
+		/**
+		 * 前回の通知からのフレームレートを返します。
+		 * 
+		 * @return フレームレート。{@link FrameTimingRecorder#getSnapshot()} で取得した場合は {@code 0}
+		 */
+		public float getFps() {
+			return mFps;
+		}
+
+		/**
+		 * 指定されたステージの有効なサンプル数を返します。
+		 * 
+		 * @param stage ステージ
+		 * @return サンプル数
+		 */
+		public int getCount(final int stage) {
+			return mCounts[stage];
+		}
+
+		/**
+		 * 指定されたステージの 50 パーセンタイル (中央値) を返します。
+		 * 
+		 * @param stage ステージ
+		 * @return 50 パーセンタイル (マイクロ秒)
+		 */
+		public int getP50(final int stage) {
+			return mP50[stage];
+		}
+
+		/**
+		 * 指定されたステージの 95 パーセンタイルを返します。
+		 * 
+		 * @param stage ステージ
+		 * @return 95 パーセンタイル (マイクロ秒)
+		 */
+		public int getP95(final int stage) {
+			return mP95[stage];
+		}
+
+		/**
+		 * 指定されたステージの 99 パーセンタイルを返します。
+		 * 
+		 * @param stage ステージ
+		 * @return 99 パーセンタイル (マイクロ秒)
+		 */
+		public int getP99(final int stage) {
+			return mP99[stage];
+		}
+
+		/**
+		 * 指定されたステージの最大値を返します。
+		 * 
+		 * @param stage ステージ
+		 * @return 最大値 (マイクロ秒)
+		 */
+		public int getMax(final int stage) {
+			return mMax[stage];
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("fps=").append(mFps);
+			for (int stage = 0; stage < STAGE_COUNT; stage++) {
+				if (mCounts[stage] == 0) {
+					continue;
+				}
+				sb.append(", ").append(getStageName(stage))
+					.append("={p50=").append(mP50[stage])
+					.append(", p95=").append(mP95[stage])
+					.append(", p99=").append(mP99[stage])
+					.append(", max=").append(mMax[stage])
+					.append('}');
+			}
+			return sb.toString();
+		}
+
+	}
+
+	/**
+	 * 指定されたステージの名前を返します。
+	 * 
+	 * @param stage ステージ
+	 * @return ステージの名前
+	 */
+	public static String getStageName(final int stage) {
+		switch (stage) {
+			case STAGE_CAMERA:
+				return "camera";
+			case STAGE_UPLOAD:
+				return "upload";
+			case STAGE_CONVERSION:
+				return "conversion";
+			case STAGE_COMPOSITE:
+				return "composite";
+			case STAGE_SWAP:
+				return "swap";
+			case STAGE_FRAME:
+				return "frame";
+			default:
+				return "pass" + (stage - STAGE_SHADER_PASS);
+		}
+	}
+
+}
\ No newline at end of file
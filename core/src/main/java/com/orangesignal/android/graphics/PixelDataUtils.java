@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * {@code glReadPixels} などで読み込んだ 1 ピクセル 4 バイトのピクセルデータを並べ替えるためのユーティリティを提供します。<p>
+ * ピクセルは 1 つの {@code int} として並べ替えるだけなので、チャネルの並びは変わりません。
+ * チャネルの並びは {@link #argbToRgba(int[], int, int, ByteOrder)} で変換します。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class PixelDataUtils {
+
+	/**
+	 * インスタンス化できない事を強制します。
+	 */
+	private PixelDataUtils() {}
+
+	/**
+	 * 指定された傾きを 0, 90, 180, 270 のいずれかへ正規化します。
+	 * 
+	 * @param orientation 傾き
+	 * @return 正規化した傾き
+	 * @throws IllegalArgumentException {@code orientation} が 90 の倍数でない場合
+	 */
+	public static int normalizeOrientation(final int orientation) {
+		if ((orientation % 90) != 0) {
+			throw new IllegalArgumentException("orientation " + orientation);
+		}
+		return ((orientation % 360) + 360) % 360;
+	}
+
+	/**
+	 * 左下を原点とするピクセルデータを上下反転し、指定された傾きとミラーモードに従って並べ替えます。<p>
+	 * 変換結果は {@code GLES20Utils#createBitmap(int[], int, int, Bitmap.Config, int, boolean)} と同じ向きになります。
+	 * 
+	 * @param src 左下を原点とするピクセルデータ
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param orientation 傾き (0, 90, 180, 270)
+	 * @param mirror ミラーモードかどうか
+	 * @param dst 変換したピクセルデータを格納するバッファ
+	 * @param row {@code width} 以上の長さを持つ作業用の配列
+	 * @throws IllegalArgumentException {@code orientation} が 90 の倍数でない場合
+	 */
+	public static void transform(final IntBuffer src, final int width, final int height, final int orientation, final boolean mirror, final IntBuffer dst, final int[] row) {
+		// 上下を反転した画像の座標 (x, y) が変換後のどの位置へ移動するかを offset + x * stepX + y * stepY で表します。
+		final int offset;
+		final int stepX;
+		final int stepY;
+		switch (normalizeOrientation(orientation)) {
+			case 90:
+				offset = (width - 1) * height;
+				stepX = -height;
+				stepY = 1;
+				break;
+			case 180:
+				offset = width * height - 1;
+				stepX = -1;
+				stepY = -width;
+				break;
+			case 270:
+				offset = height - 1;
+				stepX = height;
+				stepY = -1;
+				break;
+			default:
+				offset = 0;
+				stepX = 1;
+				stepY = width;
+				break;
+		}
+
+		for (int i = 0; i < height; i++) {
+			src.position(i * width);
+			src.get(row, 0, width);
+
+			// 読み込んだピクセルデータは下の行から並んでいるため、上下を反転します。
+			final int y = height - 1 - i;
+			final int base = offset + y * stepY + (mirror ? (width - 1) * stepX : 0);
+			final int step = mirror ? -stepX : stepX;
+
+			if (step == 1) {
+				dst.position(base);
+				dst.put(row, 0, width);
+			} else {
+				for (int j = 0; j < width; j++) {
+					dst.put(base + j * step, row[j]);
+				}
+			}
+		}
+		src.position(0);
+		dst.position(0);
+	}
+
+	/**
+	 * {@code Bitmap#getPixels} で取得した ARGB のピクセルを、指定されたバイトオーダーの {@link IntBuffer} へ書き込んだ時に
+	 * メモリ上の並びが RGBA ({@code GL_RGBA} / {@code GL_UNSIGNED_BYTE}) となる値へ変換します。<p>
+	 * アルファ値は乗算しません。
+	 * 
+	 * @param pixels ピクセルデータ
+	 * @param offset 変換を開始する位置
+	 * @param count 変換するピクセル数
+	 * @param order 書き込み先のバイトオーダー
+	 */
+	public static void argbToRgba(final int[] pixels, final int offset, final int count, final ByteOrder order) {
+		final int end = offset + count;
+		if (order == ByteOrder.LITTLE_ENDIAN) {
+			for (int i = offset; i < end; i++) {
+				final int p = pixels[i];
+				// 0xAARRGGBB -> 0xAABBGGRR
+				pixels[i] = (p & 0xFF00FF00) | ((p >> 16) & 0x000000FF) | ((p << 16) & 0x00FF0000);
+			}
+		} else {
+			for (int i = offset; i < end; i++) {
+				// 0xAARRGGBB -> 0xRRGGBBAA
+				pixels[i] = Integer.rotateLeft(pixels[i], 8);
+			}
+		}
+	}
+
+}
\ No newline at end of file
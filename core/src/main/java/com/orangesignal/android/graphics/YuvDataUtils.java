@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+/**
+ * YUV420sp (NV21) データを RGB や RGBA へ変換するためのユーティリティを提供します。<p>
+ * このクラスはネイティブコードの {@code YuvDataUtils} やシェーダーによる変換と同じ整数演算で変換を行う参照実装です。
+ * 変換結果はネイティブコードの変換結果とビット単位で一致します。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class YuvDataUtils {
+
+	/**
+	 * 輝度の係数 (1.164 * 1024) です。
+	 */
+	public static final int COEFFICIENT_Y = 1192;
+
+	/**
+	 * 赤の色差 V の係数 (1.596 * 1024) です。
+	 */
+	public static final int COEFFICIENT_RV = 1634;
+
+	/**
+	 * 緑の色差 V の係数 (0.813 * 1024) です。
+	 */
+	public static final int COEFFICIENT_GV = 833;
+
+	/**
+	 * 緑の色差 U の係数 (0.391 * 1024) です。
+	 */
+	public static final int COEFFICIENT_GU = 400;
+
+	/**
+	 * 青の色差 U の係数 (2.018 * 1024) です。
+	 */
+	public static final int COEFFICIENT_BU = 2066;
+
+	/**
+	 * 固定小数点演算の最大値です。
+	 */
+	private static final int MAX_VALUE = 262143;
+
+	/**
+	 * インスタンス化できない事を強制します。
+	 */
+	private YuvDataUtils() {}
+
+	/**
+	 * YUV420sp (NV21) データを RGB (1 ピクセル 3 バイト) データへ変換します。
+	 * 
+	 * @param yuv420sp YUV420sp (NV21) データ
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param rgb 変換結果を格納する {@code width * height * 3} 以上の長さの配列
+	 */
+	public static void toRGB(final byte[] yuv420sp, final int width, final int height, final byte[] rgb) {
+		final int frameSize = width * height;
+		int offset = 0;
+		for (int i = 0; i < height; i++) {
+			final int uvp = frameSize + (i >> 1) * width;
+			for (int j = 0; j < width; j++) {
+				final int y = yuv420sp[i * width + j] & 0xff;
+				final int v = yuv420sp[uvp + (j & ~1)] & 0xff;
+				final int u = yuv420sp[uvp + (j & ~1) + 1] & 0xff;
+				final int color = toRGB(y, u, v);
+				rgb[offset++] = (byte) (color >> 16);
+				rgb[offset++] = (byte) (color >> 8);
+				rgb[offset++] = (byte) color;
+			}
+		}
+	}
+
+	/**
+	 * YUV420sp (NV21) データを RGBA (1 ピクセル 4 バイト) データへ変換します。
+	 * 
+	 * @param yuv420sp YUV420sp (NV21) データ
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param rgba 変換結果を格納する {@code width * height * 4} 以上の長さの配列
+	 */
+	public static void toRGBA(final byte[] yuv420sp, final int width, final int height, final byte[] rgba) {
+		final int frameSize = width * height;
+		int offset = 0;
+		for (int i = 0; i < height; i++) {
+			final int uvp = frameSize + (i >> 1) * width;
+			for (int j = 0; j < width; j++) {
+				final int y = yuv420sp[i * width + j] & 0xff;
+				final int v = yuv420sp[uvp + (j & ~1)] & 0xff;
+				final int u = yuv420sp[uvp + (j & ~1) + 1] & 0xff;
+				final int color = toRGB(y, u, v);
+				rgba[offset++] = (byte) (color >> 16);
+				rgba[offset++] = (byte) (color >> 8);
+				rgba[offset++] = (byte) color;
+				rgba[offset++] = (byte) 0xff;
+			}
+		}
+	}
+
+	/**
+	 * YUV420sp (NV21) データを {@link android.graphics.Color} 形式の ARGB データへ変換します。
+	 * 
+	 * @param yuv420sp YUV420sp (NV21) データ
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param argb 変換結果を格納する {@code width * height} 以上の長さの配列
+	 */
+	public static void toARGB(final byte[] yuv420sp, final int width, final int height, final int[] argb) {
+		final int frameSize = width * height;
+		int offset = 0;
+		for (int i = 0; i < height; i++) {
+			final int uvp = frameSize + (i >> 1) * width;
+			for (int j = 0; j < width; j++) {
+				final int y = yuv420sp[i * width + j] & 0xff;
+				final int v = yuv420sp[uvp + (j & ~1)] & 0xff;
+				final int u = yuv420sp[uvp + (j & ~1) + 1] & 0xff;
+				argb[offset++] = 0xff000000 | toRGB(y, u, v);
+			}
+		}
+	}
+
+	/**
+	 * 指定された 1 ピクセルの YUV 値を {@code 0x00RRGGBB} 形式の RGB 値へ変換します。
+	 * 
+	 * @param y 輝度 ({@code 0} ～ {@code 255})
+	 * @param u 色差 U ({@code 0} ～ {@code 255})
+	 * @param v 色差 V ({@code 0} ～ {@code 255})
+	 * @return {@code 0x00RRGGBB} 形式の RGB 値
+	 */
+	public static int toRGB(final int y, final int u, final int v) {
+		final int nY = Math.max(y - 16, 0) * COEFFICIENT_Y;
+		final int nU = u - 128;
+		final int nV = v - 128;
+
+		final int r = clamp(nY + COEFFICIENT_RV * nV);
+		final int g = clamp(nY - COEFFICIENT_GV * nV - COEFFICIENT_GU * nU);
+		final int b = clamp(nY + COEFFICIENT_BU * nU);
+
+		return (r << 16) | (g << 8) | b;
+	}
+
+	private static int clamp(final int value) {
+		return (Math.min(MAX_VALUE, Math.max(0, value)) >> 10) & 0xff;
+	}
+
+}
\ No newline at end of file
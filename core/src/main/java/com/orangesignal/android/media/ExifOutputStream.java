@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.media;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 書き込まれる JPEG データの SOI マーカーの直後へ EXIF 情報の APP1 セグメントを挿入する出力ストリームを提供します。<p>
+ * {@link android.graphics.Bitmap#compress(android.graphics.Bitmap.CompressFormat, int, OutputStream)} の出力先として使用することで、
+ * 圧縮データ全体をメモリへ保持したりファイルを書き直したりせずに、EXIF 情報を含む JPEG を一度の書き込みで保存できます。
+ * EXIF 情報の APP1 セグメントは SOI マーカーの直後に配置する必要があるため、直後に続く JFIF の APP0 セグメントや既存の APP1 セグメントは取り除きます。
+ * 
+ * @author 杉澤 浩二
+ * @see ExifSegmentBuilder
+ */
+public final class ExifOutputStream extends FilterOutputStream {
+
+	private static final int STATE_SOI = 0;
+	private static final int STATE_MARKER = 1;
+	private static final int STATE_SKIP = 2;
+	private static final int STATE_PASS = 3;
+
+	private static final int MARKER_APP0 = 0xFFE0;
+
+	/**
+	 * 挿入する APP1 セグメントを保持します。
+	 */
+	private final byte[] mSegment;
+
+	/**
+	 * 解析中のマーカーとセグメントの長さを保持します。
+	 */
+	private final byte[] mHeader = new byte[4];
+
+	private int mHeaderLength;
+	private int mState = STATE_SOI;
+	private int mSkipRemaining;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param out 出力先のストリーム
+	 * @param segment {@link ExifSegmentBuilder#build()} で構築した APP1 セグメント
+	 */
+	public ExifOutputStream(final OutputStream out, final byte[] segment) {
+		super(out);
+		mSegment = segment;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void write(final int b) throws IOException {
+		if (mState == STATE_PASS) {
+			out.write(b);
+			return;
+		}
+		if (mState == STATE_SKIP) {
+			if (--mSkipRemaining == 0) {
+				mState = STATE_MARKER;
+			}
+			return;
+		}
+
+		mHeader[mHeaderLength++] = (byte) b;
+		if (mState == STATE_SOI) {
+			if (mHeaderLength == 2) {
+				if ((mHeader[0] & 0xFF) != 0xFF || (mHeader[1] & 0xFF) != 0xD8) {
+					throw new IOException("Not a JPEG stream");
+				}
+				out.write(mHeader, 0, 2);
+				out.write(mSegment);
+				mHeaderLength = 0;
+				mState = STATE_MARKER;
+			}
+		} else if (mHeaderLength == 4) {
+			final int marker = ((mHeader[0] & 0xFF) << 8) | (mHeader[1] & 0xFF);
+			final int length = ((mHeader[2] & 0xFF) << 8) | (mHeader[3] & 0xFF);
+			mHeaderLength = 0;
+			if ((marker == MARKER_APP0 || marker == ExifSegmentBuilder.MARKER_APP1) && length > 2) {
+				// 長さはこの 2 バイトを含みます。
+				mSkipRemaining = length - 2;
+				mState = STATE_SKIP;
+			} else {
+				out.write(mHeader, 0, 4);
+				mState = STATE_PASS;
+			}
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		int offset = off;
+		final int end = off + len;
+		while (offset < end && mState != STATE_PASS) {
+			if (mState == STATE_SKIP) {
+				final int n = Math.min(mSkipRemaining, end - offset);
+				offset += n;
+				mSkipRemaining -= n;
+				if (mSkipRemaining == 0) {
+					mState = STATE_MARKER;
+				}
+			} else {
+				write(b[offset++]);
+			}
+		}
+		if (offset < end) {
+			// ヘッダーの解析を終えた後は、そのまま出力先へ書き込みます。
+			out.write(b, offset, end - offset);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.media;
+
+import java.nio.ByteBuffer;
+
+/**
+ * JPEG データの EXIF (エグジフ) 情報を、データの長さを変えずにその場で書き換えるユーティリティを提供します。<p>
+ * 書き換えるタグが既に存在し、値の型と個数が一致する場合にのみ書き換えるため、画像データの復号や再圧縮、ファイル全体の書き直しは行いません。
+ * 書き換えられなかった場合は、{@link ExifSegmentBuilder} と {@link ExifOutputStream} で APP1 セグメントを置き換えて保存できます。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class ExifPatcher {
+
+	private static final int TYPE_ASCII = 2;
+	private static final int TYPE_SHORT = 3;
+	private static final int TYPE_RATIONAL = 5;
+
+	private static final int MARKER_SOS = 0xDA;
+	private static final int MARKER_EOI = 0xD9;
+
+	/**
+	 * インスタンス化できない事を強制します。
+	 */
+	private ExifPatcher() {}
+
+	/**
+	 * 指定された JPEG データの EXIF 情報の Orientation タグを書き換えます。
+	 * 
+	 * @param jpeg JPEG データ
+	 * @param degrees 傾き (0, 90, 180, 270)
+	 * @return 書き換えた場合は {@code true}。EXIF 情報や Orientation タグが存在しない場合は {@code false}
+	 */
+	public static boolean patchOrientation(final byte[] jpeg, final int degrees) {
+		final Tiff tiff = Tiff.find(jpeg);
+		if (tiff == null) {
+			return false;
+		}
+		final int entry = tiff.findEntry(tiff.getInt(4), ExifSegmentBuilder.TAG_ORIENTATION, TYPE_SHORT, 1);
+		if (entry < 0) {
+			return false;
+		}
+		tiff.putShort(entry + 8, ExifSegmentBuilder.toExifOrientation(degrees));
+		return true;
+	}
+
+	/**
+	 * 指定された JPEG データの EXIF 情報の GPS の緯度と経度のタグを書き換えます。<p>
+	 * 4 つのタグが全て揃っている場合にのみ書き換えます。
+	 * 
+	 * @param jpeg JPEG データ
+	 * @param latitude 緯度
+	 * @param longitude 経度
+	 * @return 書き換えた場合は {@code true}。EXIF 情報や GPS のタグが存在しない場合は {@code false}
+	 */
+	public static boolean patchLocation(final byte[] jpeg, final double latitude, final double longitude) {
+		final Tiff tiff = Tiff.find(jpeg);
+		if (tiff == null) {
+			return false;
+		}
+		final int pointer = tiff.findEntry(tiff.getInt(4), ExifSegmentBuilder.TAG_GPS_IFD_POINTER, -1, 1);
+		if (pointer < 0) {
+			return false;
+		}
+		final int gps = tiff.getInt(pointer + 8);
+		final int latitudeRef = tiff.findEntry(gps, ExifSegmentBuilder.TAG_GPS_LATITUDE_REF, TYPE_ASCII, 2);
+		final int latitudeEntry = tiff.findEntry(gps, ExifSegmentBuilder.TAG_GPS_LATITUDE, TYPE_RATIONAL, 3);
+		final int longitudeRef = tiff.findEntry(gps, ExifSegmentBuilder.TAG_GPS_LONGITUDE_REF, TYPE_ASCII, 2);
+		final int longitudeEntry = tiff.findEntry(gps, ExifSegmentBuilder.TAG_GPS_LONGITUDE, TYPE_RATIONAL, 3);
+		if (latitudeRef < 0 || latitudeEntry < 0 || longitudeRef < 0 || longitudeEntry < 0) {
+			return false;
+		}
+		final int latitudeOffset = tiff.getInt(latitudeEntry + 8);
+		final int longitudeOffset = tiff.getInt(longitudeEntry + 8);
+		if (!tiff.contains(latitudeOffset, 24) || !tiff.contains(longitudeOffset, 24)) {
+			return false;
+		}
+
+		tiff.putByte(latitudeRef + 8, latitude < 0 ? 'S' : 'N');
+		tiff.putByte(latitudeRef + 9, 0);
+		tiff.putRationals(latitudeOffset, ExifSegmentBuilder.toDmsRationals(Math.abs(latitude)));
+		tiff.putByte(longitudeRef + 8, longitude < 0 ? 'W' : 'E');
+		tiff.putByte(longitudeRef + 9, 0);
+		tiff.putRationals(longitudeOffset, ExifSegmentBuilder.toDmsRationals(Math.abs(longitude)));
+		return true;
+	}
+
+	/**
+	 * JPEG データ中の TIFF 構造を表します。オフセットは TIFF 構造の先頭からの位置です。
+	 */
+	private static final class Tiff {
+
+		private final byte[] mData;
+		private final int mBase;
+		private final int mLength;
+		private final boolean mLittleEndian;
+
+		private Tiff(final byte[] data, final int base, final int length, final boolean littleEndian) {
+			mData = data;
+			mBase = base;
+			mLength = length;
+			mLittleEndian = littleEndian;
+		}
+
+		/**
+		 * 指定された JPEG データから EXIF 情報の APP1 セグメントを探して TIFF 構造を返します。
+		 * 
+		 * @param jpeg JPEG データ
+		 * @return TIFF 構造。見つからない場合は {@code null}
+		 */
+		static Tiff find(final byte[] jpeg) {
+			if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+				return null;
+			}
+			int position = 2;
+			while (position + 4 <= jpeg.length) {
+				if ((jpeg[position] & 0xFF) != 0xFF) {
+					return null;
+				}
+				final int marker = jpeg[position + 1] & 0xFF;
+				if (marker == 0xFF) {
+					// フィルバイトを読み飛ばします。
+					position++;
+					continue;
+				}
+				if (marker == MARKER_SOS || marker == MARKER_EOI) {
+					return null;
+				}
+				// 長さはこの 2 バイトを含みます。
+				final int length = ((jpeg[position + 2] & 0xFF) << 8) | (jpeg[position + 3] & 0xFF);
+				final int end = position + 2 + length;
+				if (length < 2 || end > jpeg.length) {
+					return null;
+				}
+				if (marker == (ExifSegmentBuilder.MARKER_APP1 & 0xFF) && length >= 2 + 6 + 8 && isExifHeader(jpeg, position + 4)) {
+					final int base = position + 4 + 6;
+					final boolean littleEndian;
+					if (jpeg[base] == 'I' && jpeg[base + 1] == 'I') {
+						littleEndian = true;
+					} else if (jpeg[base] == 'M' && jpeg[base + 1] == 'M') {
+						littleEndian = false;
+					} else {
+						return null;
+					}
+					return new Tiff(jpeg, base, end - base, littleEndian);
+				}
+				position = end;
+			}
+			return null;
+		}
+
+		private static boolean isExifHeader(final byte[] jpeg, final int offset) {
+			return jpeg[offset] == 'E' && jpeg[offset + 1] == 'x' && jpeg[offset + 2] == 'i' && jpeg[offset + 3] == 'f'
+					&& jpeg[offset + 4] == 0 && jpeg[offset + 5] == 0;
+		}
+
+		boolean contains(final int offset, final int length) {
+			return offset >= 0 && length >= 0 && offset <= mLength - length;
+		}
+
+		int getShort(final int offset) {
+			final int b0 = mData[mBase + offset] & 0xFF;
+			final int b1 = mData[mBase + offset + 1] & 0xFF;
+			return mLittleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+		}
+
+		int getInt(final int offset) {
+			if (!contains(offset, 4)) {
+				return -1;
+			}
+			final int s0 = getShort(offset);
+			final int s1 = getShort(offset + 2);
+			return mLittleEndian ? (s1 << 16) | s0 : (s0 << 16) | s1;
+		}
+
+		void putByte(final int offset, final int value) {
+			mData[mBase + offset] = (byte) value;
+		}
+
+		void putShort(final int offset, final int value) {
+			if (mLittleEndian) {
+				putByte(offset, value);
+				putByte(offset + 1, value >> 8);
+			} else {
+				putByte(offset, value >> 8);
+				putByte(offset + 1, value);
+			}
+		}
+
+		void putInt(final int offset, final int value) {
+			if (mLittleEndian) {
+				putShort(offset, value);
+				putShort(offset + 2, value >>> 16);
+			} else {
+				putShort(offset, value >>> 16);
+				putShort(offset + 2, value);
+			}
+		}
+
+		/**
+		 * ビッグエンディアンの RATIONAL 値のバイト配列を、この TIFF 構造のバイトオーダーで書き込みます。
+		 */
+		void putRationals(final int offset, final byte[] rationals) {
+			final ByteBuffer buffer = ByteBuffer.wrap(rationals);
+			for (int i = 0; i < rationals.length; i += 4) {
+				putInt(offset + i, buffer.getInt(i));
+			}
+		}
+
+		/**
+		 * 指定された IFD から、指定されたタグで型と個数が一致するエントリを探します。
+		 * 
+		 * @param ifd IFD のオフセット
+		 * @param tag タグ
+		 * @param type 型。{@code -1} の場合は型を確認しません
+		 * @param count 個数
+		 * @return エントリのオフセット。見つからない場合は {@code -1}
+		 */
+		int findEntry(final int ifd, final int tag, final int type, final int count) {
+			if (!contains(ifd, 2)) {
+				return -1;
+			}
+			final int entries = getShort(ifd);
+			if (!contains(ifd + 2, entries * 12)) {
+				return -1;
+			}
+			for (int i = 0; i < entries; i++) {
+				final int entry = ifd + 2 + i * 12;
+				if (getShort(entry) == tag) {
+					if ((type >= 0 && getShort(entry + 2) != type) || getInt(entry + 4) != count) {
+						return -1;
+					}
+					return entry;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.media;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * JPEG の EXIF (エグジフ) 情報を格納する APP1 セグメントをメモリ上で構築するクラスを提供します。<p>
+ * {@link android.media.ExifInterface#saveAttributes()} のようにファイル全体を書き直す必要がないため、
+ * {@link ExifOutputStream} と組み合わせて JPEG の圧縮データと一緒に一度の書き込みで保存できます。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class ExifSegmentBuilder {
+
+	/**
+	 * APP1 セグメントのマーカーです。
+	 */
+	static final int MARKER_APP1 = 0xFFE1;
+
+	/**
+	 * セグメントの長さの最大値です。
+	 */
+	private static final int MAX_SEGMENT_LENGTH = 0xFFFF;
+
+	private static final int TYPE_BYTE = 1;
+	private static final int TYPE_ASCII = 2;
+	private static final int TYPE_SHORT = 3;
+	private static final int TYPE_LONG = 4;
+	private static final int TYPE_RATIONAL = 5;
+	private static final int TYPE_UNDEFINED = 7;
+
+	static final int TAG_MAKE = 0x010F;
+	static final int TAG_MODEL = 0x0110;
+	static final int TAG_ORIENTATION = 0x0112;
+	static final int TAG_DATETIME = 0x0132;
+	static final int TAG_EXIF_IFD_POINTER = 0x8769;
+	static final int TAG_GPS_IFD_POINTER = 0x8825;
+	static final int TAG_EXIF_VERSION = 0x9000;
+	static final int TAG_DATETIME_ORIGINAL = 0x9003;
+	static final int TAG_FLASH = 0x9209;
+	static final int TAG_GPS_VERSION_ID = 0x0000;
+	static final int TAG_GPS_LATITUDE_REF = 0x0001;
+	static final int TAG_GPS_LATITUDE = 0x0002;
+	static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+	static final int TAG_GPS_LONGITUDE = 0x0004;
+	static final int TAG_GPS_DATESTAMP = 0x001D;
+
+	private static final String DATETIME_FORMAT = "yyyy:MM:dd HH:mm:ss";
+	private static final String DATE_FORMAT = "yyyy:MM:dd";
+
+	private Date mDateTime;
+	private String mMake;
+	private String mModel;
+	private int mOrientation;
+	private Boolean mFlash;
+	private boolean mHasLocation;
+	private double mLatitude;
+	private double mLongitude;
+
+	//////////////////////////////////////////////////////////////////////////
+	// セッター
+
+	/**
+	 * 撮影日時を設定します。
+	 * 
+	 * @param dateTime 撮影日時。または {@code null}
+	 * @return このクラスのインスタンス
+	 */
+	public ExifSegmentBuilder setDateTime(final Date dateTime) {
+		mDateTime = dateTime;
+		return this;
+	}
+
+	/**
+	 * メーカー名を設定します。
+	 * 
+	 * @param make メーカー名。または {@code null}
+	 * @return このクラスのインスタンス
+	 */
+	public ExifSegmentBuilder setMake(final String make) {
+		mMake = make;
+		return this;
+	}
+
+	/**
+	 * モデル名を設定します。
+	 * 
+	 * @param model モデル名。または {@code null}
+	 * @return このクラスのインスタンス
+	 */
+	public ExifSegmentBuilder setModel(final String model) {
+		mModel = model;
+		return this;
+	}
+
+	/**
+	 * 画像の傾きを設定します。
+	 * 
+	 * @param degrees 傾き (0, 90, 180, 270)
+	 * @return このクラスのインスタンス
+	 */
+	public ExifSegmentBuilder setOrientation(final int degrees) {
+		mOrientation = degrees;
+		return this;
+	}
+
+	/**
+	 * フラッシュを発光したかどうかを設定します。
+	 * 
+	 * @param flash フラッシュを発光したかどうか。または {@code null}
+	 * @return このクラスのインスタンス
+	 */
+	public ExifSegmentBuilder setFlash(final Boolean flash) {
+		mFlash = flash;
+		return this;
+	}
+
+	/**
+	 * 位置情報を設定します。
+	 * 
+	 * @param latitude 緯度
+	 * @param longitude 経度
+	 * @return このクラスのインスタンス
+	 */
+	public ExifSegmentBuilder setLocation(final double latitude, final double longitude) {
+		mHasLocation = true;
+		mLatitude = latitude;
+		mLongitude = longitude;
+		return this;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 指定された傾きを EXIF の Orientation タグの値へ変換します。
+	 * 
+	 * @param degrees 傾き (0, 90, 180, 270)
+	 * @return Orientation タグの値
+	 */
+	static int toExifOrientation(final int degrees) {
+		switch (((degrees % 360) + 360) % 360) {
+			case 90:
+				return 6;
+			case 180:
+				return 3;
+			case 270:
+				return 8;
+			default:
+				return 1;
+		}
+	}
+
+	/**
+	 * マーカーとセグメントの長さを含む APP1 セグメントを構築します。<p>
+	 * TIFF 構造はビッグエンディアンで、0th IFD と Exif IFD、位置情報が設定されている場合は GPS IFD を含みます。
+	 * 
+	 * @return APP1 セグメント
+	 * @throws IllegalStateException セグメントの長さが 65535 バイトを超える場合
+	 */
+	public byte[] build() {
+		final Ifd ifd0 = new Ifd();
+		final Ifd exif = new Ifd();
+		Ifd gps = null;
+
+		if (mMake != null) {
+			ifd0.addAscii(TAG_MAKE, mMake);
+		}
+		if (mModel != null) {
+			ifd0.addAscii(TAG_MODEL, mModel);
+		}
+		ifd0.addShort(TAG_ORIENTATION, toExifOrientation(mOrientation));
+		if (mDateTime != null) {
+			final String dateTime = new SimpleDateFormat(DATETIME_FORMAT, Locale.ENGLISH).format(mDateTime);
+			ifd0.addAscii(TAG_DATETIME, dateTime);
+			exif.addAscii(TAG_DATETIME_ORIGINAL, dateTime);
+		}
+		final Ifd.Entry exifPointer = ifd0.addLong(TAG_EXIF_IFD_POINTER, 0);
+		Ifd.Entry gpsPointer = null;
+
+		exif.add(TAG_EXIF_VERSION, TYPE_UNDEFINED, 4, new byte[]{ '0', '2', '2', '0' });
+		if (mFlash != null) {
+			exif.addShort(TAG_FLASH, mFlash.booleanValue() ? 1 : 0);
+		}
+
+		if (mHasLocation) {
+			gps = new Ifd();
+			gps.add(TAG_GPS_VERSION_ID, TYPE_BYTE, 4, new byte[]{ 2, 2, 0, 0 });
+			gps.addAscii(TAG_GPS_LATITUDE_REF, mLatitude < 0 ? "S" : "N");
+			gps.add(TAG_GPS_LATITUDE, TYPE_RATIONAL, 3, toDmsRationals(Math.abs(mLatitude)));
+			gps.addAscii(TAG_GPS_LONGITUDE_REF, mLongitude < 0 ? "W" : "E");
+			gps.add(TAG_GPS_LONGITUDE, TYPE_RATIONAL, 3, toDmsRationals(Math.abs(mLongitude)));
+			if (mDateTime != null) {
+				// GPS の日付は UTC で記録します。
+				final SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT, Locale.ENGLISH);
+				format.setTimeZone(TimeZone.getTimeZone("UTC"));
+				gps.addAscii(TAG_GPS_DATESTAMP, format.format(mDateTime));
+			}
+			gpsPointer = ifd0.addLong(TAG_GPS_IFD_POINTER, 0);
+		}
+
+		// TIFF ヘッダーの直後に 0th IFD、Exif IFD、GPS IFD の順に配置します。
+		final int ifd0Offset = 8;
+		final int exifOffset = ifd0Offset + ifd0.getSize();
+		final int gpsOffset = exifOffset + exif.getSize();
+		exifPointer.value = toLongBytes(exifOffset);
+		if (gpsPointer != null) {
+			gpsPointer.value = toLongBytes(gpsOffset);
+		}
+		final int tiffLength = gpsOffset + (gps != null ? gps.getSize() : 0);
+
+		// マーカー (2) + 長さ (2) + "Exif\0\0" (6) + TIFF 構造
+		final int segmentLength = 2 + 6 + tiffLength;
+		if (segmentLength > MAX_SEGMENT_LENGTH) {
+			throw new IllegalStateException("APP1 segment too large " + segmentLength);
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(2 + segmentLength);
+		buffer.putShort((short) MARKER_APP1);
+		buffer.putShort((short) segmentLength);
+		buffer.put(new byte[]{ 'E', 'x', 'i', 'f', 0, 0 });
+		buffer.put(new byte[]{ 'M', 'M' });
+		buffer.putShort((short) 0x002A);
+		buffer.putInt(ifd0Offset);
+		ifd0.write(buffer, ifd0Offset);
+		exif.write(buffer, exifOffset);
+		if (gps != null) {
+			gps.write(buffer, gpsOffset);
+		}
+		return buffer.array();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private static byte[] toLongBytes(final int value) {
+		return ByteBuffer.allocate(4).putInt(value).array();
+	}
+
+	/**
+	 * 指定された角度を度、分、秒 (1/1000 秒単位) の 3 つの RATIONAL 値へ変換します。
+	 * 
+	 * @param value 角度の絶対値
+	 * @return RATIONAL 値のバイト配列
+	 */
+	static byte[] toDmsRationals(final double value) {
+		final int degrees = (int) Math.floor(value);
+		final double remainder = (value - degrees) * 60.0;
+		final int minutes = (int) Math.floor(remainder);
+		final int millis = (int) Math.round((remainder - minutes) * 60.0 * 1000.0);
+		return ByteBuffer.allocate(24)
+				.putInt(degrees).putInt(1)
+				.putInt(minutes).putInt(1)
+				.putInt(millis).putInt(1000)
+				.array();
+	}
+
+	/**
+	 * IFD (Image File Directory) を表します。
+	 */
+	private static final class Ifd {
+
+		static final class Entry {
+
+			final int tag;
+			final int type;
+			final int count;
+			byte[] value;
+
+			Entry(final int tag, final int type, final int count, final byte[] value) {
+				this.tag = tag;
+				this.type = type;
+				this.count = count;
+				this.value = value;
+			}
+
+		}
+
+		private final ArrayList<Entry> mEntries = new ArrayList<Entry>();
+
+		Entry add(final int tag, final int type, final int count, final byte[] value) {
+			final Entry entry = new Entry(tag, type, count, value);
+			// エントリはタグの昇順に並べる必要があります。
+			int i = mEntries.size();
+			while (i > 0 && mEntries.get(i - 1).tag > tag) {
+				i--;
+			}
+			mEntries.add(i, entry);
+			return entry;
+		}
+
+		void addAscii(final int tag, final String value) {
+			final byte[] bytes;
+			try {
+				bytes = (value + '\0').getBytes("US-ASCII");
+			} catch (final UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+			add(tag, TYPE_ASCII, bytes.length, bytes);
+		}
+
+		void addShort(final int tag, final int value) {
+			add(tag, TYPE_SHORT, 1, new byte[]{ (byte) (value >> 8), (byte) value });
+		}
+
+		Entry addLong(final int tag, final int value) {
+			return add(tag, TYPE_LONG, 1, toLongBytes(value));
+		}
+
+		/**
+		 * エントリ数 (2) + エントリ (12 * n) + 次の IFD へのオフセット (4) + 4 バイトを超える値の領域のバイト数を返します。
+		 */
+		int getSize() {
+			int size = 2 + 12 * mEntries.size() + 4;
+			for (final Entry entry : mEntries) {
+				if (entry.value.length > 4) {
+					size += (entry.value.length + 1) & ~1;
+				}
+			}
+			return size;
+		}
+
+		/**
+		 * 指定された TIFF 構造の先頭からのオフセットへこの IFD を書き込みます。
+		 */
+		void write(final ByteBuffer buffer, final int offset) {
+			// APP1 のマーカーと長さ、Exif 識別子の後が TIFF 構造の先頭です。
+			final int base = 2 + 2 + 6;
+			buffer.position(base + offset);
+			buffer.putShort((short) mEntries.size());
+			int dataOffset = offset + 2 + 12 * mEntries.size() + 4;
+			for (final Entry entry : mEntries) {
+				buffer.putShort((short) entry.tag);
+				buffer.putShort((short) entry.type);
+				buffer.putInt(entry.count);
+				if (entry.value.length > 4) {
+					buffer.putInt(dataOffset);
+					final int position = buffer.position();
+					buffer.position(base + dataOffset);
+					buffer.put(entry.value);
+					buffer.position(position);
+					dataOffset += (entry.value.length + 1) & ~1;
+				} else {
+					// 4 バイト以下の値は左詰めで格納します。
+					buffer.put(entry.value);
+					for (int i = entry.value.length; i < 4; i++) {
+						buffer.put((byte) 0);
+					}
+				}
+			}
+			// 次の IFD はありません。
+			buffer.putInt(0);
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -90,7 +90,7 @@ public final class ExifUtils {
 		exif.saveAttributes();
 	}
 
-	private static String formatExifGpsDMS(final double d) {
+	static String formatExifGpsDMS(final double d) {
 		final double degrees = Math.floor(d);
 		final double minutes = Math.floor((d - degrees) * 60D);
 		final double seconds = (d - degrees - minutes / 60D) * 3600D * 1000D;
@@ -4,6 +4,7 @@
 
 package com.orangesignal.android.media;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -11,6 +12,10 @@ import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import android.content.ContentResolver;
 import android.content.ContentValues;
@@ -21,6 +26,8 @@ import android.location.Location;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.MediaStore;
 import android.text.TextUtils;
 
@@ -31,6 +38,51 @@ import android.text.TextUtils;
  */
 public final class ImageContentBuilder {
 
+	/**
+	 * {@link ImageContentBuilder#buildAsync(Uri, Bitmap, Callback)} の結果を受け取るコールバックインタフェースを提供します。
+	 */
+	public interface Callback {
+
+		/**
+		 * 画像コンテンツを保存した時に呼び出されます。
+		 * 
+		 * @param uri 保存した画像コンテンツの URI
+		 */
+		void onImageContentBuilt(Uri uri);
+
+		/**
+		 * 画像コンテンツの保存中に入出力例外が発生した時に呼び出されます。<p>
+		 * 保存中に実行時例外が発生した場合は、原因としてその例外を持つ入出力例外が渡されます。
+		 * 
+		 * @param e 入出力例外
+		 */
+		void onError(IOException e);
+
+	}
+
+	/**
+	 * 書き込み用バッファの大きさ (バイト) です。
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * ワーカースレッドが待機する秒数です。
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 3L;
+
+	/**
+	 * 画像の圧縮と書き込みを行うワーカースレッドを保持します。<p>
+	 * アイドル状態が続くとスレッドは終了するため、明示的に終了する必要はありません。
+	 */
+	private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "ImageContentBuilder");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	/**
 	 * {@link ContentResolver} を保持します。
 	 */
@@ -337,18 +389,124 @@ public final class ImageContentBuilder {
 	 * @throws IOException 入出力例外が発生した場合
 	 */
 	public Uri build(final Uri uri, final Bitmap source) throws IOException {
-		final long time = System.currentTimeMillis();
-		if (uri == null) {
-			final ContentValues values = createContentValues(time);
-			final Uri u = mContentResolver.insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
-			save(u, source, time);
-			return u;
+		return new SaveTask(uri, source, null).save();
+	}
+
+	/**
+	 * 指定された JPEG データを復号や再圧縮を行わずにデータストアへ保存します。
+	 * 
+	 * @param jpeg JPEG データ
+	 * @return 保存した画像コンテンツの URI
+	 * @throws IOException 入出力例外が発生した場合
+	 * @see #build(Uri, byte[])
+	 */
+	public Uri build(final byte[] jpeg) throws IOException {
+		return build(null, jpeg);
+	}
+
+	/**
+	 * 指定された画像コンテンツの {@link Uri} へ指定された JPEG データを復号や再圧縮を行わずに保存します。<p>
+	 * カメラが出力した JPEG データをそのまま保存するために使用します。画像形式と画像品質の設定は無視され、常に JPEG 形式として保存します。
+	 * EXIF 情報を構成する場合は、JPEG データに含まれる EXIF 情報の傾きと位置情報を {@link ExifPatcher} でその場で書き換えるため、
+	 * 指定された配列の内容は変更されることがあります。書き換えられない場合は、EXIF 情報の APP1 セグメントを置き換えて保存します。
+	 * 
+	 * @param uri 画像コンテンツの {@link Uri}
+	 * @param jpeg JPEG データ
+	 * @return 保存した画像コンテンツの URI
+	 * @throws IOException 入出力例外が発生した場合
+	 */
+	public Uri build(final Uri uri, final byte[] jpeg) throws IOException {
+		return new SaveTask(uri, null, jpeg).save();
+	}
+
+	/**
+	 * 指定されたビットマップオブジェクトをワーカースレッドでデータストアへ保存します。
+	 * 
+	 * @param source ビットマップオブジェクト
+	 * @param callback コールバック
+	 * @see #buildAsync(Uri, Bitmap, Callback)
+	 */
+	public void buildAsync(final Bitmap source, final Callback callback) {
+		buildAsync(null, source, callback);
+	}
+
+	/**
+	 * 指定された画像コンテンツの {@link Uri} へ指定されたビットマップオブジェクトをワーカースレッドで保存します。<p>
+	 * 保存する内容はこのメソッドを呼び出した時点の設定で確定するため、呼び出し後に設定を変更しても影響しません。
+	 * 画像の圧縮と書き込みを終えると、UI スレッドでコールバックが呼び出されます。
+	 * また保存を終えるまでビットマップオブジェクトを破棄してはいけません。
+	 * 
+	 * @param uri 画像コンテンツの {@link Uri}
+	 * @param source ビットマップオブジェクト
+	 * @param callback コールバック
+	 * @throws IllegalArgumentException コールバックが {@code null} の場合
+	 */
+	public void buildAsync(final Uri uri, final Bitmap source, final Callback callback) {
+		execute(new SaveTask(uri, source, null), callback);
+	}
+
+	/**
+	 * 指定された JPEG データをワーカースレッドでデータストアへ保存します。
+	 * 
+	 * @param jpeg JPEG データ
+	 * @param callback コールバック
+	 * @see #buildAsync(Uri, byte[], Callback)
+	 */
+	public void buildAsync(final byte[] jpeg, final Callback callback) {
+		buildAsync(null, jpeg, callback);
+	}
+
+	/**
+	 * 指定された画像コンテンツの {@link Uri} へ指定された JPEG データをワーカースレッドで保存します。<p>
+	 * 保存する内容は {@link #build(Uri, byte[])} と同様です。コールバックの呼び出しは {@link #buildAsync(Uri, Bitmap, Callback)} と同様です。
+	 * 
+	 * @param uri 画像コンテンツの {@link Uri}
+	 * @param jpeg JPEG データ
+	 * @param callback コールバック
+	 * @throws IllegalArgumentException コールバックが {@code null} の場合
+	 */
+	public void buildAsync(final Uri uri, final byte[] jpeg, final Callback callback) {
+		execute(new SaveTask(uri, null, jpeg), callback);
+	}
+
+	private static void execute(final SaveTask task, final Callback callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("Callback must not be null");
 		}
-		save(uri, source, time);
-		return uri;
+		// 呼び出し元のスレッドが Looper を持たない場合でもコールバックできるように、UI スレッドへ通知します。
+		final Handler handler = new Handler(Looper.getMainLooper());
+		EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				IOException error;
+				try {
+					final Uri result = task.save();
+					handler.post(new Runnable() {
+						@Override
+						public void run() {
+							callback.onImageContentBuilt(result);
+						}
+					});
+					return;
+				} catch (final IOException e) {
+					error = e;
+				} catch (final RuntimeException e) {
+					// ワーカースレッドで例外が失われないように、入出力例外としてコールバックへ渡します。
+					error = new IOException(String.valueOf(e.getMessage()));
+					error.initCause(e);
+				}
+				final IOException e = error;
+				handler.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onError(e);
+					}
+				});
+			}
+		});
 	}
 
-	private ContentValues createContentValues(final long time) {
+	private ContentValues createContentValues(final long time, final Bitmap.CompressFormat format) {
 		final ContentValues values = new ContentValues();
 
 		values.put(MediaStore.Images.Media.DATE_MODIFIED, time / 1000L);
@@ -376,10 +534,10 @@ public final class ImageContentBuilder {
 
 		String ext;
 
-		if (Bitmap.CompressFormat.PNG.equals(mCompressFormat)) {
+		if (Bitmap.CompressFormat.PNG.equals(format)) {
 			values.put(MediaStore.Images.Media.MIME_TYPE, "image/png");
 			ext = "png";
-		} else if (Bitmap.CompressFormat.JPEG.equals(mCompressFormat)) {
+		} else if (Bitmap.CompressFormat.JPEG.equals(format)) {
 			values.put(MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
 			ext = "jpg";
 		} else {
@@ -397,32 +555,141 @@ public final class ImageContentBuilder {
 		return values;
 	}
 
-	@SuppressWarnings("deprecation")
-	private void save(final Uri uri, final Bitmap source, final long time) throws IOException {
-		try {
-			final OutputStream out = mContentResolver.openOutputStream(uri);
-			try {
-				source.compress(mCompressFormat, mJpegQuality, out);
-			} finally {
-				try {
-					out.close();
-				} catch (final IOException e) {}
-			}
-		} catch (final FileNotFoundException e) {}
+	/**
+	 * EXIF 情報の APP1 セグメントを構築します。
+	 * 
+	 * @param time 撮影日時
+	 * @param orientation 傾き
+	 * @param flash フラッシュを使用したかどうか。または {@code null}
+	 * @param location 位置情報。または {@code null}
+	 * @return APP1 セグメント
+	 */
+	private static byte[] createExifSegment(final long time, final int orientation, final Boolean flash, final Location location) {
+		final ExifSegmentBuilder builder = new ExifSegmentBuilder()
+				.setDateTime(new Date(time))
+				.setMake(Build.MANUFACTURER)
+				.setModel(Build.MODEL)
+				.setOrientation(orientation)
+				.setFlash(flash);
+		if (location != null) {
+			builder.setLocation(location.getLatitude(), location.getLongitude());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 画像コンテンツの保存処理を表します。<p>
+	 * 保存する内容は生成時の設定で確定し、{@link #save()} はワーカースレッドから呼び出すことができます。
+	 */
+	private final class SaveTask {
+
+		private final Uri mUri;
+		private final Bitmap mSource;
+
+		/**
+		 * 復号や再圧縮を行わずに保存する JPEG データを保持します。
+		 */
+		private final byte[] mJpeg;
+
+		private final long mTime;
+		private final ContentValues mValues;
+		private final Bitmap.CompressFormat mFormat;
+		private final int mQuality;
+
+		/**
+		 * JPEG 形式で保存する場合に、圧縮データと一緒に EXIF 情報の APP1 セグメントを書き込むかどうかを保持します。<p>
+		 * JPEG データを保存する場合は、EXIF 情報をその場で書き換えられなかった場合にのみ書き込みます。
+		 * セグメントの構築で発生した例外もコールバックへ渡せるように、セグメントは {@link #save()} で構築します。
+		 */
+		private final boolean mJpegExif;
+
+		/**
+		 * JPEG 以外の形式で保存する場合に、保存後に {@link ExifUtils} で EXIF 情報を書き込むかどうかを保持します。
+		 */
+		private final boolean mLegacyExif;
+
+		private final int mExifOrientation;
+		private final Boolean mExifFlash;
+		private final Location mExifLocation;
+
+		@SuppressWarnings("deprecation")
+		SaveTask(final Uri uri, final Bitmap source, final byte[] jpegData) {
+			mUri = uri;
+			mSource = source;
+			mJpeg = jpegData;
+			mTime = System.currentTimeMillis();
+			mFormat = jpegData != null ? Bitmap.CompressFormat.JPEG : mCompressFormat;
+			mValues = uri == null ? createContentValues(mTime, mFormat) : null;
+			mQuality = mJpegQuality;
+
+			final boolean exif = mExif && Integer.parseInt(Build.VERSION.SDK) >= ECLAIR;
+			final boolean jpeg = Bitmap.CompressFormat.JPEG.equals(mFormat);
+			mJpegExif = exif && jpeg;
+			mLegacyExif = exif && !jpeg;
+			mExifOrientation = mOrientation;
+			mExifFlash = mFlash;
+			mExifLocation = mLocation;
+		}
 
-		if (mExif && Integer.parseInt(Build.VERSION.SDK) >= ECLAIR) {
-			final Cursor c = mContentResolver.query(uri, new String[]{ MediaStore.Images.Media.DATA }, null, null, null);
-			// 可能であれば EXIF 情報を書き込みます。
-			if (c != null) {
+		public Uri save() throws IOException {
+			final Uri uri = mUri != null ? mUri : mContentResolver.insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, mValues);
+			if (uri == null) {
+				throw new IOException("Could not insert image content");
+			}
+			final byte[] exifSegment = mJpegExif ? createExifSegment(mTime, mExifOrientation, mExifFlash, mExifLocation) : null;
+			try {
+				final OutputStream out = mContentResolver.openOutputStream(uri);
 				try {
-					while (c.moveToNext()) {
-						ExifUtils.save(c.getString(c.getColumnIndex(MediaStore.Images.Media.DATA)), new Date(time), mOrientation, mFlash, mLocation);
+					// EXIF 情報は圧縮データと一緒に一度で書き込むため、保存後にファイルを読み直して書き直す必要はありません。
+					final OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+					if (mJpeg != null) {
+						if (exifSegment != null && !patchExif(mJpeg)) {
+							new ExifOutputStream(buffered, exifSegment).write(mJpeg);
+						} else {
+							buffered.write(mJpeg);
+						}
+					} else if (exifSegment != null) {
+						mSource.compress(mFormat, mQuality, new ExifOutputStream(buffered, exifSegment));
+					} else {
+						mSource.compress(mFormat, mQuality, buffered);
 					}
+					buffered.flush();
 				} finally {
-					c.close();
+					try {
+						out.close();
+					} catch (final IOException e) {}
+				}
+			} catch (final FileNotFoundException e) {}
+
+			if (mLegacyExif) {
+				final Cursor c = mContentResolver.query(uri, new String[]{ MediaStore.Images.Media.DATA }, null, null, null);
+				// 可能であれば EXIF 情報を書き込みます。
+				if (c != null) {
+					try {
+						while (c.moveToNext()) {
+							ExifUtils.save(c.getString(c.getColumnIndex(MediaStore.Images.Media.DATA)), new Date(mTime), mExifOrientation, mExifFlash, mExifLocation);
+						}
+					} finally {
+						c.close();
+					}
 				}
 			}
+			return uri;
 		}
+
+		/**
+		 * JPEG データの EXIF 情報の傾きと位置情報をその場で書き換えます。
+		 * 
+		 * @param jpeg JPEG データ
+		 * @return 全て書き換えた場合は {@code true}
+		 */
+		private boolean patchExif(final byte[] jpeg) {
+			if (!ExifPatcher.patchOrientation(jpeg, mExifOrientation)) {
+				return false;
+			}
+			return mExifLocation == null || ExifPatcher.patchLocation(jpeg, mExifLocation.getLatitude(), mExifLocation.getLongitude());
+		}
+
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class BandwidthPreviewSizeSelectorTest {
+
+	private static final int[] PREVIEW_SIZES = {
+		1920, 1080, 1440, 1080, 1280, 720, 960, 720, 960, 540, 800, 480, 640, 480, 640, 360, 320, 240
+	};
+
+	private static final int[] PICTURE_SIZES = {
+		3264, 2448, 3264, 1836, 2048, 1536, 1920, 1080, 1280, 720, 640, 480
+	};
+
+	private static final int[] FPS_RANGES = {
+		15000, 15000, 15000, 30000, 30000, 30000
+	};
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalTargetFps() {
+		new BandwidthPreviewSizeSelector(0, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalShaderPasses() {
+		new BandwidthPreviewSizeSelector(30, -1);
+	}
+
+	@Test
+	public void testEstimateFps() {
+		final BandwidthPreviewSizeSelector selector = new BandwidthPreviewSizeSelector(30, 3, 1000L * 1000 * 5 * 30);
+		// 1000x1000 の 5 パス (転送と変換を含む) を 30fps で処理できる処理量です。
+		assertEquals(30D, selector.estimateFps(1000, 1000), 0.0001D);
+		assertEquals(120D, selector.estimateFps(500, 500), 0.0001D);
+	}
+
+	@Test
+	public void testSelectAvoidsSlowPreviewSize() {
+		// 1920x1080 の画面サイズを基準とした要求に対して、ピクチャーサイズは 1920x1080 を選定しますが、
+		// プレビューサイズは 1920x1080 では処理が間に合わないため 1280x720 を選定します。
+		final PreviewSizeSelector.Selection selection = new BandwidthPreviewSizeSelector(30, 3).select(PREVIEW_SIZES, PICTURE_SIZES, FPS_RANGES, 1920, 1080, 0);
+		assertEquals(1920, selection.pictureWidth);
+		assertEquals(1080, selection.pictureHeight);
+		assertEquals(1280, selection.previewWidth);
+		assertEquals(720, selection.previewHeight);
+		assertEquals(15000, selection.minFps);
+		assertEquals(30000, selection.maxFps);
+	}
+
+	@Test
+	public void testSelectLargeSizeWithoutFilter() {
+		// フィルターを適用しない場合は、要求サイズと同じ 1920x1080 を選定します。
+		final PreviewSizeSelector.Selection selection = new BandwidthPreviewSizeSelector(30, 0).select(PREVIEW_SIZES, PICTURE_SIZES, FPS_RANGES, 1920, 1080, 0);
+		assertEquals(1920, selection.previewWidth);
+		assertEquals(1080, selection.previewHeight);
+	}
+
+	@Test
+	public void testSelectDeepShaderChain() {
+		// 描画パスが多い場合は、縦横比を保ったまま更に小さいサイズを選定します。
+		final PreviewSizeSelector.Selection selection = new BandwidthPreviewSizeSelector(30, 10).select(PREVIEW_SIZES, PICTURE_SIZES, FPS_RANGES, 1280, 720, 0);
+		assertEquals(960, selection.previewWidth);
+		assertEquals(540, selection.previewHeight);
+	}
+
+	@Test
+	public void testSelectWithMaxSize() {
+		final PreviewSizeSelector.Selection selection = new BandwidthPreviewSizeSelector(30, 0).select(PREVIEW_SIZES, PICTURE_SIZES, null, 1920, 1080, 1280);
+		assertTrue(selection.previewWidth <= 1280 && selection.previewHeight <= 1280);
+		assertTrue(selection.pictureWidth <= 1280 && selection.pictureHeight <= 1280);
+		assertEquals(0, selection.minFps);
+		assertEquals(0, selection.maxFps);
+	}
+
+	@Test
+	public void testSelectWithoutSizes() {
+		assertNull(new BandwidthPreviewSizeSelector(30, 1).select(null, PICTURE_SIZES, FPS_RANGES, 1280, 720, 0));
+		assertNull(new BandwidthPreviewSizeSelector(30, 1).select(PREVIEW_SIZES, new int[0], FPS_RANGES, 1280, 720, 0));
+	}
+
+	@Test
+	public void testFindFpsRange() {
+		assertEquals(2, BandwidthPreviewSizeSelector.findFpsRange(FPS_RANGES, 30000));
+		assertEquals(0, BandwidthPreviewSizeSelector.findFpsRange(FPS_RANGES, 15000));
+		// 含む範囲がない場合は最大値が最も大きい範囲を選びます。
+		assertEquals(2, BandwidthPreviewSizeSelector.findFpsRange(FPS_RANGES, 60000));
+		assertEquals(-1, BandwidthPreviewSizeSelector.findFpsRange(null, 30000));
+	}
+
+	@Test
+	public void testGetMaxFps() {
+		assertEquals(30, BandwidthPreviewSizeSelector.getMaxFps(FPS_RANGES));
+		assertEquals(Integer.MAX_VALUE, BandwidthPreviewSizeSelector.getMaxFps(null));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class BurstCaptureControllerTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBurstCaptureControllerIllegalFrameCount() {
+		new BurstCaptureController(0, 100, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBurstCaptureControllerIllegalMaxInFlight() {
+		new BurstCaptureController(3, 100, 0);
+	}
+
+	@Test
+	public void testToIntervalNanos() {
+		assertEquals(100000000L, BurstCaptureController.toIntervalNanos(10f));
+		assertEquals(200000000L, BurstCaptureController.toIntervalNanos(5f));
+	}
+
+	@Test
+	public void testOnFrame() {
+		final BurstCaptureController controller = new BurstCaptureController(3, 100, 3);
+
+		assertEquals(0, controller.onFrame(1000));
+		assertEquals(BurstCaptureController.NOT_DUE, controller.onFrame(1050));
+		// 目標時刻からの遅れは次の撮影間隔に持ち越しません。
+		assertEquals(1, controller.onFrame(1110));
+		assertEquals(2, controller.onFrame(1200));
+		assertEquals(BurstCaptureController.FINISHED, controller.onFrame(1300));
+
+		assertEquals(3, controller.getCapturedCount());
+		assertEquals(0, controller.getDroppedCount());
+		assertFalse(controller.isFinished());
+		assertFalse(controller.release());
+		assertFalse(controller.release());
+		assertTrue(controller.release());
+	}
+
+	@Test
+	public void testOnFrameRestartsIntervalAfterStall() {
+		final BurstCaptureController controller = new BurstCaptureController(5, 100, 5);
+
+		assertEquals(0, controller.onFrame(0));
+		// 描画が 1 間隔以上遅れた場合は連続して撮影しません。
+		assertEquals(1, controller.onFrame(350));
+		assertEquals(BurstCaptureController.NOT_DUE, controller.onFrame(400));
+		assertEquals(2, controller.onFrame(450));
+	}
+
+	@Test
+	public void testOnFrameDropsWhenQueueIsFull() {
+		final BurstCaptureController controller = new BurstCaptureController(3, 100, 1);
+
+		assertEquals(0, controller.onFrame(0));
+		assertEquals(BurstCaptureController.DROPPED, controller.onFrame(100));
+		assertEquals(1, controller.getInFlightCount());
+		assertFalse(controller.release());
+		assertEquals(1, controller.onFrame(200));
+
+		assertEquals(2, controller.getCapturedCount());
+		assertEquals(1, controller.getDroppedCount());
+	}
+
+	@Test
+	public void testDiscard() {
+		final BurstCaptureController controller = new BurstCaptureController(2, 100, 2);
+
+		assertEquals(0, controller.onFrame(0));
+		assertEquals(1, controller.onFrame(100));
+		assertFalse(controller.discard());
+		// 破棄したフレームは撮り直しません。
+		assertEquals(BurstCaptureController.FINISHED, controller.onFrame(200));
+		assertTrue(controller.release());
+
+		assertEquals(1, controller.getCapturedCount());
+		assertEquals(1, controller.getDroppedCount());
+		assertEquals(0, controller.getInFlightCount());
+	}
+
+	@Test
+	public void testStop() {
+		final BurstCaptureController controller = new BurstCaptureController(3, 100, 2);
+
+		assertEquals(0, controller.onFrame(0));
+		assertFalse(controller.stop());
+		assertEquals(BurstCaptureController.FINISHED, controller.onFrame(100));
+		assertTrue(controller.release());
+	}
+
+}
\ No newline at end of file
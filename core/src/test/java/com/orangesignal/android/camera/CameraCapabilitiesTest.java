@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public final class CameraCapabilitiesTest {
+
+	private CameraCapabilities mCapabilities;
+
+	@Before
+	public void setUp() {
+		final HashMap<String, String> values = new HashMap<String, String>();
+		values.put(CameraCapabilities.KEY_PREVIEW_SIZES, "1280x720,640x480,bogus,320x240");
+		values.put(CameraCapabilities.KEY_FOCUS_MODES, "auto,infinity,macro");
+		values.put(CameraCapabilities.KEY_FLASH_MODES, "off");
+		values.put(CameraCapabilities.KEY_FPS_RANGES, "(15000,30000), (30000,30000)");
+		mCapabilities = new CameraCapabilities(values);
+	}
+
+	@Test
+	public void testGetValues() {
+		assertEquals(Arrays.asList("auto", "infinity", "macro"), mCapabilities.getValues(CameraCapabilities.KEY_FOCUS_MODES));
+		assertEquals(Arrays.asList("off"), mCapabilities.getValues(CameraCapabilities.KEY_FLASH_MODES));
+		assertNull(mCapabilities.getValues(CameraCapabilities.KEY_SCENE_MODES));
+	}
+
+	@Test
+	public void testGetSizes() {
+		assertArrayEquals(new int[]{ 1280, 720, 640, 480, 320, 240 }, mCapabilities.getSizes(CameraCapabilities.KEY_PREVIEW_SIZES));
+		assertNull(mCapabilities.getSizes(CameraCapabilities.KEY_PICTURE_SIZES));
+	}
+
+	@Test
+	public void testGetRanges() {
+		assertArrayEquals(new int[]{ 15000, 30000, 30000, 30000 }, mCapabilities.getRanges(CameraCapabilities.KEY_FPS_RANGES));
+		assertNull(mCapabilities.getRanges(CameraCapabilities.KEY_FOCUS_MODES + "-none"));
+	}
+
+	@Test
+	public void testOptimalSizes() {
+		assertNull(mCapabilities.getOptimalSizes(1280, 720, 0));
+		mCapabilities.putOptimalSizes(1280, 720, 0, new int[]{ 1280, 720, 2560, 1440 });
+		mCapabilities.putOptimalSizes(720, 1280, 0, new int[0]);
+
+		assertArrayEquals(new int[]{ 1280, 720, 2560, 1440 }, mCapabilities.getOptimalSizes(1280, 720, 0));
+		assertArrayEquals(new int[0], mCapabilities.getOptimalSizes(720, 1280, 0));
+		assertNull(mCapabilities.getOptimalSizes(1280, 720, 2048));
+	}
+
+	@Test
+	public void testWriteToAndReadFrom() throws IOException {
+		mCapabilities.putOptimalSizes(1280, 720, 2048, new int[]{ 1280, 720, 2048, 1152 });
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		mCapabilities.writeTo(out);
+		out.flush();
+		final CameraCapabilities result = CameraCapabilities.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertArrayEquals(mCapabilities.getSizes(CameraCapabilities.KEY_PREVIEW_SIZES), result.getSizes(CameraCapabilities.KEY_PREVIEW_SIZES));
+		assertEquals(mCapabilities.getValues(CameraCapabilities.KEY_FOCUS_MODES), result.getValues(CameraCapabilities.KEY_FOCUS_MODES));
+		assertNull(result.getValues(CameraCapabilities.KEY_SCENE_MODES));
+		assertArrayEquals(new int[]{ 1280, 720, 2048, 1152 }, result.getOptimalSizes(1280, 720, 2048));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+public final class CameraCapabilityCacheTest {
+
+	private static final File FILE = new File("camera_capabilities.bin");
+
+	private static CameraCapabilities createCapabilities(final String focusModes) {
+		final HashMap<String, String> values = new HashMap<String, String>();
+		values.put(CameraCapabilities.KEY_FOCUS_MODES, focusModes);
+		return new CameraCapabilities(values);
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		final CameraCapabilityCache cache = new CameraCapabilityCache(FILE, "device/17");
+		final CameraCapabilities back = createCapabilities("auto");
+		back.putOptimalSizes(640, 480, 0, new int[]{ 640, 480, 2048, 1536 });
+		cache.put(0, back);
+		cache.put(1, createCapabilities("fixed"));
+
+		final CameraCapabilityCache result = new CameraCapabilityCache(FILE, "device/17");
+		result.read(new ByteArrayInputStream(cache.toByteArray()));
+
+		assertEquals(Arrays.asList("auto"), result.get(0).getValues(CameraCapabilities.KEY_FOCUS_MODES));
+		assertArrayEquals(new int[]{ 640, 480, 2048, 1536 }, result.get(0).getOptimalSizes(640, 480, 0));
+		assertEquals(Arrays.asList("fixed"), result.get(1).getValues(CameraCapabilities.KEY_FOCUS_MODES));
+		assertNull(result.get(2));
+	}
+
+	@Test
+	public void testReadOtherFingerprint() throws IOException {
+		final CameraCapabilityCache cache = new CameraCapabilityCache(FILE, "device/17");
+		cache.put(0, createCapabilities("auto"));
+		assertNotNull(cache.get(0));
+
+		// ファームウェアが更新された場合は読み込みません。
+		final CameraCapabilityCache result = new CameraCapabilityCache(FILE, "device/18");
+		result.read(new ByteArrayInputStream(cache.toByteArray()));
+		assertNull(result.get(0));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalid() throws IOException {
+		final CameraCapabilityCache cache = new CameraCapabilityCache(FILE, "device/17");
+		cache.read(new ByteArrayInputStream(new byte[]{ 'P', 'N', 'G', ' ' }));
+	}
+
+}
\ No newline at end of file
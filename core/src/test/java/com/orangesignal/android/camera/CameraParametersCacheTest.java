@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.hardware.Camera;
+
+@RunWith(RobolectricTestRunner.class)
+public final class CameraParametersCacheTest {
+
+	/**
+	 * パラメータの読み書きの回数を記録するカメラの代替です。
+	 */
+	private static final class FakeAccessor implements CameraParametersCache.Accessor {
+
+		int mGetCount;
+		int mSetCount;
+		boolean mReject;
+		String mRejectKey;
+
+		@Override
+		public Camera.Parameters getParameters() {
+			mGetCount++;
+			return Robolectric.newInstanceOf(Camera.Parameters.class);
+		}
+
+		@Override
+		public void setParameters(final Camera.Parameters params) {
+			mSetCount++;
+			if (mReject || mRejectKey != null && params.get(mRejectKey) != null) {
+				throw new RuntimeException("setParameters failed");
+			}
+		}
+
+	}
+
+	private FakeAccessor mAccessor;
+	private CameraParametersCache mCache;
+
+	@Before
+	public void setUp() {
+		mAccessor = new FakeAccessor();
+		mCache = new CameraParametersCache(mAccessor);
+	}
+
+	@Test
+	public void testGet() {
+		final Camera.Parameters params = mCache.get();
+		assertSame(params, mCache.get());
+		assertEquals(1, mAccessor.mGetCount);
+	}
+
+	@Test
+	public void testApply() {
+		mCache.get();
+		mCache.apply();
+		mCache.apply();
+		assertEquals(2, mAccessor.mSetCount);
+		assertEquals(1, mAccessor.mGetCount);
+	}
+
+	@Test
+	public void testCommit() {
+		mCache.begin();
+		mCache.get();
+		mCache.apply();
+		mCache.begin();
+		mCache.apply();
+		assertTrue(mCache.commit());
+		assertEquals(0, mAccessor.mSetCount);
+		assertTrue(mCache.isInTransaction());
+
+		mCache.apply();
+		assertTrue(mCache.commit());
+		assertEquals(1, mAccessor.mSetCount);
+		assertFalse(mCache.isInTransaction());
+	}
+
+	@Test
+	public void testCommitWithoutChanges() {
+		mCache.begin();
+		mCache.get();
+		assertTrue(mCache.commit());
+		assertEquals(0, mAccessor.mSetCount);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCommitWithoutBegin() {
+		mCache.commit();
+	}
+
+	@Test
+	public void testCommitRejected() {
+		final Camera.Parameters params = mCache.get();
+		mAccessor.mReject = true;
+		mCache.begin();
+		mCache.apply();
+		assertFalse(mCache.commit());
+		assertEquals(1, mAccessor.mSetCount);
+
+		// 受け付けられなかったスナップショットは破棄されます。
+		assertNotSame(params, mCache.get());
+		assertEquals(2, mAccessor.mGetCount);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testApplyRejected() {
+		mCache.get();
+		mAccessor.mReject = true;
+		mCache.apply();
+	}
+
+	@Test
+	public void testCommitOptionalRejected() {
+		mAccessor.mRejectKey = "preview-fps-range";
+		mCache.begin();
+		mCache.get().set("preview-size", "640x480");
+		mCache.setOptional("preview-fps-range", "15000,30000");
+		mCache.apply();
+		assertTrue(mCache.commit());
+		assertEquals(2, mAccessor.mSetCount);
+
+		// 任意のパラメータのみが取り消され、残りの変更は適用されます。
+		assertEquals("640x480", mCache.get().get("preview-size"));
+		assertNull(mCache.get().get("preview-fps-range"));
+		assertEquals(1, mAccessor.mGetCount);
+	}
+
+	@Test
+	public void testInvalidate() {
+		final Camera.Parameters params = mCache.get();
+		mCache.begin();
+		mCache.apply();
+		mCache.invalidate();
+		assertTrue(mCache.isInTransaction());
+		assertNotSame(params, mCache.get());
+		assertEquals(2, mAccessor.mGetCount);
+
+		// 破棄した変更は適用されません。
+		assertTrue(mCache.commit());
+		assertFalse(mCache.isInTransaction());
+		assertEquals(0, mAccessor.mSetCount);
+	}
+
+	@Test
+	public void testInvalidateInNestedTransaction() {
+		mCache.begin();
+		mCache.begin();
+		mCache.get();
+		mCache.apply();
+		mCache.invalidate();
+
+		// 接続し直したカメラへの変更は、最も外側のトランザクションの終了時に適用されます。
+		mCache.get();
+		mCache.apply();
+		assertTrue(mCache.commit());
+		assertEquals(0, mAccessor.mSetCount);
+		assertTrue(mCache.commit());
+		assertEquals(1, mAccessor.mSetCount);
+		assertFalse(mCache.isInTransaction());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class PreviewCallbackBufferPoolTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPreviewCallbackBufferPoolIllegalBufferSize() {
+		new PreviewCallbackBufferPool(0, 3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPreviewCallbackBufferPoolIllegalCapacity() {
+		new PreviewCallbackBufferPool(16, 0);
+	}
+
+	@Test
+	public void testObtain() {
+		final PreviewCallbackBufferPool pool = new PreviewCallbackBufferPool(16, 2);
+
+		final byte[] first = pool.obtain();
+		assertNotNull(first);
+		assertEquals(16, first.length);
+		final byte[] second = pool.obtain();
+		assertNotNull(second);
+		assertNull(pool.obtain());
+
+		assertEquals(0, pool.getHitCount());
+		assertEquals(2, pool.getMissCount());
+		assertEquals(1, pool.getStarvationCount());
+	}
+
+	@Test
+	public void testRecycle() {
+		final PreviewCallbackBufferPool pool = new PreviewCallbackBufferPool(16, 2);
+
+		final byte[] buffer = pool.obtain();
+		assertTrue(pool.recycle(buffer));
+		assertSame(buffer, pool.obtain());
+
+		assertFalse(pool.recycle(null));
+		assertFalse(pool.recycle(new byte[8]));
+
+		assertEquals(1, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+		assertEquals(0, pool.getStarvationCount());
+	}
+
+	@Test
+	public void testRequeue() {
+		// カメラへ 2 個まで登録して、1 個を予備とします。
+		final PreviewCallbackBufferPool pool = new PreviewCallbackBufferPool(16, 3);
+		final byte[] first = pool.obtainForQueue(2);
+		final byte[] second = pool.obtainForQueue(2);
+		assertNull(pool.obtainForQueue(2));
+		assertEquals(2, pool.getQueuedCount());
+
+		// 1 フレーム目は GL スレッドで転送中となり、予備のバッファを登録します。
+		pool.onBufferDequeued();
+		final byte[] third = pool.obtainForQueue(2);
+		assertNotNull(third);
+		assertEquals(2, pool.getQueuedCount());
+
+		// 2 フレーム目と 3 フレーム目は GL スレッドへの受け渡し待ちとなり、登録できるバッファが不足します。
+		pool.onBufferDequeued();
+		assertNull(pool.obtainForQueue(2));
+		pool.onBufferDequeued();
+		assertNull(pool.obtainForQueue(2));
+		assertEquals(0, pool.getQueuedCount());
+		assertEquals(2, pool.getStarvationCount());
+
+		// 受け渡されずに破棄された 2 フレーム目と、転送を終えた 1 フレーム目のバッファは直ちにカメラへ登録し直します。
+		assertTrue(pool.requeue(second, 2));
+		assertTrue(pool.requeue(first, 2));
+		assertEquals(2, pool.getQueuedCount());
+
+		// 登録中のバッファが足りている場合はプールへ返却します。
+		assertFalse(pool.requeue(third, 2));
+		assertEquals(2, pool.getQueuedCount());
+		assertSame(third, pool.obtain());
+
+		// サイズの異なるバッファは登録し直しません。
+		pool.onBufferDequeued();
+		assertFalse(pool.requeue(new byte[8], 2));
+		assertEquals(1, pool.getQueuedCount());
+	}
+
+	@Test
+	public void testClear() {
+		final PreviewCallbackBufferPool pool = new PreviewCallbackBufferPool(16, 1);
+
+		final byte[] buffer = pool.obtain();
+		pool.recycle(buffer);
+		pool.clear();
+		assertNotNull(pool.obtain());
+		assertEquals(2, pool.getMissCount());
+
+		pool.resetStatistics();
+		assertEquals(0, pool.getHitCount());
+		assertEquals(0, pool.getMissCount());
+		assertEquals(0, pool.getStarvationCount());
+	}
+
+}
\ No newline at end of file
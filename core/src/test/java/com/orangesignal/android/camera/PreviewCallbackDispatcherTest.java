@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import android.hardware.Camera;
+
+public final class PreviewCallbackDispatcherTest {
+
+	private static final int BUFFER_COUNT = 3;
+
+	private static final int FRAME_COUNT = 10;
+
+	/**
+	 * {@link Camera#addCallbackBuffer(byte[])} で登録されたバッファへ順にフレームを通知するカメラを模倣します。
+	 */
+	private static final class FakeCamera {
+
+		private final ArrayDeque<byte[]> mQueue = new ArrayDeque<byte[]>();
+
+		private PreviewCallbackDispatcher mDispatcher;
+
+		public boolean deliverFrame() {
+			final byte[] buffer = mQueue.poll();
+			if (buffer == null) {
+				return false;
+			}
+			mDispatcher.onPreviewFrame(buffer, null);
+			return true;
+		}
+
+	}
+
+	private static FakeCamera createCamera(final Camera.PreviewCallback cb) {
+		final FakeCamera camera = new FakeCamera();
+		final PreviewCallbackBufferPool pool = new PreviewCallbackBufferPool(16, BUFFER_COUNT);
+		camera.mDispatcher = new PreviewCallbackDispatcher(cb, pool, BUFFER_COUNT - 1) {
+			@Override
+			protected void queueBuffer(final byte[] buffer) {
+				camera.mQueue.add(buffer);
+			}
+		};
+		for (int i = 0; i < BUFFER_COUNT - 1; i++) {
+			camera.mQueue.add(pool.obtainForQueue(BUFFER_COUNT - 1));
+		}
+		return camera;
+	}
+
+	@Test
+	public void testOnPreviewFrameRequeuesDeliveredBuffer() {
+		final List<byte[]> frames = new ArrayList<byte[]>();
+		final FakeCamera camera = createCamera(new Camera.PreviewCallback() {
+			@Override
+			public void onPreviewFrame(final byte[] data, final Camera c) {
+				frames.add(data);
+			}
+		});
+
+		for (int i = 0; i < FRAME_COUNT; i++) {
+			if (!camera.deliverFrame()) {
+				break;
+			}
+		}
+		assertEquals(FRAME_COUNT, frames.size());
+		assertEquals(BUFFER_COUNT - 1, camera.mQueue.size());
+	}
+
+	@Test
+	public void testOnPreviewFrameIgnoresReturnOfDeliveredBuffer() {
+		final List<byte[]> frames = new ArrayList<byte[]>();
+		final FakeCamera[] holder = new FakeCamera[1];
+		holder[0] = createCamera(new Camera.PreviewCallback() {
+			@Override
+			public void onPreviewFrame(final byte[] data, final Camera c) {
+				frames.add(data);
+				holder[0].mDispatcher.addCallbackBuffer(data);
+			}
+		});
+
+		for (int i = 0; i < FRAME_COUNT; i++) {
+			if (!holder[0].deliverFrame()) {
+				break;
+			}
+		}
+		assertEquals(FRAME_COUNT, frames.size());
+		assertEquals(BUFFER_COUNT - 1, holder[0].mQueue.size());
+	}
+
+	@Test
+	public void testRetain() {
+		final List<byte[]> retained = new ArrayList<byte[]>();
+		final FakeCamera[] holder = new FakeCamera[1];
+		holder[0] = createCamera(new Camera.PreviewCallback() {
+			@Override
+			public void onPreviewFrame(final byte[] data, final Camera c) {
+				holder[0].mDispatcher.retain();
+				retained.add(data);
+			}
+		});
+		final FakeCamera camera = holder[0];
+
+		// 保持したバッファを返却しない間は、プールのバッファを使い切った時点で通知が止まります。
+		for (int i = 0; i < FRAME_COUNT; i++) {
+			if (!camera.deliverFrame()) {
+				break;
+			}
+		}
+		assertEquals(BUFFER_COUNT, retained.size());
+		assertNull(camera.mQueue.peek());
+
+		// 返却したバッファで通知が再開します。
+		camera.mDispatcher.addCallbackBuffer(retained.get(0));
+		assertNotNull(camera.mQueue.peek());
+		assertTrue(camera.deliverFrame());
+		assertEquals(BUFFER_COUNT + 1, retained.size());
+	}
+
+}
\ No newline at end of file
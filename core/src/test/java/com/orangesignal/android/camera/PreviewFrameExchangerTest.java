@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public final class PreviewFrameExchangerTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPublishNull() {
+		new PreviewFrameExchanger().publish(null);
+	}
+
+	@Test
+	public void testPublishAndTake() {
+		final PreviewFrameExchanger exchanger = new PreviewFrameExchanger();
+		assertNull(exchanger.take());
+
+		final byte[] frame = new byte[1];
+		assertNull(exchanger.publish(frame));
+		assertSame(frame, exchanger.take());
+		assertNull(exchanger.take());
+
+		assertEquals(1, exchanger.getPublishedCount());
+		assertEquals(1, exchanger.getConsumedCount());
+		assertEquals(0, exchanger.getDroppedCount());
+	}
+
+	@Test
+	public void testPublishDropsStaleFrame() {
+		final PreviewFrameExchanger exchanger = new PreviewFrameExchanger();
+
+		final byte[] first = new byte[1];
+		final byte[] second = new byte[1];
+		final byte[] third = new byte[1];
+		assertNull(exchanger.publish(first));
+		assertSame(first, exchanger.publish(second));
+		assertSame(second, exchanger.publish(third));
+		assertSame(third, exchanger.take());
+
+		assertEquals(3, exchanger.getPublishedCount());
+		assertEquals(1, exchanger.getConsumedCount());
+		assertEquals(2, exchanger.getDroppedCount());
+
+		exchanger.resetStatistics();
+		assertEquals(0, exchanger.getPublishedCount());
+		assertEquals(0, exchanger.getConsumedCount());
+		assertEquals(0, exchanger.getDroppedCount());
+	}
+
+	@Test
+	public void testClear() {
+		final PreviewFrameExchanger exchanger = new PreviewFrameExchanger();
+
+		final byte[] frame = new byte[1];
+		exchanger.publish(frame);
+		assertSame(frame, exchanger.clear());
+		assertNull(exchanger.take());
+		assertEquals(0, exchanger.getConsumedCount());
+	}
+
+	@Test
+	public void testConcurrentHandoff() throws InterruptedException {
+		final PreviewFrameExchanger exchanger = new PreviewFrameExchanger();
+		final int frames = 100000;
+
+		final Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < frames; i++) {
+					exchanger.publish(new byte[1]);
+				}
+			}
+		});
+		final long[] consumed = new long[1];
+		final Thread consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (consumed[0] + exchanger.getDroppedCount() < frames) {
+					if (exchanger.take() != null) {
+						consumed[0]++;
+					}
+				}
+			}
+		});
+		producer.start();
+		consumer.start();
+		producer.join();
+		consumer.join(10000);
+
+		// 公開された全てのプレビューデータは受け取られるか破棄されるかのいずれかです。
+		assertEquals(frames, exchanger.getPublishedCount());
+		assertEquals(frames, exchanger.getConsumedCount() + exchanger.getDroppedCount());
+		assertEquals(consumed[0], exchanger.getConsumedCount());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * {@link FrameTimingRecorder} の単体テストです。
+ */
+public final class FrameTimingRecorderTest {
+
+	private static final long MICROS = 1000L;
+	private static final long MILLIS = 1000L * 1000L;
+
+	/**
+	 * 1 フレームを記録します。各ステージの時間はマイクロ秒で指定します。
+	 */
+	private static void frame(final FrameTimingRecorder recorder, final long start, final long upload, final long pass0, final long pass1) {
+		recorder.beginFrame(start);
+		long t = start;
+		recorder.record(FrameTimingRecorder.STAGE_UPLOAD, t, t += upload * MICROS);
+		recorder.record(FrameTimingRecorder.getShaderPassStage(0), t, t += pass0 * MICROS);
+		recorder.record(FrameTimingRecorder.getShaderPassStage(1), t, t += pass1 * MICROS);
+		recorder.endFrame(t);
+	}
+
+	@Test
+	public void testPercentiles() {
+		final FrameTimingRecorder recorder = new FrameTimingRecorder(100, 1000L);
+		for (int i = 1; i <= 100; i++) {
+			frame(recorder, i * 40L * MILLIS, i, 10, 0);
+		}
+
+		final FrameTimingRecorder.Snapshot snapshot = recorder.getSnapshot();
+		assertEquals(100, snapshot.getCount(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(50, snapshot.getP50(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(95, snapshot.getP95(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(99, snapshot.getP99(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(100, snapshot.getMax(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(10, snapshot.getP99(FrameTimingRecorder.getShaderPassStage(0)));
+		assertEquals(60, snapshot.getP50(FrameTimingRecorder.STAGE_FRAME));
+		// 記録していないステージ
+		assertEquals(0, snapshot.getCount(FrameTimingRecorder.STAGE_SWAP));
+	}
+
+	@Test
+	public void testRingKeepsLatestFrames() {
+		final FrameTimingRecorder recorder = new FrameTimingRecorder(4, 1000L);
+		for (int i = 1; i <= 10; i++) {
+			frame(recorder, i * 40L * MILLIS, i, 0, 0);
+		}
+
+		final FrameTimingRecorder.Snapshot snapshot = recorder.getSnapshot();
+		assertEquals(4, snapshot.getCount(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(8, snapshot.getP50(FrameTimingRecorder.STAGE_UPLOAD));
+		assertEquals(10, snapshot.getMax(FrameTimingRecorder.STAGE_UPLOAD));
+	}
+
+	@Test
+	public void testShaderPassesBeyondMaximumAreAccumulated() {
+		final FrameTimingRecorder recorder = new FrameTimingRecorder();
+		recorder.beginFrame(0L);
+		for (int pass = 0; pass < FrameTimingRecorder.MAX_SHADER_PASSES + 2; pass++) {
+			recorder.record(FrameTimingRecorder.getShaderPassStage(pass), 0L, 100L * MICROS);
+		}
+		recorder.endFrame(MILLIS);
+
+		final FrameTimingRecorder.Snapshot snapshot = recorder.getSnapshot();
+		assertEquals(100, snapshot.getP50(FrameTimingRecorder.getShaderPassStage(0)));
+		assertEquals(300, snapshot.getP50(FrameTimingRecorder.getShaderPassStage(FrameTimingRecorder.MAX_SHADER_PASSES - 1)));
+	}
+
+	@Test
+	public void testCameraArrival() {
+		final FrameTimingRecorder recorder = new FrameTimingRecorder();
+		recorder.markFrameArrival(10L * MILLIS);
+		frame(recorder, 15L * MILLIS, 1, 1, 1);
+		// 新しいフレームが到着していなければ記録しません。
+		frame(recorder, 50L * MILLIS, 1, 1, 1);
+
+		final FrameTimingRecorder.Snapshot snapshot = recorder.getSnapshot();
+		assertEquals(1, snapshot.getCount(FrameTimingRecorder.STAGE_CAMERA));
+		assertEquals(5000, snapshot.getP50(FrameTimingRecorder.STAGE_CAMERA));
+	}
+
+	@Test
+	public void testListener() {
+		final FrameTimingRecorder.Snapshot[] result = new FrameTimingRecorder.Snapshot[1];
+		final FrameTimingRecorder recorder = new FrameTimingRecorder(128, 1000L);
+		recorder.addListener(new FrameTimingRecorder.Listener() {
+			@Override
+			public void onFrameTiming(final FrameTimingRecorder.Snapshot snapshot) {
+				result[0] = snapshot;
+			}
+		});
+
+		// 25 ミリ秒間隔で 40 フレーム (1 秒) 描画するまでは通知されません。
+		for (int i = 0; i < 40; i++) {
+			frame(recorder, i * 25L * MILLIS, 1, 1, 1);
+		}
+		assertNull(result[0]);
+		frame(recorder, 40 * 25L * MILLIS, 1, 1, 1);
+		assertNotNull(result[0]);
+		assertEquals(41F, result[0].getFps(), 0.1F);
+	}
+
+	@Test
+	public void testPercentile() {
+		final int[] sorted = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		assertEquals(5, FrameTimingRecorder.percentile(sorted, 10, 50));
+		assertEquals(10, FrameTimingRecorder.percentile(sorted, 10, 95));
+		assertEquals(1, FrameTimingRecorder.percentile(sorted, 1, 99));
+	}
+
+}
\ No newline at end of file
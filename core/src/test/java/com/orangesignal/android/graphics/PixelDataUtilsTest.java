@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import org.junit.Test;
+
+/**
+ * {@link PixelDataUtils} の単体テストです。
+ */
+public final class PixelDataUtilsTest {
+
+	/**
+	 * 3x2 のピクセルデータです。{@code glReadPixels} と同じく下の行から並んでいます。
+	 * <pre>
+	 * 1 2 3
+	 * 4 5 6
+	 * </pre>
+	 */
+	private static final int[] PIXELS = { 4, 5, 6, 1, 2, 3 };
+
+	private static int[] transform(final int orientation, final boolean mirror) {
+		final IntBuffer dst = IntBuffer.allocate(PIXELS.length);
+		PixelDataUtils.transform(IntBuffer.wrap(PIXELS), 3, 2, orientation, mirror, dst, new int[3]);
+		return dst.array();
+	}
+
+	@Test
+	public void testTransform() {
+		assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6 }, transform(0, false));
+		assertArrayEquals(new int[] { 3, 6, 2, 5, 1, 4 }, transform(90, false));
+		assertArrayEquals(new int[] { 6, 5, 4, 3, 2, 1 }, transform(180, false));
+		assertArrayEquals(new int[] { 4, 1, 5, 2, 6, 3 }, transform(270, false));
+		assertArrayEquals(new int[] { 4, 1, 5, 2, 6, 3 }, transform(-90, false));
+	}
+
+	@Test
+	public void testTransformMirror() {
+		assertArrayEquals(new int[] { 3, 2, 1, 6, 5, 4 }, transform(0, true));
+		assertArrayEquals(new int[] { 1, 4, 2, 5, 3, 6 }, transform(90, true));
+		assertArrayEquals(new int[] { 4, 5, 6, 1, 2, 3 }, transform(180, true));
+		assertArrayEquals(new int[] { 6, 3, 5, 2, 4, 1 }, transform(270, true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTransformIllegalOrientation() {
+		transform(45, false);
+	}
+
+
+	private static byte[] argbToRgba(final int argb, final ByteOrder order) {
+		final int[] pixels = { 0, argb };
+		PixelDataUtils.argbToRgba(pixels, 1, 1, order);
+		final ByteBuffer buffer = ByteBuffer.allocate(4).order(order);
+		buffer.asIntBuffer().put(pixels[1]);
+		return buffer.array();
+	}
+
+	@Test
+	public void testArgbToRgba() {
+		final byte[] expected = { 0x11, 0x22, 0x33, (byte) 0x80 };
+		assertArrayEquals(expected, argbToRgba(0x80112233, ByteOrder.LITTLE_ENDIAN));
+		assertArrayEquals(expected, argbToRgba(0x80112233, ByteOrder.BIG_ENDIAN));
+	}
+
+}
\ No newline at end of file
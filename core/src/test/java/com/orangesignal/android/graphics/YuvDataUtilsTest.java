@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.graphics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public final class YuvDataUtilsTest {
+
+	@Test
+	public void testToRGBIntIntInt() {
+		assertEquals(0x000000, YuvDataUtils.toRGB(0, 128, 128));
+		assertEquals(0x000000, YuvDataUtils.toRGB(16, 128, 128));
+		assertEquals(0xfefefe, YuvDataUtils.toRGB(235, 128, 128));
+		assertEquals(0xffffff, YuvDataUtils.toRGB(255, 128, 128));
+		assertEquals(0xfe0000, YuvDataUtils.toRGB(81, 90, 240));
+		assertEquals(0x00ff00, YuvDataUtils.toRGB(145, 54, 34));
+		assertEquals(0x0000ff, YuvDataUtils.toRGB(41, 240, 110));
+	}
+
+	@Test
+	public void testToRGB() {
+		// 4x2 の NV21 データ (輝度 8 バイト + 色差 VU 2 組)
+		final byte[] yuv420sp = new byte[] {
+				16, 16, (byte) 235, (byte) 235,
+				16, 16, (byte) 235, (byte) 235,
+				(byte) 128, (byte) 128, (byte) 240, 90
+		};
+		final byte[] rgb = new byte[4 * 2 * 3];
+		YuvDataUtils.toRGB(yuv420sp, 4, 2, rgb);
+
+		final int[] expected = new int[] {
+				0x000000, 0x000000, YuvDataUtils.toRGB(235, 90, 240), YuvDataUtils.toRGB(235, 90, 240),
+				0x000000, 0x000000, YuvDataUtils.toRGB(235, 90, 240), YuvDataUtils.toRGB(235, 90, 240)
+		};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals((expected[i] >> 16) & 0xff, rgb[i * 3] & 0xff);
+			assertEquals((expected[i] >> 8) & 0xff, rgb[i * 3 + 1] & 0xff);
+			assertEquals(expected[i] & 0xff, rgb[i * 3 + 2] & 0xff);
+		}
+	}
+
+	@Test
+	public void testToRGBA() {
+		final byte[] yuv420sp = new byte[] {
+				81, 81, 81, 81,
+				(byte) 240, 90
+		};
+		final byte[] rgba = new byte[2 * 2 * 4];
+		YuvDataUtils.toRGBA(yuv420sp, 2, 2, rgba);
+
+		final byte[] expected = new byte[] {
+				(byte) 0xfe, 0, 0, (byte) 0xff,
+				(byte) 0xfe, 0, 0, (byte) 0xff,
+				(byte) 0xfe, 0, 0, (byte) 0xff,
+				(byte) 0xfe, 0, 0, (byte) 0xff
+		};
+		assertArrayEquals(expected, rgba);
+	}
+
+	@Test
+	public void testToARGB() {
+		final byte[] yuv420sp = new byte[] {
+				(byte) 235, 16, (byte) 255, 0,
+				(byte) 128, (byte) 128
+		};
+		final int[] argb = new int[2 * 2];
+		YuvDataUtils.toARGB(yuv420sp, 2, 2, argb);
+
+		assertArrayEquals(new int[] { 0xfffefefe, 0xff000000, 0xffffffff, 0xff000000 }, argb);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.media;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public final class ExifOutputStreamTest {
+
+	private static final byte[] SEGMENT = { (byte) 0xFF, (byte) 0xE1, 0x00, 0x04, 0x01, 0x02 };
+
+	private static final byte[] JFIF_JPEG = {
+		(byte) 0xFF, (byte) 0xD8,
+		(byte) 0xFF, (byte) 0xE0, 0x00, 0x06, 'J', 'F', 'I', 'F',
+		(byte) 0xFF, (byte) 0xDB, 0x00, 0x03, 0x07,
+		(byte) 0xFF, (byte) 0xD9
+	};
+
+	private static final byte[] EXPECTED = {
+		(byte) 0xFF, (byte) 0xD8,
+		(byte) 0xFF, (byte) 0xE1, 0x00, 0x04, 0x01, 0x02,
+		(byte) 0xFF, (byte) 0xDB, 0x00, 0x03, 0x07,
+		(byte) 0xFF, (byte) 0xD9
+	};
+
+	@Test
+	public void testWrite() throws IOException {
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		final ExifOutputStream out = new ExifOutputStream(result, SEGMENT);
+		out.write(JFIF_JPEG, 0, JFIF_JPEG.length);
+		out.close();
+		assertArrayEquals(EXPECTED, result.toByteArray());
+	}
+
+	@Test
+	public void testWriteByteByByte() throws IOException {
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		final ExifOutputStream out = new ExifOutputStream(result, SEGMENT);
+		for (final byte b : JFIF_JPEG) {
+			out.write(b);
+		}
+		out.close();
+		assertArrayEquals(EXPECTED, result.toByteArray());
+	}
+
+	@Test
+	public void testWriteSplitChunks() throws IOException {
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		final ExifOutputStream out = new ExifOutputStream(result, SEGMENT);
+		// マーカーとセグメントの途中で分割して書き込みます。
+		out.write(JFIF_JPEG, 0, 3);
+		out.write(JFIF_JPEG, 3, 5);
+		out.write(JFIF_JPEG, 8, 4);
+		out.write(JFIF_JPEG, 12, JFIF_JPEG.length - 12);
+		out.close();
+		assertArrayEquals(EXPECTED, result.toByteArray());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteNotJpeg() throws IOException {
+		final ExifOutputStream out = new ExifOutputStream(new ByteArrayOutputStream(), SEGMENT);
+		out.write(new byte[]{ (byte) 0x89, 'P', 'N', 'G' });
+	}
+
+}
\ No newline at end of file
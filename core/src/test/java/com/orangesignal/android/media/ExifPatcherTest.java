@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.media;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public final class ExifPatcherTest {
+
+	private static final byte[] EOI = { (byte) 0xFF, (byte) 0xD9 };
+
+	private static byte[] toJpeg(final byte[] segment) {
+		final ByteBuffer buffer = ByteBuffer.allocate(2 + segment.length + EOI.length);
+		buffer.put((byte) 0xFF).put((byte) 0xD8).put(segment).put(EOI);
+		return buffer.array();
+	}
+
+	/**
+	 * Orientation タグのみを持つリトルエンディアンの APP1 セグメントを作成します。
+	 */
+	private static byte[] createLittleEndianSegment() {
+		final ByteBuffer buffer = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.order(ByteOrder.BIG_ENDIAN).putShort((short) 0xFFE1).putShort((short) (buffer.capacity() - 2));
+		buffer.put(new byte[]{ 'E', 'x', 'i', 'f', 0, 0, 'I', 'I' });
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putShort((short) 0x2A).putInt(8);
+		buffer.putShort((short) 1);
+		buffer.putShort((short) ExifSegmentBuilder.TAG_ORIENTATION).putShort((short) 3).putInt(1).putShort((short) 1).putShort((short) 0);
+		buffer.putInt(0);
+		return buffer.array();
+	}
+
+	@Test
+	public void testPatchOrientation() {
+		final byte[] jpeg = toJpeg(new ExifSegmentBuilder().setOrientation(0).build());
+		final byte[] expected = toJpeg(new ExifSegmentBuilder().setOrientation(270).build());
+
+		assertTrue(ExifPatcher.patchOrientation(jpeg, 270));
+		assertArrayEquals(expected, jpeg);
+	}
+
+	@Test
+	public void testPatchOrientationLittleEndian() {
+		final byte[] jpeg = toJpeg(createLittleEndianSegment());
+
+		assertTrue(ExifPatcher.patchOrientation(jpeg, 90));
+		// SOI (2) + マーカーと長さ (4) + Exif 識別子 (6) + TIFF ヘッダー (8) + エントリ数 (2) + タグ、型、個数 (8)
+		assertEquals(6, jpeg[30]);
+		assertEquals(0, jpeg[31]);
+	}
+
+	@Test
+	public void testPatchLocation() {
+		final byte[] jpeg = toJpeg(new ExifSegmentBuilder().setLocation(0.0, 0.0).build());
+		final byte[] expected = toJpeg(new ExifSegmentBuilder().setLocation(-33.5, 139.75).build());
+
+		assertTrue(ExifPatcher.patchLocation(jpeg, -33.5, 139.75));
+		assertArrayEquals(expected, jpeg);
+	}
+
+	@Test
+	public void testPatchWithoutTags() {
+		final byte[] jpeg = toJpeg(createLittleEndianSegment());
+		final byte[] expected = jpeg.clone();
+
+		assertFalse(ExifPatcher.patchLocation(jpeg, 35.0, 139.0));
+		assertArrayEquals(expected, jpeg);
+	}
+
+	@Test
+	public void testPatchWithoutExif() {
+		final byte[] jfif = {
+			(byte) 0xFF, (byte) 0xD8,
+			(byte) 0xFF, (byte) 0xE0, 0x00, 0x06, 'J', 'F', 'I', 'F',
+			(byte) 0xFF, (byte) 0xDA, 0x00, 0x02,
+			(byte) 0xFF, (byte) 0xD9
+		};
+		assertFalse(ExifPatcher.patchOrientation(jfif, 90));
+		assertFalse(ExifPatcher.patchOrientation(new byte[]{ 'P', 'N', 'G' }, 90));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.media;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+public final class ExifSegmentBuilderTest {
+
+	/**
+	 * APP1 のマーカーと長さ、Exif 識別子の後の TIFF 構造の先頭位置です。
+	 */
+	private static final int TIFF_BASE = 10;
+
+	/**
+	 * 指定された IFD から指定されたタグのエントリ位置を返します。
+	 */
+	private static Integer findEntry(final ByteBuffer buffer, final int ifdOffset, final int tag) {
+		final int count = buffer.getShort(TIFF_BASE + ifdOffset) & 0xFFFF;
+		for (int i = 0; i < count; i++) {
+			final int entry = TIFF_BASE + ifdOffset + 2 + i * 12;
+			if ((buffer.getShort(entry) & 0xFFFF) == tag) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private static String readAscii(final ByteBuffer buffer, final int entry) {
+		final int count = buffer.getInt(entry + 4);
+		final int position = count > 4 ? TIFF_BASE + buffer.getInt(entry + 8) : entry + 8;
+		return new String(buffer.array(), position, count - 1);
+	}
+
+	@Test
+	public void testToExifOrientation() {
+		assertEquals(1, ExifSegmentBuilder.toExifOrientation(0));
+		assertEquals(6, ExifSegmentBuilder.toExifOrientation(90));
+		assertEquals(3, ExifSegmentBuilder.toExifOrientation(180));
+		assertEquals(8, ExifSegmentBuilder.toExifOrientation(270));
+		assertEquals(8, ExifSegmentBuilder.toExifOrientation(-90));
+	}
+
+	@Test
+	public void testToDmsRationals() {
+		final ByteBuffer buffer = ByteBuffer.wrap(ExifSegmentBuilder.toDmsRationals(35.5));
+		assertEquals(35, buffer.getInt(0));
+		assertEquals(1, buffer.getInt(4));
+		assertEquals(30, buffer.getInt(8));
+		assertEquals(1, buffer.getInt(12));
+		assertEquals(0, buffer.getInt(16));
+		assertEquals(1000, buffer.getInt(20));
+	}
+
+	@Test
+	public void testBuild() {
+		final byte[] segment = new ExifSegmentBuilder()
+				.setDateTime(new Date(0L))
+				.setMake("OrangeSignal")
+				.setModel("Camera")
+				.setOrientation(90)
+				.setFlash(Boolean.TRUE)
+				.build();
+		final ByteBuffer buffer = ByteBuffer.wrap(segment);
+
+		assertEquals(0xFFE1, buffer.getShort(0) & 0xFFFF);
+		assertEquals(segment.length - 2, buffer.getShort(2) & 0xFFFF);
+		assertArrayEquals(new byte[]{ 'E', 'x', 'i', 'f', 0, 0, 'M', 'M', 0, 0x2A }, Arrays.copyOfRange(segment, 4, 14));
+		assertEquals(8, buffer.getInt(TIFF_BASE + 4));
+
+		assertEquals("OrangeSignal", readAscii(buffer, findEntry(buffer, 8, ExifSegmentBuilder.TAG_MAKE)));
+		assertEquals("Camera", readAscii(buffer, findEntry(buffer, 8, ExifSegmentBuilder.TAG_MODEL)));
+		assertEquals(6, buffer.getShort(findEntry(buffer, 8, ExifSegmentBuilder.TAG_ORIENTATION) + 8));
+		assertEquals(19, readAscii(buffer, findEntry(buffer, 8, ExifSegmentBuilder.TAG_DATETIME)).length());
+		assertNull(findEntry(buffer, 8, ExifSegmentBuilder.TAG_GPS_IFD_POINTER));
+
+		final int exifOffset = buffer.getInt(findEntry(buffer, 8, ExifSegmentBuilder.TAG_EXIF_IFD_POINTER) + 8);
+		assertEquals(1, buffer.getShort(findEntry(buffer, exifOffset, ExifSegmentBuilder.TAG_FLASH) + 8));
+		assertEquals("0220", new String(segment, findEntry(buffer, exifOffset, ExifSegmentBuilder.TAG_EXIF_VERSION) + 8, 4));
+	}
+
+	@Test
+	public void testBuildLocation() {
+		final byte[] segment = new ExifSegmentBuilder()
+				.setDateTime(new Date(0L))
+				.setLocation(-33.5, -70.25)
+				.build();
+		final ByteBuffer buffer = ByteBuffer.wrap(segment);
+
+		assertEquals(segment.length - 2, buffer.getShort(2) & 0xFFFF);
+		final int gpsOffset = buffer.getInt(findEntry(buffer, 8, ExifSegmentBuilder.TAG_GPS_IFD_POINTER) + 8);
+		assertEquals("S", readAscii(buffer, findEntry(buffer, gpsOffset, ExifSegmentBuilder.TAG_GPS_LATITUDE_REF)));
+		assertEquals("W", readAscii(buffer, findEntry(buffer, gpsOffset, ExifSegmentBuilder.TAG_GPS_LONGITUDE_REF)));
+		assertEquals("1970:01:01", readAscii(buffer, findEntry(buffer, gpsOffset, ExifSegmentBuilder.TAG_GPS_DATESTAMP)));
+
+		final int latitude = TIFF_BASE + buffer.getInt(findEntry(buffer, gpsOffset, ExifSegmentBuilder.TAG_GPS_LATITUDE) + 8);
+		assertEquals(33, buffer.getInt(latitude));
+		assertEquals(30, buffer.getInt(latitude + 8));
+		final int longitude = TIFF_BASE + buffer.getInt(findEntry(buffer, gpsOffset, ExifSegmentBuilder.TAG_GPS_LONGITUDE) + 8);
+		assertEquals(70, buffer.getInt(longitude));
+		assertEquals(15, buffer.getInt(longitude + 8));
+	}
+
+}
\ No newline at end of file
@@ -34,12 +34,20 @@ import android.os.Handler;
 import android.util.AttributeSet;
 import android.util.Log;
 
-import com.orangesignal.android.graphics.Fps;
+import com.orangesignal.android.graphics.FrameTimingRecorder;
+import com.orangesignal.android.opengl.GLES20AnalysisBranch;
+import com.orangesignal.android.opengl.GLES20BurstCapture;
 import com.orangesignal.android.opengl.GLES20ConfigChooser;
 import com.orangesignal.android.opengl.GLES20ContextFactory;
 import com.orangesignal.android.opengl.GLES20FramebufferObject;
 import com.orangesignal.android.opengl.GLES20FramebufferObjectRenderer;
+import com.orangesignal.android.opengl.GLES20FramebufferPyramid;
+import com.orangesignal.android.opengl.GLES20FramebufferReader;
+import com.orangesignal.android.opengl.GLES20ImageDataTexture;
+import com.orangesignal.android.opengl.GLES20ImageTexture;
+import com.orangesignal.android.opengl.GLES20PictureRenderer;
 import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20ShaderGroup;
 import com.orangesignal.android.opengl.GLES20Utils;
 import com.orangesignal.android.opengl.GLTextureView;
 import com.orangesignal.android.opengl.Texture;
@@ -74,6 +82,11 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 	 */
 	boolean mFaceMirror = true;
 
+	/**
+	 * フィルターを適用した画像をカメラの解像度で撮影するかどうかを保持します。
+	 */
+	boolean mFullResolutionCapture;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -159,6 +172,30 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		mFaceMirror = mirror;
 	}
 
+	/**
+	 * フィルターを適用した画像をカメラの解像度で撮影するかどうかを返します。<p>
+	 * デフォルトは {@code false} です。
+	 * 
+	 * @return フィルターを適用した画像をカメラの解像度で撮影するかどうか
+	 */
+	public final boolean isFullResolutionCapture() {
+		return mFullResolutionCapture;
+	}
+
+	/**
+	 * フィルターを適用した画像をカメラの解像度で撮影するかどうかを設定します。<p>
+	 * {@code true} の場合、{@link #takePicture(CameraView.CaptureCallback)} ではプレビューのフレームバッファを読み込む代わりに、
+	 * カメラが出力した JPEG データを最大テクスチャサイズに収まる範囲の解像度でテクスチャへ転送してフィルターをオフスクリーン描画します。
+	 * JPEG データの復号と変換はワーカースレッドで行いますが、プレビューより多くのメモリを使用します。
+	 * フィルターが適用されていない場合は、この設定に関わらず {@link CameraView.JpegCaptureCallback} であれば JPEG データをそのまま渡します。
+	 * 
+	 * @param fullResolution フィルターを適用した画像をカメラの解像度で撮影するかどうか
+	 * @see GLES20PictureRenderer
+	 */
+	public final void setFullResolutionCapture(final boolean fullResolution) {
+		mFullResolutionCapture = fullResolution;
+	}
+
 	/**
 	 * 指定された GLSL プログラマブルシェーダーオブジェクトのコレクションをレンダラーへ設定します。
 	 * 
@@ -173,6 +210,28 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		});
 	}
 
+	/**
+	 * 表示用の描画とは別に、縮小した解像度のフレームで実行する解析用のシェーダーを設定します。<p>
+	 * カメラのフレームは {@link GLES20FramebufferPyramid} で指定されたレベルまで縮小されてから解析用のシェーダーで描画され、
+	 * 描画結果は GL スレッドから {@link GLES20AnalysisBranch.Listener} へ通知されます。表示用の描画は元の解像度のまま行われます。
+	 * 
+	 * @param shader 解析用のシェーダー。または {@code null}
+	 * @param level 解析を行うピラミッドのレベル (0 から {@link GLES20FramebufferPyramid#MAX_LEVEL})。レベル {@code n} は 1/2<sup>n</sup> の大きさです。
+	 * @param listener 描画結果を受け取るリスナー。または {@code null}
+	 * @throws IllegalArgumentException {@code level} が範囲外の場合
+	 */
+	public void setAnalysisShader(final GLES20Shader shader, final int level, final GLES20AnalysisBranch.Listener listener) {
+		if (level < 0 || level > GLES20FramebufferPyramid.MAX_LEVEL) {
+			throw new IllegalArgumentException("Level must be 0 to " + GLES20FramebufferPyramid.MAX_LEVEL + " " + level);
+		}
+		queueEvent(new Runnable() {
+			@Override
+			public void run() {
+				mRenderer.setAnalysisShader(shader, level, listener);
+			}
+		});
+	}
+
 	/**
 	 * 指定されたテクスチャオブジェクトを設定します。
 	 * 
@@ -187,7 +246,11 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		});
 	}
 
-	public void setFps(final Fps fps) {
+	/**
+	 * @deprecated {@link #setFrameTimingRecorder(FrameTimingRecorder)} を使用してください。
+	 */
+	@Deprecated
+	public void setFps(final com.orangesignal.android.graphics.Fps fps) {
 		queueEvent(new Runnable() {
 			@Override
 			public void run() {
@@ -196,6 +259,23 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		});
 	}
 
+	/**
+	 * フレームの計測に使用する {@link FrameTimingRecorder} を設定します。<p>
+	 * カメラからのフレーム到着、テクスチャへの転送、変換、シェーダーの描画パス、合成、スワップの所要時間が記録されます。
+	 * 
+	 * @param recorder フレームの計測に使用する {@link FrameTimingRecorder}。または {@code null}
+	 */
+	@Override
+	public void setFrameTimingRecorder(final FrameTimingRecorder recorder) {
+		super.setFrameTimingRecorder(recorder);
+		queueEvent(new Runnable() {
+			@Override
+			public void run() {
+				mRenderer.setFrameTimingRecorder(recorder);
+			}
+		});
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 
 	@Override
@@ -329,10 +409,13 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		// takePicture してもプレビューが停止しない仕様違反な端末 (Xperia P22i) があるためプレビューを停止させます。
 		mCameraHelper.stopPreview();
 
+		final boolean jpeg = mCaptureCallback instanceof CameraView.JpegCaptureCallback;
+		final int orientation = getCaptureOrientation();
+		final boolean fullResolution = mFullResolutionCapture;
 		queueEvent(new Runnable() {
 			@Override
 			public void run() {
-				mRenderer.capture();
+				mRenderer.capturePicture(data, jpeg, orientation, fullResolution);
 			}
 		});
 	}
@@ -355,6 +438,69 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		mCaptureCallback = null;
 	}
 
+	void onJpegCapture(final byte[] data, final int orientation) {
+		((CameraView.JpegCaptureCallback) mCaptureCallback).onJpegCapture(data, orientation);
+		mCaptureCallback = null;
+	}
+
+	/**
+	 * プレビューを停止せずに、フィルター適用後のフレームを指定されたフレームレートで連写します。<p>
+	 * フレームの {@link Bitmap} への変換と {@link GLES20BurstCapture.Callback} の呼び出しはワーカースレッドで行われます。
+	 * 処理中のフレームが {@link GLES20BurstCapture#DEFAULT_MAX_IN_FLIGHT} に達している場合、そのフレームは破棄されます。
+	 * 既に連写中の場合、以前の連写は中止されます。
+	 * 
+	 * @param frameCount 撮影するフレーム数
+	 * @param fps 撮影するフレームレート
+	 * @param callback コールバック
+	 * @throws IllegalArgumentException 引数が不正な場合
+	 * @see GLES20BurstCapture
+	 */
+	public void startBurst(final int frameCount, final float fps, final GLES20BurstCapture.Callback callback) {
+		final GLES20BurstCapture burstCapture = new GLES20BurstCapture(frameCount, fps, getCaptureOrientation(), isCaptureMirror(), callback);
+		queueEvent(new Runnable() {
+			@Override
+			public void run() {
+				mRenderer.setBurstCapture(burstCapture);
+			}
+		});
+	}
+
+	/**
+	 * 連写を中止します。<p>
+	 * 処理中のフレームは引き続き処理されます。
+	 */
+	public void stopBurst() {
+		queueEvent(new Runnable() {
+			@Override
+			public void run() {
+				mRenderer.setBurstCapture(null);
+			}
+		});
+	}
+
+	/**
+	 * Android 2.3 の API レベルを表します。
+	 */
+	private static final int GINGERBREAD = 9;
+
+	/**
+	 * キャプチャした画像の傾きを返します。
+	 * 
+	 * @return 傾き
+	 */
+	int getCaptureOrientation() {
+		return mCameraHelper != null ? mCameraHelper.getOrientation() : 0;
+	}
+
+	/**
+	 * キャプチャした画像をミラー反転するかどうかを返します。
+	 * 
+	 * @return ミラー反転するかどうか
+	 */
+	boolean isCaptureMirror() {
+		return mCameraHelper != null && Integer.parseInt(Build.VERSION.SDK) < GINGERBREAD && mCameraHelper.isFaceCamera();
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// レンダラー
 
@@ -389,6 +535,11 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		private float[] mSTMatrix   = new float[16];
 		private float mCameraRatio  = 1.0f;
 
+		/**
+		 * モデルビュー、視野、投影のいずれかの行列が変更され、MVP マトリックスの再計算が必要かどうかを保持します。
+		 */
+		private boolean mMVPMatrixDirty = true;
+
 		private GLES20FramebufferObject mFramebufferObject;
 		private GLES20PreviewShader mPreviewShader;
 		private GLES20PreviewShader mImageShader;
@@ -396,6 +547,46 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		private GLES20Shader mShader;
 		private boolean mIsNewShader;
 
+		/**
+		 * 解析用のシェーダーを実行する分岐を保持します。
+		 */
+		private final GLES20AnalysisBranch mAnalysisBranch = new GLES20AnalysisBranch();
+
+		/**
+		 * 連写中のキャプチャを保持します。
+		 */
+		private GLES20BurstCapture mBurstCapture;
+
+		/**
+		 * カメラの解像度で描画する撮影画像のテクスチャを保持します。
+		 */
+		private GLES20ImageDataTexture mPictureTexture;
+
+		/**
+		 * 撮影画像の傾きを保持します。
+		 */
+		private int mPictureOrientation;
+
+		/**
+		 * 撮影画像をカメラの解像度で描画する {@link GLES20PictureRenderer} を保持します。
+		 */
+		private final GLES20PictureRenderer mPictureRenderer = new GLES20PictureRenderer();
+
+		/**
+		 * 変換した {@link Bitmap} で {@link CameraView.CaptureCallback#onImageCapture(Bitmap)} を呼び出すコールバックを保持します。
+		 */
+		private final GLES20FramebufferReader.Callback mImageCaptureCallback = new GLES20FramebufferReader.Callback() {
+			@Override
+			public void onBitmapAvailable(final Bitmap bitmap) {
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onImageCapture(bitmap);
+					}
+				});
+			}
+		};
+
 		//////////////////////////////////////////////////////////////////////////
 		// コンストラクタ
 
@@ -419,6 +610,30 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			}
 			mShader = shader;
 			mIsNewShader = true;
+			if (shader instanceof GLES20ShaderGroup) {
+				((GLES20ShaderGroup) shader).setFrameTimingRecorder(getFrameTimingRecorder());
+			}
+			requestRender();
+		}
+
+		@Override
+		public void setFrameTimingRecorder(final FrameTimingRecorder recorder) {
+			super.setFrameTimingRecorder(recorder);
+			if (mShader instanceof GLES20ShaderGroup) {
+				((GLES20ShaderGroup) mShader).setFrameTimingRecorder(recorder);
+			}
+		}
+
+		public void setAnalysisShader(final GLES20Shader shader, final int level, final GLES20AnalysisBranch.Listener listener) {
+			mAnalysisBranch.setShader(shader, level, listener);
+			requestRender();
+		}
+
+		public void setBurstCapture(final GLES20BurstCapture burstCapture) {
+			if (mBurstCapture != null) {
+				mBurstCapture.stop();
+			}
+			mBurstCapture = burstCapture;
 			requestRender();
 		}
 
@@ -432,6 +647,7 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			if (mCameraHelper.isFaceCamera() && !mFaceMirror) {
 				Matrix.scaleM(mMMatrix, 0, 1.0f, -1.0f, 1.0f);
 			}
+			mMVPMatrixDirty = true;
 
 			// Android カメラプレビューサイズのアスペクト非を求めます。
 			final Camera.Size previewSize = mCameraHelper.getPreviewSize();
@@ -457,6 +673,7 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 					mImageTexture.release();
 				}
 				Matrix.setIdentityM(mMMatrix, 0);
+				mMVPMatrixDirty = true;
 				mImageTexture = texture;
 				mUploadTexture = true;
 			}
@@ -464,26 +681,48 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 		}
 
 		/**
-		 * Android 2.3 の API レベルを表します。
+		 * 画像をキャプチャして、{@link CameraView.CaptureCallback#onImageCapture(Bitmap)} を呼び出してコールバックします。
 		 */
-		private static final int GINGERBREAD = 9;
+		public void capture() {
+			// 描画ループを止めないように、Bitmap への変換はワーカースレッドで行います。
+			readBitmap(getCaptureOrientation(), isCaptureMirror(), mImageCaptureCallback);
+		}
 
 		/**
-		 * 画像をキャプチャして、{@link CameraView.CaptureCallback#onImageCapture(Bitmap)} を呼び出してコールバックします。
+		 * カメラで撮影した JPEG データを受け取って、撮影画像をコールバックします。<p>
+		 * フィルターが適用されておらず JPEG データを受け取るコールバックの場合は、JPEG データをそのまま渡します。
+		 * フィルターが適用されていてカメラの解像度で撮影する場合は、JPEG データをテクスチャへ転送してからフィルターを描画します。
+		 * それ以外の場合は {@link #capture()} を呼び出してプレビューのフレームバッファを読み込みます。
+		 * 
+		 * @param data JPEG データ
+		 * @param jpeg JPEG データを受け取るコールバックかどうか
+		 * @param orientation 撮影画像の傾き
+		 * @param fullResolution フィルターを適用した画像をカメラの解像度で撮影するかどうか
 		 */
-		public void capture() {
-			final Bitmap bitmap;
-			if (mCameraHelper != null) {
-				bitmap= getBitmap(mCameraHelper.getOrientation(), Integer.parseInt(Build.VERSION.SDK) < GINGERBREAD && mCameraHelper.isFaceCamera());
-			} else {
-				bitmap= getBitmap();
+		public void capturePicture(final byte[] data, final boolean jpeg, final int orientation, final boolean fullResolution) {
+			// フィルターが適用されていない場合は、復号や読み込みを行わずにカメラの JPEG データをそのまま渡します。
+			if (mShader == null && mImageTexture == null && jpeg) {
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onJpegCapture(data, orientation);
+					}
+				});
+				return;
 			}
-			mHandler.post(new Runnable() {
-				@Override
-				public void run() {
-					onImageCapture(bitmap);
-				}
-			});
+			if (mShader != null && mImageTexture == null && fullResolution && data != null) {
+				// 最大テクスチャサイズに収まる範囲で、JPEG データの復号と変換をワーカースレッドで行います。
+				final int[] args = new int[1];
+				glGetIntegerv(GL_MAX_TEXTURE_SIZE, args, 0);
+				final GLES20ImageDataTexture texture = new GLES20ImageDataTexture(data, args[0]);
+				texture.prepareAsync();
+				texture.setup();
+				mPictureTexture = texture;
+				mPictureOrientation = orientation;
+				requestRender();
+				return;
+			}
+			capture();
 		}
 
 		//////////////////////////////////////////////////////////////////////////
@@ -510,7 +749,7 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			mPreviewTexture = new SurfaceTexture(mTexName);
 			mPreviewTexture.setOnFrameAvailableListener(this);
 
-			mFramebufferObject = new GLES20FramebufferObject();
+			mFramebufferObject = new GLES20FramebufferObject(false);
 			mPreviewShader = new GLES20PreviewShader(GL_TEXTURE_EXTERNAL_OES);
 			mPreviewShader.setup();
 			mImageShader = new GLES20PreviewShader(GL_TEXTURE_2D);
@@ -522,6 +761,7 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 					0.0f, 0.0f, 0.0f,	// カメラの焦点 (center-x, center-y, center-z)
 					0.0f, 1.0f, 0.0f	// カメラの上方向 (up-x, ip-y, up-z)
 				);
+			mMVPMatrixDirty = true;
 
 			synchronized (this) {
 				mUpdateSurface = false;
@@ -532,6 +772,11 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			if (mShader != null) {
 				mIsNewShader = true;
 			}
+			mAnalysisBranch.onSurfaceCreated();
+			// 転送待ちの撮影画像のテクスチャは EGL コンテキストと共に失われるため、改めて転送します。
+			if (mPictureTexture != null) {
+				mPictureTexture.setup();
+			}
 
 			// 最大テクスチャサイズを取得して GLSurfaceView へ通知します。
 			glGetIntegerv(GL_MAX_TEXTURE_SIZE, args, 0);
@@ -551,9 +796,11 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			if (mShader != null) {
 				mShader.setFrameSize(width, height);
 			}
+			mAnalysisBranch.setFrameSize(width, height);
 
 			final float aspectRatio = (float) width / height;
 			Matrix.frustumM(mProjMatrix, 0, -aspectRatio, aspectRatio, -1, 1, 5, 7);
+			mMVPMatrixDirty = true;
 		}
 
 		@Override
@@ -562,6 +809,9 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			////////////////////////////////////////////////////////////
 			// 描画に必要なリソースを準備します。
 
+			final FrameTimingRecorder recorder = getFrameTimingRecorder();
+			final long uploadStart = FrameTimingRecorder.now();
+
 			// カメラからの新しいフレーム画像が利用可能な場合はテクスチャを更新します。
 			synchronized (this) {
 				if (mUpdateSurface) {
@@ -574,10 +824,17 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			// 静的な画像データの使用を要求されている場合は、静的な画像データでテクスチャを更新します。
 			if (mUploadTexture) {
 				mImageTexture.setup();
-				mCameraRatio = (float) mImageTexture.getWidth() / mImageTexture.getHeight();
 				Matrix.setIdentityM(mSTMatrix, 0);
 				mUploadTexture = false;
 			}
+			// 非同期に読み込まれる画像データは転送が完了するまでテクスチャ識別子が 0 となるため、完了していれば転送して縦横比を更新します。
+			// 読み込みに失敗した場合は例外をスローせずに GLES20ImageTexture#getError() で参照できます。
+			GLES20Utils.updateTexImage(mImageTexture);
+			final int imageTexName = mImageTexture != null ? mImageTexture.getTexName() : 0;
+			if (imageTexName != 0) {
+				mCameraRatio = (float) mImageTexture.getWidth() / mImageTexture.getHeight();
+			}
+			GLES20Utils.recordFrameTiming(recorder, FrameTimingRecorder.STAGE_UPLOAD, uploadStart);
 
 			// 新しいシェーダーオブジェクトが指定された場合は、シェーダーオブジェクトを使用可能な状態に構成します。
 			if (mIsNewShader) {
@@ -597,25 +854,88 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 				glViewport(0, 0, mFramebufferObject.getWidth(), mFramebufferObject.getHeight());
 			}
 
+			final long conversionStart = FrameTimingRecorder.now();
 			glClear(GL_COLOR_BUFFER_BIT);
 
-			// MVP マトリックスを計算します。
-			Matrix.multiplyMM(mMVPMatrix, 0, mVMatrix, 0, mMMatrix, 0);			// 視野行列とモデルビュー行列を乗算します。
-			Matrix.multiplyMM(mMVPMatrix, 0, mProjMatrix, 0, mMVPMatrix, 0);	// 投影行列と乗算します。
+			// MVP マトリックスを計算します。いずれの行列も変更されていない場合は前回の計算結果を使用します。
+			if (mMVPMatrixDirty) {
+				Matrix.multiplyMM(mMVPMatrix, 0, mVMatrix, 0, mMMatrix, 0);			// 視野行列とモデルビュー行列を乗算します。
+				Matrix.multiplyMM(mMVPMatrix, 0, mProjMatrix, 0, mMVPMatrix, 0);	// 投影行列と乗算します。
+				mMVPMatrixDirty = false;
+			}
 
 			// プレビューを描画します。
 			if (mImageTexture != null) {
-				mImageShader.draw(mImageTexture.getTexName(), mMVPMatrix, mSTMatrix, mCameraRatio);
+				if (imageTexName != 0) {
+					mImageShader.draw(imageTexName, mMVPMatrix, mSTMatrix, mCameraRatio);
+				} else if (mImageTexture instanceof GLES20ImageTexture && ((GLES20ImageTexture) mImageTexture).isPreparing()) {
+					// 画像データの読み込みが完了するまで描画を要求し続けます。
+					requestRender();
+				}
 			} else {
 				mPreviewShader.draw(mTexName, mMVPMatrix, mSTMatrix, mCameraRatio);
 			}
+			GLES20Utils.recordFrameTiming(recorder, FrameTimingRecorder.STAGE_CONVERSION, conversionStart);
 
 			// ユーザー指定のカスタムシェーダーが指定されている場合は、オフスクリーン用の FBO へ切り替えてカスタムシェーダーによる描画を行います。
 			if (mShader != null) {
 				fbo.enable();
 				glViewport(0, 0, fbo.getWidth(), fbo.getHeight());
 				glClear(GL_COLOR_BUFFER_BIT);
+				final long shaderStart = FrameTimingRecorder.now();
 				mShader.draw(mFramebufferObject.getTexName(), fbo);
+				// シェーダーグループは描画パス単位で記録します。
+				if (!(mShader instanceof GLES20ShaderGroup)) {
+					GLES20Utils.recordFrameTiming(recorder, FrameTimingRecorder.getShaderPassStage(0), shaderStart);
+				}
+			}
+
+			// 連写中の場合は、撮影間隔に達していればフィルター適用後のフレームを読み込みます。
+			if (mBurstCapture != null && mBurstCapture.onDrawFrame(fbo)) {
+				mBurstCapture = null;
+			}
+
+			// 解析用のシェーダーが指定されている場合は、カメラのフレームを縮小して解析用のシェーダーによる描画を行います。
+			// フレームバッファとビューポートは呼び出し元でウィンドウシステムのフレームバッファへ切り替えられます。
+			if (mAnalysisBranch.getShader() != null) {
+				mAnalysisBranch.draw(mShader != null ? mFramebufferObject.getTexName() : fbo.getTexName());
+			}
+
+			// カメラの解像度で撮影する場合は、撮影画像の転送が完了してからフィルターを描画して読み込みます。
+			if (mPictureTexture != null) {
+				drawPicture(fbo);
+			}
+		}
+
+		/**
+		 * 撮影画像のテクスチャへフィルターを描画して読み込みます。転送が完了していない場合は描画を要求し続けます。
+		 * 
+		 * @param fbo フレームバッファオブジェクト
+		 */
+		private void drawPicture(final GLES20FramebufferObject fbo) {
+			final GLES20ImageDataTexture texture = mPictureTexture;
+			int texName = 0;
+			try {
+				texName = texture.getTexName();
+			} catch (final RuntimeException e) {
+				Log.e(TAG, "Failed to load the picture texture", e);
+			}
+			if (texName == 0 && texture.isPreparing()) {
+				requestRender();
+				return;
+			}
+			mPictureTexture = null;
+
+			try {
+				if (texName != 0 && mShader != null) {
+					mPictureRenderer.render(texture, mShader, mPictureOrientation, false, mImageCaptureCallback);
+					// シェーダーのフレームサイズをプレビューの大きさへ戻します。
+					mShader.setFrameSize(fbo.getWidth(), fbo.getHeight());
+				} else {
+					mImageCaptureCallback.onBitmapAvailable(null);
+				}
+			} finally {
+				texture.release();
 			}
 		}
 
@@ -629,6 +949,10 @@ public class GLES20PreviewICS extends GLTextureView implements CameraView.Previe
 			 * available. Call may come in from some random thread, so let's be
 			 * safe and use synchronize. No OpenGL calls can be done here.
 			 */
+			final FrameTimingRecorder recorder = getFrameTimingRecorder();
+			if (recorder != null) {
+				recorder.markFrameArrival();
+			}
 			mUpdateSurface = true;
 			requestRender();
 		}
@@ -4,22 +4,16 @@
 
 package com.orangesignal.android.camera;
 
-import static android.opengl.GLES20.GL_ARRAY_BUFFER;
-import static android.opengl.GLES20.GL_FLOAT;
 import static android.opengl.GLES20.GL_TEXTURE0;
 import static android.opengl.GLES20.GL_TEXTURE_2D;
 import static android.opengl.GLES20.GL_TRIANGLE_STRIP;
 import static android.opengl.GLES20.glActiveTexture;
-import static android.opengl.GLES20.glBindBuffer;
 import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glDisableVertexAttribArray;
 import static android.opengl.GLES20.glDrawArrays;
-import static android.opengl.GLES20.glEnableVertexAttribArray;
 import static android.opengl.GLES20.glUniform1f;
 import static android.opengl.GLES20.glUniform1i;
 import static android.opengl.GLES20.glUniformMatrix4fv;
 import static com.orangesignal.android.opengl.GLES20Compat.GL_TEXTURE_EXTERNAL_OES;
-import static com.orangesignal.android.opengl.GLES20Compat.glVertexAttribPointer;
 import android.annotation.TargetApi;
 import android.os.Build;
 
@@ -31,7 +25,7 @@ import com.orangesignal.android.opengl.GLES20Shader;
  * @author 杉澤 浩二
  */
 @TargetApi(Build.VERSION_CODES.FROYO)
-final class GLES20PreviewShader extends GLES20Shader {
+class GLES20PreviewShader extends GLES20Shader {
 
 	/**
 	 * デフォルトのポリゴン描画用のバーテックスシェーダ (頂点シェーダ) のソースコードです。
@@ -59,6 +53,16 @@ final class GLES20PreviewShader extends GLES20Shader {
 	 */
 	private final int mTexTarget;
 
+	/**
+	 * 描画の度に検索しないように取得しておいた変数のハンドルを保持します。
+	 */
+	private int mMVPMatrixHandle;
+	private int mSTMatrixHandle;
+	private int mCRatioHandle;
+	private int mPositionHandle;
+	private int mTextureCoordHandle;
+	private int mSamplerHandle;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -68,7 +72,17 @@ final class GLES20PreviewShader extends GLES20Shader {
 	 * @param texTarget テクスチャターゲット
 	 */
 	public GLES20PreviewShader(final int texTarget) {
-		super(VERTEX_SHADER, createFragmentShaderSourceOESIfNeed(texTarget));
+		this(texTarget, createFragmentShaderSourceOESIfNeed(texTarget));
+	}
+
+	/**
+	 * サブクラスのためのコンストラクタです。
+	 * 
+	 * @param texTarget テクスチャターゲット
+	 * @param fragmentShaderSource 色描画用のピクセル/フラグメントシェーダのソースコード
+	 */
+	protected GLES20PreviewShader(final int texTarget, final String fragmentShaderSource) {
+		super(VERTEX_SHADER, fragmentShaderSource);
 		mTexTarget = texTarget;
 	}
 
@@ -93,6 +107,16 @@ final class GLES20PreviewShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mMVPMatrixHandle    = getHandle("uMVPMatrix");
+		mSTMatrixHandle     = getHandle("uSTMatrix");
+		mCRatioHandle       = getHandle("uCRatio");
+		mPositionHandle     = getHandle(DEFAULT_ATTRIB_POSITION);
+		mTextureCoordHandle = getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE);
+		mSamplerHandle      = getHandle(DEFAULT_UNIFORM_SAMPLER);
+	}
+
 	/**
 	 * 描画します。
 	 * 
@@ -104,25 +128,20 @@ final class GLES20PreviewShader extends GLES20Shader {
 	public void draw(final int texName, final float[] mvpMatrix, final float[] stMatrix, final float aspectRatio) {
 		useProgram();
 
-		glUniformMatrix4fv(getHandle("uMVPMatrix"), 1, false, mvpMatrix, 0);
-		glUniformMatrix4fv(getHandle("uSTMatrix"),  1, false, stMatrix,  0);
-		glUniform1f(getHandle("uCRatio"), aspectRatio);
+		glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mvpMatrix, 0);
+		glUniformMatrix4fv(mSTMatrixHandle,  1, false, stMatrix,  0);
+		glUniform1f(mCRatioHandle, aspectRatio);
 
-		glBindBuffer(GL_ARRAY_BUFFER, getVertexBufferName());
-		glEnableVertexAttribArray(getHandle("aPosition"));
-		glVertexAttribPointer(getHandle("aPosition"), VERTICES_DATA_POS_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_POS_OFFSET);
-		glEnableVertexAttribArray(getHandle("aTextureCoord"));
-		glVertexAttribPointer(getHandle("aTextureCoord"), VERTICES_DATA_UV_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_UV_OFFSET);
+		bindVertexAttributes(mPositionHandle, mTextureCoordHandle);
 
 		glActiveTexture(GL_TEXTURE0);
 		glBindTexture(mTexTarget, texName);
-		glUniform1i(getHandle(DEFAULT_UNIFORM_SAMPLER), 0);
+		glUniform1i(mSamplerHandle, 0);
+
+		onDraw();
 
 		glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
 
-		glDisableVertexAttribArray(getHandle("aPosition"));
-		glDisableVertexAttribArray(getHandle("aTextureCoord"));
-		glBindBuffer(GL_ARRAY_BUFFER, 0);
 		glBindTexture(GL_TEXTURE_2D, 0);
 	}
 
@@ -15,7 +15,6 @@ import static android.opengl.GLES20.glTexSubImage2D;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.locks.ReentrantLock;
 
 import android.annotation.TargetApi;
 import android.hardware.Camera;
@@ -46,9 +45,9 @@ class GLES20PreviewTexture implements PreviewTexture, Camera.PreviewCallback {
 	private ByteBuffer mPreviewDataBuffer;
 
 	/**
-	 * ロックオブジェクトを保持します。
+	 * GL スレッドへプレビューデータを受け渡すオブジェクトを保持します。
 	 */
-	private final ReentrantLock mLock = new ReentrantLock();
+	private final PreviewFrameExchanger mFrameExchanger = new PreviewFrameExchanger();
 
 	//////////////////////////////////////////////////////////////////////////
 	// Transform matrices
@@ -170,14 +169,24 @@ class GLES20PreviewTexture implements PreviewTexture, Camera.PreviewCallback {
 		Matrix.multiplyMM(mTransformMatrix, 0, mtxFlipV, 0, mTransformMatrix, 0);
 	}
 
+	/**
+	 * この実装はカメラから通知された最新のプレビューデータを GL スレッド上で変換してテクスチャへ転送します。
+	 * 転送を終えたプレビューデータのバッファは {@link CameraHelper#addCallbackBuffer(byte[])} で返却されます。
+	 */
 	@Override
 	public void updateTexImage() {
-		mLock.lock();
-		try {
+		final byte[] data = mFrameExchanger.take();
+		if (data != null) {
+			if (mFormat == GL_RGBA) {
+				nativeYUV420sp2RGBA(data, mWidth, mHeight, mPreviewDataBuffer);
+			} else {
+				nativeYUV420sp2RGB(data, mWidth, mHeight, mPreviewDataBuffer);
+			}
 			glBindTexture(mTexTarget, mTexName);
 			glTexSubImage2D(mTexTarget, 0, 0, 0, mWidth, mHeight, mFormat, GL_UNSIGNED_BYTE, mPreviewDataBuffer);
-		} finally {
-			mLock.unlock();
+
+			// テクスチャへの転送を終えたのでバッファを返却します。
+			recycle(data);
 		}
 		mTimestamp = System.nanoTime();
 	}
@@ -208,28 +217,55 @@ class GLES20PreviewTexture implements PreviewTexture, Camera.PreviewCallback {
 		return mTimestamp;
 	}
 
+	/**
+	 * GL スレッドへ受け渡されずに破棄されたプレビューデータの数を返します。
+	 * 
+	 * @return 破棄されたプレビューデータの数
+	 */
+	public long getDroppedFrameCount() {
+		return mFrameExchanger.getDroppedCount();
+	}
+
 	public void release() {
+		mFrameExchanger.clear();
 		mWidth = 0;
 		mHeight = 0;
 		mCameraHelper = null;
 		mPreviewDataBuffer = null;
 	}
 
+	/**
+	 * 使用を終えたプレビューデータのバッファを返却します。
+	 * 
+	 * @param data プレビューデータ
+	 */
+	private void recycle(final byte[] data) {
+		final CameraHelper cameraHelper = mCameraHelper;
+		if (cameraHelper != null) {
+			cameraHelper.addCallbackBuffer(data);
+		}
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// android.hardware.Camera.PreviewCallback
 
+	/**
+	 * この実装はプレビューデータを変換せずに保持して、GL スレッドでのテクスチャ転送を要求します。
+	 * 前回のプレビューデータがまだテクスチャへ転送されていない場合、前回のプレビューデータは破棄されます。
+	 */
 	@Override
 	public void onPreviewFrame(final byte[] data, final Camera camera) {
+		final CameraHelper cameraHelper = mCameraHelper;
+		if (cameraHelper == null) {
+			return;
+		}
+
 		if (data != null) {
-			mLock.lock();
-			try {
-				if (mFormat == GL_RGBA) {
-					nativeYUV420sp2RGBA(data, mWidth, mHeight, mPreviewDataBuffer);
-				} else {
-					nativeYUV420sp2RGB(data, mWidth, mHeight, mPreviewDataBuffer);
-				}
-			} finally {
-				mLock.unlock();
+			// GL スレッドで転送を終えるまでバッファを保持します。
+			cameraHelper.retainPreviewBuffer();
+			final byte[] stale = mFrameExchanger.publish(data);
+			if (stale != null) {
+				cameraHelper.addCallbackBuffer(stale);
 			}
 
 			if (mOnFrameAvailableListener != null) {
@@ -238,7 +274,7 @@ class GLES20PreviewTexture implements PreviewTexture, Camera.PreviewCallback {
 		}
 
 		// 次のフレームデータが通知されるようにします。
-		mCameraHelper.onPreviewFrame(this);
+		cameraHelper.onPreviewFrame(this);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -19,20 +19,49 @@ public final class GLES20PreviewTextureFactory {
 	private static final int HONYCOMB = 11;
 
 	/**
-	 * {@link PreviewTexture} を生成して返します。
+	 * {@link PreviewTexture} を生成して返します。<p>
+	 * Android 3.0 未満の場合は YUV420sp (NV21) 形式のプレビューデータをシェーダーで RGB へ変換する {@link PreviewTexture} を返します。
 	 * 
 	 * @param texName テクスチャ識別子
 	 * @return {@link PreviewTexture} の新しいインスタンス
 	 */
 	public static PreviewTexture newPreviewTexture(final int texName) {
+		return newPreviewTexture(texName, true);
+	}
+
+	/**
+	 * {@link PreviewTexture} を生成して返します。
+	 * 
+	 * @param texName テクスチャ識別子
+	 * @param shaderConversion Android 3.0 未満の場合に YUV420sp (NV21) 形式のプレビューデータをシェーダーで RGB へ変換するかどうか。
+	 * {@code false} の場合はネイティブコードにより CPU で変換します。
+	 * @return {@link PreviewTexture} の新しいインスタンス
+	 */
+	public static PreviewTexture newPreviewTexture(final int texName, final boolean shaderConversion) {
 		// Build.VERSION.SDK_INT は Android 1.6 (API レベル 4) から使用可能なので使用しません。
 		final int version = Integer.parseInt(Build.VERSION.SDK);
 		if (version >= HONYCOMB) {
 			return new GLES20SurfaceTexture(texName);
 		}
+		if (shaderConversion) {
+			return new GLES20YuvPreviewTexture(texName);
+		}
 		return new GLES20PreviewTexture(texName);
 	}
 
+	/**
+	 * 指定された {@link PreviewTexture} を描画するためのプレビュー用シェーダーを生成して返します。
+	 * 
+	 * @param previewTexture {@link PreviewTexture}
+	 * @return プレビュー用シェーダーの新しいインスタンス
+	 */
+	static GLES20PreviewShader newPreviewShader(final PreviewTexture previewTexture) {
+		if (previewTexture instanceof GLES20YuvPreviewTexture) {
+			return new GLES20YuvPreviewShader((GLES20YuvPreviewTexture) previewTexture);
+		}
+		return new GLES20PreviewShader(previewTexture.getTextureTarget());
+	}
+
 	/**
 	 * インスタンス化できない事を強制します。
 	 */
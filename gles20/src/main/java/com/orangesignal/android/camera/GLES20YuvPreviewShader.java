@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static android.opengl.GLES20.GL_TEXTURE0;
+import static android.opengl.GLES20.GL_TEXTURE1;
+import static android.opengl.GLES20.GL_TEXTURE_2D;
+import static android.opengl.GLES20.glActiveTexture;
+import static android.opengl.GLES20.glBindTexture;
+import static android.opengl.GLES20.glUniform1i;
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * {@link GLES20YuvPreviewTexture} の輝度 (Y) と色差 (VU) のテクスチャから RGB へ変換しながら描画する
+ * OpenGL ES 2.0 向けのプレビュー用シェーダーオブジェクト管理クラスを提供します。<p>
+ * フラグメントシェーダで {@code highp} が使用可能な場合は、
+ * ネイティブコードや {@link com.orangesignal.android.graphics.YuvDataUtils} と同じ整数演算で変換を行います。
+ * 使用できない場合は {@code mediump} の範囲で演算できるよう正規化した係数で変換を行います。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+final class GLES20YuvPreviewShader extends GLES20PreviewShader {
+
+	/**
+	 * 色差 (VU) テクスチャのサンプラー名です。
+	 */
+	private static final String UNIFORM_SAMPLER_UV = "sTextureUV";
+
+	/**
+	 * YUV420sp (NV21) から RGB へ変換する色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 */
+	private static final String FRAGMENT_SHADER =
+			"#ifdef GL_FRAGMENT_PRECISION_HIGH\n" +
+			"precision highp float;\n" +
+			"#else\n" +
+			"precision mediump float;\n" +
+			"#endif\n" +
+			"varying highp vec2 vTextureCoord;\n" +
+			"uniform lowp sampler2D sTexture;\n" +
+			"uniform lowp sampler2D sTextureUV;\n" +
+
+			"void main() {\n" +
+				"vec4 vu = texture2D(sTextureUV, vTextureCoord);\n" +
+			"#ifdef GL_FRAGMENT_PRECISION_HIGH\n" +
+				// 1192, 1634, 833, 400, 2066 は 1.164, 1.596, 0.813, 0.391, 2.018 を 1024 倍した係数です。
+				"float y = max(floor(texture2D(sTexture, vTextureCoord).r * 255.0 + 0.5) - 16.0, 0.0);\n" +
+				"float v = floor(vu.r * 255.0 + 0.5) - 128.0;\n" +
+				"float u = floor(vu.a * 255.0 + 0.5) - 128.0;\n" +
+				"vec3 rgb = vec3(1192.0 * y + 1634.0 * v, 1192.0 * y - 833.0 * v - 400.0 * u, 1192.0 * y + 2066.0 * u);\n" +
+				"gl_FragColor = vec4(floor(clamp(rgb, 0.0, 262143.0) / 1024.0) / 255.0, 1.0);\n" +
+			"#else\n" +
+				"float y = max(texture2D(sTexture, vTextureCoord).r - 0.0627451, 0.0);\n" +
+				"float v = vu.r - 0.5019608;\n" +
+				"float u = vu.a - 0.5019608;\n" +
+				"vec3 rgb = vec3(1.1640625 * y + 1.5957031 * v, 1.1640625 * y - 0.8134766 * v - 0.390625 * u, 1.1640625 * y + 2.0175781 * u);\n" +
+				"gl_FragColor = vec4(clamp(rgb, 0.0, 1.0), 1.0);\n" +
+			"#endif\n" +
+			"}\n";
+
+	/**
+	 * 色差 (VU) テクスチャを提供するプレビューテクスチャを保持します。
+	 */
+	private final GLES20YuvPreviewTexture mPreviewTexture;
+
+	/**
+	 * 色差 (VU) テクスチャのサンプラーのハンドルを保持します。
+	 */
+	private int mSamplerUVHandle;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param previewTexture 色差 (VU) テクスチャを提供するプレビューテクスチャ
+	 */
+	public GLES20YuvPreviewShader(final GLES20YuvPreviewTexture previewTexture) {
+		super(previewTexture.getTextureTarget(), FRAGMENT_SHADER);
+		mPreviewTexture = previewTexture;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	protected void onSetupHandles() {
+		super.onSetupHandles();
+		mSamplerUVHandle = getHandle(UNIFORM_SAMPLER_UV);
+	}
+
+	@Override
+	protected void onDraw() {
+		glActiveTexture(GL_TEXTURE1);
+		glBindTexture(GL_TEXTURE_2D, mPreviewTexture.getUVTexName());
+		glUniform1i(mSamplerUVHandle, 1);
+		glActiveTexture(GL_TEXTURE0);
+	}
+
+}
\ No newline at end of file
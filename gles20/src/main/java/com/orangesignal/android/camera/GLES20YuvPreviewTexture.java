@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.camera;
+
+import static android.opengl.GLES20.GL_LUMINANCE;
+import static android.opengl.GLES20.GL_LUMINANCE_ALPHA;
+import static android.opengl.GLES20.GL_NEAREST;
+import static android.opengl.GLES20.GL_TEXTURE_2D;
+import static android.opengl.GLES20.GL_UNPACK_ALIGNMENT;
+import static android.opengl.GLES20.GL_UNSIGNED_BYTE;
+import static android.opengl.GLES20.glBindTexture;
+import static android.opengl.GLES20.glDeleteTextures;
+import static android.opengl.GLES20.glGenTextures;
+import static android.opengl.GLES20.glPixelStorei;
+import static android.opengl.GLES20.glTexImage2D;
+import static android.opengl.GLES20.glTexSubImage2D;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+
+import android.annotation.TargetApi;
+import android.hardware.Camera;
+import android.opengl.Matrix;
+import android.os.Build;
+
+import com.orangesignal.android.opengl.GLES20Utils;
+
+/**
+ * Android 3.0 未満向けの YUV420sp (NV21) 形式のプレビューデータを変換せずにテクスチャへ転送する {@link PreviewTexture} の実装を提供します。<p>
+ * 輝度 (Y) を {@code GL_LUMINANCE} 形式のテクスチャへ、色差 (VU) を {@code GL_LUMINANCE_ALPHA} 形式の 1/2 サイズのテクスチャへ転送します。
+ * RGB への変換は {@link GLES20YuvPreviewShader} によって GPU 上で行われるため、CPU による変換処理は行いません。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+class GLES20YuvPreviewTexture implements PreviewTexture, Camera.PreviewCallback {
+
+	private OnFrameAvailableListener mOnFrameAvailableListener;
+
+	private int mWidth;
+	private int mHeight;
+	private final int mTexName;
+	private final int mTexTarget;
+	private final float[] mTransformMatrix = new float[16];
+	private long mTimestamp;
+
+	/**
+	 * 色差 (VU) 用のテクスチャ識別子を保持します。
+	 */
+	private int mUVTexName;
+
+	private CameraHelper mCameraHelper;
+
+	/**
+	 * GL スレッドへプレビューデータを受け渡すオブジェクトを保持します。
+	 */
+	private final PreviewFrameExchanger mFrameExchanger = new PreviewFrameExchanger();
+
+	/**
+	 * 転送元として使用するプレビューデータのバッファをラップした {@link ByteBuffer} を保持します。<p>
+	 * コールバックバッファは再利用されるため、フレーム毎に {@link ByteBuffer} を生成しないようにします。
+	 */
+	private final IdentityHashMap<byte[], ByteBuffer> mDataBuffers = new IdentityHashMap<byte[], ByteBuffer>();
+
+	/**
+	 * 保持する {@link ByteBuffer} の最大数です。
+	 * コールバックバッファを使用しない端末では毎回異なる配列が通知されるため、保持し続けないようにします。
+	 */
+	private static final int MAX_DATA_BUFFERS = 8;
+
+	//////////////////////////////////////////////////////////////////////////
+	// Transform matrices
+
+	private static final float[] mtxFlipH = new float[]{
+		-1,  0,  0,  0,
+		 0,  1,  0,  0,
+		 0,  0,  1,  0,
+		 1,  0,  0,  1,
+	};
+
+	private static final float[] mtxFlipV = new float[]{
+		 1,  0,  0,  0,
+		 0, -1,  0,  0,
+		 0,  0,  1,  0,
+		 0,  1,  0,  1,
+	};
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * Construct a new GLES20YuvPreviewTexture to stream images to a given OpenGL texture.
+	 * 
+	 * @param texName the OpenGL texture object name (e.g. generated via glGenTextures)
+	 */
+	public GLES20YuvPreviewTexture(final int texName) {
+		mWidth = 0;
+		mHeight = 0;
+		mTexName = texName;
+		mTexTarget = GL_TEXTURE_2D;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// PreviewTexture
+
+	@Override
+	public void setOnFrameAvailableListener(final OnFrameAvailableListener l) {
+		mOnFrameAvailableListener = l;
+	}
+
+	@Override
+	public int getTextureTarget() {
+		return mTexTarget;
+	}
+
+	@Override
+	public void setup(final CameraHelper camera) throws IOException {
+		mCameraHelper = camera;
+		mCameraHelper.setPreviewCallback(this);
+
+		final Camera.Size previewSize = camera.getPreviewSize();
+		mDataBuffers.clear();
+
+		// カメラを切り替えてもプレビューサイズが変わらない場合は、テクスチャの領域を指定し直さずにそのまま使用します。
+		if (mUVTexName == 0 || previewSize.width != mWidth || previewSize.height != mHeight) {
+			mWidth = previewSize.width;
+			mHeight = previewSize.height;
+			// 以前の大きさのプレビューデータを転送しないように破棄します。
+			mFrameExchanger.clear();
+
+			// 1 バイト単位の行データを転送できるようにします。
+			glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+
+			// 輝度 (Y) 用のテクスチャを作成します。
+			glBindTexture(mTexTarget, mTexName);
+			glTexImage2D(mTexTarget, 0, GL_LUMINANCE, mWidth, mHeight, 0, GL_LUMINANCE, GL_UNSIGNED_BYTE, null);
+
+			// 色差 (VU) 用のテクスチャを作成します。
+			if (mUVTexName == 0) {
+				final int[] args = new int[1];
+				glGenTextures(args.length, args, 0);
+				mUVTexName = args[0];
+			}
+			glBindTexture(GL_TEXTURE_2D, mUVTexName);
+			// 色差はネイティブコードによる変換と同じく最近傍のサンプルを使用します。
+			GLES20Utils.setupSampler(GL_TEXTURE_2D, GL_NEAREST, GL_NEAREST);
+			glTexImage2D(GL_TEXTURE_2D, 0, GL_LUMINANCE_ALPHA, mWidth / 2, mHeight / 2, 0, GL_LUMINANCE_ALPHA, GL_UNSIGNED_BYTE, null);
+			glBindTexture(GL_TEXTURE_2D, 0);
+		}
+
+		// TransformMatrix を計算します。
+		Matrix.setIdentityM(mTransformMatrix, 0);
+		if (camera.isFaceCamera()) {
+			Matrix.multiplyMM(mTransformMatrix, 0, mtxFlipH, 0, mTransformMatrix, 0);
+		}
+		Matrix.multiplyMM(mTransformMatrix, 0, mtxFlipV, 0, mTransformMatrix, 0);
+	}
+
+	/**
+	 * この実装はカメラから通知された最新のプレビューデータを変換せずに輝度と色差のテクスチャへ転送します。
+	 * 転送を終えたプレビューデータのバッファは {@link CameraHelper#addCallbackBuffer(byte[])} で返却されます。
+	 */
+	@Override
+	public void updateTexImage() {
+		final byte[] data = mFrameExchanger.take();
+		if (data != null) {
+			final int frameSize = mWidth * mHeight;
+
+			// プレビューデータの配列をそのまま転送元として使用します。
+			glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+			glBindTexture(mTexTarget, mTexName);
+			final ByteBuffer buffer = wrap(data);
+			buffer.limit(frameSize).position(0);
+			glTexSubImage2D(mTexTarget, 0, 0, 0, mWidth, mHeight, GL_LUMINANCE, GL_UNSIGNED_BYTE, buffer);
+			glBindTexture(GL_TEXTURE_2D, mUVTexName);
+			buffer.limit(frameSize + frameSize / 2).position(frameSize);
+			glTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, mWidth / 2, mHeight / 2, GL_LUMINANCE_ALPHA, GL_UNSIGNED_BYTE, buffer);
+			glBindTexture(GL_TEXTURE_2D, 0);
+
+			// テクスチャへの転送を終えたのでバッファを返却します。
+			recycle(data);
+		}
+		mTimestamp = System.nanoTime();
+	}
+
+	@Override
+	public void getTransformMatrix(final float[] mtx) {
+		// NullPointerException が発生するようにするため、mtx の null チェックを意図的に行わない点に注意して下さい。
+		if (mtx.length != 16) {
+			throw new IllegalArgumentException();
+		}
+		System.arraycopy(mTransformMatrix, 0, mtx, 0, 16);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 色差 (VU) 用のテクスチャ識別子を返します。
+	 * 
+	 * @return 色差 (VU) 用のテクスチャ識別子
+	 */
+	public int getUVTexName() {
+		return mUVTexName;
+	}
+
+	/**
+	 * Retrieve the timestamp associated with the texture image set by the most recent call to updateTexImage.
+	 */
+	public long getTimestamp() {
+		return mTimestamp;
+	}
+
+	/**
+	 * GL スレッドへ受け渡されずに破棄されたプレビューデータの数を返します。
+	 * 
+	 * @return 破棄されたプレビューデータの数
+	 */
+	public long getDroppedFrameCount() {
+		return mFrameExchanger.getDroppedCount();
+	}
+
+	public void release() {
+		mFrameExchanger.clear();
+		mDataBuffers.clear();
+		if (mUVTexName != 0) {
+			glDeleteTextures(1, new int[]{ mUVTexName }, 0);
+			mUVTexName = 0;
+		}
+		mWidth = 0;
+		mHeight = 0;
+		mCameraHelper = null;
+	}
+
+	/**
+	 * 指定されたプレビューデータのバッファをラップした {@link ByteBuffer} を返します。
+	 * 
+	 * @param data プレビューデータ
+	 * @return {@link ByteBuffer}
+	 */
+	private ByteBuffer wrap(final byte[] data) {
+		ByteBuffer buffer = mDataBuffers.get(data);
+		if (buffer == null) {
+			if (mDataBuffers.size() >= MAX_DATA_BUFFERS) {
+				mDataBuffers.clear();
+			}
+			buffer = ByteBuffer.wrap(data);
+			mDataBuffers.put(data, buffer);
+		}
+		return buffer;
+	}
+
+	/**
+	 * 使用を終えたプレビューデータのバッファを返却します。
+	 * 
+	 * @param data プレビューデータ
+	 */
+	private void recycle(final byte[] data) {
+		final CameraHelper cameraHelper = mCameraHelper;
+		if (cameraHelper != null) {
+			cameraHelper.addCallbackBuffer(data);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// android.hardware.Camera.PreviewCallback
+
+	/**
+	 * この実装はプレビューデータを変換せずに保持して、GL スレッドでのテクスチャ転送を要求します。
+	 * 前回のプレビューデータがまだテクスチャへ転送されていない場合、前回のプレビューデータは破棄されます。
+	 */
+	@Override
+	public void onPreviewFrame(final byte[] data, final Camera camera) {
+		final CameraHelper cameraHelper = mCameraHelper;
+		if (cameraHelper == null) {
+			return;
+		}
+
+		if (data != null) {
+			// GL スレッドで転送を終えるまでバッファを保持します。
+			cameraHelper.retainPreviewBuffer();
+			final byte[] stale = mFrameExchanger.publish(data);
+			if (stale != null) {
+				cameraHelper.addCallbackBuffer(stale);
+			}
+
+			if (mOnFrameAvailableListener != null) {
+				mOnFrameAvailableListener.onFrameAvailable(this);
+			}
+		}
+
+		// 次のフレームデータが通知されるようにします。
+		cameraHelper.onPreviewFrame(this);
+	}
+
+}
\ No newline at end of file
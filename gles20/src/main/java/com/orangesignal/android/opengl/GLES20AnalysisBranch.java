@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
+import static android.opengl.GLES20.glClear;
+import static android.opengl.GLES20.glViewport;
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * 表示用の描画とは別に、縮小した解像度のフレームで解析用のシェーダーを実行する分岐を提供します。<p>
+ * フレームは {@link GLES20FramebufferPyramid} で指定されたレベルまで縮小され、解析用のシェーダーはそのレベルの大きさの
+ * フレームバッファオブジェクトへ描画します。描画結果は {@link Listener} へ通知されます。
+ * 特徴点検出などは粗い解像度で十分な場合が多く、レベル 1 で 1/4、レベル 2 で 1/16 の画素数になります。<p>
+ * このクラスのメソッドは GL スレッドから呼び出す必要があります。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20AnalysisBranch {
+
+	/**
+	 * 解析用のシェーダーの描画結果を受け取るリスナーのインタフェースを提供します。
+	 */
+	public interface Listener {
+
+		/**
+		 * 解析用のシェーダーの描画が完了した時に GL スレッドから呼び出されます。<p>
+		 * 描画結果は呼び出し後の次のフレームで上書きされるため、必要な場合はこのメソッドの中で読み込んで下さい。
+		 * 
+		 * @param result 描画結果のフレームバッファオブジェクト
+		 */
+		void onAnalysisFrame(GLES20FramebufferObject result);
+
+	}
+
+	/**
+	 * 縮小したフレームを保持するピラミッドを保持します。
+	 */
+	private GLES20FramebufferPyramid mPyramid = new GLES20FramebufferPyramid();
+
+	/**
+	 * 解析用のシェーダーの描画結果を保持するフレームバッファオブジェクトを保持します。
+	 */
+	private GLES20FramebufferObject mFramebufferObject = new GLES20FramebufferObject(false);
+
+	private GLES20Shader mShader;
+	private int mLevel;
+	private Listener mListener;
+
+	/**
+	 * 元のフレームの大きさを保持します。
+	 */
+	private int mWidth;
+	private int mHeight;
+
+	/**
+	 * GL のリソースを構成し直す必要があるかどうかを保持します。
+	 */
+	private boolean mDirty;
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 解析用のシェーダーを設定します。<p>
+	 * 以前のシェーダーは破棄されます。{@code null} を指定すると解析を行いません。
+	 * 
+	 * @param shader 解析用のシェーダー。または {@code null}
+	 * @param level 解析を行うピラミッドのレベル (0 から {@link GLES20FramebufferPyramid#MAX_LEVEL})。0 の場合は縮小しません。
+	 * @param listener 描画結果を受け取るリスナー。または {@code null}
+	 * @throws IllegalArgumentException {@code level} が範囲外の場合
+	 */
+	public void setShader(final GLES20Shader shader, final int level, final Listener listener) {
+		if (level < 0 || level > GLES20FramebufferPyramid.MAX_LEVEL) {
+			throw new IllegalArgumentException("Level must be 0 to " + GLES20FramebufferPyramid.MAX_LEVEL + " " + level);
+		}
+		if (mShader != null && mShader != shader) {
+			mShader.release();
+		}
+		mShader = shader;
+		mLevel = level;
+		mListener = listener;
+		mDirty = true;
+	}
+
+	/**
+	 * 解析用のシェーダーを返します。
+	 * 
+	 * @return 解析用のシェーダー。または {@code null}
+	 */
+	public GLES20Shader getShader() {
+		return mShader;
+	}
+
+	/**
+	 * 解析を行うピラミッドのレベルを返します。
+	 * 
+	 * @return レベル
+	 */
+	public int getLevel() {
+		return mLevel;
+	}
+
+	/**
+	 * EGL コンテキストが新しく生成された場合に呼び出します。<p>
+	 * 以前の EGL コンテキストのリソースは破棄せずに、次回の描画で構成し直します。
+	 */
+	public void onSurfaceCreated() {
+		mPyramid = new GLES20FramebufferPyramid();
+		mFramebufferObject = new GLES20FramebufferObject(false);
+		mDirty = true;
+	}
+
+	/**
+	 * 元のフレームの大きさを設定します。
+	 * 
+	 * @param width 元のフレームの幅
+	 * @param height 元のフレームの高さ
+	 */
+	public void setFrameSize(final int width, final int height) {
+		mWidth = width;
+		mHeight = height;
+		mDirty = true;
+	}
+
+	/**
+	 * 指定されたテクスチャを縮小して解析用のシェーダーで描画し、{@link Listener} へ通知します。<p>
+	 * 解析用のシェーダーが設定されていない場合は何もしません。描画後はフレームバッファとビューポートが変更されたままになります。
+	 * 
+	 * @param texName 元のフレームのテクスチャ識別子
+	 */
+	public void draw(final int texName) {
+		final GLES20Shader shader = mShader;
+		if (shader == null || mWidth <= 0 || mHeight <= 0) {
+			return;
+		}
+
+		final int width = GLES20FramebufferPyramid.getLevelSize(mWidth, mLevel);
+		final int height = GLES20FramebufferPyramid.getLevelSize(mHeight, mLevel);
+		if (mDirty) {
+			if (mLevel > 0) {
+				mPyramid.setup(mWidth, mHeight, mLevel);
+			} else {
+				mPyramid.release();
+			}
+			mFramebufferObject.setup(width, height);
+			shader.setup();
+			shader.setFrameSize(width, height);
+			mDirty = false;
+		}
+
+		final int srcTexName;
+		if (mLevel > 0) {
+			mPyramid.draw(texName, mLevel);
+			srcTexName = mPyramid.getLevel(mLevel).getTexName();
+		} else {
+			srcTexName = texName;
+		}
+
+		mFramebufferObject.enable();
+		glViewport(0, 0, width, height);
+		glClear(GL_COLOR_BUFFER_BIT);
+		shader.draw(srcTexName, mFramebufferObject);
+
+		final Listener listener = mListener;
+		if (listener != null) {
+			listener.onAnalysisFrame(mFramebufferObject);
+		}
+	}
+
+	/**
+	 * この分岐の構成を破棄します。
+	 */
+	public void release() {
+		if (mShader != null) {
+			mShader.release();
+		}
+		mPyramid.release();
+		mFramebufferObject.release();
+		mDirty = true;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_FRAMEBUFFER;
+import static android.opengl.GLES20.GL_FRAMEBUFFER_BINDING;
+import static android.opengl.GLES20.GL_PACK_ALIGNMENT;
+import static android.opengl.GLES20.GL_RGBA;
+import static android.opengl.GLES20.GL_UNSIGNED_BYTE;
+import static android.opengl.GLES20.glBindFramebuffer;
+import static android.opengl.GLES20.glGetIntegerv;
+import static android.opengl.GLES20.glPixelStorei;
+import static android.opengl.GLES20.glReadPixels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import com.orangesignal.android.camera.BurstCaptureController;
+import com.orangesignal.android.graphics.PixelDataUtils;
+
+/**
+ * 描画されたフレームを一定の間隔で連続してキャプチャ (連写) するクラスを提供します。<p>
+ * カメラの {@code takePicture} を使用せずにフィルター適用後のフレームバッファオブジェクトから読み込むため、プレビューを停止せずに 5～10 fps 程度で連写できます。
+ * GL スレッドでは再利用するダイレクトバッファへ {@code glReadPixels} で読み込むだけとし、
+ * {@link Bitmap} への変換と {@link Callback#onBurstFrame(Bitmap, int)} (保存などの処理) はワーカースレッドのプールで行います。
+ * 読み込み用のバッファは処理中のフレーム数の上限だけ確保され、全て処理中の場合は描画を待たせずにそのフレームを破棄します。
+ * メモリ不足で {@link Bitmap} へ変換できなかったフレームも破棄して {@link Callback#onBurstFrameDropped(int)} で通知します。
+ * 撮影したフレーム数と破棄したフレーム数は {@link Callback#onBurstFinished(int, int)} で通知されます。
+ * 
+ * @author 杉澤 浩二
+ * @see BurstCaptureController
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20BurstCapture {
+
+	/**
+	 * 連写したフレームを受け取るコールバックのインタフェースを提供します。
+	 */
+	public interface Callback {
+
+		/**
+		 * 連写したフレームの {@link Bitmap} が利用可能になった時にワーカースレッドから呼び出されます。<p>
+		 * 複数のワーカースレッドから同時に呼び出されることがあり、呼び出し順はフレーム番号の順になるとは限りません。
+		 * {@link com.orangesignal.android.media.ImageContentBuilder} による保存などはこのメソッドの中で行えます。
+		 * 
+		 * @param bitmap フレームの {@link Bitmap}
+		 * @param index 0 から始まるフレーム番号
+		 * @return 呼出し先が {@link Bitmap} を消費したかどうか。{@code false} の場合は呼び出し後にリサイクルされます
+		 */
+		boolean onBurstFrame(Bitmap bitmap, int index);
+
+		/**
+		 * 撮影したフレームをメモリ不足のため {@link Bitmap} へ変換できずに破棄した時にワーカースレッドから呼び出されます。<p>
+		 * 破棄したフレームは撮り直さないため、このフレーム番号の {@link #onBurstFrame(Bitmap, int)} は呼び出されません。
+		 * 
+		 * @param index 0 から始まるフレーム番号
+		 */
+		void onBurstFrameDropped(int index);
+
+		/**
+		 * 全てのフレームの処理を終えて連写が終了した時にワーカースレッドから呼び出されます。
+		 * 
+		 * @param capturedCount 撮影したフレーム数
+		 * @param droppedCount 処理中のフレームが上限に達していたため、またはメモリ不足のため破棄したフレーム数
+		 */
+		void onBurstFinished(int capturedCount, int droppedCount);
+
+	}
+
+	/**
+	 * ワーカースレッドごとの変換用のバッファを表します。
+	 */
+	private static final class WorkBuffer {
+
+		final ByteBuffer dst;
+		final int[] row;
+
+		WorkBuffer(final int capacity, final int width) {
+			dst = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+			row = new int[width];
+		}
+
+	}
+
+	/**
+	 * 処理中のフレーム数の既定の上限です。
+	 */
+	public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+	/**
+	 * 既定のワーカースレッドの数です。
+	 */
+	public static final int DEFAULT_WORKER_COUNT = 2;
+
+	/**
+	 * ワーカースレッドが待機する秒数です。
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 3L;
+
+	/**
+	 * 撮影間隔と処理中のフレーム数を管理するオブジェクトを保持します。
+	 */
+	private final BurstCaptureController mController;
+
+	/**
+	 * コールバックを保持します。
+	 */
+	private final Callback mCallback;
+
+	/**
+	 * 傾きを保持します。
+	 */
+	private final int mOrientation;
+
+	/**
+	 * ミラーモードかどうかを保持します。
+	 */
+	private final boolean mMirror;
+
+	/**
+	 * 再利用する読み込み用のダイレクトバッファのリストを保持します。
+	 */
+	private final ArrayList<ByteBuffer> mBuffers = new ArrayList<ByteBuffer>();
+
+	/**
+	 * ワーカースレッドのプールを保持します。<p>
+	 * アイドル状態が続くとスレッドは終了するため、明示的に終了する必要はありません。
+	 */
+	private final ThreadPoolExecutor mExecutor;
+
+	/**
+	 * ワーカースレッドごとの変換用のバッファを保持します。
+	 */
+	private final ThreadLocal<WorkBuffer> mWorkBuffers = new ThreadLocal<WorkBuffer>();
+
+	/**
+	 * {@link Callback#onBurstFinished(int, int)} を呼び出したかどうかを保持します。
+	 */
+	private boolean mFinished;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。<p>
+	 * 処理中のフレーム数の上限は {@link #DEFAULT_MAX_IN_FLIGHT}、ワーカースレッドの数は {@link #DEFAULT_WORKER_COUNT} となります。
+	 * 
+	 * @param frameCount 撮影するフレーム数
+	 * @param fps 撮影するフレームレート
+	 * @param orientation 傾き (0, 90, 180, 270)
+	 * @param mirror ミラーモードかどうか
+	 * @param callback コールバック
+	 */
+	public GLES20BurstCapture(final int frameCount, final float fps, final int orientation, final boolean mirror, final Callback callback) {
+		this(frameCount, fps, orientation, mirror, DEFAULT_MAX_IN_FLIGHT, DEFAULT_WORKER_COUNT, callback);
+	}
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param frameCount 撮影するフレーム数
+	 * @param fps 撮影するフレームレート
+	 * @param orientation 傾き (0, 90, 180, 270)
+	 * @param mirror ミラーモードかどうか
+	 * @param maxInFlight 処理中のフレーム数の上限 (読み込み用のバッファの数)
+	 * @param workerCount ワーカースレッドの数
+	 * @param callback コールバック
+	 * @throws IllegalArgumentException 引数が不正な場合
+	 */
+	public GLES20BurstCapture(final int frameCount, final float fps, final int orientation, final boolean mirror, final int maxInFlight, final int workerCount, final Callback callback) {
+		if (workerCount <= 0) {
+			throw new IllegalArgumentException("Worker count must be greater than 0");
+		}
+		if (callback == null) {
+			throw new IllegalArgumentException("Callback must not be null");
+		}
+		mController = new BurstCaptureController(frameCount, BurstCaptureController.toIntervalNanos(fps), maxInFlight);
+		mCallback = callback;
+		mOrientation = PixelDataUtils.normalizeOrientation(orientation);
+		mMirror = mirror;
+
+		final AtomicInteger threadCount = new AtomicInteger();
+		mExecutor = new ThreadPoolExecutor(workerCount, workerCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread thread = new Thread(r, "GLES20BurstCapture-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		mExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * フレームが描画された時に呼び出して、撮影間隔に達している場合は指定されたフレームバッファオブジェクトを読み込みます。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。
+	 * 
+	 * @param fbo フィルター適用後のフレームバッファオブジェクト
+	 * @return 連写が終了している場合は {@code true}
+	 */
+	public boolean onDrawFrame(final GLES20FramebufferObject fbo) {
+		final int index = mController.onFrame(System.nanoTime());
+		if (index < 0) {
+			return index == BurstCaptureController.FINISHED;
+		}
+
+		final int width = fbo.getWidth();
+		final int height = fbo.getHeight();
+		final ByteBuffer src = obtainBuffer(width * height * 4);
+
+		// 現在の構成を保存します。
+		final int[] args = new int[1];
+		glGetIntegerv(GL_FRAMEBUFFER_BINDING, args, 0);
+
+		fbo.enable();
+		glPixelStorei(GL_PACK_ALIGNMENT, 4);
+		glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, src);
+
+		// 保存した構成を復元します。
+		glBindFramebuffer(GL_FRAMEBUFFER, args[0]);
+
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Bitmap bitmap = null;
+				try {
+					bitmap = createBitmap(src, width, height);
+				} catch (final OutOfMemoryError e) {
+					// 変換できなかったフレームは撮影したフレーム数から除いて、破棄したフレームとして通知します。
+				} finally {
+					recycleBuffer(src);
+				}
+				if (bitmap == null) {
+					try {
+						mCallback.onBurstFrameDropped(index);
+					} finally {
+						if (mController.discard()) {
+							finish();
+						}
+					}
+					return;
+				}
+				try {
+					if (!mCallback.onBurstFrame(bitmap, index)) {
+						bitmap.recycle();
+					}
+				} finally {
+					if (mController.release()) {
+						finish();
+					}
+				}
+			}
+		});
+		return false;
+	}
+
+	/**
+	 * 連写を中止します。<p>
+	 * 処理中のフレームは引き続き処理され、全て終えた時に {@link Callback#onBurstFinished(int, int)} が呼び出されます。
+	 */
+	public void stop() {
+		if (mController.stop()) {
+			mExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					finish();
+				}
+			});
+		}
+	}
+
+	/**
+	 * 撮影したフレーム数を返します。
+	 * 
+	 * @return 撮影したフレーム数
+	 */
+	public int getCapturedCount() {
+		return mController.getCapturedCount();
+	}
+
+	/**
+	 * 処理中のフレームが上限に達していたため、またはメモリ不足のため破棄したフレーム数を返します。
+	 * 
+	 * @return 破棄したフレーム数
+	 */
+	public int getDroppedCount() {
+		return mController.getDroppedCount();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private void finish() {
+		synchronized (this) {
+			if (mFinished) {
+				return;
+			}
+			mFinished = true;
+		}
+		synchronized (mBuffers) {
+			mBuffers.clear();
+		}
+		mCallback.onBurstFinished(mController.getCapturedCount(), mController.getDroppedCount());
+	}
+
+	private Bitmap createBitmap(final ByteBuffer src, final int width, final int height) {
+		final int capacity = width * height * 4;
+		WorkBuffer work = mWorkBuffers.get();
+		if (work == null || work.dst.capacity() < capacity || work.row.length < width) {
+			work = new WorkBuffer(capacity, width);
+			mWorkBuffers.set(work);
+		}
+		final ByteBuffer dst = work.dst;
+		dst.clear();
+		dst.limit(capacity);
+		PixelDataUtils.transform(src.asIntBuffer(), width, height, mOrientation, mMirror, dst.asIntBuffer(), work.row);
+
+		final Bitmap bitmap;
+		if ((mOrientation % 180) == 0) {
+			bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		} else {
+			bitmap = Bitmap.createBitmap(height, width, Bitmap.Config.ARGB_8888);
+		}
+		// ARGB_8888 のメモリ上の並びは RGBA なので、読み込んだピクセルデータをそのまま複写できます。
+		dst.position(0);
+		bitmap.copyPixelsFromBuffer(dst);
+		return bitmap;
+	}
+
+	private ByteBuffer obtainBuffer(final int capacity) {
+		synchronized (mBuffers) {
+			for (int i = mBuffers.size() - 1; i >= 0; i--) {
+				final ByteBuffer buffer = mBuffers.get(i);
+				if (buffer.capacity() >= capacity) {
+					mBuffers.remove(i);
+					buffer.clear();
+					buffer.limit(capacity);
+					return buffer;
+				}
+			}
+		}
+		return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+	}
+
+	private void recycleBuffer(final ByteBuffer buffer) {
+		synchronized (mBuffers) {
+			// 処理中のフレーム数の上限を超えて確保されることはないため、全て保持します。
+			mBuffers.add(buffer);
+		}
+	}
+
+}
\ No newline at end of file
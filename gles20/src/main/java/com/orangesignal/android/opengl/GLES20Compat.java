@@ -4,6 +4,8 @@
 
 package com.orangesignal.android.opengl;
 
+import java.nio.ByteBuffer;
+
 import android.annotation.TargetApi;
 import android.os.Build;
 
@@ -29,9 +31,46 @@ public class GLES20Compat {
 	 */
 	public static final int GL_TEXTURE_EXTERNAL_OES = 0x8D65;
 
+	/**
+	 * GL_OES_get_program_binary
+	 */
+	public static final int GL_PROGRAM_BINARY_LENGTH_OES = 0x8741;
+
+	/**
+	 * GL_OES_get_program_binary
+	 */
+	public static final int GL_NUM_PROGRAM_BINARY_FORMATS_OES = 0x87FE;
+
 	/**
 	 * @see http://www.khronos.org/opengles/sdk/docs/man/xhtml/glVertexAttribPointer.xml
 	 */
 	public static native void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset);
 
+	/**
+	 * {@code glGetProgramBinaryOES} と {@code glProgramBinaryOES} の関数が取得できるかどうかを返します。<p>
+	 * 実際に使用できるかどうかは、拡張機能の文字列と {@link #GL_NUM_PROGRAM_BINARY_FORMATS_OES} も確認する必要があります。
+	 * 
+	 * @return 関数が取得できるかどうか
+	 */
+	public static native boolean isProgramBinaryAvailable();
+
+	/**
+	 * @param program プログラム識別子
+	 * @param bufSize {@code binary} のバイト数
+	 * @param binaryFormat バイナリ形式を格納する配列
+	 * @param binary バイナリを格納するダイレクトバッファ
+	 * @return 格納したバイト数
+	 * @see http://www.khronos.org/registry/gles/extensions/OES/OES_get_program_binary.txt
+	 */
+	public static native int glGetProgramBinaryOES(int program, int bufSize, int[] binaryFormat, ByteBuffer binary);
+
+	/**
+	 * @param program プログラム識別子
+	 * @param binaryFormat バイナリ形式
+	 * @param binary バイナリを格納したダイレクトバッファ
+	 * @param length バイト数
+	 * @see http://www.khronos.org/registry/gles/extensions/OES/OES_get_program_binary.txt
+	 */
+	public static native void glProgramBinaryOES(int program, int binaryFormat, ByteBuffer binary, int length);
+
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * EGL コンテキスト単位で共有するプログラムキャッシュ、ジオメトリ、テクスチャキャッシュを保持するクラスを提供します。<p>
+ * 状態は {@link GLES20FramebufferObjectRenderer} が EGL コンテキストの生成時に {@link #newCurrent()} で生成して GL スレッドへ関連付け、
+ * シェーダー、共有テクスチャ、フレームバッファオブジェクトは構成時に {@link #getCurrent()} で取得した状態を使用します。
+ * EGL コンテキストが失われた場合は {@link #discard()} で破棄されるため、以前の EGL コンテキストのプログラムオブジェクトやテクスチャを参照したり削除したりすることはありません。<p>
+ * このクラスのメソッドは GL スレッドから呼び出す必要があります。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public final class GLES20ContextState {
+
+	/**
+	 * GL スレッドと現在の状態の関連付けを保持します。<p>
+	 * EGL コンテキストは GL スレッドでカレントとなるため、{@link javax.microedition.khronos.egl.EGLContext} の比較に依存せずに現在の状態を特定します。
+	 */
+	private static final ThreadLocal<GLES20ContextState> sCurrent = new ThreadLocal<GLES20ContextState>();
+
+	/**
+	 * プログラムキャッシュを保持します。
+	 */
+	private final GLES20ProgramCache mProgramCache;
+
+	/**
+	 * ジオメトリを保持します。
+	 */
+	private final GLES20Geometry mGeometry;
+
+	/**
+	 * テクスチャキャッシュを保持します。
+	 */
+	private final GLES20TextureCache mTextureCache;
+
+	/**
+	 * EGL コンテキストが破棄されたかどうかを保持します。
+	 */
+	private boolean mDiscarded;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 */
+	public GLES20ContextState() {
+		this(new GLES20ProgramCache(), new GLES20Geometry(), new GLES20TextureCache());
+	}
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param programCache プログラムキャッシュ
+	 * @param geometry ジオメトリ
+	 * @param textureCache テクスチャキャッシュ
+	 */
+	GLES20ContextState(final GLES20ProgramCache programCache, final GLES20Geometry geometry, final GLES20TextureCache textureCache) {
+		mProgramCache = programCache;
+		mGeometry = geometry;
+		mTextureCache = textureCache;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 現在の GL スレッドに関連付けられた状態を返します。<p>
+	 * {@link GLES20FramebufferObjectRenderer} を使用せずに EGL コンテキストを生成した場合など、関連付けられた状態がない場合は新しく生成して関連付けます。
+	 * 
+	 * @return 現在の状態
+	 */
+	public static GLES20ContextState getCurrent() {
+		GLES20ContextState state = sCurrent.get();
+		if (state == null) {
+			state = new GLES20ContextState();
+			sCurrent.set(state);
+		}
+		return state;
+	}
+
+	/**
+	 * 現在の GL スレッドに関連付けられた状態を破棄して、新しい状態を生成して関連付けます。<p>
+	 * EGL コンテキストが新しく生成された場合に呼び出します。
+	 * 
+	 * @return 新しい状態
+	 */
+	public static GLES20ContextState newCurrent() {
+		final GLES20ContextState previous = sCurrent.get();
+		if (previous != null) {
+			previous.discard();
+		}
+		final GLES20ContextState state = new GLES20ContextState();
+		sCurrent.set(state);
+		return state;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * プログラムキャッシュを返します。
+	 * 
+	 * @return プログラムキャッシュ
+	 */
+	public GLES20ProgramCache getProgramCache() {
+		return mProgramCache;
+	}
+
+	/**
+	 * ジオメトリを返します。
+	 * 
+	 * @return ジオメトリ
+	 */
+	public GLES20Geometry getGeometry() {
+		return mGeometry;
+	}
+
+	/**
+	 * テクスチャキャッシュを返します。
+	 * 
+	 * @return テクスチャキャッシュ
+	 */
+	public GLES20TextureCache getTextureCache() {
+		return mTextureCache;
+	}
+
+	/**
+	 * この状態が破棄されておらず、現在の GL スレッドに関連付けられているかどうかを返します。
+	 * 
+	 * @return 現在の状態の場合は {@code true}
+	 */
+	public boolean isCurrent() {
+		return !isDiscarded() && sCurrent.get() == this;
+	}
+
+	/**
+	 * この状態が破棄されたかどうかを返します。
+	 * 
+	 * @return 破棄された場合は {@code true}
+	 */
+	public synchronized boolean isDiscarded() {
+		return mDiscarded;
+	}
+
+	/**
+	 * EGL コンテキストが失われたものとして、プログラムオブジェクトやテクスチャを削除せずにこの状態を破棄します。<p>
+	 * この状態が現在の GL スレッドに関連付けられている場合は、関連付けも取り除きます。
+	 */
+	public void discard() {
+		synchronized (this) {
+			if (mDiscarded) {
+				return;
+			}
+			mDiscarded = true;
+		}
+		mProgramCache.discard();
+		mTextureCache.discard();
+		if (sCurrent.get() == this) {
+			sCurrent.remove();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
+import static android.opengl.GLES20.GL_PACK_ALIGNMENT;
+import static android.opengl.GLES20.GL_RGBA;
+import static android.opengl.GLES20.GL_UNSIGNED_BYTE;
+import static android.opengl.GLES20.glClear;
+import static android.opengl.GLES20.glPixelStorei;
+import static android.opengl.GLES20.glReadPixels;
+import static android.opengl.GLES20.glUniform1f;
+import static android.opengl.GLES20.glUniform2f;
+import static android.opengl.GLES20.glViewport;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * コーナー検出などのシェーダーが描画した特徴量のフレームから、上位の特徴点を少ないデータ量で読み込むクラスを提供します。<p>
+ * GPU 上で次の 2 つの描画パスを行ってから、縮小したテクスチャのみを {@code glReadPixels} で読み込みます。
+ * <ol>
+ * <li>非極大値抑制: 3x3 の近傍で最大かつ閾値を超える画素のみ特徴量を残します。</li>
+ * <li>ブロック単位の集約: {@code blockSize} x {@code blockSize} のブロック毎に最大の特徴量とブロック内の位置を 1 画素へ詰めます。</li>
+ * </ol>
+ * 読み込むデータ量はフレーム全体の 1/{@code blockSize}<sup>2</sup> になり、上位の特徴点は CPU で選択して
+ * (x, y, 特徴量) の組の {@code float} 配列で返します。特徴量は赤色成分から読み込みます。<p>
+ * 同じ処理を CPU で行う {@link #reduce(float[], int, int, int, float, float[], int)} も提供します。
+ * 座標は GL のテクスチャ座標系 (左下が原点) の画素単位です。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20FeatureReducer {
+
+	/**
+	 * デフォルトのブロックの大きさです。
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 4;
+
+	/**
+	 * ブロックの最大の大きさです。ブロック内の位置を 8 ビットの色成分へ格納するため制限します。
+	 */
+	public static final int MAX_BLOCK_SIZE = 16;
+
+	/**
+	 * デフォルトの閾値です。
+	 */
+	public static final float DEFAULT_THRESHOLD = 0.1f;
+
+	/**
+	 * 1 つの特徴点を表す {@code float} 値の数です。
+	 */
+	public static final int FEATURE_SIZE = 3;
+
+	/**
+	 * 非極大値抑制を行うシェーダーを提供します。
+	 */
+	@TargetApi(Build.VERSION_CODES.FROYO)
+	private static final class SuppressionShader extends GLES20Shader {
+
+		private static final String VERTEX_SHADER =
+				"attribute vec4 aPosition;\n" +
+				"attribute vec4 aTextureCoord;\n" +
+				"uniform highp vec2 texelSize;\n" +
+				"varying highp vec2 vTextureCoord;\n" +
+				"varying highp vec4 vNeighbor0;\n" +
+				"varying highp vec4 vNeighbor1;\n" +
+				"varying highp vec4 vNeighbor2;\n" +
+				"varying highp vec4 vNeighbor3;\n" +
+				"void main() {\n" +
+					"gl_Position = aPosition;\n" +
+					"vTextureCoord = aTextureCoord.xy;\n" +
+					"highp vec2 dx = vec2(texelSize.x, 0.0);\n" +
+					"highp vec2 dy = vec2(0.0, texelSize.y);\n" +
+					"vNeighbor0 = vec4(vTextureCoord - dx - dy, vTextureCoord - dy);\n" +
+					"vNeighbor1 = vec4(vTextureCoord + dx - dy, vTextureCoord - dx);\n" +
+					"vNeighbor2 = vec4(vTextureCoord + dx, vTextureCoord - dx + dy);\n" +
+					"vNeighbor3 = vec4(vTextureCoord + dy, vTextureCoord + dx + dy);\n" +
+				"}\n";
+
+		private static final String FRAGMENT_SHADER =
+				"precision mediump float;\n" +
+				"uniform lowp sampler2D sTexture;\n" +
+				"uniform mediump float threshold;\n" +
+				"varying highp vec2 vTextureCoord;\n" +
+				"varying highp vec4 vNeighbor0;\n" +
+				"varying highp vec4 vNeighbor1;\n" +
+				"varying highp vec4 vNeighbor2;\n" +
+				"varying highp vec4 vNeighbor3;\n" +
+				"void main() {\n" +
+					"mediump float score = texture2D(sTexture, vTextureCoord).r;\n" +
+					"mediump float neighbor = max(max(max(texture2D(sTexture, vNeighbor0.xy).r, texture2D(sTexture, vNeighbor0.zw).r), " +
+						"max(texture2D(sTexture, vNeighbor1.xy).r, texture2D(sTexture, vNeighbor1.zw).r)), " +
+						"max(max(texture2D(sTexture, vNeighbor2.xy).r, texture2D(sTexture, vNeighbor2.zw).r), " +
+						"max(texture2D(sTexture, vNeighbor3.xy).r, texture2D(sTexture, vNeighbor3.zw).r)));\n" +
+					"gl_FragColor = vec4(score >= neighbor && score > threshold ? score : 0.0, 0.0, 0.0, 1.0);\n" +
+				"}\n";
+
+		private float mTexelWidth;
+		private float mTexelHeight;
+		private float mThreshold;
+		private int mTexelSizeHandle = -1;
+		private int mThresholdHandle = -1;
+
+		public SuppressionShader() {
+			super(VERTEX_SHADER, FRAGMENT_SHADER);
+		}
+
+		public void setParameters(final int width, final int height, final float threshold) {
+			mTexelWidth = 1f / width;
+			mTexelHeight = 1f / height;
+			mThreshold = threshold;
+		}
+
+		@Override
+		protected void onSetupHandles() {
+			mTexelSizeHandle = getHandle("texelSize");
+			mThresholdHandle = getHandle("threshold");
+		}
+
+		@Override
+		protected void onDraw() {
+			glUniform2f(mTexelSizeHandle, mTexelWidth, mTexelHeight);
+			glUniform1f(mThresholdHandle, mThreshold);
+		}
+
+	}
+
+	/**
+	 * ブロック単位に最大の特徴量と位置を集約するシェーダーを提供します。
+	 */
+	@TargetApi(Build.VERSION_CODES.FROYO)
+	private static final class ReductionShader extends GLES20Shader {
+
+		private float mTexelWidth;
+		private float mTexelHeight;
+		private int mTexelSizeHandle = -1;
+
+		public ReductionShader(final int blockSize) {
+			super(DEFAULT_VERTEX_SHADER, createFragmentShaderSource(blockSize));
+		}
+
+		private static String createFragmentShaderSource(final int blockSize) {
+			final String size = blockSize + ".0";
+			return new StringBuilder()
+				// 画素の位置を正確に扱うため、可能な場合は高精度とします。
+				.append("#ifdef GL_FRAGMENT_PRECISION_HIGH\n")
+				.append("precision highp float;\n")
+				.append("#else\n")
+				.append("precision mediump float;\n")
+				.append("#endif\n")
+				.append("uniform lowp sampler2D sTexture;\n")
+				.append("uniform vec2 texelSize;\n")
+				.append("void main() {\n")
+				.append("vec2 origin = floor(gl_FragCoord.xy) * ").append(size).append(";\n")
+				.append("float best = 0.0;\n")
+				.append("vec2 position = vec2(0.0);\n")
+				.append("for (int y = 0; y < ").append(blockSize).append("; y++) {\n")
+				.append("for (int x = 0; x < ").append(blockSize).append("; x++) {\n")
+				.append("vec2 offset = vec2(float(x), float(y));\n")
+				.append("float score = texture2D(sTexture, (origin + offset + 0.5) * texelSize).r;\n")
+				.append("if (score > best) {\n")
+				.append("best = score;\n")
+				.append("position = offset;\n")
+				.append("}\n")
+				.append("}\n")
+				.append("}\n")
+				.append("gl_FragColor = vec4(best, (position + 0.5) / ").append(size).append(", 1.0);\n")
+				.append("}\n")
+				.toString();
+		}
+
+		public void setSourceSize(final int width, final int height) {
+			mTexelWidth = 1f / width;
+			mTexelHeight = 1f / height;
+		}
+
+		@Override
+		protected void onSetupHandles() {
+			mTexelSizeHandle = getHandle("texelSize");
+		}
+
+		@Override
+		protected void onDraw() {
+			glUniform2f(mTexelSizeHandle, mTexelWidth, mTexelHeight);
+		}
+
+	}
+
+	/**
+	 * ブロックの大きさを保持します。
+	 */
+	private final int mBlockSize;
+
+	/**
+	 * 閾値を保持します。
+	 */
+	private float mThreshold = DEFAULT_THRESHOLD;
+
+	private SuppressionShader mSuppressionShader;
+	private ReductionShader mReductionShader;
+	private GLES20FramebufferObject mSuppressionFramebufferObject;
+	private GLES20FramebufferObject mReductionFramebufferObject;
+
+	/**
+	 * 読み込みに使用するダイレクトバッファを保持します。
+	 */
+	private ByteBuffer mPixels;
+
+	/**
+	 * ブロック単位の特徴点を保持します。
+	 */
+	private float[] mBlocks;
+
+	private int mWidth;
+	private int mHeight;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * デフォルトコンストラクタです。
+	 */
+	public GLES20FeatureReducer() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * 指定されたブロックの大きさで、このクラスをインスタンス化するコンストラクタです。
+	 * 
+	 * @param blockSize ブロックの大きさ (1 から {@link #MAX_BLOCK_SIZE})
+	 * @throws IllegalArgumentException {@code blockSize} が範囲外の場合
+	 */
+	public GLES20FeatureReducer(final int blockSize) {
+		checkBlockSize(blockSize);
+		mBlockSize = blockSize;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// セッター / ゲッター
+
+	/**
+	 * 特徴点とみなす特徴量の閾値を設定します。デフォルトは {@link #DEFAULT_THRESHOLD} です。
+	 * 
+	 * @param threshold 閾値 (0.0 から 1.0)
+	 */
+	public void setThreshold(final float threshold) {
+		mThreshold = threshold;
+	}
+
+	/**
+	 * 特徴点とみなす特徴量の閾値を返します。
+	 * 
+	 * @return 閾値
+	 */
+	public float getThreshold() {
+		return mThreshold;
+	}
+
+	/**
+	 * ブロックの大きさを返します。
+	 * 
+	 * @return ブロックの大きさ
+	 */
+	public int getBlockSize() {
+		return mBlockSize;
+	}
+
+	/**
+	 * 1 回の {@link #read(int, float[], int)} で読み込むバイト数を返します。
+	 * 
+	 * @return バイト数
+	 */
+	public int getReadbackSize() {
+		return getBlockCount(mWidth, mBlockSize) * getBlockCount(mHeight, mBlockSize) * 4;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 指定された大きさの特徴量のフレームを処理するように構成します。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。
+	 * 
+	 * @param width フレームの幅
+	 * @param height フレームの高さ
+	 */
+	public void setup(final int width, final int height) {
+		release();
+		mWidth = width;
+		mHeight = height;
+
+		mSuppressionShader = new SuppressionShader();
+		mSuppressionShader.setup();
+		mReductionShader = new ReductionShader(mBlockSize);
+		mReductionShader.setup();
+
+		// 2D の描画のみを行うため深度バッファはアタッチしません。
+		mSuppressionFramebufferObject = new GLES20FramebufferObject(false);
+		mSuppressionFramebufferObject.setup(width, height);
+		final int blocksWidth = getBlockCount(width, mBlockSize);
+		final int blocksHeight = getBlockCount(height, mBlockSize);
+		mReductionFramebufferObject = new GLES20FramebufferObject(false);
+		mReductionFramebufferObject.setup(blocksWidth, blocksHeight);
+
+		mPixels = ByteBuffer.allocateDirect(blocksWidth * blocksHeight * 4).order(ByteOrder.nativeOrder());
+		mBlocks = new float[blocksWidth * blocksHeight * FEATURE_SIZE];
+	}
+
+	/**
+	 * このオブジェクトの構成を破棄します。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。
+	 */
+	public void release() {
+		if (mSuppressionShader != null) {
+			mSuppressionShader.release();
+			mSuppressionShader = null;
+		}
+		if (mReductionShader != null) {
+			mReductionShader.release();
+			mReductionShader = null;
+		}
+		if (mSuppressionFramebufferObject != null) {
+			mSuppressionFramebufferObject.release();
+			mSuppressionFramebufferObject = null;
+		}
+		if (mReductionFramebufferObject != null) {
+			mReductionFramebufferObject.release();
+			mReductionFramebufferObject = null;
+		}
+		mPixels = null;
+		mBlocks = null;
+	}
+
+	/**
+	 * 指定されたテクスチャの特徴量から上位の特徴点を読み込みます。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。呼び出し後はフレームバッファとビューポートが変更されたままになります。
+	 * 
+	 * @param texName 特徴量のフレームのテクスチャ識別子
+	 * @param features 特徴点を (x, y, 特徴量) の順に格納する配列。長さは {@code maxCount * FEATURE_SIZE} 以上が必要です。
+	 * @param maxCount 読み込む特徴点の最大数
+	 * @return 読み込んだ特徴点の数
+	 */
+	public int read(final int texName, final float[] features, final int maxCount) {
+		final GLES20FramebufferObject suppression = mSuppressionFramebufferObject;
+		final GLES20FramebufferObject reduction = mReductionFramebufferObject;
+
+		// 非極大値抑制を行います。
+		suppression.enable();
+		glViewport(0, 0, mWidth, mHeight);
+		glClear(GL_COLOR_BUFFER_BIT);
+		mSuppressionShader.setParameters(mWidth, mHeight, mThreshold);
+		mSuppressionShader.draw(texName, suppression);
+
+		// ブロック単位に集約します。
+		reduction.enable();
+		glViewport(0, 0, reduction.getWidth(), reduction.getHeight());
+		glClear(GL_COLOR_BUFFER_BIT);
+		mReductionShader.setSourceSize(mWidth, mHeight);
+		mReductionShader.draw(suppression.getTexName(), reduction);
+
+		// 集約したテクスチャのみを読み込みます。
+		mPixels.clear();
+		glPixelStorei(GL_PACK_ALIGNMENT, 4);
+		glReadPixels(0, 0, reduction.getWidth(), reduction.getHeight(), GL_RGBA, GL_UNSIGNED_BYTE, mPixels);
+
+		final int count = decodeBlocks(mPixels, reduction.getWidth(), reduction.getHeight(), mBlockSize, mBlocks);
+		return selectTopFeatures(mBlocks, count, features, maxCount);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * GPU で行う処理と同じ処理を CPU で行って、上位の特徴点を返します。<p>
+	 * 特徴量の配列の最初の行は GL のテクスチャ座標系と同じく最下段の行として扱います。
+	 * 
+	 * @param scores 特徴量の配列
+	 * @param width フレームの幅
+	 * @param height フレームの高さ
+	 * @param blockSize ブロックの大きさ (1 から {@link #MAX_BLOCK_SIZE})
+	 * @param threshold 閾値
+	 * @param features 特徴点を (x, y, 特徴量) の順に格納する配列。長さは {@code maxCount * FEATURE_SIZE} 以上が必要です。
+	 * @param maxCount 特徴点の最大数
+	 * @return 特徴点の数
+	 * @throws IllegalArgumentException {@code blockSize} が範囲外の場合
+	 */
+	public static int reduce(final float[] scores, final int width, final int height, final int blockSize, final float threshold, final float[] features, final int maxCount) {
+		checkBlockSize(blockSize);
+		final float[] suppressed = new float[width * height];
+		suppressNonMaximum(scores, width, height, threshold, suppressed);
+		final float[] blocks = new float[getBlockCount(width, blockSize) * getBlockCount(height, blockSize) * FEATURE_SIZE];
+		final int count = reduceBlocks(suppressed, width, height, blockSize, blocks);
+		return selectTopFeatures(blocks, count, features, maxCount);
+	}
+
+	/**
+	 * 3x3 の近傍で最大かつ閾値を超える画素のみ特徴量を残します。
+	 * 
+	 * @param scores 特徴量の配列
+	 * @param width フレームの幅
+	 * @param height フレームの高さ
+	 * @param threshold 閾値
+	 * @param suppressed 結果を格納する配列
+	 */
+	static void suppressNonMaximum(final float[] scores, final int width, final int height, final float threshold, final float[] suppressed) {
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				final float score = scores[y * width + x];
+				boolean maximum = score > threshold;
+				// GPU の GL_CLAMP_TO_EDGE による端の画素の参照は 3x3 の近傍内の画素と同じになるため、範囲外は無視します。
+				for (int dy = -1; maximum && dy <= 1; dy++) {
+					final int ny = y + dy;
+					if (ny < 0 || ny >= height) {
+						continue;
+					}
+					for (int dx = -1; dx <= 1; dx++) {
+						final int nx = x + dx;
+						if (nx >= 0 && nx < width && scores[ny * width + nx] > score) {
+							maximum = false;
+							break;
+						}
+					}
+				}
+				suppressed[y * width + x] = maximum ? score : 0f;
+			}
+		}
+	}
+
+	/**
+	 * ブロック単位に最大の特徴量とその位置を集約します。<p>
+	 * 同じ特徴量の画素がある場合は、行、列の順に走査して最初の画素を選択します。
+	 * 
+	 * @param suppressed 非極大値抑制を行った特徴量の配列
+	 * @param width フレームの幅
+	 * @param height フレームの高さ
+	 * @param blockSize ブロックの大きさ
+	 * @param blocks ブロック単位の特徴点を (x, y, 特徴量) の順に格納する配列
+	 * @return ブロックの数
+	 */
+	static int reduceBlocks(final float[] suppressed, final int width, final int height, final int blockSize, final float[] blocks) {
+		final int blocksWidth = getBlockCount(width, blockSize);
+		final int blocksHeight = getBlockCount(height, blockSize);
+		int i = 0;
+		for (int by = 0; by < blocksHeight; by++) {
+			for (int bx = 0; bx < blocksWidth; bx++) {
+				float best = 0f;
+				int bestX = bx * blockSize;
+				int bestY = by * blockSize;
+				final int maxY = Math.min(height, (by + 1) * blockSize);
+				final int maxX = Math.min(width, (bx + 1) * blockSize);
+				for (int y = by * blockSize; y < maxY; y++) {
+					for (int x = bx * blockSize; x < maxX; x++) {
+						final float score = suppressed[y * width + x];
+						if (score > best) {
+							best = score;
+							bestX = x;
+							bestY = y;
+						}
+					}
+				}
+				blocks[i++] = bestX;
+				blocks[i++] = bestY;
+				blocks[i++] = best;
+			}
+		}
+		return blocksWidth * blocksHeight;
+	}
+
+	/**
+	 * GPU で集約した RGBA のピクセルデータからブロック単位の特徴点を復元します。
+	 * 
+	 * @param pixels RGBA のピクセルデータ
+	 * @param blocksWidth 横方向のブロックの数
+	 * @param blocksHeight 縦方向のブロックの数
+	 * @param blockSize ブロックの大きさ
+	 * @param blocks ブロック単位の特徴点を (x, y, 特徴量) の順に格納する配列
+	 * @return ブロックの数
+	 */
+	static int decodeBlocks(final ByteBuffer pixels, final int blocksWidth, final int blocksHeight, final int blockSize, final float[] blocks) {
+		final int count = blocksWidth * blocksHeight;
+		int i = 0;
+		for (int n = 0; n < count; n++) {
+			final int offset = n * 4;
+			final int score = pixels.get(offset) & 0xFF;
+			// ブロック内の位置は (位置 + 0.5) / blockSize として格納されています。
+			final int x = Math.min(blockSize - 1, (pixels.get(offset + 1) & 0xFF) * blockSize / 255);
+			final int y = Math.min(blockSize - 1, (pixels.get(offset + 2) & 0xFF) * blockSize / 255);
+			blocks[i++] = (n % blocksWidth) * blockSize + x;
+			blocks[i++] = (n / blocksWidth) * blockSize + y;
+			blocks[i++] = score / 255f;
+		}
+		return count;
+	}
+
+	/**
+	 * ブロック単位の特徴点から特徴量の大きい順に指定された数の特徴点を選択します。<p>
+	 * 同じ特徴量の特徴点はブロックの順序を維持します。
+	 * 
+	 * @param blocks ブロック単位の特徴点を (x, y, 特徴量) の順に格納した配列
+	 * @param blockCount ブロックの数
+	 * @param features 特徴点を (x, y, 特徴量) の順に格納する配列
+	 * @param maxCount 特徴点の最大数
+	 * @return 特徴点の数
+	 */
+	static int selectTopFeatures(final float[] blocks, final int blockCount, final float[] features, final int maxCount) {
+		if (maxCount <= 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int n = 0; n < blockCount; n++) {
+			final float score = blocks[n * FEATURE_SIZE + 2];
+			if (score <= 0f || (count == maxCount && score <= features[(count - 1) * FEATURE_SIZE + 2])) {
+				continue;
+			}
+			// 挿入ソートで特徴量の降順を維持します。最大数は小さいことを想定しています。
+			int i = count < maxCount ? count++ : count - 1;
+			while (i > 0 && features[(i - 1) * FEATURE_SIZE + 2] < score) {
+				System.arraycopy(features, (i - 1) * FEATURE_SIZE, features, i * FEATURE_SIZE, FEATURE_SIZE);
+				i--;
+			}
+			System.arraycopy(blocks, n * FEATURE_SIZE, features, i * FEATURE_SIZE, FEATURE_SIZE);
+		}
+		return count;
+	}
+
+	/**
+	 * 指定された大きさを覆うブロックの数を返します。
+	 * 
+	 * @param size 大きさ
+	 * @param blockSize ブロックの大きさ
+	 * @return ブロックの数
+	 */
+	static int getBlockCount(final int size, final int blockSize) {
+		return (size + blockSize - 1) / blockSize;
+	}
+
+	private static void checkBlockSize(final int blockSize) {
+		if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+			throw new IllegalArgumentException("Block size must be 1 to " + MAX_BLOCK_SIZE + " " + blockSize);
+		}
+	}
+
+}
\ No newline at end of file
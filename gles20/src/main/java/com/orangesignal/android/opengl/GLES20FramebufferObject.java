@@ -44,13 +44,20 @@ import android.graphics.Bitmap;
 import android.os.Build;
 
 /**
- * オフスクリーン描画用の OpenGL ES 2.0 のフレームバッファオブジェクト管理クラスを提供します。
+ * オフスクリーン描画用の OpenGL ES 2.0 のフレームバッファオブジェクト管理クラスを提供します。<p>
+ * 構成済みのフレームバッファオブジェクトは、同じ EGL コンテキストで再度構成する場合に識別子を再利用します。
+ * そのため、EGL コンテキストを保持したままプレビューを再開する場合や、プレビューサイズが変更された場合に、フレームバッファオブジェクトを生成し直す必要がありません。
  * 
  * @author 杉澤 浩二
  */
 @TargetApi(Build.VERSION_CODES.FROYO)
 public class GLES20FramebufferObject {
 
+	/**
+	 * 深度バッファ用のレンダーバッファをアタッチするかどうかを保持します。
+	 */
+	private final boolean mDepthAttachment;
+
 	/**
 	 * 幅を保持します。
 	 */
@@ -76,9 +83,44 @@ public class GLES20FramebufferObject {
 	 */
 	private int mTexName;
 
+	/**
+	 * 識別子を生成した EGL コンテキストの状態を保持します。
+	 */
+	private GLES20ContextState mContextState;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。<p>
+	 * 深度バッファ用のレンダーバッファをアタッチします。
+	 */
+	public GLES20FramebufferObject() {
+		this(true);
+	}
+
+	/**
+	 * コンストラクタです。<p>
+	 * シェーダーによる 2D の描画のみを行う場合は、深度バッファを使用しないため {@code depthAttachment} に {@code false} を指定してメモリを節約できます。
+	 * 
+	 * @param depthAttachment 深度バッファ用のレンダーバッファをアタッチするかどうか
+	 */
+	public GLES20FramebufferObject(final boolean depthAttachment) {
+		mDepthAttachment = depthAttachment;
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// セッター / ゲッター
 
+	/**
+	 * 深度バッファ用のレンダーバッファをアタッチするかどうかを返します。
+	 * 
+	 * @return 深度バッファ用のレンダーバッファをアタッチするかどうか
+	 */
+	public boolean hasDepthAttachment() {
+		return mDepthAttachment;
+	}
+
 	/**
 	 * 幅を返します。
 	 * 
@@ -106,13 +148,40 @@ public class GLES20FramebufferObject {
 		return mTexName;
 	}
 
+	/**
+	 * このフレームバッファオブジェクトが確保しているテクスチャとレンダーバッファのおおよそのバイト数を返します。
+	 * 
+	 * @return バイト数。構成されていない場合は {@code 0}
+	 */
+	public long getMemorySize() {
+		if (mFramebufferName == 0) {
+			return 0;
+		}
+		return computeMemorySize(mWidth, mHeight, mDepthAttachment);
+	}
+
+	/**
+	 * 指定された幅と高さで構成したフレームバッファオブジェクトが確保するテクスチャとレンダーバッファのおおよそのバイト数を返します。<p>
+	 * テクスチャは {@code GL_RGBA} の 4 バイト、深度バッファは {@code GL_DEPTH_COMPONENT16} の 2 バイトをピクセルごとに確保するものとして計算します。
+	 * 
+	 * @param width 幅
+	 * @param height 高さ
+	 * @param depthAttachment 深度バッファ用のレンダーバッファをアタッチするかどうか
+	 * @return バイト数
+	 */
+	public static long computeMemorySize(final int width, final int height, final boolean depthAttachment) {
+		final long pixels = (long) width * height;
+		return pixels * 4 + (depthAttachment ? pixels * 2 : 0);
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// パブリック メソッド
 
 	/**
 	 * 指定された幅と高さでフレームバッファオブジェクト (FBO) を構成します。<p>
-	 * 既にフレームバッファオブジェクト (FBO) が構成されている場合は、
-	 * 現在のフレームバッファオブジェクト (FBO) を削除して新しいフレームバッファオブジェクト (FBO) を構成します。
+	 * 既に現在の EGL コンテキストでフレームバッファオブジェクト (FBO) が構成されている場合は、識別子を再利用して
+	 * テクスチャとレンダーバッファの領域のみを指定し直します。幅と高さが変わらない場合は何もしません。
+	 * 以前の EGL コンテキストで構成されていた場合は、以前の識別子を削除せずに新しいフレームバッファオブジェクト (FBO) を構成します。
 	 * 
 	 * @param width 幅
 	 * @param height 高さ
@@ -120,6 +189,11 @@ public class GLES20FramebufferObject {
 	 * @throws RuntimeException フレームバッファの構成に失敗した場合。
 	 */
 	public void setup(final int width, final int height) {
+		final boolean reuse = mFramebufferName != 0 && isCurrentContext();
+		if (reuse && width == mWidth && height == mHeight) {
+			return;
+		}
+
 		final int[] args = new int[1];
 
 		// パラメータを検証します。
@@ -129,9 +203,11 @@ public class GLES20FramebufferObject {
 			throw new IllegalArgumentException("GL_MAX_TEXTURE_SIZE " + args[0]);
 		}
 
-		glGetIntegerv(GL_MAX_RENDERBUFFER_SIZE, args, 0);
-		if (width > args[0] || height > args[0]) {
-			throw new IllegalArgumentException("GL_MAX_RENDERBUFFER_SIZE " + args[0]);
+		if (mDepthAttachment) {
+			glGetIntegerv(GL_MAX_RENDERBUFFER_SIZE, args, 0);
+			if (width > args[0] || height > args[0]) {
+				throw new IllegalArgumentException("GL_MAX_RENDERBUFFER_SIZE " + args[0]);
+			}
 		}
 
 		// 現在の構成を保存します。
@@ -142,38 +218,55 @@ public class GLES20FramebufferObject {
 		glGetIntegerv(GL_TEXTURE_BINDING_2D, args, 0);
 		final int saveTexName = args[0];
 
-		// 現在のフレームバッファオブジェクトを削除します。
-		release();
+		if (!reuse) {
+			// 現在のフレームバッファオブジェクトを削除します。
+			release();
+		}
 
 		try {
 			mWidth = width;
 			mHeight = height;
 
-			// フレームバッファ識別子を生成します。
-			glGenFramebuffers(args.length, args, 0);
-			mFramebufferName = args[0];
-			// フレームバッファ識別子に対応したフレームバッファオブジェクトを生成します。
-			glBindFramebuffer(GL_FRAMEBUFFER, mFramebufferName);
-
-			// レンダーバッファ識別子を生成します。
-			glGenRenderbuffers(args.length, args, 0);
-			mRenderbufferName = args[0];
-			// レンダーバッファ識別子に対応したレンダーバッファオブジェクトを生成します。
-			glBindRenderbuffer(GL_RENDERBUFFER, mRenderbufferName);
-			// レンダーバッファの幅と高さを指定します。
-			glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT16, width, height);
-			// フレームバッファのアタッチメントとしてレンダーバッファをアタッチします。
-			glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, mRenderbufferName);
-
-			// Offscreen position framebuffer texture target
-			glGenTextures(args.length, args, 0);
-			mTexName = args[0];
-			glBindTexture(GL_TEXTURE_2D, mTexName);
-			GLES20Utils.setupSampler(GL_TEXTURE_2D, GL_LINEAR, GL_NEAREST);
-			// PowerVR SGX530 などは RGB など RGBA 以外の形式を FBO ではサポートしないので RGBA 固定とします。
-			glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, null);
-			// フレームバッファのアタッチメントとして 2D テクスチャをアタッチします。
-			glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, mTexName, 0);
+			if (reuse) {
+				// 識別子とアタッチメントはそのままに、レンダーバッファとテクスチャの幅と高さのみを指定し直します。
+				glBindFramebuffer(GL_FRAMEBUFFER, mFramebufferName);
+				if (mDepthAttachment) {
+					glBindRenderbuffer(GL_RENDERBUFFER, mRenderbufferName);
+					glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT16, width, height);
+				}
+				glBindTexture(GL_TEXTURE_2D, mTexName);
+				glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, null);
+			} else {
+				mContextState = GLES20ContextState.getCurrent();
+
+				// フレームバッファ識別子を生成します。
+				glGenFramebuffers(args.length, args, 0);
+				mFramebufferName = args[0];
+				// フレームバッファ識別子に対応したフレームバッファオブジェクトを生成します。
+				glBindFramebuffer(GL_FRAMEBUFFER, mFramebufferName);
+
+				if (mDepthAttachment) {
+					// レンダーバッファ識別子を生成します。
+					glGenRenderbuffers(args.length, args, 0);
+					mRenderbufferName = args[0];
+					// レンダーバッファ識別子に対応したレンダーバッファオブジェクトを生成します。
+					glBindRenderbuffer(GL_RENDERBUFFER, mRenderbufferName);
+					// レンダーバッファの幅と高さを指定します。
+					glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT16, width, height);
+					// フレームバッファのアタッチメントとしてレンダーバッファをアタッチします。
+					glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, mRenderbufferName);
+				}
+
+				// Offscreen position framebuffer texture target
+				glGenTextures(args.length, args, 0);
+				mTexName = args[0];
+				glBindTexture(GL_TEXTURE_2D, mTexName);
+				GLES20Utils.setupSampler(GL_TEXTURE_2D, GL_LINEAR, GL_NEAREST);
+				// PowerVR SGX530 などは RGB など RGBA 以外の形式を FBO ではサポートしないので RGBA 固定とします。
+				glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, null);
+				// フレームバッファのアタッチメントとして 2D テクスチャをアタッチします。
+				glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, mTexName, 0);
+			}
 
 			// フレームバッファが完全かどうかチェックします。
 			final int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
@@ -192,20 +285,34 @@ public class GLES20FramebufferObject {
 	}
 
 	/**
-	 * クリーンアップを行います。
+	 * クリーンアップを行います。<p>
+	 * 以前の EGL コンテキストで構成されていた場合は、識別子を削除せずに破棄します。
 	 */
 	public void release() {
-		// フレームバッファとレンダーバッファを削除してしまうとテクスチャの描画がうまくいかない GPU があるので削除する場合はテクスチャのみ残すとかせずに必ず全部削除します。
-		final int[] args = new int[1];
-		args[0] = mTexName;
-		glDeleteTextures(args.length, args, 0);
+		// 以前の EGL コンテキストの識別子は、現在の EGL コンテキストの別のオブジェクトを指している可能性があるため削除しません。
+		if (isCurrentContext()) {
+			// フレームバッファとレンダーバッファを削除してしまうとテクスチャの描画がうまくいかない GPU があるので削除する場合はテクスチャのみ残すとかせずに必ず全部削除します。
+			final int[] args = new int[1];
+			args[0] = mTexName;
+			glDeleteTextures(args.length, args, 0);
+			args[0] = mRenderbufferName;
+			glDeleteRenderbuffers(args.length, args, 0);
+			args[0] = mFramebufferName;
+			glDeleteFramebuffers(args.length, args, 0);
+		}
 		mTexName = 0;
-		args[0] = mRenderbufferName;
-		glDeleteRenderbuffers(args.length, args, 0);
 		mRenderbufferName = 0;
-		args[0] = mFramebufferName;
-		glDeleteFramebuffers(args.length, args, 0);
 		mFramebufferName = 0;
+		mContextState = null;
+	}
+
+	/**
+	 * 識別子を生成した EGL コンテキストが現在の EGL コンテキストかどうかを返します。
+	 * 
+	 * @return 現在の EGL コンテキストで識別子を生成した場合は {@code true}
+	 */
+	private boolean isCurrentContext() {
+		return mContextState != null && mContextState.isCurrent();
 	}
 
 	/**
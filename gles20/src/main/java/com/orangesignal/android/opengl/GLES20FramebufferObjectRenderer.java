@@ -18,7 +18,7 @@ import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.os.Build;
 
-import com.orangesignal.android.graphics.Fps;
+import com.orangesignal.android.graphics.FrameTimingRecorder;
 
 /**
  * OpenGL ES 2.0 のフレームバッファオブジェクトによる
@@ -29,6 +29,11 @@ import com.orangesignal.android.graphics.Fps;
 @TargetApi(Build.VERSION_CODES.FROYO)
 public abstract class GLES20FramebufferObjectRenderer implements GLSurfaceView.Renderer {
 
+	/**
+	 * EGL コンテキスト単位で共有する状態を保持します。
+	 */
+	private GLES20ContextState mContextState;
+
 	/**
 	 * オフスクリーン描画用のフレームバッファオブジェクトを保持します。
 	 */
@@ -39,17 +44,57 @@ public abstract class GLES20FramebufferObjectRenderer implements GLSurfaceView.R
 	 */
 	private GLES20Shader mShader;
 
-	private Fps mFps;
+	/**
+	 * フレームバッファオブジェクトの描画内容を非同期に読み込むためのオブジェクトを保持します。
+	 */
+	private final GLES20FramebufferReader mFramebufferReader = new GLES20FramebufferReader();
+
+	/**
+	 * フレームの計測に使用する {@link FrameTimingRecorder} を保持します。
+	 */
+	private volatile FrameTimingRecorder mFrameTimingRecorder;
+
+	/**
+	 * {@link #setFps(com.orangesignal.android.graphics.Fps)} で設定されたフレームレートの通知に使用する {@link FrameTimingRecorder} を保持します。
+	 */
+	private volatile FrameTimingRecorder mFpsRecorder;
 
 	//////////////////////////////////////////////////////////////////////////
 	// パブリックメソッド
 
-	public void setFps(final Fps fps) {
-		if (mFps != null) {
-			mFps.stop();
-			mFps = null;
+	/**
+	 * ステージ単位の所要時間の記録に使用する {@link FrameTimingRecorder} を設定します。<p>
+	 * フレームの開始と終了は {@link GLSurfaceView#setFrameTimingRecorder(FrameTimingRecorder)} で設定した {@link GLSurfaceView} が記録します。
+	 * 
+	 * @param recorder フレームの計測に使用する {@link FrameTimingRecorder}。または {@code null}
+	 */
+	public void setFrameTimingRecorder(final FrameTimingRecorder recorder) {
+		mFrameTimingRecorder = recorder;
+	}
+
+	/**
+	 * ステージ単位の所要時間の記録に使用する {@link FrameTimingRecorder} を返します。
+	 * 
+	 * @return フレームの計測に使用する {@link FrameTimingRecorder}。または {@code null}
+	 */
+	public FrameTimingRecorder getFrameTimingRecorder() {
+		return mFrameTimingRecorder;
+	}
+
+	/**
+	 * この実装は、指定された {@link com.orangesignal.android.graphics.Fps} へフレームレートを通知する {@link FrameTimingRecorder} で描画したフレームを計測します。
+	 * 
+	 * @deprecated {@link #setFrameTimingRecorder(FrameTimingRecorder)} を使用してください。
+	 */
+	@Deprecated
+	public void setFps(final com.orangesignal.android.graphics.Fps fps) {
+		if (fps != null) {
+			final FrameTimingRecorder recorder = new FrameTimingRecorder();
+			recorder.addListener(fps.asFrameTimingListener());
+			mFpsRecorder = recorder;
+		} else {
+			mFpsRecorder = null;
 		}
-		mFps = fps;
 	}
 
 	/**
@@ -82,6 +127,18 @@ public abstract class GLES20FramebufferObjectRenderer implements GLSurfaceView.R
 		return mFramebufferObject.getBitmap(orientation, mirror);
 	}
 
+	/**
+	 * フレームバッファオブジェクトの描画内容を読み込んで、ワーカースレッドで {@link Bitmap} へ変換します。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。{@link #getBitmap(int, boolean)} と異なり、変換を待たずに復帰します。
+	 * 
+	 * @param orientation 傾き
+	 * @param mirror ミラーモードかどうか
+	 * @param callback 変換した {@link Bitmap} を受け取るコールバック
+	 */
+	public void readBitmap(final int orientation, final boolean mirror, final GLES20FramebufferReader.Callback callback) {
+		mFramebufferReader.read(mFramebufferObject, orientation, mirror, callback);
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// オーバーライドメソッド
 
@@ -90,13 +147,15 @@ public abstract class GLES20FramebufferObjectRenderer implements GLSurfaceView.R
 	 */
 	@Override
 	public final void onSurfaceCreated(final GL10 gl, final EGLConfig config) {
+		// EGL コンテキストが新しく生成されたため、以前の EGL コンテキストのプログラムオブジェクトやテクスチャを参照しないようにします。
+		if (mContextState != null) {
+			mContextState.discard();
+		}
+		mContextState = GLES20ContextState.newCurrent();
 		mFramebufferObject = new GLES20FramebufferObject();
 		mShader = new GLES20Shader();
 		mShader.setup();
 		onSurfaceCreated(config);
-		if (mFps != null) {
-			mFps.start();
-		}
 	}
 
 	/**
@@ -115,10 +174,17 @@ public abstract class GLES20FramebufferObjectRenderer implements GLSurfaceView.R
 	 */
 	@Override
 	public final void onDrawFrame(final GL10 gl) {
+		final FrameTimingRecorder fpsRecorder = mFpsRecorder;
+		if (fpsRecorder != null) {
+			fpsRecorder.beginFrame();
+		}
 
 		////////////////////////////////////////////////////////////
 		// オフスクリーンレンダリング
 
+		// 前回のフレームの後に頂点属性が変更されている可能性があるため、設定状態を破棄します。
+		mContextState.getGeometry().invalidate();
+
 		// FBO へ切り替えます。
 		mFramebufferObject.enable();
 		glViewport(0, 0, mFramebufferObject.getWidth(), mFramebufferObject.getHeight());
@@ -133,23 +199,13 @@ public abstract class GLES20FramebufferObjectRenderer implements GLSurfaceView.R
 		glBindFramebuffer(GL_FRAMEBUFFER, 0);
 		glViewport(0, 0, mFramebufferObject.getWidth(), mFramebufferObject.getHeight());
 
+		final long compositeStart = FrameTimingRecorder.now();
 		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 		mShader.draw(mFramebufferObject.getTexName(), null);
+		GLES20Utils.recordFrameTiming(mFrameTimingRecorder, FrameTimingRecorder.STAGE_COMPOSITE, compositeStart);
 
-		if (mFps != null) {
-			mFps.countup();
-		}
-	}
-
-	@Override
-	protected void finalize() throws Throwable {
-		try {
-			if (mFps != null) {
-				mFps.stop();
-				mFps = null;
-			}
-		} finally {
-			super.finalize();
+		if (fpsRecorder != null) {
+			fpsRecorder.endFrame();
 		}
 	}
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
+import static android.opengl.GLES20.glClear;
+import static android.opengl.GLES20.glUniform2f;
+import static android.opengl.GLES20.glViewport;
+
+import java.util.ArrayList;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * テクスチャを 1/2 ずつ縮小したフレームバッファオブジェクトの階層 (ピラミッド) を提供します。<p>
+ * レベル {@code n} のフレームバッファオブジェクトは元のテクスチャの 1/2<sup>n</sup> の大きさで、直前のレベルの 2x2 テクセルの平均から描画されます。
+ * 特徴点検出などの解析用のシェーダーを縮小した解像度で実行するために使用します。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20FramebufferPyramid {
+
+	/**
+	 * 最大のレベルです。
+	 */
+	public static final int MAX_LEVEL = 4;
+
+	/**
+	 * 2x2 テクセルの平均で 1/2 に縮小するシェーダーを提供します。
+	 */
+	@TargetApi(Build.VERSION_CODES.FROYO)
+	private static final class DownsampleShader extends GLES20Shader {
+
+		private static final String VERTEX_SHADER =
+				"attribute vec4 aPosition;\n" +
+				"attribute vec4 aTextureCoord;\n" +
+				"uniform highp vec2 texelSize;\n" +
+				"varying highp vec4 vTextureCoord0;\n" +
+				"varying highp vec4 vTextureCoord1;\n" +
+				"void main() {\n" +
+					"gl_Position = aPosition;\n" +
+					// 縮小先のピクセルの中心から半テクセルずらすと、縮小元の 2x2 テクセルの中心になります。
+					"highp vec2 offset = texelSize * 0.5;\n" +
+					"vTextureCoord0 = vec4(aTextureCoord.xy - offset, aTextureCoord.xy + vec2(offset.x, -offset.y));\n" +
+					"vTextureCoord1 = vec4(aTextureCoord.xy + vec2(-offset.x, offset.y), aTextureCoord.xy + offset);\n" +
+				"}\n";
+
+		private static final String FRAGMENT_SHADER =
+				"precision mediump float;\n" +
+				"uniform lowp sampler2D sTexture;\n" +
+				"varying highp vec4 vTextureCoord0;\n" +
+				"varying highp vec4 vTextureCoord1;\n" +
+				"void main() {\n" +
+					// テクセルの中心を参照するため、テクスチャの拡大縮小フィルターの設定に関わらず平均になります。
+					"gl_FragColor = (texture2D(sTexture, vTextureCoord0.xy) + texture2D(sTexture, vTextureCoord0.zw) + " +
+						"texture2D(sTexture, vTextureCoord1.xy) + texture2D(sTexture, vTextureCoord1.zw)) * 0.25;\n" +
+				"}\n";
+
+		private float mTexelWidth;
+		private float mTexelHeight;
+		private int mTexelSizeHandle = -1;
+
+		public DownsampleShader() {
+			super(VERTEX_SHADER, FRAGMENT_SHADER);
+		}
+
+		public void setSourceSize(final int width, final int height) {
+			mTexelWidth = 1f / width;
+			mTexelHeight = 1f / height;
+		}
+
+		@Override
+		protected void onSetupHandles() {
+			mTexelSizeHandle = getHandle("texelSize");
+		}
+
+		@Override
+		protected void onDraw() {
+			glUniform2f(mTexelSizeHandle, mTexelWidth, mTexelHeight);
+		}
+
+	}
+
+	/**
+	 * 各レベルのフレームバッファオブジェクトのリストを保持します。最初の要素はレベル 1 です。
+	 */
+	private final ArrayList<GLES20FramebufferObject> mLevels = new ArrayList<GLES20FramebufferObject>();
+
+	/**
+	 * 縮小に使用するシェーダーを保持します。
+	 */
+	private DownsampleShader mShader;
+
+	private int mWidth;
+	private int mHeight;
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 指定されたレベルの大きさを返します。
+	 * 
+	 * @param size 元の大きさ
+	 * @param level レベル
+	 * @return 指定されたレベルの大きさ
+	 */
+	public static int getLevelSize(final int size, final int level) {
+		return Math.max(1, size >> level);
+	}
+
+	/**
+	 * 指定された大きさとレベル数のピラミッドが確保するおおよそのバイト数を返します。
+	 * 
+	 * @param width 元の幅
+	 * @param height 元の高さ
+	 * @param levelCount レベル数
+	 * @return バイト数
+	 * @see GLES20FramebufferObject#computeMemorySize(int, int, boolean)
+	 */
+	public static long computeMemorySize(final int width, final int height, final int levelCount) {
+		long size = 0;
+		for (int level = 1; level <= levelCount; level++) {
+			size += GLES20FramebufferObject.computeMemorySize(getLevelSize(width, level), getLevelSize(height, level), false);
+		}
+		return size;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 指定された大きさのテクスチャを縮小するピラミッドを構成します。<p>
+	 * 既に構成されている場合は、各レベルのフレームバッファオブジェクトを再利用して大きさのみを指定し直します。
+	 * 
+	 * @param width 元のテクスチャの幅
+	 * @param height 元のテクスチャの高さ
+	 * @param levelCount レベル数 (1 から {@link #MAX_LEVEL})
+	 * @throws IllegalArgumentException {@code levelCount} が範囲外の場合
+	 */
+	public void setup(final int width, final int height, final int levelCount) {
+		if (levelCount < 1 || levelCount > MAX_LEVEL) {
+			throw new IllegalArgumentException("Level count must be 1 to " + MAX_LEVEL + " " + levelCount);
+		}
+		mWidth = width;
+		mHeight = height;
+
+		if (mShader == null) {
+			mShader = new DownsampleShader();
+			mShader.setup();
+		}
+		// 不要になったレベルのみを削除します。
+		while (mLevels.size() > levelCount) {
+			mLevels.remove(mLevels.size() - 1).release();
+		}
+		for (int level = 1; level <= levelCount; level++) {
+			final GLES20FramebufferObject fbo;
+			if (level <= mLevels.size()) {
+				fbo = mLevels.get(level - 1);
+			} else {
+				// 2D の描画のみを行うため深度バッファはアタッチしません。
+				fbo = new GLES20FramebufferObject(false);
+				mLevels.add(fbo);
+			}
+			fbo.setup(getLevelSize(width, level), getLevelSize(height, level));
+		}
+	}
+
+	/**
+	 * このピラミッドの構成を破棄します。
+	 */
+	public void release() {
+		for (final GLES20FramebufferObject fbo : mLevels) {
+			fbo.release();
+		}
+		mLevels.clear();
+		if (mShader != null) {
+			mShader.release();
+			mShader = null;
+		}
+	}
+
+	/**
+	 * レベル数を返します。
+	 * 
+	 * @return レベル数
+	 */
+	public int getLevelCount() {
+		return mLevels.size();
+	}
+
+	/**
+	 * 指定されたレベルのフレームバッファオブジェクトを返します。
+	 * 
+	 * @param level レベル (1 から {@link #getLevelCount()})
+	 * @return フレームバッファオブジェクト
+	 */
+	public GLES20FramebufferObject getLevel(final int level) {
+		return mLevels.get(level - 1);
+	}
+
+	/**
+	 * 指定されたテクスチャを縮小して、レベル 1 から指定されたレベルまでのフレームバッファオブジェクトへ描画します。<p>
+	 * 使用しないレベルは描画しません。描画後はフレームバッファとビューポートが変更されたままになります。
+	 * 
+	 * @param texName 元のテクスチャ識別子
+	 * @param level 描画する最後のレベル
+	 */
+	public void draw(final int texName, final int level) {
+		int srcTexName = texName;
+		int srcWidth = mWidth;
+		int srcHeight = mHeight;
+		final int max = Math.min(level, mLevels.size());
+		for (int i = 0; i < max; i++) {
+			final GLES20FramebufferObject fbo = mLevels.get(i);
+			fbo.enable();
+			glViewport(0, 0, fbo.getWidth(), fbo.getHeight());
+			glClear(GL_COLOR_BUFFER_BIT);
+			mShader.setSourceSize(srcWidth, srcHeight);
+			mShader.draw(srcTexName, fbo);
+
+			srcTexName = fbo.getTexName();
+			srcWidth = fbo.getWidth();
+			srcHeight = fbo.getHeight();
+		}
+	}
+
+}
\ No newline at end of file
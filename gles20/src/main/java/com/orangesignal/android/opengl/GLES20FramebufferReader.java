@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_FRAMEBUFFER;
+import static android.opengl.GLES20.GL_FRAMEBUFFER_BINDING;
+import static android.opengl.GLES20.GL_PACK_ALIGNMENT;
+import static android.opengl.GLES20.GL_RGBA;
+import static android.opengl.GLES20.GL_UNSIGNED_BYTE;
+import static android.opengl.GLES20.glBindFramebuffer;
+import static android.opengl.GLES20.glGetIntegerv;
+import static android.opengl.GLES20.glPixelStorei;
+import static android.opengl.GLES20.glReadPixels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import com.orangesignal.android.graphics.PixelDataUtils;
+
+/**
+ * フレームバッファオブジェクトの描画内容を非同期に {@link Bitmap} へ変換するクラスを提供します。<p>
+ * GL スレッドでは再利用可能なダイレクトバッファへ {@code glReadPixels} で読み込むだけとし、
+ * 上下反転や回転、ミラー反転 ({@link PixelDataUtils#transform(java.nio.IntBuffer, int, int, int, boolean, java.nio.IntBuffer, int[])}) と {@link Bitmap} の生成はワーカースレッドで行います。
+ * OpenGL ES 2.0 にはピクセルバッファオブジェクト (PBO) がないため、読み込み自体は同期的に行われますが、
+ * 描画ループでのメモリ確保や {@link android.graphics.Canvas} による変換は行いません。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20FramebufferReader {
+
+	/**
+	 * 変換した {@link Bitmap} を受け取るコールバックのインタフェースを提供します。
+	 */
+	public interface Callback {
+
+		/**
+		 * 変換した {@link Bitmap} が利用可能になった時にワーカースレッドから呼び出されます。
+		 * 
+		 * @param bitmap 変換した {@link Bitmap}。変換に失敗した場合は {@code null}
+		 */
+		void onBitmapAvailable(Bitmap bitmap);
+
+	}
+
+	/**
+	 * ワーカースレッドが待機する秒数です。
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 3L;
+
+	/**
+	 * 再利用するダイレクトバッファのリストを保持します。
+	 */
+	private final ArrayList<ByteBuffer> mBuffers = new ArrayList<ByteBuffer>();
+
+	/**
+	 * ワーカースレッドを保持します。<p>
+	 * アイドル状態が続くとスレッドは終了するため、明示的に終了する必要はありません。
+	 */
+	private final ThreadPoolExecutor mExecutor = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "GLES20FramebufferReader");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * 作業用の配列を保持します。ワーカースレッドからのみ使用します。
+	 */
+	private int[] mRow;
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 指定されたフレームバッファオブジェクトの描画内容を読み込んで、非同期に {@link Bitmap} へ変換します。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。
+	 * 
+	 * @param fbo フレームバッファオブジェクト
+	 * @param orientation 傾き (0, 90, 180, 270)
+	 * @param mirror ミラーモードかどうか
+	 * @param callback コールバック
+	 * @throws IllegalArgumentException {@code orientation} が 90 の倍数でない場合
+	 */
+	public void read(final GLES20FramebufferObject fbo, final int orientation, final boolean mirror, final Callback callback) {
+		final int degrees = PixelDataUtils.normalizeOrientation(orientation);
+		final int width = fbo.getWidth();
+		final int height = fbo.getHeight();
+		final int capacity = width * height * 4;
+		final ByteBuffer src = obtainBuffer(capacity);
+
+		// 現在の構成を保存します。
+		final int[] args = new int[1];
+		glGetIntegerv(GL_FRAMEBUFFER_BINDING, args, 0);
+
+		fbo.enable();
+		glPixelStorei(GL_PACK_ALIGNMENT, 4);
+		glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, src);
+
+		// 保存した構成を復元します。
+		glBindFramebuffer(GL_FRAMEBUFFER, args[0]);
+
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Bitmap bitmap = null;
+				final ByteBuffer dst = obtainBuffer(capacity);
+				try {
+					if (mRow == null || mRow.length < width) {
+						mRow = new int[width];
+					}
+					PixelDataUtils.transform(src.asIntBuffer(), width, height, degrees, mirror, dst.asIntBuffer(), mRow);
+
+					if ((degrees % 180) == 0) {
+						bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+					} else {
+						bitmap = Bitmap.createBitmap(height, width, Bitmap.Config.ARGB_8888);
+					}
+					// ARGB_8888 のメモリ上の並びは RGBA なので、読み込んだピクセルデータをそのまま複写できます。
+					dst.position(0);
+					bitmap.copyPixelsFromBuffer(dst);
+				} catch (final OutOfMemoryError e) {
+					if (bitmap != null) {
+						bitmap.recycle();
+						bitmap = null;
+					}
+				} finally {
+					recycleBuffer(src);
+					recycleBuffer(dst);
+				}
+				callback.onBitmapAvailable(bitmap);
+			}
+		});
+	}
+
+	/**
+	 * 再利用のために保持しているダイレクトバッファを破棄します。
+	 */
+	public void release() {
+		synchronized (mBuffers) {
+			mBuffers.clear();
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private ByteBuffer obtainBuffer(final int capacity) {
+		synchronized (mBuffers) {
+			for (int i = mBuffers.size() - 1; i >= 0; i--) {
+				final ByteBuffer buffer = mBuffers.get(i);
+				if (buffer.capacity() >= capacity) {
+					mBuffers.remove(i);
+					buffer.clear();
+					buffer.limit(capacity);
+					return buffer;
+				}
+			}
+		}
+		return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+	}
+
+	private void recycleBuffer(final ByteBuffer buffer) {
+		synchronized (mBuffers) {
+			// 読み込み用と変換用の 2 つがあれば足ります。
+			if (mBuffers.size() < 2) {
+				mBuffers.add(buffer);
+			}
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import java.util.List;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * {@link GLES20ShaderGraphCompiler} が融合した複数の {@link GLES20PointwiseShader} を 1 つのプログラムで描画するシェーダーを提供します。<p>
+ * 描画時には各ステージの {@link GLES20Shader#onDraw()} を呼び出して、ステージ単位の接頭辞を付与した変数へ値を設定させます。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+final class GLES20FusedShader extends GLES20Shader {
+
+	/**
+	 * 描画パスを保持します。
+	 */
+	private final GLES20ShaderGraphCompiler.Pass mPass;
+
+	/**
+	 * 融合したステージのリストを保持します。
+	 */
+	private final List<GLES20Shader> mStages;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param pass 融合した描画パス
+	 */
+	public GLES20FusedShader(final GLES20ShaderGraphCompiler.Pass pass) {
+		super(DEFAULT_VERTEX_SHADER, pass.getFragmentShaderSource());
+		mPass = pass;
+		mStages = pass.getShaders();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void setup() {
+		super.setup();
+		for (int i = 0; i < mStages.size(); i++) {
+			mStages.get(i).setHandleOwner(this, mPass.getPrefix(i));
+		}
+	}
+
+	@Override
+	public void setFrameSize(final int width, final int height) {
+		super.setFrameSize(width, height);
+		for (int i = 0; i < mStages.size(); i++) {
+			mStages.get(i).setFrameSize(width, height);
+		}
+	}
+
+	@Override
+	public void release() {
+		for (int i = 0; i < mStages.size(); i++) {
+			mStages.get(i).setHandleOwner(null, null);
+		}
+		super.release();
+	}
+
+	@Override
+	protected void onDraw() {
+		// 描画の度にイテレーターを生成しないように添字でアクセスします。
+		for (int i = 0; i < mStages.size(); i++) {
+			mStages.get(i).onDraw();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_ARRAY_BUFFER;
+import static android.opengl.GLES20.GL_FLOAT;
+import static android.opengl.GLES20.glBindBuffer;
+import static android.opengl.GLES20.glDisableVertexAttribArray;
+import static android.opengl.GLES20.glEnableVertexAttribArray;
+import static com.orangesignal.android.opengl.GLES20Compat.glVertexAttribPointer;
+import static com.orangesignal.android.opengl.GLES20Shader.VERTICES_DATA_POS_OFFSET;
+import static com.orangesignal.android.opengl.GLES20Shader.VERTICES_DATA_POS_SIZE;
+import static com.orangesignal.android.opengl.GLES20Shader.VERTICES_DATA_STRIDE_BYTES;
+import static com.orangesignal.android.opengl.GLES20Shader.VERTICES_DATA_UV_OFFSET;
+import static com.orangesignal.android.opengl.GLES20Shader.VERTICES_DATA_UV_SIZE;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * 全画面を描画するための頂点バッファオブジェクトと、頂点属性の設定状態を EGL コンテキスト単位で共有するクラスを提供します。<p>
+ * 全てのシェーダーは同じ頂点データを使用するため、頂点バッファオブジェクトはシェーダー毎に生成せずに {@link GLES20ContextState#getGeometry()} で取得したこのクラスから取得します。
+ * また {@link #bind(int, int, int, int)} は直前に設定したプログラムと頂点属性が同じ場合は何もしないため、
+ * 同じシェーダーで連続して描画する場合の GL 呼び出しを省略できます。<p>
+ * このクラスのメソッドは GL スレッドから呼び出す必要があります。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public final class GLES20Geometry {
+
+	/**
+	 * 頂点データとテクスチャ座標 (UV マッピング) の構造体配列形式データです。
+	 */
+	private static final float[] QUAD_DATA = new float[] {
+		// X, Y, Z, U, V
+		-1.0f,  1.0f, 0.0f, 0.0f, 1.0f,	// 左上
+		 1.0f,  1.0f, 0.0f, 1.0f, 1.0f,	// 右上
+		-1.0f, -1.0f, 0.0f, 0.0f, 0.0f,	// 左下
+		 1.0f, -1.0f, 0.0f, 1.0f, 0.0f	// 右下
+	};
+
+	/**
+	 * テクスチャ座標の上下を反転した頂点データとテクスチャ座標 (UV マッピング) の構造体配列形式データです。
+	 */
+	private static final float[] FLIPPED_QUAD_DATA = new float[] {
+		// X, Y, Z, U, V
+		-1.0f,  1.0f, 0.0f, 0.0f, 0.0f,	// 左上
+		 1.0f,  1.0f, 0.0f, 1.0f, 0.0f,	// 右上
+		-1.0f, -1.0f, 0.0f, 0.0f, 1.0f,	// 左下
+		 1.0f, -1.0f, 0.0f, 1.0f, 1.0f	// 右下
+	};
+
+	/**
+	 * 全画面を描画する頂点バッファオブジェクト名を保持します。
+	 */
+	private int mQuadBufferName;
+
+	/**
+	 * テクスチャ座標の上下を反転して全画面を描画する頂点バッファオブジェクト名を保持します。
+	 */
+	private int mFlippedQuadBufferName;
+
+	/**
+	 * 直前に頂点属性を設定したプログラムを保持します。
+	 */
+	private int mBoundProgram;
+
+	/**
+	 * 直前に頂点属性へ設定した頂点バッファオブジェクト名を保持します。
+	 */
+	private int mBoundBufferName;
+
+	/**
+	 * 直前に有効にした頂点座標の属性のハンドルを保持します。
+	 */
+	private int mBoundPositionHandle = -1;
+
+	/**
+	 * 直前に有効にしたテクスチャ座標の属性のハンドルを保持します。
+	 */
+	private int mBoundTextureCoordHandle = -1;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 */
+	GLES20Geometry() {}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 全画面を描画する頂点バッファオブジェクト名を返します。<p>
+	 * 返される頂点バッファオブジェクトは共有されるため、内容を変更したり破棄したりしてはいけません。
+	 * 
+	 * @return 頂点バッファオブジェクト名
+	 */
+	public int getQuadBufferName() {
+		if (mQuadBufferName == 0) {
+			mQuadBufferName = createBuffer(QUAD_DATA);
+		}
+		return mQuadBufferName;
+	}
+
+	/**
+	 * テクスチャ座標の上下を反転して全画面を描画する頂点バッファオブジェクト名を返します。<p>
+	 * 返される頂点バッファオブジェクトは共有されるため、内容を変更したり破棄したりしてはいけません。
+	 * 
+	 * @return 頂点バッファオブジェクト名
+	 */
+	public int getFlippedQuadBufferName() {
+		if (mFlippedQuadBufferName == 0) {
+			mFlippedQuadBufferName = createBuffer(FLIPPED_QUAD_DATA);
+		}
+		return mFlippedQuadBufferName;
+	}
+
+	/**
+	 * 指定された頂点バッファオブジェクトを頂点座標とテクスチャ座標の属性へ設定します。<p>
+	 * 直前の呼び出しとプログラム、頂点バッファオブジェクト、属性のハンドルが全て同じ場合は何もしません。
+	 * 使用しなくなった属性は無効にします。
+	 * 
+	 * @param program 使用中のプログラム
+	 * @param bufferName 頂点バッファオブジェクト名
+	 * @param positionHandle 頂点座標の属性のハンドル
+	 * @param textureCoordHandle テクスチャ座標の属性のハンドル
+	 */
+	public void bind(final int program, final int bufferName, final int positionHandle, final int textureCoordHandle) {
+		if (program == mBoundProgram && bufferName == mBoundBufferName && positionHandle == mBoundPositionHandle && textureCoordHandle == mBoundTextureCoordHandle) {
+			return;
+		}
+
+		if (mBoundPositionHandle >= 0 && mBoundPositionHandle != positionHandle && mBoundPositionHandle != textureCoordHandle) {
+			glDisableVertexAttribArray(mBoundPositionHandle);
+		}
+		if (mBoundTextureCoordHandle >= 0 && mBoundTextureCoordHandle != positionHandle && mBoundTextureCoordHandle != textureCoordHandle) {
+			glDisableVertexAttribArray(mBoundTextureCoordHandle);
+		}
+
+		// 頂点属性は設定時に束縛されている頂点バッファオブジェクトを参照するため、設定後は束縛を解除して構いません。
+		glBindBuffer(GL_ARRAY_BUFFER, bufferName);
+		if (positionHandle >= 0) {
+			glEnableVertexAttribArray(positionHandle);
+			glVertexAttribPointer(positionHandle, VERTICES_DATA_POS_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_POS_OFFSET);
+		}
+		if (textureCoordHandle >= 0) {
+			glEnableVertexAttribArray(textureCoordHandle);
+			glVertexAttribPointer(textureCoordHandle, VERTICES_DATA_UV_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_UV_OFFSET);
+		}
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+		mBoundProgram = program;
+		mBoundBufferName = bufferName;
+		mBoundPositionHandle = positionHandle;
+		mBoundTextureCoordHandle = textureCoordHandle;
+	}
+
+	/**
+	 * 頂点属性の設定状態を破棄して、次回の {@link #bind(int, int, int, int)} で必ず設定し直すようにします。<p>
+	 * 頂点属性を直接変更した場合は、このメソッドを呼び出す必要があります。
+	 */
+	public void invalidate() {
+		mBoundProgram = 0;
+		mBoundBufferName = 0;
+		mBoundPositionHandle = -1;
+		mBoundTextureCoordHandle = -1;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private static int createBuffer(final float[] data) {
+		final int bufferName = GLES20Utils.createBuffer(data);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+		return bufferName;
+	}
+
+}
\ No newline at end of file
@@ -68,8 +68,8 @@ public class GLES20ImageBitmapTexture extends GLES20ImageTexture {
 	//////////////////////////////////////////////////////////////////////////
 
 	@Override
-	public void setup() {
-		attachToTexture(mBitmap);
+	protected Bitmap decodeBitmap(final int maxTextureSize) {
+		return mBitmap;
 	}
 
 	@Override
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+/**
+ * JPEG などの圧縮された画像データを入力ソースとする OpenGL ES 2.0 向けのテクスチャオブジェクト管理クラスを提供します。<p>
+ * カメラが出力した JPEG データをプレビューの解像度ではなく元の解像度のままテクスチャとするために使用します。
+ * 画像データは最大テクスチャサイズに収まるように縮小して読み込みます。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20ImageDataTexture extends GLES20ImageTexture {
+
+	/**
+	 * 入力ソースの画像データを保持します。
+	 */
+	private final byte[] mData;
+
+	/**
+	 * 読み込む画像の最大サイズを保持します。
+	 */
+	private final int mMaxSize;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * 指定された画像データを入力ソースとして、このクラスを構築するコンストラクタです。<p>
+	 * このコンストラクタは、読み込む画像の最大サイズを最大テクスチャサイズとして {@link #GLES20ImageDataTexture(byte[], int)} を呼び出します。
+	 * 
+	 * @param data 画像データ
+	 * @see {@link #GLES20ImageDataTexture(byte[], int)}
+	 */
+	public GLES20ImageDataTexture(final byte[] data) {
+		this(data, 0);
+	}
+
+	/**
+	 * 指定された画像データを入力ソースとして、このクラスを構築するコンストラクタです。<p>
+	 * {@link #prepareAsync()} を最初の {@link #setup()} より前に呼び出す場合は最大テクスチャサイズが未取得のことがあるため、
+	 * GL スレッドで取得した最大テクスチャサイズを {@code maxSize} に指定します。
+	 * 
+	 * @param data 画像データ
+	 * @param maxSize 読み込む画像の最大サイズ。{@code 0} 以下の場合は最大テクスチャサイズ
+	 * @throws IllegalArgumentException {@code data} が {@code null} の場合
+	 */
+	public GLES20ImageDataTexture(final byte[] data, final int maxSize) {
+		if (data == null) {
+			throw new IllegalArgumentException("Data must not be null");
+		}
+		mData = data;
+		mMaxSize = maxSize;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	protected Bitmap decodeBitmap(final int maxTextureSize) {
+		// ビットマップ情報のみを読み込みます。(データは読み込みません)
+		final BitmapFactory.Options opts = new BitmapFactory.Options();
+		opts.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(mData, 0, mData.length, opts);
+
+		// 最大サイズに収まるまでサンプリングサイズを大きくします。
+		final int maxSize = mMaxSize > 0 ? mMaxSize : maxTextureSize;
+		int inSampleSize = 1;
+		while (Math.max(opts.outWidth, opts.outHeight) / inSampleSize > maxSize) {
+			inSampleSize *= 2;
+		}
+
+		// ビットマップデータを読み込みます。
+		opts.inJustDecodeBounds = false;
+		opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+		while (true) {
+			opts.inSampleSize = inSampleSize;
+			try {
+				return BitmapFactory.decodeByteArray(mData, 0, mData.length, opts);
+			} catch (final OutOfMemoryError e) {
+				inSampleSize *= 2;
+			}
+		}
+	}
+
+	@Override
+	protected void recycleBitmap(final Bitmap bitmap) {
+		// 読み込んだビットマップデータは変換後に不要になるため、すぐに解放します。
+		bitmap.recycle();
+	}
+
+}
\ No newline at end of file
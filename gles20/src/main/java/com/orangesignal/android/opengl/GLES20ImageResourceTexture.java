@@ -4,9 +4,6 @@
 
 package com.orangesignal.android.opengl;
 
-import static android.opengl.GLES20.GL_MAX_TEXTURE_SIZE;
-import static android.opengl.GLES20.glGetIntegerv;
-
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -119,12 +116,7 @@ public class GLES20ImageResourceTexture extends GLES20ImageTexture {
 	//////////////////////////////////////////////////////////////////////////
 
 	@Override
-	public void setup() {
-		// 最大テクスチャサイズを取得します。
-		final int[] args = new int[1];
-		glGetIntegerv(GL_MAX_TEXTURE_SIZE, args, 0);
-		final int maxTextureSize = args[0];
-
+	protected Bitmap decodeBitmap(final int maxTextureSize) {
 		// ビットマップ情報のみを読み込みます。(データは読み込みません)
 		final BitmapFactory.Options opts = new BitmapFactory.Options();
 		opts.inJustDecodeBounds = true;
@@ -139,14 +131,13 @@ public class GLES20ImageResourceTexture extends GLES20ImageTexture {
 		// ビットマップデータを読み込みます。
 		opts.inJustDecodeBounds = false;
 		opts.inDither = true;
-		final Bitmap bitmap = BitmapFactoryUtils.decodeStream(mImageStream, opts.inSampleSize, 0, 2);
-		try {
-			attachToTexture(bitmap);
-		} finally {
-			if (bitmap != null) {
-				bitmap.recycle();
-			}
-		}
+		return BitmapFactoryUtils.decodeStream(mImageStream, opts.inSampleSize, 0, 2);
+	}
+
+	@Override
+	protected void recycleBitmap(final Bitmap bitmap) {
+		// 読み込んだビットマップデータは変換後に不要になるため、すぐに解放します。
+		bitmap.recycle();
 	}
 
 	@Override
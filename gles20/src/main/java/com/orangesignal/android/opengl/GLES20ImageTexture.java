@@ -4,27 +4,38 @@
 
 package com.orangesignal.android.opengl;
 
-import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
-import static android.opengl.GLES20.GL_FRAMEBUFFER;
-import static android.opengl.GLES20.GL_FRAMEBUFFER_BINDING;
 import static android.opengl.GLES20.GL_LINEAR;
+import static android.opengl.GLES20.GL_MAX_TEXTURE_SIZE;
 import static android.opengl.GLES20.GL_NEAREST;
+import static android.opengl.GLES20.GL_RGBA;
 import static android.opengl.GLES20.GL_TEXTURE_2D;
 import static android.opengl.GLES20.GL_TEXTURE_BINDING_2D;
-import static android.opengl.GLES20.GL_VIEWPORT;
-import static android.opengl.GLES20.glBindFramebuffer;
+import static android.opengl.GLES20.GL_UNSIGNED_BYTE;
 import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glClear;
 import static android.opengl.GLES20.glDeleteTextures;
 import static android.opengl.GLES20.glGenTextures;
 import static android.opengl.GLES20.glGetIntegerv;
-import static android.opengl.GLES20.glViewport;
+import static android.opengl.GLES20.glTexImage2D;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.os.Build;
 
 /**
- * OpenGL ES 2.0 向け {@link Texture} の基底クラスを提供します。
+ * OpenGL ES 2.0 向け {@link Texture} の基底クラスを提供します。<p>
+ * 画像のデコードと {@code GL_RGBA} への変換は {@link #prepareAsync()} でワーカースレッドに任せることができ、
+ * その場合 GL スレッドで行うのは {@code glTexImage2D} によるテクスチャの転送のみになります。
+ * {@link #prepareAsync()} を呼び出さずに {@link #setup()} を呼び出した場合は、従来通り GL スレッドでデコードと変換を行います。
  * 
  * @author 杉澤 浩二
  */
@@ -32,118 +43,300 @@ import android.os.Build;
 public abstract class GLES20ImageTexture implements Texture {
 
 	/**
-	 * 上下を反転させるだけのシンプルなフィルターを提供します。
+	 * 最大テクスチャサイズを取得する前に使用する最大テクスチャサイズです。
 	 */
-	@TargetApi(Build.VERSION_CODES.FROYO)
-	private static final class GLES20FlipVerticalShader extends GLES20Shader {
+	private static final int DEFAULT_MAX_TEXTURE_SIZE = 2048;
 
-		/**
-		 * 頂点データとテクスチャ座標 (UV マッピング) の構造体配列形式データです。
-		 */
-		private static final float[] VERTICES_DATA = new float[] {
-				// X, Y, Z, U, V
-				-1.0f,  1.0f, 0.0f, 0.0f, 0.0f,	// 左上
-				 1.0f,  1.0f, 0.0f, 1.0f, 0.0f,	// 右上
-				-1.0f, -1.0f, 0.0f, 0.0f, 1.0f,	// 左下
-				 1.0f, -1.0f, 0.0f, 1.0f, 1.0f	// 右下
-			};
+	/**
+	 * ワーカースレッドが待機する秒数です。
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 3L;
 
+	/**
+	 * {@link #prepareAsync()} で使用するワーカースレッドを保持します。<p>
+	 * アイドル状態が続くとスレッドは終了するため、明示的に終了する必要はありません。
+	 */
+	private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
 		@Override
-		public void setup() {
-			super.setup();
-			GLES20Utils.updateBufferData(getVertexBufferName(), VERTICES_DATA);
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "GLES20ImageTexture");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * GL スレッドで最後に取得した最大テクスチャサイズを保持します。
+	 */
+	private static volatile int sMaxTextureSize = DEFAULT_MAX_TEXTURE_SIZE;
+
+	/**
+	 * {@code glTexImage2D} へ渡す変換済みのピクセルデータを保持します。
+	 */
+	private static final class Pixels {
+
+		final ByteBuffer buffer;
+		final int width;
+		final int height;
+
+		Pixels(final ByteBuffer buffer, final int width, final int height) {
+			this.buffer = buffer;
+			this.width = width;
+			this.height = height;
 		}
 
-	};
+	}
+
+	/**
+	 * テクスチャ識別子を保持します。
+	 */
+	private int mTexName;
+
+	private int mWidth;
+	private int mHeight;
+
+	/**
+	 * 非同期に読み込み中のタスクを保持します。
+	 */
+	private volatile FutureTask<Pixels> mTask;
+
+	/**
+	 * 画像データの読み込みに失敗した場合の例外を保持します。
+	 */
+	private volatile Throwable mError;
+
+	/**
+	 * {@link #setup()} が呼び出されてから {@link #release()} が呼び出されるまでの間かどうかを保持します。
+	 */
+	private boolean mSetup;
+
+	//////////////////////////////////////////////////////////////////////////
+	// 抽象メソッド
 
 	/**
-	 * 入力された画像を描画してテクスチャとして保持するためのフレームバッファオブジェクトです。
+	 * テクスチャとする画像データを読み込みます。<p>
+	 * このメソッドは {@link #prepareAsync()} を呼び出した場合はワーカースレッドから、そうでない場合は GL スレッドから呼び出されます。
+	 * 
+	 * @param maxTextureSize 最大テクスチャサイズ
+	 * @return 画像データ
 	 */
-	private final GLES20FramebufferObject mFramebufferObject = new GLES20FramebufferObject();
+	protected abstract Bitmap decodeBitmap(int maxTextureSize);
 
 	/**
-	 * 指定された画像データをテクスチャとして関連付けます。
+	 * {@link #decodeBitmap(int)} で読み込んだ画像データが不要になった時に呼び出されます。<p>
+	 * この実装は何も行いません。
 	 * 
 	 * @param bitmap 画像データ
 	 */
-	protected final void attachToTexture(final Bitmap bitmap) {
-		if (bitmap == null) {
-			throw new IllegalArgumentException("Bitmap must not be  null");
-		}
-		if (bitmap.isRecycled()) {
-			throw new IllegalStateException("Bitmap is recycled");
-		}
+	protected void recycleBitmap(final Bitmap bitmap) {}
 
-		// 描画前の設定を保存します。
-		final int[] saveFramebuffer = new int[1];
-		glGetIntegerv(GL_FRAMEBUFFER_BINDING, saveFramebuffer, 0);
-		final int[] saveViewport = new int[4];
-		glGetIntegerv(GL_VIEWPORT, saveViewport, 0);
-		final int[] saveTexName = new int[1];
-		glGetIntegerv(GL_TEXTURE_BINDING_2D, saveTexName, 0);
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 画像データのデコードと変換を既定のワーカースレッドで開始します。
+	 * 
+	 * @see #prepareAsync(Executor)
+	 */
+	public void prepareAsync() {
+		prepareAsync(EXECUTOR);
+	}
+
+	/**
+	 * 画像データのデコードと変換を指定された {@link Executor} で開始します。<p>
+	 * このメソッドは任意のスレッドから呼び出せます。変換したピクセルデータは、完了後に GL スレッドで最初に呼び出された
+	 * {@link #setup()} または {@link #updateTexImage()} でテクスチャへ転送されます。
+	 * 転送されるまでの間、{@link #getTexName()} は {@code 0} を返します。
+	 * 
+	 * @param executor 画像データのデコードと変換を行う {@link Executor}
+	 */
+	public void prepareAsync(final Executor executor) {
+		final FutureTask<Pixels> task = new FutureTask<Pixels>(new Callable<Pixels>() {
+			@Override
+			public Pixels call() {
+				return load(sMaxTextureSize);
+			}
+		}) {
+			@Override
+			protected void setException(final Throwable t) {
+				// GL スレッドで転送を試みる前でも失敗を参照できるようにします。
+				// 新しい読み込みが開始されている場合は、古い読み込みの失敗で上書きしないようにします。
+				if (mTask == this) {
+					mError = t;
+				}
+				super.setException(t);
+			}
+		};
+		mError = null;
+		mTask = task;
+		executor.execute(task);
+	}
 
-		/*
-		 * Android の Bitmap は画像データが左上座標から開始されます。
-		 * しかし OpenGL では左下が開始座標となるため、
-		 * そのまま画像データを扱うと上下が逆さまとなってしまいます。
-		 * 対応方法はいくつかありますが、ここでは上下を逆さまに描画することで対応します。
-		 */
-		final GLES20FlipVerticalShader shader = new GLES20FlipVerticalShader();
-		final int[] textures = new int[1];
+	/**
+	 * 非同期の読み込みが完了していれば、変換したピクセルデータをテクスチャへ転送します。<p>
+	 * このメソッドは GL スレッドから呼び出す必要があります。
+	 * 非同期の読み込みに失敗した場合は例外をスローせずに {@code false} を返し、失敗は {@link #getError()} で参照できます。
+	 * 
+	 * @return テクスチャを転送した場合は {@code true}
+	 */
+	public boolean updateTexImage() {
+		final FutureTask<Pixels> task = mTask;
+		if (!mSetup || task == null || !task.isDone()) {
+			return false;
+		}
+		mTask = null;
+
+		final Pixels pixels;
 		try {
-			glGenTextures(textures.length, textures, 0);
-			glBindTexture(GL_TEXTURE_2D, textures[0]);
-			GLES20Utils.setupSampler(GL_TEXTURE_2D, GL_LINEAR, GL_NEAREST);
+			pixels = task.get();
+		} catch (final InterruptedException e) {
+			mError = e;
+			return false;
+		} catch (final ExecutionException e) {
+			mError = e.getCause();
+			return false;
+		}
+		upload(pixels);
+		return true;
+	}
 
-			// 入力となるテクスチャを作成してビットマップデータを与えます。
-			GLES20Utils.texImage2D(GL_TEXTURE_2D, 0, bitmap, 0);
+	/**
+	 * 非同期の読み込みが完了していないかどうかを返します。
+	 * 
+	 * @return 非同期の読み込みが完了していない場合は {@code true}
+	 */
+	public boolean isPreparing() {
+		return mTask != null;
+	}
 
-			// FBO とシェーダーを用意します。
-			mFramebufferObject.setup(bitmap.getWidth(), bitmap.getHeight());
-			shader.setup();
-			shader.setFrameSize(mFramebufferObject.getWidth(), mFramebufferObject.getHeight());
+	/**
+	 * 画像データの読み込みに失敗した場合の例外を返します。<p>
+	 * 非同期の読み込みに失敗した場合、例外はスローされずに {@link #getTexName()} が {@code 0} を返し続けるため、このメソッドで失敗を判別します。
+	 * 次の {@link #prepareAsync()} または {@link #setup()} の呼び出しで {@code null} に戻ります。
+	 * 
+	 * @return 読み込みに失敗した場合の例外。または {@code null}
+	 */
+	public Throwable getError() {
+		return mError;
+	}
 
-			// 描画の準備を行います。
-			mFramebufferObject.enable();
-			glViewport(0, 0, mFramebufferObject.getWidth(), mFramebufferObject.getHeight());
-			glClear(GL_COLOR_BUFFER_BIT);
+	/**
+	 * {@inheritDoc}<p>
+	 * {@link #prepareAsync()} で非同期の読み込みを開始している場合は、読み込みの完了を待たずに戻ります。
+	 */
+	@Override
+	public void setup() {
+		release();
+		mSetup = true;
 
-			// 描画します。
-			shader.draw(textures[0], null);
-		} catch (final RuntimeException e) {
-			mFramebufferObject.release();
-			throw e;
-		} finally {
-			// 入力で使用したテクスチャは不要なので削除します。
-			glDeleteTextures(textures.length, textures, 0);
-			// シェーダーをクリーンアップします。
-			shader.release();
+		// 最大テクスチャサイズを取得します。
+		final int[] args = new int[1];
+		glGetIntegerv(GL_MAX_TEXTURE_SIZE, args, 0);
+		sMaxTextureSize = args[0];
 
-			// 描画前のフレームバッファとビューポート設定を復元します。
-			glBindFramebuffer(GL_FRAMEBUFFER, saveFramebuffer[0]);
-			glViewport(saveViewport[0], saveViewport[1], saveViewport[2], saveViewport[3]);
-			glBindTexture(GL_TEXTURE_2D, saveTexName[0]);
+		if (mTask != null) {
+			updateTexImage();
+		} else {
+			mError = null;
+			final Pixels pixels;
+			try {
+				pixels = load(args[0]);
+			} catch (final RuntimeException e) {
+				mError = e;
+				throw e;
+			}
+			upload(pixels);
 		}
 	}
 
 	@Override
 	public void release() {
-		mFramebufferObject.release();
+		mSetup = false;
+		if (mTexName != 0) {
+			final int[] textures = new int[]{ mTexName };
+			glDeleteTextures(textures.length, textures, 0);
+			mTexName = 0;
+		}
+		mWidth = 0;
+		mHeight = 0;
 	}
 
+	/**
+	 * {@inheritDoc}<p>
+	 * 非同期の読み込みを開始している場合は、{@link #updateTexImage()} で転送されるまで {@code 0} を返します。
+	 */
 	@Override
 	public int getTexName() {
-		return mFramebufferObject.getTexName();
+		return mTexName;
 	}
 
 	@Override
 	public int getWidth() {
-		return mFramebufferObject.getWidth();
+		return mWidth;
 	}
 
 	@Override
 	public int getHeight() {
-		return mFramebufferObject.getHeight();
+		return mHeight;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// プライベート メソッド
+
+	/**
+	 * 画像データを読み込んで {@code GL_RGBA} のピクセルデータへ変換します。
+	 * 
+	 * @param maxTextureSize 最大テクスチャサイズ
+	 * @return 変換したピクセルデータ
+	 */
+	private Pixels load(final int maxTextureSize) {
+		final Bitmap bitmap = decodeBitmap(maxTextureSize);
+		if (bitmap == null) {
+			throw new IllegalArgumentException("Bitmap must not be null");
+		}
+		try {
+			if (bitmap.isRecycled()) {
+				throw new IllegalStateException("Bitmap is recycled");
+			}
+			/*
+			 * Android の Bitmap は画像データが左上座標から開始されます。
+			 * しかし OpenGL では左下が開始座標となるため、変換時に行を下から並べることで
+			 * 上下を反転するための描画を行わずにテクスチャ座標をそのまま使用できるようにします。
+			 */
+			return new Pixels(GLES20Utils.toRGBABuffer(bitmap), bitmap.getWidth(), bitmap.getHeight());
+		} finally {
+			recycleBitmap(bitmap);
+		}
+	}
+
+	/**
+	 * 指定されたピクセルデータでテクスチャを作成します。<p>
+	 * 既にテクスチャが作成されている場合は、テクスチャ識別子を再利用して内容を置き換えます。
+	 * 
+	 * @param pixels ピクセルデータ
+	 */
+	private void upload(final Pixels pixels) {
+		// 転送前の設定を保存します。
+		final int[] saveTexName = new int[1];
+		glGetIntegerv(GL_TEXTURE_BINDING_2D, saveTexName, 0);
+
+		if (mTexName == 0) {
+			final int[] textures = new int[1];
+			glGenTextures(textures.length, textures, 0);
+			mTexName = textures[0];
+		}
+		try {
+			glBindTexture(GL_TEXTURE_2D, mTexName);
+			GLES20Utils.setupSampler(GL_TEXTURE_2D, GL_LINEAR, GL_NEAREST);
+			glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, pixels.width, pixels.height, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels.buffer);
+			mWidth = pixels.width;
+			mHeight = pixels.height;
+		} catch (final RuntimeException e) {
+			release();
+			throw e;
+		} finally {
+			glBindTexture(GL_TEXTURE_2D, saveTexName[0]);
+		}
 	}
 
 }
\ No newline at end of file
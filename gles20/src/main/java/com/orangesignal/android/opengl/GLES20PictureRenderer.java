@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
+import static android.opengl.GLES20.GL_FRAMEBUFFER;
+import static android.opengl.GLES20.GL_FRAMEBUFFER_BINDING;
+import static android.opengl.GLES20.GL_VIEWPORT;
+import static android.opengl.GLES20.glBindFramebuffer;
+import static android.opengl.GLES20.glClear;
+import static android.opengl.GLES20.glGetIntegerv;
+import static android.opengl.GLES20.glViewport;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * テクスチャをシェーダーで、プレビューの解像度ではなくテクスチャの解像度のままオフスクリーン描画して読み込むクラスを提供します。<p>
+ * フィルターを適用した画像をカメラの解像度で保存するために、{@link GLES20ImageDataTexture} で転送した撮影画像の描画に使用します。
+ * このクラスのメソッドは GL スレッドから呼び出す必要があります。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public final class GLES20PictureRenderer {
+
+	/**
+	 * 描画内容を非同期に読み込む {@link GLES20FramebufferReader} を保持します。
+	 */
+	private final GLES20FramebufferReader mFramebufferReader = new GLES20FramebufferReader();
+
+	/**
+	 * 指定されたテクスチャを指定されたシェーダーでテクスチャと同じ大きさのフレームバッファオブジェクトへ描画して、非同期に {@link android.graphics.Bitmap} へ変換します。<p>
+	 * シェーダーのフレームサイズはテクスチャの大きさへ変更されるため、呼び出し元でプレビューのフレームサイズへ戻す必要があります。
+	 * 描画に使用したフレームバッファオブジェクトは読み込み後に直ちに破棄され、フレームバッファとビューポートは呼び出し前の状態へ戻されます。
+	 * 
+	 * @param texture 構成済みのテクスチャ
+	 * @param shader 構成済みのシェーダー
+	 * @param orientation 傾き (0, 90, 180, 270)
+	 * @param mirror ミラーモードかどうか
+	 * @param callback コールバック
+	 */
+	public void render(final Texture texture, final GLES20Shader shader, final int orientation, final boolean mirror, final GLES20FramebufferReader.Callback callback) {
+		final int width = texture.getWidth();
+		final int height = texture.getHeight();
+
+		// 現在の構成を保存します。
+		final int[] framebuffer = new int[1];
+		glGetIntegerv(GL_FRAMEBUFFER_BINDING, framebuffer, 0);
+		final int[] viewport = new int[4];
+		glGetIntegerv(GL_VIEWPORT, viewport, 0);
+
+		final GLES20FramebufferObject fbo = new GLES20FramebufferObject(false);
+		try {
+			fbo.setup(width, height);
+			fbo.enable();
+			glViewport(0, 0, width, height);
+			glClear(GL_COLOR_BUFFER_BIT);
+
+			// 撮影画像のテクスチャはプレビュー用の FBO と同じく左下が原点のため、シェーダーへそのまま入力できます。
+			shader.setFrameSize(width, height);
+			shader.draw(texture.getTexName(), fbo);
+
+			mFramebufferReader.read(fbo, orientation, mirror, callback);
+		} finally {
+			fbo.release();
+
+			// 保存した構成を復元します。
+			glBindFramebuffer(GL_FRAMEBUFFER, framebuffer[0]);
+			glViewport(viewport[0], viewport[1], viewport[2], viewport[3]);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * 周辺のピクセルを参照せずにピクセル単位で色を変換するシェーダーの基底クラスを提供します。<p>
+ * サブクラスは色の変換で使用する変数と定数の宣言と、色を変換する GLSL の文だけを定義します。
+ * 単独で描画する場合のフラグメントシェーダーは、それらから {@link #createFragmentShaderSource(String, String)} で生成されます。<p>
+ * このクラスのサブクラスは {@link GLES20ShaderGroup} で連続している場合に、
+ * {@link GLES20ShaderGraphCompiler} によって 1 つのプログラムへ融合されて 1 回の描画で処理されます。
+ * 融合された場合、宣言した変数名には自動的に接頭辞が付与されますが、{@link GLES20Shader#onDraw()} では従来どおり宣言した変数名でハンドルを取得できます。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public abstract class GLES20PointwiseShader extends GLES20Shader {
+
+	/**
+	 * 色の変換で使用する {@code uniform} 変数や {@code const} 定数の宣言を保持します。
+	 */
+	private final String mStageDeclarations;
+
+	/**
+	 * 色を変換する GLSL の文を保持します。
+	 */
+	private final String mStageSource;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param stageDeclarations 色の変換で使用する {@code uniform} 変数や {@code const} 定数の宣言
+	 * @param stageSource 色を変換する GLSL の文
+	 * @see #getStageDeclarations()
+	 * @see #getStageSource()
+	 */
+	protected GLES20PointwiseShader(final String stageDeclarations, final String stageSource) {
+		super(DEFAULT_VERTEX_SHADER, createFragmentShaderSource(stageDeclarations + "\n", "{\n" + stageSource + "\n}\n"));
+		mStageDeclarations = stageDeclarations;
+		mStageSource = stageSource;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 色の変換で使用する {@code uniform} 変数や {@code const} 定数の宣言を返します。<p>
+	 * 宣言は 1 つずつ {@code ;} で終わる必要があります。
+	 * 
+	 * @return {@code uniform} 変数や {@code const} 定数の宣言
+	 */
+	public String getStageDeclarations() {
+		return mStageDeclarations;
+	}
+
+	/**
+	 * {@code mediump vec4} 型の変数 {@code color} を読み込んで、変換した色を {@code color} へ書き込む GLSL の文を返します。<p>
+	 * テクスチャ座標として {@code vTextureCoord} を参照できますが、{@code sTexture} を参照してはいけません。
+	 * 
+	 * @return 色を変換する GLSL の文
+	 */
+	public String getStageSource() {
+		return mStageSource;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 指定された宣言と色を変換する GLSL の文から、テクスチャの色を変換して出力するフラグメントシェーダーのソースコードを生成します。<p>
+	 * 単独で描画する場合と {@link GLES20ShaderGraphCompiler} で融合する場合の両方で使用します。
+	 * 
+	 * @param declarations 変数と定数の宣言
+	 * @param body {@link GLES20ShaderGraphCompiler#STAGE_COLOR} を読み書きして色を変換する GLSL の文
+	 * @return フラグメントシェーダーのソースコード
+	 */
+	static String createFragmentShaderSource(final String declarations, final String body) {
+		return new StringBuilder()
+				.append("precision mediump float;\n")
+				.append("varying highp vec2 vTextureCoord;\n")
+				.append("uniform lowp sampler2D ").append(DEFAULT_UNIFORM_SAMPLER).append(";\n")
+				.append(declarations)
+				.append("void main() {\n")
+				.append("mediump vec4 ").append(GLES20ShaderGraphCompiler.STAGE_COLOR).append(" = texture2D(").append(DEFAULT_UNIFORM_SAMPLER).append(", vTextureCoord);\n")
+				.append(body)
+				.append("gl_FragColor = ").append(GLES20ShaderGraphCompiler.STAGE_COLOR).append(";\n")
+				.append("}\n")
+				.toString();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static android.opengl.GLES20.GL_EXTENSIONS;
+import static android.opengl.GLES20.GL_FRAGMENT_SHADER;
+import static android.opengl.GLES20.GL_LINK_STATUS;
+import static android.opengl.GLES20.GL_RENDERER;
+import static android.opengl.GLES20.GL_TRUE;
+import static android.opengl.GLES20.GL_VERSION;
+import static android.opengl.GLES20.GL_VERTEX_SHADER;
+import static android.opengl.GLES20.glCreateProgram;
+import static android.opengl.GLES20.glDeleteProgram;
+import static android.opengl.GLES20.glDeleteShader;
+import static android.opengl.GLES20.glGetIntegerv;
+import static android.opengl.GLES20.glGetProgramiv;
+import static android.opengl.GLES20.glGetString;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * 頂点シェーダーとフラグメントシェーダーのソースコードのハッシュをキーとして、リンク済みのプログラムオブジェクトを共有するキャッシュを提供します。<p>
+ * キャッシュは EGL コンテキスト単位に {@link GLES20ContextState#getProgramCache()} で取得します。
+ * 同じソースコードのシェーダーは同じプログラムオブジェクトを参照カウントで共有し、参照されなくなったプログラムオブジェクトは
+ * 最大 {@link #DEFAULT_MAX_IDLE_PROGRAMS} 個まで最近使用した順に保持されます。
+ * そのため、フィルターを切り替えた後に元のフィルターへ戻す場合などに、再度コンパイルとリンクを行う必要がありません。<p>
+ * {@link #setBinaryCacheDirectory(File)} でディレクトリが設定され、{@code GL_OES_get_program_binary} が使用可能な場合は、
+ * リンク済みのプログラムバイナリをファイルへ保存して、次回以降の起動時にはコンパイルを行わずにプログラムオブジェクトを生成します。<p>
+ * このクラスのメソッドは GL スレッドから呼び出す必要があります。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public final class GLES20ProgramCache {
+
+	/**
+	 * プログラムオブジェクトを生成および破棄するためのインタフェースです。
+	 */
+	interface ProgramFactory {
+
+		/**
+		 * 指定されたソースコードからプログラムオブジェクトを生成します。
+		 * 
+		 * @param key ソースコードのハッシュ
+		 * @param vertexSource 頂点シェーダーのソースコード
+		 * @param fragmentSource フラグメントシェーダーのソースコード
+		 * @return プログラムオブジェクトの識別子
+		 */
+		int createProgram(String key, String vertexSource, String fragmentSource);
+
+		/**
+		 * 指定されたプログラムオブジェクトを破棄します。
+		 * 
+		 * @param program プログラムオブジェクトの識別子
+		 */
+		void deleteProgram(int program);
+
+	}
+
+	/**
+	 * 参照されていないプログラムオブジェクトを保持するデフォルトの最大数です。
+	 */
+	public static final int DEFAULT_MAX_IDLE_PROGRAMS = 16;
+
+	/**
+	 * ログ出力用のタグです。
+	 */
+	private static final String TAG = "GLES20ProgramCache";
+
+	/**
+	 * プログラムバイナリを保存するディレクトリを保持します。
+	 */
+	private static volatile File sBinaryCacheDirectory;
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * キャッシュされたプログラムオブジェクトを表します。
+	 */
+	private static final class Entry {
+
+		final String key;
+		final int program;
+		int refCount;
+
+		Entry(final String key, final int program) {
+			this.key = key;
+			this.program = program;
+		}
+
+	}
+
+	/**
+	 * プログラムオブジェクトを生成および破棄するオブジェクトを保持します。
+	 */
+	private final ProgramFactory mFactory;
+
+	/**
+	 * 参照されていないプログラムオブジェクトを保持する最大数を保持します。
+	 */
+	private final int mMaxIdlePrograms;
+
+	/**
+	 * ソースコードのハッシュとエントリのマッピングを、最近使用した順に保持します。
+	 */
+	private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * プログラムオブジェクトの識別子とエントリのマッピングを保持します。
+	 */
+	private final HashMap<Integer, Entry> mPrograms = new HashMap<Integer, Entry>();
+
+	/**
+	 * EGL コンテキストが破棄され、プログラムオブジェクトを破棄してはいけないかどうかを保持します。
+	 */
+	private boolean mDiscarded;
+
+	private int mHitCount;
+	private int mMissCount;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 */
+	GLES20ProgramCache() {
+		this(new DefaultProgramFactory(), DEFAULT_MAX_IDLE_PROGRAMS);
+	}
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param factory プログラムオブジェクトを生成および破棄するオブジェクト
+	 * @param maxIdlePrograms 参照されていないプログラムオブジェクトを保持する最大数
+	 */
+	GLES20ProgramCache(final ProgramFactory factory, final int maxIdlePrograms) {
+		mFactory = factory;
+		mMaxIdlePrograms = maxIdlePrograms;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * プログラムバイナリを保存するディレクトリを設定します。<p>
+	 * 通常は {@link android.content.Context#getCacheDir()} 配下のディレクトリを指定します。
+	 * {@code null} を指定するとファイルへの保存を行いません。デフォルトは {@code null} です。
+	 * 
+	 * @param directory プログラムバイナリを保存するディレクトリ。または {@code null}
+	 */
+	public static void setBinaryCacheDirectory(final File directory) {
+		sBinaryCacheDirectory = directory;
+	}
+
+	/**
+	 * プログラムバイナリを保存するディレクトリを返します。
+	 * 
+	 * @return プログラムバイナリを保存するディレクトリ。または {@code null}
+	 */
+	public static File getBinaryCacheDirectory() {
+		return sBinaryCacheDirectory;
+	}
+
+	/**
+	 * 指定された文字列を連結した SHA-1 ハッシュの 16 進数表現を返します。
+	 * 
+	 * @param values 文字列の列挙
+	 * @return ハッシュ
+	 */
+	static String createKey(final String... values) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			for (final String value : values) {
+				digest.update(value.getBytes("UTF-8"));
+				// 連結位置が異なる組み合わせを区別します。
+				digest.update((byte) 0);
+			}
+			final byte[] hash = digest.digest();
+			final StringBuilder sb = new StringBuilder(hash.length * 2);
+			for (final byte b : hash) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 指定されたソースコードのプログラムオブジェクトを返します。<p>
+	 * キャッシュされていない場合はプログラムオブジェクトを生成します。
+	 * 返されたプログラムオブジェクトは参照カウントが加算されるため、使用しなくなった場合は {@link #release(int)} を呼び出す必要があります。
+	 * 
+	 * @param vertexSource 頂点シェーダーのソースコード
+	 * @param fragmentSource フラグメントシェーダーのソースコード
+	 * @return プログラムオブジェクトの識別子
+	 */
+	public synchronized int obtain(final String vertexSource, final String fragmentSource) {
+		final String key = createKey(vertexSource, fragmentSource);
+		Entry entry = mEntries.get(key);
+		if (entry != null) {
+			mHitCount++;
+		} else {
+			mMissCount++;
+			entry = new Entry(key, mFactory.createProgram(key, vertexSource, fragmentSource));
+			mEntries.put(key, entry);
+			mPrograms.put(entry.program, entry);
+		}
+		entry.refCount++;
+		trim(mMaxIdlePrograms);
+		return entry.program;
+	}
+
+	/**
+	 * 指定されたプログラムオブジェクトの参照カウントを減算します。<p>
+	 * 参照されなくなったプログラムオブジェクトは直ちに破棄されずに、最近使用した順に保持されます。
+	 * 
+	 * @param program {@link #obtain(String, String)} で取得したプログラムオブジェクトの識別子
+	 */
+	public synchronized void release(final int program) {
+		final Entry entry = mPrograms.get(program);
+		if (entry == null || entry.refCount == 0) {
+			return;
+		}
+		entry.refCount--;
+		// 最近使用したものとして扱います。
+		mEntries.get(entry.key);
+		trim(mMaxIdlePrograms);
+	}
+
+	/**
+	 * 参照されていないプログラムオブジェクトを全て破棄します。
+	 */
+	public synchronized void trimToSize() {
+		trim(0);
+	}
+
+	/**
+	 * キャッシュしているプログラムオブジェクトの数を返します。
+	 * 
+	 * @return プログラムオブジェクトの数
+	 */
+	public synchronized int getProgramCount() {
+		return mEntries.size();
+	}
+
+	/**
+	 * 参照されていないプログラムオブジェクトの数を返します。
+	 * 
+	 * @return 参照されていないプログラムオブジェクトの数
+	 */
+	public synchronized int getIdleProgramCount() {
+		int count = 0;
+		for (final Entry entry : mEntries.values()) {
+			if (entry.refCount == 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * キャッシュからプログラムオブジェクトを取得できた回数を返します。
+	 * 
+	 * @return キャッシュからプログラムオブジェクトを取得できた回数
+	 */
+	public synchronized int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * プログラムオブジェクトを生成した回数を返します。
+	 * 
+	 * @return プログラムオブジェクトを生成した回数
+	 */
+	public synchronized int getMissCount() {
+		return mMissCount;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private void trim(final int maxIdlePrograms) {
+		if (mDiscarded) {
+			return;
+		}
+		int idle = getIdleProgramCount();
+		// 最も長く使用されていないものから破棄します。
+		final Iterator<Entry> it = mEntries.values().iterator();
+		while (idle > maxIdlePrograms && it.hasNext()) {
+			final Entry entry = it.next();
+			if (entry.refCount == 0) {
+				it.remove();
+				mPrograms.remove(entry.program);
+				mFactory.deleteProgram(entry.program);
+				idle--;
+			}
+		}
+	}
+
+	/**
+	 * EGL コンテキストが失われたものとして、プログラムオブジェクトを破棄せずに全てのエントリを取り除きます。
+	 */
+	synchronized void discard() {
+		mDiscarded = true;
+		mEntries.clear();
+		mPrograms.clear();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * ソースコードをコンパイルしてプログラムオブジェクトを生成し、可能な場合はプログラムバイナリをファイルへ保存します。
+	 */
+	private static final class DefaultProgramFactory implements ProgramFactory {
+
+		/**
+		 * ファイルの形式を識別する値です。
+		 */
+		private static final int MAGIC = 0x4F534742;	// "OSGB"
+
+		private final int[] mArgs = new int[1];
+
+		/**
+		 * プログラムバイナリが使用可能かどうかを保持します。
+		 */
+		private Boolean mBinarySupported;
+
+		/**
+		 * ドライバーを識別する文字列を保持します。
+		 */
+		private String mDriver;
+
+		@Override
+		public int createProgram(final String key, final String vertexSource, final String fragmentSource) {
+			final File file = getBinaryFile(key);
+			if (file != null && file.exists()) {
+				final int program = loadBinary(file);
+				if (program != 0) {
+					return program;
+				}
+			}
+
+			final int vertexShader = GLES20Utils.loadShader(GL_VERTEX_SHADER, vertexSource);
+			final int fragmentShader = GLES20Utils.loadShader(GL_FRAGMENT_SHADER, fragmentSource);
+			final int program;
+			try {
+				program = GLES20Utils.createProgram(vertexShader, fragmentShader);
+			} finally {
+				// プログラムへ関連付けられたシェーダーは、プログラムが破棄されるまで実際には破棄されません。
+				glDeleteShader(vertexShader);
+				glDeleteShader(fragmentShader);
+			}
+
+			if (file != null) {
+				saveBinary(program, file);
+			}
+			return program;
+		}
+
+		@Override
+		public void deleteProgram(final int program) {
+			glDeleteProgram(program);
+		}
+
+		/**
+		 * 指定されたソースコードのハッシュに対応するプログラムバイナリのファイルを返します。
+		 * 
+		 * @param key ソースコードのハッシュ
+		 * @return プログラムバイナリのファイル。プログラムバイナリが使用できない場合は {@code null}
+		 */
+		private File getBinaryFile(final String key) {
+			final File directory = sBinaryCacheDirectory;
+			if (directory == null || !isBinarySupported()) {
+				return null;
+			}
+			// ドライバーが更新された場合はバイナリを使用できないため、ドライバーの情報もファイル名に含めます。
+			return new File(directory, createKey(mDriver, key) + ".bin");
+		}
+
+		private boolean isBinarySupported() {
+			if (mBinarySupported == null) {
+				boolean supported = false;
+				final String extensions = glGetString(GL_EXTENSIONS);
+				if (extensions != null && extensions.contains("GL_OES_get_program_binary")) {
+					glGetIntegerv(GLES20Compat.GL_NUM_PROGRAM_BINARY_FORMATS_OES, mArgs, 0);
+					if (mArgs[0] > 0) {
+						try {
+							supported = GLES20Compat.isProgramBinaryAvailable();
+						} catch (final UnsatisfiedLinkError e) {
+							Log.w(TAG, "Native library is not available", e);
+						}
+					}
+				}
+				mDriver = glGetString(GL_RENDERER) + " " + glGetString(GL_VERSION);
+				mBinarySupported = Boolean.valueOf(supported);
+			}
+			return mBinarySupported.booleanValue();
+		}
+
+		private int loadBinary(final File file) {
+			int program = 0;
+			try {
+				final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				try {
+					if (in.readInt() != MAGIC) {
+						throw new IOException("Invalid program binary " + file);
+					}
+					final int format = in.readInt();
+					final int length = in.readInt();
+					// 壊れたファイルの長さで巨大な配列を確保しないように、ファイルの大きさを超える長さは不正とします。
+					if (length < 0 || length > file.length()) {
+						throw new IOException("Invalid program binary length " + length + " in " + file);
+					}
+					final byte[] data = new byte[length];
+					in.readFully(data);
+					final ByteBuffer binary = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+					binary.put(data).position(0);
+
+					program = glCreateProgram();
+					GLES20Compat.glProgramBinaryOES(program, format, binary, length);
+					glGetProgramiv(program, GL_LINK_STATUS, mArgs, 0);
+					if (mArgs[0] != GL_TRUE) {
+						throw new IOException("Rejected program binary " + file);
+					}
+					return program;
+				} finally {
+					in.close();
+				}
+			} catch (final IOException e) {
+				Log.w(TAG, "Could not load program binary", e);
+			} catch (final RuntimeException e) {
+				// ドライバーがプログラムバイナリを扱えない場合も、ソースコードからコンパイルします。
+				Log.w(TAG, "Could not load program binary", e);
+			}
+			if (program != 0) {
+				glDeleteProgram(program);
+			}
+			file.delete();
+			return 0;
+		}
+
+		private void saveBinary(final int program, final File file) {
+			glGetProgramiv(program, GLES20Compat.GL_PROGRAM_BINARY_LENGTH_OES, mArgs, 0);
+			final int capacity = mArgs[0];
+			if (capacity <= 0) {
+				return;
+			}
+			final ByteBuffer binary = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+			final int length = GLES20Compat.glGetProgramBinaryOES(program, capacity, mArgs, binary);
+			if (length <= 0 || length > capacity) {
+				return;
+			}
+			final byte[] data = new byte[length];
+			binary.get(data);
+
+			// 書き込み途中のファイルを読み込まないように、一時ファイルへ書き込んでから名前を変更します。
+			final File temp = new File(file.getPath() + ".tmp");
+			try {
+				file.getParentFile().mkdirs();
+				final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+				try {
+					out.writeInt(MAGIC);
+					out.writeInt(mArgs[0]);
+					out.writeInt(length);
+					out.write(data);
+				} finally {
+					out.close();
+				}
+				if (!temp.renameTo(file)) {
+					throw new IOException("Could not rename " + temp);
+				}
+			} catch (final IOException e) {
+				Log.w(TAG, "Could not save program binary", e);
+				temp.delete();
+			}
+		}
+
+	}
+
+}
\ No newline at end of file
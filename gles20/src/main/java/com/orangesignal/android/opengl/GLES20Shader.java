@@ -4,27 +4,16 @@
 
 package com.orangesignal.android.opengl;
 
-import static android.opengl.GLES20.GL_ARRAY_BUFFER;
-import static android.opengl.GLES20.GL_FLOAT;
-import static android.opengl.GLES20.GL_FRAGMENT_SHADER;
 import static android.opengl.GLES20.GL_TEXTURE0;
 import static android.opengl.GLES20.GL_TEXTURE_2D;
 import static android.opengl.GLES20.GL_TRIANGLE_STRIP;
-import static android.opengl.GLES20.GL_VERTEX_SHADER;
 import static android.opengl.GLES20.glActiveTexture;
-import static android.opengl.GLES20.glBindBuffer;
 import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glDeleteBuffers;
-import static android.opengl.GLES20.glDeleteProgram;
-import static android.opengl.GLES20.glDeleteShader;
-import static android.opengl.GLES20.glDisableVertexAttribArray;
 import static android.opengl.GLES20.glDrawArrays;
-import static android.opengl.GLES20.glEnableVertexAttribArray;
 import static android.opengl.GLES20.glGetAttribLocation;
 import static android.opengl.GLES20.glGetUniformLocation;
 import static android.opengl.GLES20.glUniform1i;
 import static android.opengl.GLES20.glUseProgram;
-import static com.orangesignal.android.opengl.GLES20Compat.glVertexAttribPointer;
 
 import java.util.HashMap;
 
@@ -78,17 +67,6 @@ public class GLES20Shader {
 				"gl_FragColor = texture2D(sTexture, vTextureCoord);\n" +
 			"}\n";
 
-	/**
-	 * 頂点データとテクスチャ座標 (UV マッピング) の構造体配列形式データです。
-	 */
-	private static final float[] VERTICES_DATA = new float[] {
-		// X, Y, Z, U, V
-		-1.0f,  1.0f, 0.0f, 0.0f, 1.0f,	// 左上
-		 1.0f,  1.0f, 0.0f, 1.0f, 1.0f,	// 右上
-		-1.0f, -1.0f, 0.0f, 0.0f, 0.0f,	// 左下
-		 1.0f, -1.0f, 0.0f, 1.0f, 0.0f	// 右下
-	};
-
 	private static final int FLOAT_SIZE_BYTES = 4;
 	protected static final int VERTICES_DATA_POS_SIZE = 3;
 	protected static final int VERTICES_DATA_UV_SIZE = 2;
@@ -114,25 +92,55 @@ public class GLES20Shader {
 	private int mProgram;
 
 	/**
-	 * 頂点シェーダーの識別子を保持します。
+	 * プログラムオブジェクトを取得したキャッシュを保持します。
 	 */
-	private int mVertexShader;
+	private GLES20ProgramCache mProgramCache;
 
 	/**
-	 * フラグメントシェーダーの識別子を保持します。
+	 * 頂点バッファオブジェクトと頂点属性の設定状態を共有するジオメトリを保持します。
 	 */
-	private int mFragmentShader;
+	private GLES20Geometry mGeometry;
 
 	/**
 	 * 頂点バッファオブジェクト名を保持します。
 	 */
 	private int mVertexBufferName;
 
+	/**
+	 * 頂点データのハンドルを保持します。
+	 */
+	private int mPositionHandle = -1;
+
+	/**
+	 * UV マッピングデータのハンドルを保持します。
+	 */
+	private int mTextureCoordHandle = -1;
+
+	/**
+	 * サンプラーのハンドルを保持します。
+	 */
+	private int mSamplerHandle = -1;
+
+	/**
+	 * 識別子の削除に使用する作業用の配列を保持します。
+	 */
+	private final int[] mArgs = new int[1];
+
 	/**
 	 * 変数名とハンドル識別子のマッピングを保持します。
 	 */
 	private final HashMap<String, Integer> mHandleMap = new HashMap<String, Integer>();
 
+	/**
+	 * 融合されたシェーダーのステージとして描画される場合に、ハンドルを解決するシェーダーを保持します。
+	 */
+	private GLES20Shader mHandleOwner;
+
+	/**
+	 * 融合されたシェーダーのステージとして描画される場合の変数名の接頭辞を保持します。
+	 */
+	private String mHandlePrefix;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -168,14 +176,22 @@ public class GLES20Shader {
 	//////////////////////////////////////////////////////////////////////////
 
 	/**
-	 * 指定された GLSL ソースコードをコンパイルしてプログラムオブジェクトを構成します。
+	 * 指定された GLSL ソースコードをコンパイルしてプログラムオブジェクトを構成します。<p>
+	 * 同じソースコードのプログラムオブジェクトが {@link GLES20ProgramCache} にある場合は、コンパイルを行わずにそれを共有します。
 	 */
 	public void setup() {
 		release();
-		mVertexShader     = GLES20Utils.loadShader(GL_VERTEX_SHADER,   mVertexShaderSource);
-		mFragmentShader   = GLES20Utils.loadShader(GL_FRAGMENT_SHADER, mFragmentShaderSource);
-		mProgram          = GLES20Utils.createProgram(mVertexShader, mFragmentShader);
-		mVertexBufferName = GLES20Utils.createBuffer(VERTICES_DATA);
+		final GLES20ContextState state = GLES20ContextState.getCurrent();
+		mProgramCache     = state.getProgramCache();
+		mProgram          = mProgramCache.obtain(mVertexShaderSource, mFragmentShaderSource);
+		mGeometry         = state.getGeometry();
+		mVertexBufferName = selectVertexBufferName(mGeometry);
+
+		// 描画の度に検索しないように、デフォルトの変数のハンドルを取得しておきます。
+		mPositionHandle     = findHandle(DEFAULT_ATTRIB_POSITION);
+		mTextureCoordHandle = findHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE);
+		mSamplerHandle      = findHandle(DEFAULT_UNIFORM_SAMPLER);
+		onSetupHandles();
 	}
 
 	/**
@@ -191,15 +207,19 @@ public class GLES20Shader {
 	 * このシェーダーオブジェクトの構成を破棄します。
 	 */
 	public void release() {
-		glDeleteProgram(mProgram);
+		if (mProgramCache != null) {
+			// 他のシェーダーと共有している可能性があるため、直接破棄せずにキャッシュへ返却します。
+			mProgramCache.release(mProgram);
+			mProgramCache = null;
+		}
 		mProgram = 0;
-		glDeleteShader(mVertexShader);
-		mVertexShader = 0;
-		glDeleteShader(mFragmentShader);
-		mFragmentShader = 0;
-		glDeleteBuffers(1, new int[]{ mVertexBufferName }, 0);
+		// 頂点バッファオブジェクトは共有しているため破棄しません。
+		mGeometry = null;
 		mVertexBufferName = 0;
 
+		mPositionHandle = -1;
+		mTextureCoordHandle = -1;
+		mSamplerHandle = -1;
 		mHandleMap.clear();
 	}
 
@@ -213,25 +233,17 @@ public class GLES20Shader {
 	 */
 	public void draw(final int texName, final GLES20FramebufferObject fbo) {
 		useProgram();
-
-		glBindBuffer(GL_ARRAY_BUFFER, mVertexBufferName);
-		glEnableVertexAttribArray(getHandle("aPosition"));
-		glVertexAttribPointer(getHandle("aPosition"), VERTICES_DATA_POS_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_POS_OFFSET);
-		glEnableVertexAttribArray(getHandle("aTextureCoord"));
-		glVertexAttribPointer(getHandle("aTextureCoord"), VERTICES_DATA_UV_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_UV_OFFSET);
+		bindVertexAttributes(mPositionHandle, mTextureCoordHandle);
 
 		glActiveTexture(GL_TEXTURE0);
 		glBindTexture(GL_TEXTURE_2D, texName);
-		glUniform1i(getHandle("sTexture"), 0);
+		glUniform1i(mSamplerHandle, 0);
 
 		onDraw();
 
 		glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
 
-		glDisableVertexAttribArray(getHandle("aPosition"));
-		glDisableVertexAttribArray(getHandle("aTextureCoord"));
 		glBindTexture(GL_TEXTURE_2D, 0);
-		glBindBuffer(GL_ARRAY_BUFFER, 0);
 	}
 
 	/**
@@ -240,6 +252,13 @@ public class GLES20Shader {
 	 */
 	protected void onDraw() {}
 
+	/**
+	 * 変数のハンドルを解決する場合に呼び出されます。<p>
+	 * プログラムを構成した {@link #setup()} の後と、融合されたシェーダーのステージとなった場合に呼び出されます。
+	 * サブクラスは描画の度に検索しないように、{@link #onDraw()} で使用する変数のハンドルを {@link #getHandle(String)} で取得して保持して下さい。
+	 */
+	protected void onSetupHandles() {}
+
 	//////////////////////////////////////////////////////////////////////////
 
 	/**
@@ -250,7 +269,8 @@ public class GLES20Shader {
 	}
 
 	/**
-	 * 頂点バッファオブジェクトの識別子を返します。
+	 * 頂点バッファオブジェクトの識別子を返します。<p>
+	 * 頂点バッファオブジェクトは他のシェーダーと共有しているため、内容を変更したり破棄したりしてはいけません。
 	 * 
 	 * @return 頂点バッファオブジェクトの識別子。または {@code 0}
 	 */
@@ -259,7 +279,30 @@ public class GLES20Shader {
 	}
 
 	/**
-	 * 指定された変数のハンドルを返します。
+	 * 描画に使用する頂点バッファオブジェクトを選択する場合に呼び出されます。<p>
+	 * デフォルトの実装は {@link GLES20Geometry#getQuadBufferName()} を返します。
+	 * 
+	 * @param geometry 現在の EGL コンテキストのジオメトリ
+	 * @return 頂点バッファオブジェクトの識別子
+	 */
+	protected int selectVertexBufferName(final GLES20Geometry geometry) {
+		return geometry.getQuadBufferName();
+	}
+
+	/**
+	 * 頂点バッファオブジェクトを指定された頂点座標とテクスチャ座標の属性へ設定します。<p>
+	 * 直前に描画したシェーダーと設定が同じ場合は GL の呼び出しを省略します。{@link #useProgram()} の後に呼び出して下さい。
+	 * 
+	 * @param positionHandle 頂点座標の属性のハンドル
+	 * @param textureCoordHandle テクスチャ座標の属性のハンドル
+	 */
+	protected final void bindVertexAttributes(final int positionHandle, final int textureCoordHandle) {
+		mGeometry.bind(mProgram, mVertexBufferName, positionHandle, textureCoordHandle);
+	}
+
+	/**
+	 * 指定された変数のハンドルを返します。<p>
+	 * 取得したハンドルはキャッシュされますが、描画の度に呼び出さずに {@link #onSetupHandles()} で取得したハンドルを保持して下さい。
 	 * 
 	 * @param name 変数
 	 * @return 変数のハンドル
@@ -270,17 +313,49 @@ public class GLES20Shader {
 			return value.intValue();
 		}
 
+		final int location;
+		if (mHandleOwner != null) {
+			// 接頭辞を付与した変数名の生成は初回のみとします。
+			location = mHandleOwner.getHandle(mHandlePrefix + name);
+		} else {
+			location = findHandle(name);
+			if (location == -1) {
+				throw new IllegalStateException("Could not get attrib or uniform location for " + name);
+			}
+		}
+		mHandleMap.put(name, Integer.valueOf(location));
+		return location;
+	}
+
+	/**
+	 * プログラムから指定された変数のハンドルを検索します。
+	 * 
+	 * @param name 変数
+	 * @return 変数のハンドル。見つからない場合は {@code -1}
+	 */
+	int findHandle(final String name) {
 		int location = glGetAttribLocation(mProgram, name);
 		if (location == -1) {
 			location = glGetUniformLocation(mProgram, name);
 		}
-		if (location == -1) {
-			throw new IllegalStateException("Could not get attrib or uniform location for " + name);
-		}
-		mHandleMap.put(name, Integer.valueOf(location));
 		return location;
 	}
 
+	/**
+	 * このシェーダーを指定されたシェーダーに融合されたステージとして、変数のハンドルを指定されたシェーダーから取得するようにします。
+	 * 
+	 * @param owner 融合されたシェーダー。または {@code null}
+	 * @param prefix 変数名の接頭辞
+	 */
+	final void setHandleOwner(final GLES20Shader owner, final String prefix) {
+		mHandleOwner = owner;
+		mHandlePrefix = prefix;
+		mHandleMap.clear();
+		if (owner != null) {
+			onSetupHandles();
+		}
+	}
+
 	/**
 	 * 指定された変数の列挙に対応するハンドルの列挙を返します。
 	 * 変数の列挙に {@code null} が指定された場合は {@code null} を返します。
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link GLES20ShaderGroup} のシェーダーの連なりから描画パスの計画を構築するクラスを提供します。<p>
+ * 連続する {@link GLES20PointwiseShader} は 1 つのフラグメントシェーダーへ融合され、1 回の描画で処理されます。
+ * 周辺のピクセルを参照するシェーダーなど、それ以外のシェーダーはそれぞれ単独の描画パスとなります。
+ * 計画の構築は OpenGL ES の API を呼び出さないため、GPU のない環境でも検証できます。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class GLES20ShaderGraphCompiler {
+
+	/**
+	 * 融合されたフラグメントシェーダーで変換中の色を保持する変数名です。
+	 */
+	public static final String STAGE_COLOR = "color";
+
+	/**
+	 * 宣言された変数名を取得するための正規表現です。
+	 */
+	private static final Pattern DECLARATION_PATTERN = Pattern.compile("\\b(?:uniform|const)\\s+(?:(?:lowp|mediump|highp)\\s+)?\\w+\\s+(\\w+)");
+
+	/**
+	 * インスタンス化できない事を強制します。
+	 */
+	private GLES20ShaderGraphCompiler() {}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 指定されたシェーダーの連なりから描画パスの計画を構築します。
+	 * 
+	 * @param shaders シェーダーのコレクション
+	 * @param fusion 連続する {@link GLES20PointwiseShader} を融合するかどうか
+	 * @return 描画パスの計画
+	 */
+	public static Plan compile(final Collection<? extends GLES20Shader> shaders, final boolean fusion) {
+		final List<Pass> passes = new ArrayList<Pass>();
+		final List<GLES20Shader> run = new ArrayList<GLES20Shader>();
+
+		if (shaders != null) {
+			for (final GLES20Shader shader : shaders) {
+				if (fusion && shader instanceof GLES20PointwiseShader) {
+					run.add(shader);
+					continue;
+				}
+				flush(run, passes);
+				passes.add(new Pass(Collections.singletonList(shader), null, null));
+			}
+		}
+		flush(run, passes);
+
+		return new Plan(passes);
+	}
+
+	private static void flush(final List<GLES20Shader> run, final List<Pass> passes) {
+		if (run.size() == 1) {
+			// 1 つだけの場合は融合しても描画回数が減らないため、そのまま使用します。
+			passes.add(new Pass(Collections.singletonList(run.get(0)), null, null));
+		} else if (run.size() > 1) {
+			final List<GLES20Shader> stages = new ArrayList<GLES20Shader>(run);
+			final List<String> prefixes = new ArrayList<String>(stages.size());
+			for (int i = 0; i < stages.size(); i++) {
+				prefixes.add("s" + i + "_");
+			}
+			passes.add(new Pass(stages, prefixes, createFragmentShaderSource(stages, prefixes)));
+		}
+		run.clear();
+	}
+
+	/**
+	 * 指定されたステージを融合したフラグメントシェーダーのソースコードを生成します。
+	 * 
+	 * @param stages ステージのリスト
+	 * @param prefixes ステージ単位の変数名の接頭辞のリスト
+	 * @return フラグメントシェーダーのソースコード
+	 */
+	private static String createFragmentShaderSource(final List<GLES20Shader> stages, final List<String> prefixes) {
+		final StringBuilder declarations = new StringBuilder();
+		final StringBuilder body = new StringBuilder();
+
+		for (int i = 0; i < stages.size(); i++) {
+			final GLES20PointwiseShader stage = (GLES20PointwiseShader) stages.get(i);
+			final String prefix = prefixes.get(i);
+			String stageDeclarations = stage.getStageDeclarations();
+			String stageSource = stage.getStageSource();
+
+			final Matcher matcher = DECLARATION_PATTERN.matcher(stageDeclarations);
+			final List<String> names = new ArrayList<String>();
+			while (matcher.find()) {
+				names.add(matcher.group(1));
+			}
+			for (final String name : names) {
+				final String regex = "\\b" + name + "\\b";
+				final String replacement = Matcher.quoteReplacement(prefix + name);
+				stageDeclarations = stageDeclarations.replaceAll(regex, replacement);
+				stageSource = stageSource.replaceAll(regex, replacement);
+			}
+
+			declarations.append("// ").append(stages.get(i).getClass().getSimpleName()).append('\n');
+			declarations.append(stageDeclarations).append('\n');
+			// ステージのローカル変数が衝突しないようにブロックで囲みます。
+			body.append("{\n").append(stageSource).append("\n}\n");
+		}
+
+		return GLES20PointwiseShader.createFragmentShaderSource(declarations.toString(), body.toString());
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * 描画パスの計画を表します。
+	 */
+	public static final class Plan {
+
+		private final List<Pass> mPasses;
+
+		Plan(final List<Pass> passes) {
+			mPasses = Collections.unmodifiableList(passes);
+		}
+
+		/**
+		 * 描画パスのリストを返します。
+		 * 
+		 * @return 描画パスのリスト
+		 */
+		public List<Pass> getPasses() {
+			return mPasses;
+		}
+
+		/**
+		 * 描画パスの数を返します。
+		 * 
+		 * @return 描画パスの数
+		 */
+		public int getPassCount() {
+			return mPasses.size();
+		}
+
+		@Override
+		public String toString() {
+			return mPasses.toString();
+		}
+
+	}
+
+	/**
+	 * 1 回の描画で処理される描画パスを表します。
+	 */
+	public static final class Pass {
+
+		private final List<GLES20Shader> mShaders;
+		private final List<String> mPrefixes;
+		private final String mFragmentShaderSource;
+
+		Pass(final List<GLES20Shader> shaders, final List<String> prefixes, final String fragmentShaderSource) {
+			mShaders = Collections.unmodifiableList(shaders);
+			mPrefixes = prefixes == null ? null : Collections.unmodifiableList(prefixes);
+			mFragmentShaderSource = fragmentShaderSource;
+		}
+
+		/**
+		 * この描画パスで処理されるシェーダーのリストを返します。
+		 * 
+		 * @return シェーダーのリスト
+		 */
+		public List<GLES20Shader> getShaders() {
+			return mShaders;
+		}
+
+		/**
+		 * 複数のシェーダーを融合した描画パスかどうかを返します。
+		 * 
+		 * @return 融合した描画パスかどうか
+		 */
+		public boolean isFused() {
+			return mFragmentShaderSource != null;
+		}
+
+		/**
+		 * 融合した描画パスの場合に、指定されたステージの変数名の接頭辞を返します。
+		 * 
+		 * @param index ステージのインデックス
+		 * @return 変数名の接頭辞。融合していない描画パスの場合は {@code null}
+		 */
+		public String getPrefix(final int index) {
+			return mPrefixes == null ? null : mPrefixes.get(index);
+		}
+
+		/**
+		 * 融合した描画パスの場合に、生成したフラグメントシェーダーのソースコードを返します。
+		 * 
+		 * @return フラグメントシェーダーのソースコード。融合していない描画パスの場合は {@code null}
+		 */
+		public String getFragmentShaderSource() {
+			return mFragmentShaderSource;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			if (isFused()) {
+				sb.append("fused(");
+			}
+			for (int i = 0; i < mShaders.size(); i++) {
+				if (i > 0) {
+					sb.append(", ");
+				}
+				sb.append(mShaders.get(i).getClass().getSimpleName());
+			}
+			if (isFused()) {
+				sb.append(')');
+			}
+			return sb.toString();
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -17,6 +17,8 @@ import android.annotation.TargetApi;
 import android.os.Build;
 import android.util.Pair;
 
+import com.orangesignal.android.graphics.FrameTimingRecorder;
+
 /**
  * 複数のシェーダーオブジェクトを管理する OpenGL ES 2.0 向けのシェーダーオブジェクト管理クラスを提供します。
  * 
@@ -35,6 +37,26 @@ public class GLES20ShaderGroup extends GLES20Shader {
 	 */
 	private final ArrayList<Pair<GLES20Shader, GLES20FramebufferObject>> mList = new ArrayList<Pair<GLES20Shader, GLES20FramebufferObject>>();
 
+	/**
+	 * 描画パス間で交互に使用するフレームバッファオブジェクトのリストを保持します。
+	 */
+	private final ArrayList<GLES20FramebufferObject> mFramebufferObjects = new ArrayList<GLES20FramebufferObject>();
+
+	/**
+	 * 連続する {@link GLES20PointwiseShader} を融合するかどうかを保持します。
+	 */
+	private boolean mFusionEnabled = true;
+
+	/**
+	 * 描画パスの計画を保持します。
+	 */
+	private GLES20ShaderGraphCompiler.Plan mPlan;
+
+	/**
+	 * 描画パス単位の所要時間の記録に使用する {@link FrameTimingRecorder} を保持します。
+	 */
+	private FrameTimingRecorder mFrameTimingRecorder;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -56,6 +78,82 @@ public class GLES20ShaderGroup extends GLES20Shader {
 		mShaders = shaders;
 	}
 
+	//////////////////////////////////////////////////////////////////////////
+	// セッター / ゲッター
+
+	/**
+	 * 連続する {@link GLES20PointwiseShader} を 1 つのプログラムへ融合して描画するかどうかを設定します。<p>
+	 * 設定は次回の {@link #setup()} から有効になります。デフォルトは {@code true} です。
+	 * 
+	 * @param enabled 融合するかどうか
+	 */
+	public void setFusionEnabled(final boolean enabled) {
+		mFusionEnabled = enabled;
+	}
+
+	/**
+	 * 連続する {@link GLES20PointwiseShader} を融合して描画するかどうかを返します。
+	 * 
+	 * @return 融合するかどうか
+	 */
+	public boolean isFusionEnabled() {
+		return mFusionEnabled;
+	}
+
+	/**
+	 * 描画パス単位の所要時間の記録に使用する {@link FrameTimingRecorder} を設定します。<p>
+	 * 各描画パスは {@link FrameTimingRecorder#getShaderPassStage(int)} のステージとして記録されます。
+	 * 
+	 * @param recorder フレームの計測に使用する {@link FrameTimingRecorder}。または {@code null}
+	 */
+	public void setFrameTimingRecorder(final FrameTimingRecorder recorder) {
+		mFrameTimingRecorder = recorder;
+	}
+
+	/**
+	 * 描画パス単位の所要時間の記録に使用する {@link FrameTimingRecorder} を返します。
+	 * 
+	 * @return フレームの計測に使用する {@link FrameTimingRecorder}。または {@code null}
+	 */
+	public FrameTimingRecorder getFrameTimingRecorder() {
+		return mFrameTimingRecorder;
+	}
+
+	/**
+	 * 最後の {@link #setup()} で構築した描画パスの計画を返します。
+	 * 
+	 * @return 描画パスの計画。または {@code null}
+	 */
+	public GLES20ShaderGraphCompiler.Plan getPlan() {
+		return mPlan;
+	}
+
+	/**
+	 * このシェーダーグループが描画パス間の受け渡しのために確保しているフレームバッファオブジェクトのおおよそのバイト数を返します。
+	 * 
+	 * @return バイト数
+	 * @see GLES20FramebufferObject#getMemorySize()
+	 */
+	public long getFramebufferMemorySize() {
+		long size = 0;
+		for (final GLES20FramebufferObject fbo : mFramebufferObjects) {
+			size += fbo.getMemorySize();
+		}
+		return size;
+	}
+
+	/**
+	 * 指定された数の描画パスを処理するために必要なフレームバッファオブジェクトの数を返します。<p>
+	 * 各描画パスは直前の描画パスの出力のみを読み込み、最後の描画パスは呼び出し元のフレームバッファへ描画するため、
+	 * 2 つのフレームバッファオブジェクトを交互に使用すれば足ります。
+	 * 
+	 * @param passCount 描画パスの数
+	 * @return フレームバッファオブジェクトの数
+	 */
+	public static int getFramebufferCount(final int passCount) {
+		return Math.max(0, Math.min(passCount - 1, 2));
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 
 	@Override
@@ -63,17 +161,35 @@ public class GLES20ShaderGroup extends GLES20Shader {
 		super.setup();
 
 		if (mShaders != null) {
+			// 描画パスの計画を構築します。
+			mPlan = GLES20ShaderGraphCompiler.compile(mShaders, mFusionEnabled);
+
 			// シェーダーとフレームバッファオブジェクトのリストを構築します。
-			final int max = mShaders.size();
+			final int max = mPlan.getPassCount();
 			int count = 0;
 
-			for (final GLES20Shader shader : mShaders) {
-				shader.setup();
+			// 描画パス間で交互に使用するフレームバッファオブジェクトを構築します。
+			// 2D の描画のみを行うため深度バッファはアタッチしません。
+			final int framebufferCount = getFramebufferCount(max);
+			for (int i = 0; i < framebufferCount; i++) {
+				mFramebufferObjects.add(new GLES20FramebufferObject(false));
+			}
+
+			for (final GLES20ShaderGraphCompiler.Pass pass : mPlan.getPasses()) {
+				final GLES20Shader shader;
+				if (pass.isFused()) {
+					shader = new GLES20FusedShader(pass);
+				} else {
+					shader = pass.getShaders().get(0);
+				}
+				if (shader != null) {
+					shader.setup();
+				}
 
 				// 最後のシェーダーにはフレームバッファオブジェクトを装着しません。
 				final GLES20FramebufferObject fbo;
 				if ((count + 1) < max) {
-					fbo = new GLES20FramebufferObject();
+					fbo = mFramebufferObjects.get(count % framebufferCount);
 				} else {
 					fbo = null;
 				}
@@ -89,11 +205,12 @@ public class GLES20ShaderGroup extends GLES20Shader {
 			if (pair.first != null) {
 				pair.first.release();
 			}
-			if (pair.second != null) {
-				pair.second.release();
-			}
 		}
 		mList.clear();
+		for (final GLES20FramebufferObject fbo : mFramebufferObjects) {
+			fbo.release();
+		}
+		mFramebufferObjects.clear();
 		super.release();
 	}
 
@@ -105,9 +222,9 @@ public class GLES20ShaderGroup extends GLES20Shader {
 			if (pair.first != null) {
 				pair.first.setFrameSize(width, height);
 			}
-			if (pair.second != null) {
-				pair.second.setup(width, height);
-			}
+		}
+		for (final GLES20FramebufferObject fbo : mFramebufferObjects) {
+			fbo.setup(width, height);
 		}
 	}
 
@@ -117,7 +234,12 @@ public class GLES20ShaderGroup extends GLES20Shader {
 	public void draw(final int texName, final GLES20FramebufferObject fbo) {
 		mPrevTexName = texName;
 		// シェーダー単位に処理を行います。
-		for (final Pair<GLES20Shader, GLES20FramebufferObject> pair : mList) {
+		// 描画の度にイテレーターを生成しないように添字でアクセスします。
+		final FrameTimingRecorder recorder = mFrameTimingRecorder;
+		final int size = mList.size();
+		for (int i = 0; i < size; i++) {
+			final Pair<GLES20Shader, GLES20FramebufferObject> pair = mList.get(i);
+			final long start = FrameTimingRecorder.now();
 			// 最後以外のシェーダーの場合
 			if (pair.second != null) {
 				// 描画します。
@@ -143,6 +265,8 @@ public class GLES20ShaderGroup extends GLES20Shader {
 					pair.first.draw(mPrevTexName, fbo);
 				}
 			}
+
+			GLES20Utils.recordFrameTiming(recorder, FrameTimingRecorder.getShaderPassStage(i), start);
 		}
 	}
 
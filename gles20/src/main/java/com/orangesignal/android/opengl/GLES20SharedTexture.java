@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+import android.annotation.TargetApi;
+import android.content.res.Resources;
+import android.os.Build;
+
+/**
+ * {@link GLES20TextureCache} で共有するテクスチャを参照する {@link Texture} の実装を提供します。<p>
+ * {@link #setup()} で現在の EGL コンテキストのキャッシュからテクスチャを取得し、{@link #release()} でキャッシュへ返却します。
+ * そのため {@link GLES20TwoInputShader} などのシェーダーのライフサイクルで呼び出されても、同じキーの画像はデコードと転送を一度だけ行います。
+ * 
+ * <pre>
+ * shader = new GLES20AlphaBlendShader(GLES20SharedTexture.fromResource(getResources(), R.drawable.overlay));
+ * </pre>
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20SharedTexture implements Texture {
+
+	/**
+	 * キーを保持します。
+	 */
+	private final String mKey;
+
+	/**
+	 * キャッシュされていない場合にテクスチャオブジェクトを生成する {@link GLES20TextureCache.TextureFactory} を保持します。
+	 */
+	private final GLES20TextureCache.TextureFactory mFactory;
+
+	/**
+	 * テクスチャを取得したキャッシュを保持します。
+	 */
+	private GLES20TextureCache mCache;
+
+	/**
+	 * キャッシュから取得したテクスチャを保持します。
+	 */
+	private Texture mTexture;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * 指定されたキーでテクスチャを共有する、このクラスを構築するコンストラクタです。
+	 * 
+	 * @param key キー
+	 * @param factory キャッシュされていない場合にテクスチャオブジェクトを生成する {@link GLES20TextureCache.TextureFactory}
+	 */
+	public GLES20SharedTexture(final String key, final GLES20TextureCache.TextureFactory factory) {
+		if (key == null) {
+			throw new IllegalArgumentException("Key must not be null");
+		}
+		if (factory == null) {
+			throw new IllegalArgumentException("TextureFactory must not be null");
+		}
+		mKey = key;
+		mFactory = factory;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 指定された画像リソースを共有するテクスチャを返します。<p>
+	 * キャッシュされていない場合は {@link GLES20ImageResourceTexture} でワーカースレッドからデコードします。
+	 * 
+	 * @param res {@link Resources} オブジェクト
+	 * @param resId 画像リソース ID
+	 * @return テクスチャ
+	 */
+	public static GLES20SharedTexture fromResource(final Resources res, final int resId) {
+		return new GLES20SharedTexture(GLES20TextureCache.createResourceKey(resId), new GLES20TextureCache.TextureFactory() {
+			@Override
+			public Texture newTexture() {
+				final GLES20ImageResourceTexture texture = new GLES20ImageResourceTexture(res, resId);
+				texture.prepareAsync();
+				return texture;
+			}
+		});
+	}
+
+	/**
+	 * 指定された画像ファイルを共有するテクスチャを返します。<p>
+	 * キャッシュされていない場合は {@link GLES20ImageResourceTexture} でワーカースレッドからデコードします。
+	 * 
+	 * @param file 画像ファイル
+	 * @return テクスチャ
+	 */
+	public static GLES20SharedTexture fromFile(final File file) {
+		return new GLES20SharedTexture(GLES20TextureCache.createFileKey(file), new GLES20TextureCache.TextureFactory() {
+			@Override
+			public Texture newTexture() {
+				final GLES20ImageResourceTexture texture;
+				try {
+					texture = new GLES20ImageResourceTexture(file);
+				} catch (final FileNotFoundException e) {
+					throw new IllegalStateException(e);
+				}
+				texture.prepareAsync();
+				return texture;
+			}
+		});
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// セッター / ゲッター
+
+	/**
+	 * キーを返します。
+	 * 
+	 * @return キー
+	 */
+	public String getKey() {
+		return mKey;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void setup() {
+		release();
+		mCache = GLES20ContextState.getCurrent().getTextureCache();
+		mTexture = mCache.obtain(mKey, mFactory);
+	}
+
+	@Override
+	public void release() {
+		if (mTexture != null) {
+			mCache.release(mTexture);
+			mTexture = null;
+			mCache = null;
+		}
+	}
+
+	/**
+	 * 共有するテクスチャが非同期に読み込まれる画像データの場合、読み込みが完了していればテクスチャへ転送します。
+	 * 
+	 * @return テクスチャを転送した場合は {@code true}
+	 * @see GLES20ImageTexture#updateTexImage()
+	 */
+	public boolean updateTexImage() {
+		return mTexture instanceof GLES20ImageTexture && ((GLES20ImageTexture) mTexture).updateTexImage();
+	}
+
+	@Override
+	public int getTexName() {
+		return mTexture != null ? mTexture.getTexName() : 0;
+	}
+
+	@Override
+	public int getWidth() {
+		return mTexture != null ? mTexture.getWidth() : 0;
+	}
+
+	@Override
+	public int getHeight() {
+		return mTexture != null ? mTexture.getHeight() : 0;
+	}
+
+}
\ No newline at end of file
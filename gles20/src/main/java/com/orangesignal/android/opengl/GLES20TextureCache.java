@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+
+/**
+ * 合成や重ね合わせに使用する画像のテクスチャを、キーを指定して複数のシェーダーで共有するキャッシュを提供します。<p>
+ * キャッシュは EGL コンテキスト単位に {@link GLES20ContextState#getTextureCache()} で取得します。
+ * 同じキーのテクスチャは参照カウントで共有し、参照されなくなったテクスチャは確保しているバイト数の合計が
+ * {@link #setMaxBytes(long)} で設定した上限を超えない範囲で最近使用した順に保持されます。
+ * そのため、同じ画像を使用するフィルターを切り替える場合に、画像のデコードとテクスチャの転送を再度行う必要がありません。<p>
+ * キーには {@link #createResourceKey(int)}、{@link #createFileKey(File)} または {@link #createContentKey(byte[])} を使用します。
+ * シェーダーからは {@link GLES20SharedTexture} を通して使用します。<p>
+ * このクラスのメソッドは GL スレッドから呼び出す必要があります。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public final class GLES20TextureCache {
+
+	/**
+	 * キャッシュされていない場合にテクスチャオブジェクトを生成するためのインタフェースです。
+	 */
+	public interface TextureFactory {
+
+		/**
+		 * 構成前のテクスチャオブジェクトを生成します。<p>
+		 * 生成したテクスチャオブジェクトはキャッシュによって {@link Texture#setup()} が呼び出されます。
+		 * 
+		 * @return テクスチャオブジェクト
+		 */
+		Texture newTexture();
+
+	}
+
+	/**
+	 * 参照されていないテクスチャを保持するデフォルトの最大バイト数です。
+	 */
+	public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+	//////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * キャッシュされたテクスチャを表します。
+	 */
+	private static final class Entry {
+
+		final String key;
+		final Texture texture;
+		int refCount;
+
+		Entry(final String key, final Texture texture) {
+			this.key = key;
+			this.texture = texture;
+		}
+
+		long getMemorySize() {
+			return GLES20FramebufferObject.computeMemorySize(texture.getWidth(), texture.getHeight(), false);
+		}
+
+	}
+
+	/**
+	 * キーとエントリのマッピングを、最近使用した順に保持します。
+	 */
+	private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * テクスチャオブジェクトとエントリのマッピングを保持します。
+	 */
+	private final IdentityHashMap<Texture, Entry> mTextures = new IdentityHashMap<Texture, Entry>();
+
+	/**
+	 * 参照されていないテクスチャを含めて保持する最大バイト数を保持します。
+	 */
+	private long mMaxBytes;
+
+	/**
+	 * EGL コンテキストが破棄され、テクスチャを破棄してはいけないかどうかを保持します。
+	 */
+	private boolean mDiscarded;
+
+	private int mHitCount;
+	private int mMissCount;
+	private int mEvictionCount;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * コンストラクタです。
+	 */
+	GLES20TextureCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param maxBytes 参照されていないテクスチャを含めて保持する最大バイト数
+	 */
+	GLES20TextureCache(final long maxBytes) {
+		mMaxBytes = maxBytes;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 指定された画像リソースのキーを返します。
+	 * 
+	 * @param resId 画像リソース ID
+	 * @return キー
+	 */
+	public static String createResourceKey(final int resId) {
+		return "res:" + resId;
+	}
+
+	/**
+	 * 指定された画像ファイルのキーを返します。<p>
+	 * ファイルが更新された場合に異なるキーとなるように、最終更新日時とサイズをキーに含めます。
+	 * 
+	 * @param file 画像ファイル
+	 * @return キー
+	 */
+	public static String createFileKey(final File file) {
+		return "file:" + file.getAbsolutePath() + "@" + file.lastModified() + ":" + file.length();
+	}
+
+	/**
+	 * 指定された画像データの SHA-1 ハッシュのキーを返します。
+	 * 
+	 * @param data 画像データ
+	 * @return キー
+	 */
+	public static String createContentKey(final byte[] data) {
+		try {
+			final byte[] hash = MessageDigest.getInstance("SHA-1").digest(data);
+			final StringBuilder sb = new StringBuilder(5 + hash.length * 2).append("sha1:");
+			for (final byte b : hash) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// パブリック メソッド
+
+	/**
+	 * 指定されたキーのテクスチャを返します。<p>
+	 * キャッシュされていない場合は指定された {@link TextureFactory} でテクスチャオブジェクトを生成して構成します。
+	 * 返されたテクスチャは参照カウントが加算されるため、使用しなくなった場合は {@link #release(Texture)} を呼び出す必要があります。
+	 * 返されたテクスチャの {@link Texture#setup()} や {@link Texture#release()} を呼び出してはいけません。
+	 * 画像データの読み込みに失敗した {@link GLES20ImageTexture} はキャッシュから取り除き、新しく生成して読み込み直します。
+	 * 
+	 * @param key キー
+	 * @param factory テクスチャオブジェクトを生成する {@link TextureFactory}
+	 * @return テクスチャ
+	 */
+	public synchronized Texture obtain(final String key, final TextureFactory factory) {
+		Entry entry = mEntries.get(key);
+		if (entry != null && isFailed(entry.texture)) {
+			mEntries.remove(key);
+			mTextures.remove(entry.texture);
+			entry.texture.release();
+			entry = null;
+		}
+		if (entry != null) {
+			mHitCount++;
+		} else {
+			mMissCount++;
+			final Texture texture = factory.newTexture();
+			texture.setup();
+			entry = new Entry(key, texture);
+			mEntries.put(key, entry);
+			mTextures.put(texture, entry);
+		}
+		entry.refCount++;
+		trim(mMaxBytes);
+		return entry.texture;
+	}
+
+	/**
+	 * 指定されたテクスチャの参照カウントを減算します。<p>
+	 * 参照されなくなったテクスチャは直ちに破棄されずに、最近使用した順に保持されます。
+	 * 
+	 * @param texture {@link #obtain(String, TextureFactory)} で取得したテクスチャ
+	 */
+	public synchronized void release(final Texture texture) {
+		final Entry entry = mTextures.get(texture);
+		if (entry == null || entry.refCount == 0) {
+			return;
+		}
+		entry.refCount--;
+		// 最近使用したものとして扱います。
+		mEntries.get(entry.key);
+		trim(mMaxBytes);
+	}
+
+	/**
+	 * 参照されていないテクスチャを含めて保持する最大バイト数を設定します。<p>
+	 * 参照されているテクスチャは上限を超えても破棄しません。デフォルトは {@link #DEFAULT_MAX_BYTES} です。
+	 * 
+	 * @param maxBytes 最大バイト数
+	 */
+	public synchronized void setMaxBytes(final long maxBytes) {
+		mMaxBytes = maxBytes;
+		trim(maxBytes);
+	}
+
+	/**
+	 * 参照されていないテクスチャを含めて保持する最大バイト数を返します。
+	 * 
+	 * @return 最大バイト数
+	 */
+	public synchronized long getMaxBytes() {
+		return mMaxBytes;
+	}
+
+	/**
+	 * 参照されていないテクスチャを全て破棄します。
+	 */
+	public synchronized void trimToSize() {
+		// 転送が完了していない 0 バイトのテクスチャも破棄します。
+		trim(-1);
+	}
+
+	/**
+	 * キャッシュしているテクスチャの数を返します。
+	 * 
+	 * @return テクスチャの数
+	 */
+	public synchronized int getTextureCount() {
+		return mEntries.size();
+	}
+
+	/**
+	 * キャッシュしているテクスチャが確保しているおおよそのバイト数の合計を返します。<p>
+	 * 非同期に読み込み中のテクスチャは、転送が完了するまで {@code 0} バイトとして計算します。
+	 * 
+	 * @return バイト数
+	 * @see GLES20FramebufferObject#computeMemorySize(int, int, boolean)
+	 */
+	public synchronized long getResidentBytes() {
+		long size = 0;
+		for (final Entry entry : mEntries.values()) {
+			size += entry.getMemorySize();
+		}
+		return size;
+	}
+
+	/**
+	 * キャッシュからテクスチャを取得できた回数を返します。
+	 * 
+	 * @return キャッシュからテクスチャを取得できた回数
+	 */
+	public synchronized int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * テクスチャを生成した回数を返します。
+	 * 
+	 * @return テクスチャを生成した回数
+	 */
+	public synchronized int getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * キャッシュからテクスチャを取得できた割合を返します。
+	 * 
+	 * @return 0 から 1 までの割合。一度も取得していない場合は {@code 0}
+	 */
+	public synchronized float getHitRate() {
+		final int total = mHitCount + mMissCount;
+		return total == 0 ? 0f : (float) mHitCount / total;
+	}
+
+	/**
+	 * 上限を超えたためにテクスチャを破棄した回数を返します。
+	 * 
+	 * @return テクスチャを破棄した回数
+	 */
+	public synchronized int getEvictionCount() {
+		return mEvictionCount;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private static boolean isFailed(final Texture texture) {
+		return texture instanceof GLES20ImageTexture && ((GLES20ImageTexture) texture).getError() != null;
+	}
+
+	private void trim(final long maxBytes) {
+		if (mDiscarded) {
+			return;
+		}
+		long size = getResidentBytes();
+		// 最も長く使用されていないものから破棄します。
+		final Iterator<Entry> it = mEntries.values().iterator();
+		while (size > maxBytes && it.hasNext()) {
+			final Entry entry = it.next();
+			if (entry.refCount == 0) {
+				size -= entry.getMemorySize();
+				it.remove();
+				mTextures.remove(entry.texture);
+				entry.texture.release();
+				mEvictionCount++;
+			}
+		}
+	}
+
+	/**
+	 * EGL コンテキストが失われたものとして、テクスチャを破棄せずに全てのエントリを取り除きます。
+	 */
+	synchronized void discard() {
+		mDiscarded = true;
+		mEntries.clear();
+		mTextures.clear();
+	}
+
+}
\ No newline at end of file
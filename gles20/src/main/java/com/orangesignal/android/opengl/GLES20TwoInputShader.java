@@ -4,25 +4,21 @@
 
 package com.orangesignal.android.opengl;
 
-import static android.opengl.GLES20.GL_ARRAY_BUFFER;
-import static android.opengl.GLES20.GL_FLOAT;
 import static android.opengl.GLES20.GL_TEXTURE0;
 import static android.opengl.GLES20.GL_TEXTURE1;
 import static android.opengl.GLES20.GL_TEXTURE_2D;
 import static android.opengl.GLES20.GL_TRIANGLE_STRIP;
 import static android.opengl.GLES20.glActiveTexture;
-import static android.opengl.GLES20.glBindBuffer;
 import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glDisableVertexAttribArray;
 import static android.opengl.GLES20.glDrawArrays;
-import static android.opengl.GLES20.glEnableVertexAttribArray;
 import static android.opengl.GLES20.glUniform1i;
-import static com.orangesignal.android.opengl.GLES20Compat.glVertexAttribPointer;
 import android.annotation.TargetApi;
 import android.os.Build;
 
 /**
- * 合成するテクスチャを指定可能な OpenGL ES 2.0 向けのシェーダーオブジェクト管理クラスを提供します。
+ * 合成するテクスチャを指定可能な OpenGL ES 2.0 向けのシェーダーオブジェクト管理クラスを提供します。<p>
+ * 合成するテクスチャはシェーダーと同じライフサイクルで構成および破棄されます。
+ * 同じ画像を複数のシェーダーで使用する場合は {@link GLES20SharedTexture} を指定すると、画像のデコードと転送が共有されます。
  * 
  * @author 杉澤 浩二
  */
@@ -33,6 +29,11 @@ public abstract class GLES20TwoInputShader extends GLES20Shader {
 
 	private final Texture mTexture;
 
+	private int mPositionHandle = -1;
+	private int mTextureCoordHandle = -1;
+	private int mSamplerHandle = -1;
+	private int mSampler2Handle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -64,31 +65,34 @@ public abstract class GLES20TwoInputShader extends GLES20Shader {
 		super.release();
 	}
 
+	@Override
+	protected void onSetupHandles() {
+		mPositionHandle = getHandle(DEFAULT_ATTRIB_POSITION);
+		mTextureCoordHandle = getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE);
+		mSamplerHandle = getHandle(DEFAULT_UNIFORM_SAMPLER);
+		mSampler2Handle = getHandle(UNIFORM_SAMPLER2);
+	}
+
 	@Override
 	public void draw(final int texName, final GLES20FramebufferObject fbo) {
 		useProgram();
 
-		glBindBuffer(GL_ARRAY_BUFFER, getVertexBufferName());
-		glEnableVertexAttribArray(getHandle(DEFAULT_ATTRIB_POSITION));
-		glVertexAttribPointer(getHandle(DEFAULT_ATTRIB_POSITION), VERTICES_DATA_POS_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_POS_OFFSET);
-		glEnableVertexAttribArray(getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE));
-		glVertexAttribPointer(getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE), VERTICES_DATA_UV_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_UV_OFFSET);
+		bindVertexAttributes(mPositionHandle, mTextureCoordHandle);
 
 		glActiveTexture(GL_TEXTURE0);
 		glBindTexture(GL_TEXTURE_2D, texName);
-		glUniform1i(getHandle(DEFAULT_UNIFORM_SAMPLER), 0);
+		glUniform1i(mSamplerHandle, 0);
 
+		// 非同期に読み込まれる画像データは、完了していれば描画の前に転送します。
+		GLES20Utils.updateTexImage(mTexture);
 		glActiveTexture(GL_TEXTURE1);
 		glBindTexture(GL_TEXTURE_2D, mTexture.getTexName());
-		glUniform1i(getHandle(UNIFORM_SAMPLER2), 1);
+		glUniform1i(mSampler2Handle, 1);
 
 		onDraw();
 
 		glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
 
-		glDisableVertexAttribArray(getHandle(DEFAULT_ATTRIB_POSITION));
-		glDisableVertexAttribArray(getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE));
-		glBindBuffer(GL_ARRAY_BUFFER, 0);
 		glBindTexture(GL_TEXTURE_2D, 0);
 	}
 
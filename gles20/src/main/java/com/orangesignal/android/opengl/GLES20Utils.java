@@ -25,6 +25,7 @@ import static android.opengl.GLES20.glCreateProgram;
 import static android.opengl.GLES20.glCreateShader;
 import static android.opengl.GLES20.glDeleteProgram;
 import static android.opengl.GLES20.glDeleteShader;
+import static android.opengl.GLES20.glFinish;
 import static android.opengl.GLES20.glGenBuffers;
 import static android.opengl.GLES20.glGetError;
 import static android.opengl.GLES20.glGetProgramInfoLog;
@@ -39,6 +40,7 @@ import static android.opengl.GLES20.glTexParameteri;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 import android.annotation.TargetApi;
 import android.graphics.Bitmap;
@@ -53,6 +55,8 @@ import android.os.Build;
 import android.util.Log;
 
 import com.orangesignal.android.camera.BuildConfig;
+import com.orangesignal.android.graphics.FrameTimingRecorder;
+import com.orangesignal.android.graphics.PixelDataUtils;
 
 /**
  * OpenGL ES 2.0 に関するユーティリティを提供します。
@@ -290,6 +294,73 @@ public final class GLES20Utils {
 	@TargetApi(Build.VERSION_CODES.ECLAIR)
 	private static native void texImage2D(int target, int level, int width, int height, int border, int[] pixels);
 
+	/**
+	 * 指定された {@link Bitmap} のピクセルデータを、{@code glTexImage2D} へ {@code GL_RGBA} / {@code GL_UNSIGNED_BYTE} として渡せるダイレクトバッファへ変換します。<p>
+	 * 行は下から順に格納するため、上下を反転するための描画を行わずに OpenGL のテクスチャ座標 (左下が原点) でそのまま参照できます。
+	 * このメソッドは GL のコマンドを発行しないため、任意のスレッドから呼び出せます。
+	 * 
+	 * @param bitmap {@link Bitmap} オブジェクト
+	 * @return 変換したピクセルデータを格納したダイレクトバッファ
+	 */
+	public static ByteBuffer toRGBABuffer(final Bitmap bitmap) {
+		final int width = bitmap.getWidth();
+		final int height = bitmap.getHeight();
+		final ByteBuffer buffer = toByteBuffer(width * height * 4).order(ByteOrder.nativeOrder());
+		final IntBuffer dst = buffer.asIntBuffer();
+
+		// 画像全体の配列を確保せずに 1 行ずつ変換します。
+		final int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			bitmap.getPixels(row, 0, width, 0, y, width, 1);
+			PixelDataUtils.argbToRgba(row, 0, width, buffer.order());
+			dst.position((height - 1 - y) * width);
+			dst.put(row, 0, width);
+		}
+		buffer.position(0);
+		return buffer;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// Texture
+
+	/**
+	 * 指定されたテクスチャが非同期に読み込まれる画像データの場合、読み込みが完了していればテクスチャへ転送します。<p>
+	 * 読み込みに失敗した場合は例外をスローせずに、失敗は {@link GLES20ImageTexture#getError()} で参照できます。
+	 * このメソッドは GL スレッドから呼び出す必要があります。
+	 * 
+	 * @param texture テクスチャ。{@code null} の場合は何も行いません
+	 * @return テクスチャを転送した場合は {@code true}
+	 */
+	public static boolean updateTexImage(final Texture texture) {
+		if (texture instanceof GLES20SharedTexture) {
+			return ((GLES20SharedTexture) texture).updateTexImage();
+		}
+		if (texture instanceof GLES20ImageTexture) {
+			return ((GLES20ImageTexture) texture).updateTexImage();
+		}
+		return false;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// Frame timing
+
+	/**
+	 * 指定された開始時刻から現在までの時間を、指定されたステージの時間として記録します。<p>
+	 * {@link FrameTimingRecorder#isGpuSyncEnabled()} が {@code true} の場合は、GPU の処理の完了を待ってから記録します。
+	 * 
+	 * @param recorder 記録先。{@code null} の場合は何も行いません
+	 * @param stage ステージ
+	 * @param startNanos {@link FrameTimingRecorder#now()} で取得した開始時刻 (ナノ秒)
+	 */
+	public static void recordFrameTiming(final FrameTimingRecorder recorder, final int stage, final long startNanos) {
+		if (recorder != null) {
+			if (recorder.isGpuSyncEnabled()) {
+				glFinish();
+			}
+			recorder.record(stage, startNanos);
+		}
+	}
+
 	//////////////////////////////////////////////////////////////////////////
 	// Bitmap
 
@@ -47,6 +47,8 @@ import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
+import com.orangesignal.android.graphics.FrameTimingRecorder;
+
 /**
  * An implementation of SurfaceView that uses the dedicated surface for
  * displaying OpenGL rendering.
@@ -349,6 +351,27 @@ public class GLSurfaceView extends SurfaceView implements SurfaceHolder.Callback
 		return mPreserveEGLContextOnPause;
 	}
 
+	/**
+	 * Set the recorder used to measure frame timing.
+	 * <p>
+	 * If a recorder is set, the rendering thread measures each frame from the call to
+	 * {@link Renderer#onDrawFrame(GL10)} until the buffers have been swapped, and records
+	 * the buffer swap as {@link FrameTimingRecorder#STAGE_SWAP}.
+	 * <p>
+	 * The default value is null.
+	 * @param recorder the recorder, or null to stop measuring
+	 */
+	public void setFrameTimingRecorder(final FrameTimingRecorder recorder) {
+		mFrameTimingRecorder = recorder;
+	}
+
+	/**
+	 * @return the recorder used to measure frame timing, or null
+	 */
+	public FrameTimingRecorder getFrameTimingRecorder() {
+		return mFrameTimingRecorder;
+	}
+
 	/**
 	 * Set the renderer associated with this view. Also starts the thread that
 	 * will call the renderer, which in turn causes the rendering to start.
@@ -1354,13 +1377,23 @@ public class GLSurfaceView extends SurfaceView implements SurfaceHolder.Callback
 					if (LOG_RENDERER_DRAW_FRAME) {
 						Log.w("GLThread", "onDrawFrame tid=" + getId());
 					}
+					FrameTimingRecorder recorder = null;
 					{
 						final GLSurfaceView view = mGLSurfaceViewWeakRef.get();
 						if (view != null) {
+							recorder = view.mFrameTimingRecorder;
+							if (recorder != null) {
+								recorder.beginFrame();
+							}
 							view.mRenderer.onDrawFrame(gl);
 						}
 					}
+					final long swapStart = FrameTimingRecorder.now();
 					final int swapError = mEglHelper.swap();
+					if (recorder != null) {
+						recorder.record(FrameTimingRecorder.STAGE_SWAP, swapStart);
+						recorder.endFrame();
+					}
 					switch (swapError) {
 						case EGL_SUCCESS:
 							break;
@@ -1728,4 +1761,5 @@ public class GLSurfaceView extends SurfaceView implements SurfaceHolder.Callback
 	private int mDebugFlags;
 	private int mEGLContextClientVersion;
 	private boolean mPreserveEGLContextOnPause;
+	private volatile FrameTimingRecorder mFrameTimingRecorder;
 }
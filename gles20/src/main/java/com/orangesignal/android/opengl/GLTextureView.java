@@ -38,6 +38,8 @@ import android.util.AttributeSet;
 import android.util.Log;
 import android.view.TextureView;
 
+import com.orangesignal.android.graphics.FrameTimingRecorder;
+
 import com.orangesignal.android.opengl.GLSurfaceView.EGLConfigChooser;
 import com.orangesignal.android.opengl.GLSurfaceView.EGLContextFactory;
 import com.orangesignal.android.opengl.GLSurfaceView.EGLWindowSurfaceFactory;
@@ -205,6 +207,27 @@ public class GLTextureView extends TextureView implements TextureView.SurfaceTex
 		return mPreserveEGLContextOnPause;
 	}
 
+	/**
+	 * Set the recorder used to measure frame timing.
+	 * <p>
+	 * If a recorder is set, the rendering thread measures each frame from the call to
+	 * {@link Renderer#onDrawFrame(GL10)} until the buffers have been swapped, and records
+	 * the buffer swap as {@link FrameTimingRecorder#STAGE_SWAP}.
+	 * <p>
+	 * The default value is null.
+	 * @param recorder the recorder, or null to stop measuring
+	 */
+	public void setFrameTimingRecorder(final FrameTimingRecorder recorder) {
+		mFrameTimingRecorder = recorder;
+	}
+
+	/**
+	 * @return the recorder used to measure frame timing, or null
+	 */
+	public FrameTimingRecorder getFrameTimingRecorder() {
+		return mFrameTimingRecorder;
+	}
+
 	/**
 	 * Set the renderer associated with this view. Also starts the thread that
 	 * will call the renderer, which in turn causes the rendering to start.
@@ -1060,13 +1083,23 @@ public class GLTextureView extends TextureView implements TextureView.SurfaceTex
 					if (LOG_RENDERER_DRAW_FRAME) {
 						Log.w("GLThread", "onDrawFrame tid=" + getId());
 					}
+					FrameTimingRecorder recorder = null;
 					{
 						final GLTextureView view = mGLSurfaceViewWeakRef.get();
 						if (view != null) {
+							recorder = view.mFrameTimingRecorder;
+							if (recorder != null) {
+								recorder.beginFrame();
+							}
 							view.mRenderer.onDrawFrame(gl);
 						}
 					}
+					final long swapStart = FrameTimingRecorder.now();
 					final int swapError = mEglHelper.swap();
+					if (recorder != null) {
+						recorder.record(FrameTimingRecorder.STAGE_SWAP, swapStart);
+						recorder.endFrame();
+					}
 					switch (swapError) {
 						case EGL_SUCCESS:
 							break;
@@ -1434,4 +1467,5 @@ public class GLTextureView extends TextureView implements TextureView.SurfaceTex
 	private int mDebugFlags;
 	private int mEGLContextClientVersion;
 	private boolean mPreserveEGLContextOnPause;
+	private volatile FrameTimingRecorder mFrameTimingRecorder;
 }
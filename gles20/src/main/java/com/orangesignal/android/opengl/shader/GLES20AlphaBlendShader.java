@@ -33,6 +33,8 @@ public class GLES20AlphaBlendShader extends GLES20TwoInputShader {
 
 	private float mMix = 1f;
 
+	private int mMixturePercentHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -52,9 +54,15 @@ public class GLES20AlphaBlendShader extends GLES20TwoInputShader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		super.onSetupHandles();
+		mMixturePercentHandle = getHandle("mixturePercent");
+	}
+
 	@Override
 	protected void onDraw() {
-		glUniform1f(getHandle("mixturePercent"), mMix);
+		glUniform1f(mMixturePercentHandle, mMix);
 	}
 
 }
\ No newline at end of file
@@ -126,6 +126,10 @@ public class GLES20BilateralShader extends GLES20Shader {
 	private float mTexelHeightOffset = 0.004f;
 	private float mBlurSize = 1.0f;
 
+	private int mTexelWidthOffsetHandle = -1;
+	private int mTexelHeightOffsetHandle = -1;
+	private int mBlurSizeHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -165,11 +169,18 @@ public class GLES20BilateralShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mTexelWidthOffsetHandle = getHandle("texelWidthOffset");
+		mTexelHeightOffsetHandle = getHandle("texelHeightOffset");
+		mBlurSizeHandle = getHandle("blurSize");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("texelWidthOffset"), mTexelWidthOffset);
-		glUniform1f(getHandle("texelHeightOffset"), mTexelHeightOffset);
-		glUniform1f(getHandle("blurSize"), mBlurSize);
+		glUniform1f(mTexelWidthOffsetHandle, mTexelWidthOffset);
+		glUniform1f(mTexelHeightOffsetHandle, mTexelHeightOffset);
+		glUniform1f(mBlurSizeHandle, mBlurSize);
 	}
 
 }
\ No newline at end of file
@@ -46,6 +46,10 @@ public class GLES20BulgeDistortionShader extends GLES20Shader {
 	private float mRadius = 0.25f;
 	private float mScale = 0.5f;
 
+	private int mCenterHandle = -1;
+	private int mRadiusHandle = -1;
+	private int mScaleHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -93,11 +97,18 @@ public class GLES20BulgeDistortionShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mCenterHandle = getHandle("center");
+		mRadiusHandle = getHandle("radius");
+		mScaleHandle = getHandle("scale");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform2f(getHandle("center"), mCenterX, mCenterY);
-		glUniform1f(getHandle("radius"), mRadius);
-		glUniform1f(getHandle("scale"), mScale);
+		glUniform2f(mCenterHandle, mCenterX, mCenterY);
+		glUniform1f(mRadiusHandle, mRadius);
+		glUniform1f(mScaleHandle, mScale);
 	}
 
 }
\ No newline at end of file
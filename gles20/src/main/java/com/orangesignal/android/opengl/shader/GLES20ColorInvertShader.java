@@ -4,25 +4,25 @@
 
 package com.orangesignal.android.opengl.shader;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 import android.annotation.TargetApi;
 import android.os.Build;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20ColorInvertShader extends GLES20Shader {
+public class GLES20ColorInvertShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
-			"void main() {" +
-				"lowp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"gl_FragColor = vec4((1.0 - color.rgb), color.w);" +
-			"}";
+	private static final String STAGE_DECLARATIONS =
+			"";
+
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"color = vec4((1.0 - color.rgb), color.w);";
 
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
@@ -31,7 +31,7 @@ public class GLES20ColorInvertShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20ColorInvertShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 }
\ No newline at end of file
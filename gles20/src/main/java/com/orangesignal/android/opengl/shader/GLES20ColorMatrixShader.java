@@ -9,27 +9,24 @@ import static android.opengl.GLES20.glUniformMatrix4fv;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20ColorMatrixShader extends GLES20Shader {
+public class GLES20ColorMatrixShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying highp vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform lowp mat4 colorMatrix;" +
-			"uniform lowp float intensity;" +
+			"uniform lowp float intensity;";
 
-			"void main() {" +
-				"lowp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"lowp vec4 outputColor = color * colorMatrix;" +
-				"gl_FragColor = (intensity * outputColor) + ((1.0 - intensity) * color);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"lowp vec4 outputColor = color * colorMatrix;" +
+			"color = (intensity * outputColor) + ((1.0 - intensity) * color);";
 
 	private float[] mColorMatrix = new float[]{
 			1f, 0f, 0f, 0f,
@@ -40,6 +37,9 @@ public class GLES20ColorMatrixShader extends GLES20Shader {
 
 	private float mIntensity = 1.0f;
 
+	private int mColorMatrixHandle = -1;
+	private int mIntensityHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -47,7 +47,7 @@ public class GLES20ColorMatrixShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20ColorMatrixShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -71,10 +71,16 @@ public class GLES20ColorMatrixShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mColorMatrixHandle = getHandle("colorMatrix");
+		mIntensityHandle = getHandle("intensity");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniformMatrix4fv(getHandle("colorMatrix"), 0, false, mColorMatrix, 0);
-		glUniform1f(getHandle("intensity"), mIntensity);
+		glUniformMatrix4fv(mColorMatrixHandle, 0, false, mColorMatrix, 0);
+		glUniform1f(mIntensityHandle, mIntensity);
 	}
 
 }
\ No newline at end of file
@@ -63,6 +63,9 @@ public class GLES20ColorPackingShader extends GLES20Shader {
 	private float mTexelWidth = 0.5f / 64f;//1024f;
 	private float mTexelHeight = 0.5f / 64f;
 
+	private int mTexelWidthHandle = -1;
+	private int mTexelHeightHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -94,10 +97,16 @@ public class GLES20ColorPackingShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mTexelWidthHandle = getHandle("texelWidth");
+		mTexelHeightHandle = getHandle("texelHeight");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("texelWidth"), mTexelWidth);
-		glUniform1f(getHandle("texelHeight"), mTexelHeight);
+		glUniform1f(mTexelWidthHandle, mTexelWidth);
+		glUniform1f(mTexelHeightHandle, mTexelHeight);
 	}
 
 }
\ No newline at end of file
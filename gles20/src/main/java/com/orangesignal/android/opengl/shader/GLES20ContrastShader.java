@@ -8,28 +8,27 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20ContrastShader extends GLES20Shader {
+public class GLES20ContrastShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
+	private static final String STAGE_DECLARATIONS =
+			"uniform lowp float contrast;";
 
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
-			"uniform lowp float contrast;" +
-
-			"void main() {" +
-				"lowp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"gl_FragColor = vec4(((color.rgb - vec3(0.5)) * contrast + vec3(0.5)), color.w);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"color = vec4(((color.rgb - vec3(0.5)) * contrast + vec3(0.5)), color.w);";
 
 	private float mContrast = 1.0f;
 
+	private int mContrastHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -37,7 +36,7 @@ public class GLES20ContrastShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20ContrastShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -53,9 +52,14 @@ public class GLES20ContrastShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mContrastHandle = getHandle("contrast");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("contrast"), mContrast);
+		glUniform1f(mContrastHandle, mContrast);
 	}
 
 }
\ No newline at end of file
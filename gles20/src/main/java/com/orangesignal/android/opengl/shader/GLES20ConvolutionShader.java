@@ -107,6 +107,10 @@ public class GLES20ConvolutionShader extends GLES20Shader {
 			0f, 0f, 0f
 		};
 
+	private int mTexelWidthHandle = -1;
+	private int mTexelHeightHandle = -1;
+	private int mConvolutionMatrixHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -146,11 +150,18 @@ public class GLES20ConvolutionShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mTexelWidthHandle = getHandle("texelWidth");
+		mTexelHeightHandle = getHandle("texelHeight");
+		mConvolutionMatrixHandle = getHandle("convolutionMatrix");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("texelWidth"), mTexelWidth);
-		glUniform1f(getHandle("texelHeight"), mTexelHeight);
-		glUniformMatrix3fv(getHandle("convolutionMatrix"), 0, false, mConvolutionMatrix, 0);
+		glUniform1f(mTexelWidthHandle, mTexelWidth);
+		glUniform1f(mTexelHeightHandle, mTexelHeight);
+		glUniformMatrix3fv(mConvolutionMatrixHandle, 0, false, mConvolutionMatrix, 0);
 	}
 
 }
\ No newline at end of file
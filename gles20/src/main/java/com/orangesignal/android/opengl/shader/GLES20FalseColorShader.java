@@ -8,33 +8,32 @@ import static android.opengl.GLES20.glUniform3fv;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20FalseColorShader extends GLES20Shader {
+public class GLES20FalseColorShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision lowp float;" +	// 演算精度を指定します。
-
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform vec3 firstColor;" +
 			"uniform vec3 secondColor;" +
+			"const mediump vec3 luminanceWeighting = vec3(0.2125, 0.7154, 0.0721);";
 
-			"const mediump vec3 luminanceWeighting = vec3(0.2125, 0.7154, 0.0721);" +
-
-			"void main() {" +
-				"lowp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"float luminance = dot(color.rgb, luminanceWeighting);" +
-				"gl_FragColor = vec4(mix(firstColor.rgb, secondColor.rgb, luminance), color.a);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"float luminance = dot(color.rgb, luminanceWeighting);" +
+			"color = vec4(mix(firstColor.rgb, secondColor.rgb, luminance), color.a);";
 
 	private float[] mFirstColor = new float[]{ 0.0f, 0.0f, 0.5f, 1.0f };
 	private float[] mSecondColor = new float[]{ 1.0f, 0.0f, 0.0f, 1.0f };
 
+	private int mFirstColorHandle = -1;
+	private int mSecondColorHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -42,7 +41,7 @@ public class GLES20FalseColorShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20FalseColorShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -66,10 +65,16 @@ public class GLES20FalseColorShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mFirstColorHandle = getHandle("firstColor");
+		mSecondColorHandle = getHandle("secondColor");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform3fv(getHandle("firstColor"), 0, mFirstColor, 0);
-		glUniform3fv(getHandle("secondColor"), 0, mSecondColor, 0);
+		glUniform3fv(mFirstColorHandle, 0, mFirstColor, 0);
+		glUniform3fv(mSecondColorHandle, 0, mSecondColor, 0);
 	}
 
 }
\ No newline at end of file
@@ -8,28 +8,27 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20GammaShader extends GLES20Shader {
+public class GLES20GammaShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
+	private static final String STAGE_DECLARATIONS =
+			"uniform lowp float gamma;";
 
-			"varying highp vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
-			"uniform lowp float gamma;" +
-
-			"void main() {" +
-				"lowp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"gl_FragColor = vec4(pow(color.rgb, vec3(gamma)), color.w);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"color = vec4(pow(color.rgb, vec3(gamma)), color.w);";
 
 	private float mGamma = 1.0f;
 
+	private int mGammaHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -37,7 +36,7 @@ public class GLES20GammaShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20GammaShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -53,9 +52,14 @@ public class GLES20GammaShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mGammaHandle = getHandle("gamma");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("gamma"), mGamma);
+		glUniform1f(mGammaHandle, mGamma);
 	}
 
 }
\ No newline at end of file
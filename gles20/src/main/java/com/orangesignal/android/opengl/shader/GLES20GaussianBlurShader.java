@@ -11,6 +11,8 @@ import android.os.Build;
 import com.orangesignal.android.opengl.GLES20Shader;
 
 /**
+ * 固定の重みで 1 方向のみぼかすガウスぼかしのシェーダーを提供します。<p>
+ * 任意の標準偏差で水平方向と垂直方向の両方をぼかす場合は {@link GLES20SeparableGaussianBlurShader} を使用して下さい。
  * 
  * @author 杉澤 浩二
  */
@@ -80,6 +82,10 @@ public class GLES20GaussianBlurShader extends GLES20Shader {
 	private float mTexelHeightOffset = 0.01f;
 	private float mBlurSize = 0.2f;
 
+	private int mTexelWidthOffsetHandle = -1;
+	private int mTexelHeightOffsetHandle = -1;
+	private int mBlurSizeHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -119,11 +125,18 @@ public class GLES20GaussianBlurShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mTexelWidthOffsetHandle = getHandle("texelWidthOffset");
+		mTexelHeightOffsetHandle = getHandle("texelHeightOffset");
+		mBlurSizeHandle = getHandle("blurSize");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("texelWidthOffset"), mTexelWidthOffset);
-		glUniform1f(getHandle("texelHeightOffset"), mTexelHeightOffset);
-		glUniform1f(getHandle("blurSize"), mBlurSize);
+		glUniform1f(mTexelWidthOffsetHandle, mTexelWidthOffset);
+		glUniform1f(mTexelHeightOffsetHandle, mTexelHeightOffset);
+		glUniform1f(mBlurSizeHandle, mBlurSize);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl.shader;
+
+/**
+ * 分離可能なガウスぼかしで使用する 1 次元のカーネルを提供します。<p>
+ * 隣り合う 2 つのタップの重みを、バイリニア補間によって 1 回のテクスチャフェッチで取得できる位置と重みへ畳み込みます。
+ * そのため、半径 {@code r} のカーネルのテクスチャフェッチの回数は {@code 2r + 1} 回から {@code 2 * ceil(r / 2) + 1} 回になります。
+ * 
+ * @author 杉澤 浩二
+ */
+public final class GLES20GaussianKernel {
+
+	/**
+	 * カーネルの最大の半径です。<p>
+	 * 中心以外のタップの座標は 2 つずつ {@code vec4} の varying 変数で受け渡すため、
+	 * OpenGL ES 2.0 が保証する 8 個の varying 変数に収まるように中心以外の畳み込んだタップを 7 個までとします。
+	 */
+	public static final int MAX_RADIUS = 14;
+
+	/**
+	 * 標準偏差を保持します。
+	 */
+	private final float mSigma;
+
+	/**
+	 * 畳み込む前のカーネルの半径を保持します。
+	 */
+	private final int mRadius;
+
+	/**
+	 * 畳み込んだタップの重みを保持します。最初の要素は中心のタップの重みです。
+	 */
+	private final float[] mWeights;
+
+	/**
+	 * 畳み込んだタップの中心からのテクセル単位の距離を保持します。最初の要素は中心のタップの {@code 0} です。
+	 */
+	private final float[] mOffsets;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	private GLES20GaussianKernel(final float sigma, final int radius, final float[] weights, final float[] offsets) {
+		mSigma = sigma;
+		mRadius = radius;
+		mWeights = weights;
+		mOffsets = offsets;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 指定された標準偏差のカーネルを生成します。<p>
+	 * 半径は標準偏差の 3 倍 (切り上げ) とし、{@link #MAX_RADIUS} を超える場合は {@link #MAX_RADIUS} とします。
+	 * 重みは打ち切った範囲で合計が {@code 1} になるように正規化します。
+	 * 
+	 * @param sigma テクセル単位の標準偏差
+	 * @return カーネル
+	 * @throws IllegalArgumentException {@code sigma} が {@code 0} 以下の場合
+	 */
+	public static GLES20GaussianKernel create(final float sigma) {
+		if (!(sigma > 0f)) {
+			throw new IllegalArgumentException("Sigma must be positive " + sigma);
+		}
+		final int radius = Math.max(1, Math.min(MAX_RADIUS, (int) Math.ceil(sigma * 3f)));
+
+		// 打ち切る前の離散的な重みを計算します。
+		final double[] discrete = new double[radius + 2];
+		final double denominator = 2.0 * sigma * sigma;
+		double sum = 0;
+		for (int i = 0; i <= radius; i++) {
+			discrete[i] = Math.exp(-(i * i) / denominator);
+			sum += i == 0 ? discrete[i] : discrete[i] * 2;
+		}
+
+		// 中心以外のタップを 2 つずつ畳み込みます。半径が奇数の場合、最後のタップは相手の重みが 0 になります。
+		final int count = (radius + 1) / 2;
+		final float[] weights = new float[count + 1];
+		final float[] offsets = new float[count + 1];
+		weights[0] = (float) (discrete[0] / sum);
+		for (int k = 1; k <= count; k++) {
+			final int i = k * 2 - 1;
+			final double weight = discrete[i] + discrete[i + 1];
+			weights[k] = (float) (weight / sum);
+			offsets[k] = (float) ((i * discrete[i] + (i + 1) * discrete[i + 1]) / weight);
+		}
+		return new GLES20GaussianKernel(sigma, radius, weights, offsets);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// ゲッター
+
+	/**
+	 * 標準偏差を返します。
+	 * 
+	 * @return 標準偏差
+	 */
+	public float getSigma() {
+		return mSigma;
+	}
+
+	/**
+	 * 畳み込む前のカーネルの半径を返します。
+	 * 
+	 * @return 半径
+	 */
+	public int getRadius() {
+		return mRadius;
+	}
+
+	/**
+	 * 中心以外の片側の畳み込んだタップの数を返します。
+	 * 
+	 * @return 片側のタップの数
+	 */
+	public int getPairCount() {
+		return mWeights.length - 1;
+	}
+
+	/**
+	 * 1 回の描画で行うテクスチャフェッチの回数を返します。
+	 * 
+	 * @return テクスチャフェッチの回数
+	 */
+	public int getTapCount() {
+		return getPairCount() * 2 + 1;
+	}
+
+	/**
+	 * 畳み込んだタップの重みを返します。<p>
+	 * 最初の要素は中心のタップの重みで、以降の要素は中心から正負それぞれの方向へ同じ重みで適用します。
+	 * 返される配列は共有されているため変更してはいけません。
+	 * 
+	 * @return 重みの配列
+	 */
+	public float[] getWeights() {
+		return mWeights;
+	}
+
+	/**
+	 * 畳み込んだタップの中心からのテクセル単位の距離を返します。<p>
+	 * 最初の要素は中心のタップの {@code 0} です。返される配列は共有されているため変更してはいけません。
+	 * 
+	 * @return 距離の配列
+	 */
+	public float[] getOffsets() {
+		return mOffsets;
+	}
+
+}
\ No newline at end of file
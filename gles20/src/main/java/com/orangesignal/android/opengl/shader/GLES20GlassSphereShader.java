@@ -65,6 +65,11 @@ public class GLES20GlassSphereShader extends GLES20Shader {
 	private float mAspectRatio = 1.0f;
 	private float mRefractiveIndex = 0.71f;
 
+	private int mCenterHandle = -1;
+	private int mRadiusHandle = -1;
+	private int mAspectRatioHandle = -1;
+	private int mRefractiveIndexHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -112,12 +117,20 @@ public class GLES20GlassSphereShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mCenterHandle = getHandle("center");
+		mRadiusHandle = getHandle("radius");
+		mAspectRatioHandle = getHandle("aspectRatio");
+		mRefractiveIndexHandle = getHandle("refractiveIndex");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform2f(getHandle("center"), mCenterX, mCenterY);
-		glUniform1f(getHandle("radius"), mRadius);
-		glUniform1f(getHandle("aspectRatio"), mAspectRatio);
-		glUniform1f(getHandle("refractiveIndex"), mRefractiveIndex);
+		glUniform2f(mCenterHandle, mCenterX, mCenterY);
+		glUniform1f(mRadiusHandle, mRadius);
+		glUniform1f(mAspectRatioHandle, mAspectRatio);
+		glUniform1f(mRefractiveIndexHandle, mRefractiveIndex);
 	}
 
 }
\ No newline at end of file
@@ -4,26 +4,25 @@
 
 package com.orangesignal.android.opengl.shader;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 import android.annotation.TargetApi;
 import android.os.Build;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20GrayscaleShader extends GLES20Shader {
+public class GLES20GrayscaleShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
-			"const highp vec3 weight = vec3(0.2125, 0.7154, 0.0721);" +
-			"void main() {" +
-				"float luminance = dot(texture2D(sTexture, vTextureCoord).rgb, weight);" +
-				"gl_FragColor = vec4(vec3(luminance), 1.0);" +
-			"}";
+	private static final String STAGE_DECLARATIONS =
+			"const highp vec3 weight = vec3(0.2125, 0.7154, 0.0721);";
+
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"color = vec4(vec3(dot(color.rgb, weight)), 1.0);";
 
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
@@ -32,7 +31,7 @@ public class GLES20GrayscaleShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20GrayscaleShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 }
\ No newline at end of file
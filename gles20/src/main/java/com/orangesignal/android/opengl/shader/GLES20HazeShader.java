@@ -8,36 +8,31 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20HazeShader extends GLES20Shader {
+public class GLES20HazeShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying highp vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform lowp float distance;" +
-			"uniform highp float slope;" +
-
-			"void main() {" +
-				// todo reconsider precision modifiers
-				"highp vec4 color = vec4(1.0);" +	// todo reimplement as a parameter
-
-				"highp float  d = vTextureCoord.y * slope  +  distance;" +
+			"uniform highp float slope;";
 
-				"highp vec4 c = texture2D(sTexture, vTextureCoord);" +
-				"c = (c - d * color) / (1.0 -d);" +
-				"gl_FragColor = c;" +	// consider using premultiply(c);
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"highp float d = vTextureCoord.y * slope + distance;" +
+			"color = (color - d * vec4(1.0)) / (1.0 - d);";
 
 	private float mDistance = 0.2f;
 	private float mSlope = 0.0f;
 
+	private int mDistanceHandle = -1;
+	private int mSlopeHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -45,7 +40,7 @@ public class GLES20HazeShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20HazeShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -69,10 +64,16 @@ public class GLES20HazeShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mDistanceHandle = getHandle("distance");
+		mSlopeHandle = getHandle("slope");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("distance"), mDistance);
-		glUniform1f(getHandle("slope"), mSlope);
+		glUniform1f(mDistanceHandle, mDistance);
+		glUniform1f(mSlopeHandle, mSlope);
 	}
 
 }
\ No newline at end of file
@@ -8,38 +8,34 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20HighlightShadowShader extends GLES20Shader {
+public class GLES20HighlightShadowShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying highp vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform lowp float shadows;" +
 			"uniform lowp float highlights;" +
+			"const mediump vec3 luminanceWeighting = vec3(0.3, 0.3, 0.3);";
 
-			"const mediump vec3 luminanceWeighting = vec3(0.3, 0.3, 0.3);" +
-
-			"void main() {" +
-				"lowp vec4 source = texture2D(sTexture, vTextureCoord);" +
-				"mediump float luminance = dot(source.rgb, luminanceWeighting);" +
-
-				"mediump float shadow = clamp((pow(luminance, 1.0 / (shadows + 1.0)) + (-0.76) * pow(luminance, 2.0 / (shadows + 1.0))) - luminance, 0.0, 1.0);" +
-				"mediump float highlight = clamp((1.0 - (pow(1.0 - luminance, 1.0 / (2.0 - highlights)) + (-0.8) * pow(1.0 - luminance, 2.0 / (2.0 - highlights)))) - luminance, -1.0, 0.0);" +
-				"lowp vec3 result = vec3(0.0, 0.0, 0.0) + ((luminance + shadow + highlight) - 0.0) * ((source.rgb - vec3(0.0, 0.0, 0.0)) / (luminance - 0.0));" +
-
-				"gl_FragColor = vec4(result.rgb, source.a);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"mediump float luminance = dot(color.rgb, luminanceWeighting);" +
+			"mediump float shadow = clamp((pow(luminance, 1.0 / (shadows + 1.0)) + (-0.76) * pow(luminance, 2.0 / (shadows + 1.0))) - luminance, 0.0, 1.0);" +
+			"mediump float highlight = clamp((1.0 - (pow(1.0 - luminance, 1.0 / (2.0 - highlights)) + (-0.8) * pow(1.0 - luminance, 2.0 / (2.0 - highlights)))) - luminance, -1.0, 0.0);" +
+			"color = vec4((luminance + shadow + highlight) * (color.rgb / luminance), color.a);";
 
 	private float mShadows = 0.0f;
 	private float mHighlights = 1.0f;
 
+	private int mShadowsHandle = -1;
+	private int mHighlightsHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -47,7 +43,7 @@ public class GLES20HighlightShadowShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20HighlightShadowShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -71,10 +67,16 @@ public class GLES20HighlightShadowShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mShadowsHandle = getHandle("shadows");
+		mHighlightsHandle = getHandle("highlights");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("shadows"), mShadows);
-		glUniform1f(getHandle("highlights"), mHighlights);
+		glUniform1f(mShadowsHandle, mShadows);
+		glUniform1f(mHighlightsHandle, mHighlights);
 	}
 
 }
\ No newline at end of file
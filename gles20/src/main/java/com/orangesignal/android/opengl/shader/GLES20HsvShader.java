@@ -115,6 +115,10 @@ public class GLES20HsvShader extends GLES20Shader {
 	 */
 	private float mBrightness;
 
+	private int mHueAdjustHandle = -1;
+	private int mChromaAdjustHandle = -1;
+	private int mBrightnessHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -162,11 +166,18 @@ public class GLES20HsvShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mHueAdjustHandle = getHandle("hueAdjust");
+		mChromaAdjustHandle = getHandle("chromaAdjust");
+		mBrightnessHandle = getHandle("brightness");
+	}
+
 	@Override
 	protected void onDraw() {
-		glUniform1f(getHandle("hueAdjust"), mHue);
-		glUniform1f(getHandle("chromaAdjust"), mChroma);
-		glUniform1f(getHandle("brightness"), mBrightness);
+		glUniform1f(mHueAdjustHandle, mHue);
+		glUniform1f(mChromaAdjustHandle, mChroma);
+		glUniform1f(mBrightnessHandle, mBrightness);
 	}
 
 }
\ No newline at end of file
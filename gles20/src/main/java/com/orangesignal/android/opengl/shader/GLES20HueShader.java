@@ -8,61 +8,42 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20HueShader extends GLES20Shader {
+public class GLES20HueShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform mediump float hueAdjust;" +
-
 			"const highp vec4 kRGBToYPrime = vec4(0.299,     0.587,     0.114,    0.0);" +
 			"const highp vec4 kRGBToI      = vec4(0.595716, -0.274453, -0.321263, 0.0);" +
 			"const highp vec4 kRGBToQ      = vec4(0.211456, -0.522591,  0.31135,  0.0);" +
-
 			"const highp vec4 kYIQToR = vec4(1.0,  0.9563,  0.6210, 0.0);" +
 			"const highp vec4 kYIQToG = vec4(1.0, -0.2721, -0.6474, 0.0);" +
-			"const highp vec4 kYIQToB = vec4(1.0, -1.1070,  1.7046, 0.0);" +
-
-			"void main() {" +
-				// Sample the input pixel
-				"highp vec4 color = texture2D(sTexture, vTextureCoord);" +
-
-				// Convert to YIQ
-				"highp float YPrime = dot(color, kRGBToYPrime);" +
-				"highp float I      = dot(color, kRGBToI);" +
-				"highp float Q      = dot(color, kRGBToQ);" +
-
-				// Calculate the hue and chroma
-				"highp float hue    = atan(Q, I);" +
-				"highp float chroma = sqrt(I * I + Q * Q);" +
-
-				// Make the user's adjustments
-				"hue += (-hueAdjust);" +		// why negative rotation?
-
-				// Convert back to YIQ
-				"Q = chroma * sin(hue);" +
-				"I = chroma * cos(hue);" +
+			"const highp vec4 kYIQToB = vec4(1.0, -1.1070,  1.7046, 0.0);";
 
-				// Convert back to RGB
-				"highp vec4 yIQ = vec4(YPrime, I, Q, 0.0);" +
-				"color.r = dot(yIQ, kYIQToR);" +
-				"color.g = dot(yIQ, kYIQToG);" +
-				"color.b = dot(yIQ, kYIQToB);" +
-
-				// Save the result
-				"gl_FragColor = color;" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			// Convert to YIQ
+			"highp float YPrime = dot(color, kRGBToYPrime);" +
+			"highp float I      = dot(color, kRGBToI);" +
+			"highp float Q      = dot(color, kRGBToQ);" +
+			// Calculate the hue and chroma, then make the user's adjustments
+			"highp float hue    = atan(Q, I) - hueAdjust;" +
+			"highp float chroma = sqrt(I * I + Q * Q);" +
+			// Convert back to YIQ and RGB
+			"highp vec4 yIQ = vec4(YPrime, chroma * cos(hue), chroma * sin(hue), 0.0);" +
+			"color = vec4(dot(yIQ, kYIQToR), dot(yIQ, kYIQToG), dot(yIQ, kYIQToB), color.a);";
 
 	private float mHue = 90f;
 
+	private int mHueAdjustHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -70,7 +51,7 @@ public class GLES20HueShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20HueShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -81,9 +62,14 @@ public class GLES20HueShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mHueAdjustHandle = getHandle("hueAdjust");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("hueAdjust"), mHue);
+		glUniform1f(mHueAdjustHandle, mHue);
 	}
 
 }
\ No newline at end of file
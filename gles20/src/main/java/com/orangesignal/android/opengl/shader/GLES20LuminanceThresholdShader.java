@@ -8,33 +8,29 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20LuminanceThresholdShader extends GLES20Shader {
+public class GLES20LuminanceThresholdShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform highp float threshold;" +
+			"const highp vec3 W = vec3(0.2125, 0.7154, 0.0721);";
 
-			"const highp vec3 W = vec3(0.2125, 0.7154, 0.0721);" +
-
-			"void main() {" +
-				"highp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"highp float luminance = dot(color.rgb, W);" +
-				"highp float thresholdResult = step(threshold, luminance);" +
-
-				"gl_FragColor = vec4(vec3(thresholdResult), color.w);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"highp float luminance = dot(color.rgb, W);" +
+			"color = vec4(vec3(step(threshold, luminance)), color.w);";
 
 	private float mThreshold = 0.5f;
 
+	private int mThresholdHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -42,7 +38,7 @@ public class GLES20LuminanceThresholdShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20LuminanceThresholdShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -58,9 +54,14 @@ public class GLES20LuminanceThresholdShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mThresholdHandle = getHandle("threshold");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("threshold"), mThreshold);
+		glUniform1f(mThresholdHandle, mThreshold);
 	}
 
 }
\ No newline at end of file
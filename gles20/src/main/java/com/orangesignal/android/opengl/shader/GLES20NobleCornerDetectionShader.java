@@ -42,6 +42,8 @@ public class GLES20NobleCornerDetectionShader extends GLES20Shader {
 
 	private float mSensitivity = 2.0f;
 
+	private int mSensitivityHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -65,9 +67,14 @@ public class GLES20NobleCornerDetectionShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mSensitivityHandle = getHandle("sensitivity");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("sensitivity"), mSensitivity);
+		glUniform1f(mSensitivityHandle, mSensitivity);
 	}
 
 }
\ No newline at end of file
@@ -4,16 +4,10 @@
 
 package com.orangesignal.android.opengl.shader;
 
-import static android.opengl.GLES20.GL_ARRAY_BUFFER;
-import static android.opengl.GLES20.GL_FLOAT;
 import static android.opengl.GLES20.GL_TRIANGLE_STRIP;
-import static android.opengl.GLES20.glBindBuffer;
-import static android.opengl.GLES20.glDisableVertexAttribArray;
 import static android.opengl.GLES20.glDrawArrays;
-import static android.opengl.GLES20.glEnableVertexAttribArray;
 import static android.opengl.GLES20.glUniform1f;
 import static android.opengl.GLES20.glUniform4fv;
-import static com.orangesignal.android.opengl.GLES20Compat.glVertexAttribPointer;
 import android.annotation.TargetApi;
 import android.os.Build;
 
@@ -111,6 +105,12 @@ public class GLES20PerlinNoiseShader extends GLES20Shader {
 	private float[] mColorStart = new float[]{ 0.0f, 0.0f, 0.0f, 1.0f };
 	private float[] mColorFinish = new float[]{ 1.0f, 1.0f, 1.0f, 1.0f };
 
+	private int mPositionHandle = -1;
+	private int mTextureCoordHandle = -1;
+	private int mScaleHandle = -1;
+	private int mColorStartHandle = -1;
+	private int mColorFinishHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -123,25 +123,26 @@ public class GLES20PerlinNoiseShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mPositionHandle = getHandle(DEFAULT_ATTRIB_POSITION);
+		mTextureCoordHandle = getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE);
+		mScaleHandle = getHandle("scale");
+		mColorStartHandle = getHandle("colorStart");
+		mColorFinishHandle = getHandle("colorFinish");
+	}
+
 	@Override
 	public void draw(final int texName, final GLES20FramebufferObject fbo) {
 		useProgram();
 
-		glBindBuffer(GL_ARRAY_BUFFER, getVertexBufferName());
-		glEnableVertexAttribArray(getHandle(DEFAULT_ATTRIB_POSITION));
-		glVertexAttribPointer(getHandle(DEFAULT_ATTRIB_POSITION), VERTICES_DATA_POS_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_POS_OFFSET);
-		glEnableVertexAttribArray(getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE));
-		glVertexAttribPointer(getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE), VERTICES_DATA_UV_SIZE, GL_FLOAT, false, VERTICES_DATA_STRIDE_BYTES, VERTICES_DATA_UV_OFFSET);
+		bindVertexAttributes(mPositionHandle, mTextureCoordHandle);
 
-		glUniform1f(getHandle("scale"), mScale);
-		glUniform4fv(getHandle("colorStart"), 0, mColorStart, 0);
-		glUniform4fv(getHandle("colorFinish"), 0, mColorFinish, 0);
+		glUniform1f(mScaleHandle, mScale);
+		glUniform4fv(mColorStartHandle, 0, mColorStart, 0);
+		glUniform4fv(mColorFinishHandle, 0, mColorFinish, 0);
 
 		glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
-
-		glDisableVertexAttribArray(getHandle(DEFAULT_ATTRIB_POSITION));
-		glDisableVertexAttribArray(getHandle(DEFAULT_ATTRIB_TEXTURE_COORDINATE));
-		glBindBuffer(GL_ARRAY_BUFFER, 0);
 	}
 
 }
\ No newline at end of file
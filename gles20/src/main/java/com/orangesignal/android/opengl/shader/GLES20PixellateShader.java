@@ -33,6 +33,9 @@ public class GLES20PixellateShader extends GLES20Shader {
 	private float mFractionalWidthOfPixel = 1f / 80f;//0.013f;
 	private float mAspectRatio = 1.0f;
 
+	private int mFractionalWidthOfPixelHandle = -1;
+	private int mAspectRatioHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -64,10 +67,16 @@ public class GLES20PixellateShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mFractionalWidthOfPixelHandle = getHandle("fractionalWidthOfPixel");
+		mAspectRatioHandle = getHandle("aspectRatio");
+	}
+
 	@Override
 	protected void onDraw() {
-		glUniform1f(getHandle("fractionalWidthOfPixel"), mFractionalWidthOfPixel);
-		glUniform1f(getHandle("aspectRatio"), mAspectRatio);
+		glUniform1f(mFractionalWidthOfPixelHandle, mFractionalWidthOfPixel);
+		glUniform1f(mAspectRatioHandle, mAspectRatio);
 	}
 
 }
\ No newline at end of file
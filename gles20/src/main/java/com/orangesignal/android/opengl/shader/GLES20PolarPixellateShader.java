@@ -51,6 +51,9 @@ public class GLES20PolarPixellateShader extends GLES20Shader {
 	private float mPixelWidth = 0.05f;
 	private float mPixelHeight = 0.05f;
 
+	private int mCenterHandle = -1;
+	private int mPixelSizeHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -98,10 +101,16 @@ public class GLES20PolarPixellateShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mCenterHandle = getHandle("center");
+		mPixelSizeHandle = getHandle("pixelSize");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform2f(getHandle("center"), mCenterX, mCenterY);
-		glUniform2f(getHandle("pixelSize"), mPixelWidth, mPixelHeight);
+		glUniform2f(mCenterHandle, mCenterX, mCenterY);
+		glUniform2f(mPixelSizeHandle, mPixelWidth, mPixelHeight);
 	}
 
 }
\ No newline at end of file
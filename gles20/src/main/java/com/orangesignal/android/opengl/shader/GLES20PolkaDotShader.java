@@ -41,6 +41,10 @@ public class GLES20PolkaDotShader extends GLES20Shader {
 	private float mAspectRatio = 0.5f;
 	private float mDotScaling = 0.90f;
 
+	private int mFractionalWidthOfPixelHandle = -1;
+	private int mAspectRatioHandle = -1;
+	private int mDotScalingHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -80,11 +84,18 @@ public class GLES20PolkaDotShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mFractionalWidthOfPixelHandle = getHandle("fractionalWidthOfPixel");
+		mAspectRatioHandle = getHandle("aspectRatio");
+		mDotScalingHandle = getHandle("dotScaling");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("fractionalWidthOfPixel"), mFractionalWidthOfPixel);
-		glUniform1f(getHandle("aspectRatio"), mAspectRatio);
-		glUniform1f(getHandle("dotScaling"), mDotScaling);
+		glUniform1f(mFractionalWidthOfPixelHandle, mFractionalWidthOfPixel);
+		glUniform1f(mAspectRatioHandle, mAspectRatio);
+		glUniform1f(mDotScalingHandle, mDotScaling);
 	}
 
 }
\ No newline at end of file
@@ -8,32 +8,33 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20RGBShader extends GLES20Shader {
+public class GLES20RGBShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying highp vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform highp float red;" +
 			"uniform highp float green;" +
-			"uniform highp float blue;" +
+			"uniform highp float blue;";
 
-			"void main() {" +
-				"highp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"gl_FragColor = vec4(color.r * red, color.g * green, color.b * blue, 1.0);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"color = vec4(color.r * red, color.g * green, color.b * blue, 1.0);";
 
 	private float mRed = 1.0f;
 	private float mGreen = 1.0f;
 	private float mBlue = 1.0f;
 
+	private int mRedHandle = -1;
+	private int mGreenHandle = -1;
+	private int mBlueHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -41,7 +42,7 @@ public class GLES20RGBShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20RGBShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -73,11 +74,18 @@ public class GLES20RGBShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mRedHandle = getHandle("red");
+		mGreenHandle = getHandle("green");
+		mBlueHandle = getHandle("blue");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("red"), mRed);
-		glUniform1f(getHandle("green"), mGreen);
-		glUniform1f(getHandle("blue"), mBlue);
+		glUniform1f(mRedHandle, mRed);
+		glUniform1f(mGreenHandle, mGreen);
+		glUniform1f(mBlueHandle, mBlue);
 	}
 
 }
\ No newline at end of file
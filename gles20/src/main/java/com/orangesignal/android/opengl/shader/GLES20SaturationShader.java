@@ -8,34 +8,30 @@ import static android.opengl.GLES20.glUniform1f;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20SaturationShader extends GLES20Shader {
+public class GLES20SaturationShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
+	private static final String STAGE_DECLARATIONS =
 			"uniform lowp float saturation;" +
-
 			// Values from "Graphics Shaders: Theory and Practice" by Bailey and Cunningham
-			"const mediump vec3 luminanceWeighting = vec3(0.2125, 0.7154, 0.0721);" +
-
-			"void main() {" +
-				"lowp vec4 color = texture2D(sTexture, vTextureCoord);" +
-				"lowp float luminance = dot(color.rgb, luminanceWeighting);" +
-				"lowp vec3 grey = vec3(luminance);" +
+			"const mediump vec3 luminanceWeighting = vec3(0.2125, 0.7154, 0.0721);";
 
-				"gl_FragColor = vec4(mix(grey, color.rgb, saturation), color.w);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"lowp float luminance = dot(color.rgb, luminanceWeighting);" +
+			"color = vec4(mix(vec3(luminance), color.rgb, saturation), color.w);";
 
 	private float mSaturation = 1.0f;
 
+	private int mSaturationHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -43,7 +39,7 @@ public class GLES20SaturationShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20SaturationShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -59,9 +55,14 @@ public class GLES20SaturationShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mSaturationHandle = getHandle("saturation");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("saturation"), mSaturation);
+		glUniform1f(mSaturationHandle, mSaturation);
 	}
 
 }
\ No newline at end of file
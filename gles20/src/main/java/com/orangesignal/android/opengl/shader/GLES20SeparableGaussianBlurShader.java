@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl.shader;
+
+import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
+import static android.opengl.GLES20.GL_FRAMEBUFFER;
+import static android.opengl.GLES20.glBindFramebuffer;
+import static android.opengl.GLES20.glClear;
+import static android.opengl.GLES20.glUniform1fv;
+import static android.opengl.GLES20.glUniform2f;
+import static android.opengl.GLES20.glViewport;
+import android.annotation.TargetApi;
+import android.os.Build;
+
+import com.orangesignal.android.opengl.GLES20FramebufferObject;
+import com.orangesignal.android.opengl.GLES20Shader;
+
+/**
+ * 水平方向と垂直方向の 2 つの描画パスで行う分離可能なガウスぼかしのシェーダーを提供します。<p>
+ * 重みは {@link GLES20GaussianKernel} で任意の標準偏差から計算し、隣り合うタップをバイリニア補間で 1 回のテクスチャフェッチにまとめます。
+ * {@link #setDownsampling(int)} で 2 または 4 を指定すると、縮小した解像度でぼかしてから拡大して描画するため、大きな半径のぼかしを少ない負荷で行えます。
+ * 描画パス間の受け渡しに使用するフレームバッファオブジェクトはこのシェーダーが管理します。
+ * 
+ * @author 杉澤 浩二
+ */
+@TargetApi(Build.VERSION_CODES.FROYO)
+public class GLES20SeparableGaussianBlurShader extends GLES20Shader {
+
+	/**
+	 * デフォルトの標準偏差です。
+	 */
+	public static final float DEFAULT_SIGMA = 2f;
+
+	/**
+	 * 1 方向のぼかしを行う描画パスのシェーダーです。
+	 */
+	@TargetApi(Build.VERSION_CODES.FROYO)
+	private static final class BlurPass extends GLES20Shader {
+
+		private final GLES20GaussianKernel mKernel;
+		private float mStepX;
+		private float mStepY;
+		private int mTexelStepHandle = -1;
+		private int mOffsetsHandle = -1;
+		private int mWeightsHandle = -1;
+
+		public BlurPass(final GLES20GaussianKernel kernel) {
+			super(createVertexShaderSource(kernel.getPairCount()), createFragmentShaderSource(kernel.getPairCount()));
+			mKernel = kernel;
+		}
+
+		/**
+		 * 1 テクセル分のテクスチャ座標の移動量を設定します。
+		 * 
+		 * @param stepX 水平方向の移動量
+		 * @param stepY 垂直方向の移動量
+		 */
+		public void setTexelStep(final float stepX, final float stepY) {
+			mStepX = stepX;
+			mStepY = stepY;
+		}
+
+		@Override
+		protected void onSetupHandles() {
+			mTexelStepHandle = getHandle("texelStep");
+			mOffsetsHandle = getHandle("offsets");
+			mWeightsHandle = getHandle("weights");
+		}
+
+		@Override
+		protected void onDraw() {
+			glUniform2f(mTexelStepHandle, mStepX, mStepY);
+			glUniform1fv(mOffsetsHandle, mKernel.getPairCount(), mKernel.getOffsets(), 1);
+			glUniform1fv(mWeightsHandle, mKernel.getPairCount() + 1, mKernel.getWeights(), 0);
+		}
+
+	}
+
+	/**
+	 * 標準偏差を保持します。
+	 */
+	private float mSigma = DEFAULT_SIGMA;
+
+	/**
+	 * 縮小率を保持します。
+	 */
+	private int mDownsampling = 1;
+
+	/**
+	 * 描画パスを構成したカーネルを保持します。
+	 */
+	private GLES20GaussianKernel mKernel;
+
+	private BlurPass mHorizontalPass;
+	private BlurPass mVerticalPass;
+
+	/**
+	 * 描画パス間の受け渡しに使用するフレームバッファオブジェクトを保持します。
+	 */
+	private final GLES20FramebufferObject[] mFramebufferObjects = new GLES20FramebufferObject[2];
+
+	/**
+	 * フレームバッファオブジェクトを構成した縮小率を保持します。
+	 */
+	private int mFramebufferDownsampling;
+
+	private int mWidth;
+	private int mHeight;
+
+	//////////////////////////////////////////////////////////////////////////
+	// コンストラクタ
+
+	/**
+	 * デフォルトコンストラクタです。
+	 */
+	public GLES20SeparableGaussianBlurShader() {
+		this(DEFAULT_SIGMA);
+	}
+
+	/**
+	 * 指定された標準偏差で、このクラスをインスタンス化するコンストラクタです。
+	 * 
+	 * @param sigma ピクセル単位の標準偏差
+	 */
+	public GLES20SeparableGaussianBlurShader(final float sigma) {
+		super(DEFAULT_VERTEX_SHADER, DEFAULT_FRAGMENT_SHADER);
+		setSigma(sigma);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// スタティック メソッド
+
+	/**
+	 * 指定された数の畳み込んだタップを処理する頂点シェーダーのソースコードを生成します。
+	 * 
+	 * @param pairCount 中心以外の片側の畳み込んだタップの数
+	 * @return 頂点シェーダーのソースコード
+	 */
+	static String createVertexShaderSource(final int pairCount) {
+		final StringBuilder sb = new StringBuilder()
+			.append("attribute vec4 aPosition;\n")
+			.append("attribute vec4 aTextureCoord;\n")
+			.append("uniform highp vec2 texelStep;\n")
+			.append("uniform highp float offsets[").append(pairCount).append("];\n")
+			.append("varying highp vec2 vTextureCoord;\n")
+			.append("varying highp vec4 blurCoordinates[").append(pairCount).append("];\n")
+			.append("void main() {\n")
+			.append("gl_Position = aPosition;\n")
+			.append("vTextureCoord = aTextureCoord.xy;\n");
+		// 依存テクスチャ読み込みにならないように、サンプリングする座標は頂点シェーダーで計算します。
+		for (int i = 0; i < pairCount; i++) {
+			sb.append("blurCoordinates[").append(i).append("] = vec4(vTextureCoord + texelStep * offsets[").append(i)
+				.append("], vTextureCoord - texelStep * offsets[").append(i).append("]);\n");
+		}
+		return sb.append("}\n").toString();
+	}
+
+	/**
+	 * 指定された数の畳み込んだタップを処理するフラグメントシェーダーのソースコードを生成します。
+	 * 
+	 * @param pairCount 中心以外の片側の畳み込んだタップの数
+	 * @return フラグメントシェーダーのソースコード
+	 */
+	static String createFragmentShaderSource(final int pairCount) {
+		final StringBuilder sb = new StringBuilder()
+			.append("precision mediump float;\n")
+			.append("uniform lowp sampler2D sTexture;\n")
+			.append("uniform mediump float weights[").append(pairCount + 1).append("];\n")
+			.append("varying highp vec2 vTextureCoord;\n")
+			.append("varying highp vec4 blurCoordinates[").append(pairCount).append("];\n")
+			.append("void main() {\n")
+			.append("mediump vec4 sum = texture2D(sTexture, vTextureCoord) * weights[0];\n");
+		for (int i = 0; i < pairCount; i++) {
+			sb.append("sum += (texture2D(sTexture, blurCoordinates[").append(i).append("].xy) + texture2D(sTexture, blurCoordinates[")
+				.append(i).append("].zw)) * weights[").append(i + 1).append("];\n");
+		}
+		return sb.append("gl_FragColor = sum;\n").append("}\n").toString();
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// セッター / ゲッター
+
+	/**
+	 * 標準偏差を設定します。<p>
+	 * 縮小して描画する場合、縮小した解像度での半径が {@link GLES20GaussianKernel#MAX_RADIUS} を超える部分は打ち切られます。
+	 * 
+	 * @param sigma ピクセル単位の標準偏差
+	 * @throws IllegalArgumentException {@code sigma} が {@code 0} 以下の場合
+	 */
+	public void setSigma(final float sigma) {
+		if (!(sigma > 0f)) {
+			throw new IllegalArgumentException("Sigma must be positive " + sigma);
+		}
+		mSigma = sigma;
+	}
+
+	/**
+	 * 標準偏差を返します。
+	 * 
+	 * @return ピクセル単位の標準偏差
+	 */
+	public float getSigma() {
+		return mSigma;
+	}
+
+	/**
+	 * ぼかしを行う解像度の縮小率を設定します。<p>
+	 * 縮小する場合はテクスチャフェッチの回数とフレームバッファオブジェクトの大きさが減る代わりに、細部の精度が下がります。
+	 * デフォルトは {@code 1} (縮小しない) です。
+	 * 
+	 * @param downsampling 縮小率 (1, 2, 4)
+	 * @throws IllegalArgumentException {@code downsampling} が 1, 2, 4 以外の場合
+	 */
+	public void setDownsampling(final int downsampling) {
+		if (downsampling != 1 && downsampling != 2 && downsampling != 4) {
+			throw new IllegalArgumentException("Downsampling must be 1, 2 or 4 " + downsampling);
+		}
+		mDownsampling = downsampling;
+	}
+
+	/**
+	 * ぼかしを行う解像度の縮小率を返します。
+	 * 
+	 * @return 縮小率
+	 */
+	public int getDownsampling() {
+		return mDownsampling;
+	}
+
+	/**
+	 * 現在の設定で使用するカーネルを返します。
+	 * 
+	 * @return カーネル
+	 */
+	public GLES20GaussianKernel getKernel() {
+		final GLES20GaussianKernel kernel = mKernel;
+		final float sigma = mSigma / mDownsampling;
+		if (kernel != null && kernel.getSigma() == sigma) {
+			return kernel;
+		}
+		return GLES20GaussianKernel.create(sigma);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public void setup() {
+		super.setup();
+		setupPasses(getKernel());
+	}
+
+	@Override
+	public void setFrameSize(final int width, final int height) {
+		super.setFrameSize(width, height);
+		mWidth = width;
+		mHeight = height;
+		setupFramebufferObjects();
+	}
+
+	@Override
+	public void release() {
+		releasePasses();
+		for (int i = 0; i < mFramebufferObjects.length; i++) {
+			if (mFramebufferObjects[i] != null) {
+				mFramebufferObjects[i].release();
+				mFramebufferObjects[i] = null;
+			}
+		}
+		mFramebufferDownsampling = 0;
+		super.release();
+	}
+
+	@Override
+	public void draw(final int texName, final GLES20FramebufferObject fbo) {
+		// 設定が変更された場合は GL スレッドで構成し直します。
+		final GLES20GaussianKernel kernel = getKernel();
+		if (kernel != mKernel) {
+			setupPasses(kernel);
+		}
+		if (mFramebufferDownsampling != mDownsampling) {
+			setupFramebufferObjects();
+		}
+
+		final GLES20FramebufferObject first = mFramebufferObjects[0];
+		if (mDownsampling == 1) {
+			// 水平方向のぼかしを行います。
+			first.enable();
+			glClear(GL_COLOR_BUFFER_BIT);
+			mHorizontalPass.setTexelStep(1f / mWidth, 0f);
+			mHorizontalPass.draw(texName, first);
+
+			// 垂直方向のぼかしを行って、指定されたフレームバッファへ描画します。
+			enable(fbo);
+			mVerticalPass.setTexelStep(0f, 1f / mHeight);
+			mVerticalPass.draw(first.getTexName(), fbo);
+			return;
+		}
+
+		final GLES20FramebufferObject second = mFramebufferObjects[1];
+		final int width = first.getWidth();
+		final int height = first.getHeight();
+
+		// 縮小します。ぼかしの描画パスでは同じ大きさのテクスチャを参照するため、バイリニア補間が有効になります。
+		first.enable();
+		glViewport(0, 0, width, height);
+		glClear(GL_COLOR_BUFFER_BIT);
+		super.draw(texName, first);
+
+		// 水平方向のぼかしを行います。
+		second.enable();
+		glClear(GL_COLOR_BUFFER_BIT);
+		mHorizontalPass.setTexelStep(1f / width, 0f);
+		mHorizontalPass.draw(first.getTexName(), second);
+
+		// 垂直方向のぼかしを行います。
+		first.enable();
+		glClear(GL_COLOR_BUFFER_BIT);
+		mVerticalPass.setTexelStep(0f, 1f / height);
+		mVerticalPass.draw(second.getTexName(), first);
+
+		// 拡大して、指定されたフレームバッファへ描画します。
+		enable(fbo);
+		glViewport(0, 0, mWidth, mHeight);
+		super.draw(first.getTexName(), fbo);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
+	private void setupPasses(final GLES20GaussianKernel kernel) {
+		releasePasses();
+		mKernel = kernel;
+		mHorizontalPass = new BlurPass(kernel);
+		mHorizontalPass.setup();
+		// 同じソースコードのプログラムは共有されるため、コンパイルは 1 回だけ行われます。
+		mVerticalPass = new BlurPass(kernel);
+		mVerticalPass.setup();
+	}
+
+	private void releasePasses() {
+		if (mHorizontalPass != null) {
+			mHorizontalPass.release();
+			mHorizontalPass = null;
+		}
+		if (mVerticalPass != null) {
+			mVerticalPass.release();
+			mVerticalPass = null;
+		}
+		mKernel = null;
+	}
+
+	private void setupFramebufferObjects() {
+		if (mWidth <= 0 || mHeight <= 0) {
+			return;
+		}
+		final int downsampling = mDownsampling;
+		// 縮小しない場合は 1 つで足ります。2D の描画のみを行うため深度バッファはアタッチしません。
+		final int count = downsampling == 1 ? 1 : 2;
+		for (int i = 0; i < mFramebufferObjects.length; i++) {
+			if (i < count) {
+				if (mFramebufferObjects[i] == null) {
+					mFramebufferObjects[i] = new GLES20FramebufferObject(false);
+				}
+				mFramebufferObjects[i].setup(Math.max(1, mWidth / downsampling), Math.max(1, mHeight / downsampling));
+			} else if (mFramebufferObjects[i] != null) {
+				mFramebufferObjects[i].release();
+				mFramebufferObjects[i] = null;
+			}
+		}
+		mFramebufferDownsampling = downsampling;
+	}
+
+	private static void enable(final GLES20FramebufferObject fbo) {
+		if (fbo != null) {
+			fbo.enable();
+		} else {
+			glBindFramebuffer(GL_FRAMEBUFFER, 0);
+		}
+	}
+
+}
\ No newline at end of file
@@ -80,6 +80,10 @@ public class GLES20SharpenShader extends GLES20Shader {
 	private float mImageHeightFactor = 0.004f;
 	private float mSharpness;
 
+	private int mImageWidthFactorHandle = -1;
+	private int mImageHeightFactorHandle = -1;
+	private int mSharpnessHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -109,11 +113,18 @@ public class GLES20SharpenShader extends GLES20Shader {
 		mImageHeightFactor = 1f / height;
 	}
 
+	@Override
+	protected void onSetupHandles() {
+		mImageWidthFactorHandle = getHandle("imageWidthFactor");
+		mImageHeightFactorHandle = getHandle("imageHeightFactor");
+		mSharpnessHandle = getHandle("sharpness");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("imageWidthFactor"), mImageWidthFactor);
-		glUniform1f(getHandle("imageHeightFactor"), mImageHeightFactor);
-		glUniform1f(getHandle("sharpness"), mSharpness);
+		glUniform1f(mImageWidthFactorHandle, mImageWidthFactor);
+		glUniform1f(mImageHeightFactorHandle, mImageHeightFactor);
+		glUniform1f(mSharpnessHandle, mSharpness);
 	}
 
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ public class GLES20ShiTomasiFeatureDetectionShader extends GLES20Shader {
 
 	private float mSensitivity = 1.5f;
 
+	private int mSensitivityHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -60,9 +62,14 @@ public class GLES20ShiTomasiFeatureDetectionShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mSensitivityHandle = getHandle("sensitivity");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("sensitivity"), mSensitivity);
+		glUniform1f(mSensitivityHandle, mSensitivity);
 	}
 
 }
\ No newline at end of file
@@ -44,6 +44,8 @@ public class GLES20StretchDistortionShader extends GLES20Shader {
 	private float mCenterX = 0.5f;
 	private float mCenterY = 0.5f;
 
+	private int mCenterHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -56,9 +58,14 @@ public class GLES20StretchDistortionShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mCenterHandle = getHandle("center");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform2f(getHandle("center"), mCenterX, mCenterY);
+		glUniform2f(mCenterHandle, mCenterX, mCenterY);
 	}
 
 }
\ No newline at end of file
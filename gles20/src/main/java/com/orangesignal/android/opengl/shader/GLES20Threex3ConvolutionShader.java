@@ -59,6 +59,8 @@ public class GLES20Threex3ConvolutionShader extends GLES20Threex3TextureSampling
 	
 	private float[] mConvolutionKernel;
 
+	private int mConvolutionMatrixHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -85,10 +87,16 @@ public class GLES20Threex3ConvolutionShader extends GLES20Threex3TextureSampling
 		mConvolutionKernel = convolutionKernel;
 	}
 
+	@Override
+	protected void onSetupHandles() {
+		super.onSetupHandles();
+		mConvolutionMatrixHandle = getHandle("convolutionMatrix");
+	}
+
 	@Override
 	public void onDraw() {
 		super.onDraw();
-		glUniformMatrix3fv(getHandle("convolutionMatrix"), 1, false, mConvolutionKernel, 0);
+		glUniformMatrix3fv(mConvolutionMatrixHandle, 1, false, mConvolutionKernel, 0);
 	}
 
 }
\ No newline at end of file
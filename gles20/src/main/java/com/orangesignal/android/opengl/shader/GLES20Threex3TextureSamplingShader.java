@@ -59,6 +59,9 @@ public class GLES20Threex3TextureSamplingShader extends GLES20Shader {
 	private float mTexelWidth;
 	private float mTexelHeight;
 
+	private int mTexelWidthHandle = -1;
+	private int mTexelHeightHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -96,10 +99,16 @@ public class GLES20Threex3TextureSamplingShader extends GLES20Shader {
 		mTexelHeight = 1f / height;
 	}
 
+	@Override
+	protected void onSetupHandles() {
+		mTexelWidthHandle = getHandle("texelWidth");
+		mTexelHeightHandle = getHandle("texelHeight");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("texelWidth"), mTexelWidth);
-		glUniform1f(getHandle("texelHeight"), mTexelHeight);
+		glUniform1f(mTexelWidthHandle, mTexelWidth);
+		glUniform1f(mTexelHeightHandle, mTexelHeight);
 	}
 
 }
\ No newline at end of file
@@ -73,6 +73,9 @@ public class GLES20ToneShader extends GLES20Threex3TextureSamplingShader {
 	 */
 	private float mQuantizationLevels = 10f;
 
+	private int mThresholdHandle = -1;
+	private int mQuantizationLevelsHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -103,10 +106,17 @@ public class GLES20ToneShader extends GLES20Threex3TextureSamplingShader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		super.onSetupHandles();
+		mThresholdHandle = getHandle("threshold");
+		mQuantizationLevelsHandle = getHandle("quantizationLevels");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform1f(getHandle("threshold"), mThreshold);
-		glUniform1f(getHandle("quantizationLevels"), mQuantizationLevels);
+		glUniform1f(mThresholdHandle, mThreshold);
+		glUniform1f(mQuantizationLevelsHandle, mQuantizationLevels);
 	}
 
 }
\ No newline at end of file
@@ -10,7 +10,7 @@ import static android.opengl.GLES20.glUniform3fv;
 import android.annotation.TargetApi;
 import android.os.Build;
 
-import com.orangesignal.android.opengl.GLES20Shader;
+import com.orangesignal.android.opengl.GLES20PointwiseShader;
 
 /**
  * 
@@ -19,28 +19,24 @@ import com.orangesignal.android.opengl.GLES20Shader;
  */
 @Deprecated
 @TargetApi(Build.VERSION_CODES.FROYO)
-public class GLES20VignetteShader extends GLES20Shader {
+public class GLES20VignetteShader extends GLES20PointwiseShader {
 
 	/**
-	 * 色描画用のピクセル/フラグメントシェーダのソースコードです。
+	 * 色の変換で使用する変数と定数の宣言です。
 	 */
-	private static final String FRAGMENT_SHADER =
-			"precision mediump float;" +	// 演算精度を指定します。
-
-			"varying vec2 vTextureCoord;" +
-			"uniform lowp sampler2D sTexture;" +
-
+	private static final String STAGE_DECLARATIONS =
 			"uniform lowp vec2 vignetteCenter;" +
 			"uniform lowp vec3 vignetteColor;" +
 			"uniform highp float vignetteStart;" +
-			"uniform highp float vignetteEnd;" +
+			"uniform highp float vignetteEnd;";
 
-			"void main() {" +
-				"lowp vec3 rgb = texture2D(sTexture, vTextureCoord).rgb;" +
-				"lowp float d = distance(vTextureCoord, vec2(vignetteCenter.x, vignetteCenter.y));" +
-				"lowp float percent = smoothstep(vignetteStart, vignetteEnd, d);" +
-				"gl_FragColor = vec4(mix(rgb.x, vignetteColor.x, percent), mix(rgb.y, vignetteColor.y, percent), mix(rgb.z, vignetteColor.z, percent), 1.0);" +
-			"}";
+	/**
+	 * 色を変換する GLSL の文です。
+	 */
+	private static final String STAGE_SOURCE =
+			"lowp float d = distance(vTextureCoord, vec2(vignetteCenter.x, vignetteCenter.y));" +
+			"lowp float percent = smoothstep(vignetteStart, vignetteEnd, d);" +
+			"color = vec4(mix(color.rgb, vignetteColor, percent), 1.0);";
 
 	private float mVignetteCenterX = 0.5f;
 	private float mVignetteCenterY = 0.5f;
@@ -48,6 +44,11 @@ public class GLES20VignetteShader extends GLES20Shader {
 	private float mVignetteStart = 0.3f;
 	private float mVignetteEnd = 0.75f;
 
+	private int mVignetteCenterHandle = -1;
+	private int mVignetteColorHandle = -1;
+	private int mVignetteStartHandle = -1;
+	private int mVignetteEndHandle = -1;
+
 	//////////////////////////////////////////////////////////////////////////
 	// コンストラクタ
 
@@ -55,7 +56,7 @@ public class GLES20VignetteShader extends GLES20Shader {
 	 * デフォルトコンストラクタです。
 	 */
 	public GLES20VignetteShader() {
-		super(DEFAULT_VERTEX_SHADER, FRAGMENT_SHADER);
+		super(STAGE_DECLARATIONS, STAGE_SOURCE);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -79,12 +80,20 @@ public class GLES20VignetteShader extends GLES20Shader {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	@Override
+	protected void onSetupHandles() {
+		mVignetteCenterHandle = getHandle("vignetteCenter");
+		mVignetteColorHandle = getHandle("vignetteColor");
+		mVignetteStartHandle = getHandle("vignetteStart");
+		mVignetteEndHandle = getHandle("vignetteEnd");
+	}
+
 	@Override
 	public void onDraw() {
-		glUniform2f(getHandle("vignetteCenter"), mVignetteCenterX, mVignetteCenterY);
-		glUniform3fv(getHandle("vignetteColor"), 0, mVignetteColor, 0);
-		glUniform1f(getHandle("vignetteStart"), mVignetteStart);
-		glUniform1f(getHandle("vignetteEnd"), mVignetteEnd);
+		glUniform2f(mVignetteCenterHandle, mVignetteCenterX, mVignetteCenterY);
+		glUniform3fv(mVignetteColorHandle, 0, mVignetteColor, 0);
+		glUniform1f(mVignetteStartHandle, mVignetteStart);
+		glUniform1f(mVignetteEndHandle, mVignetteEnd);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * {@link GLES20ContextState} の単体テストです。
+ */
+public final class GLES20ContextStateTest {
+
+	/**
+	 * GL を使用せずにプログラムオブジェクトの生成と破棄を記録します。
+	 */
+	private static final class FakeProgramFactory implements GLES20ProgramCache.ProgramFactory {
+
+		final List<Integer> deleted = new ArrayList<Integer>();
+		int created;
+
+		@Override
+		public int createProgram(final String key, final String vertexSource, final String fragmentSource) {
+			return ++created;
+		}
+
+		@Override
+		public void deleteProgram(final int program) {
+			deleted.add(program);
+		}
+
+	}
+
+	@Test
+	public void testNewCurrentDiscardsPreviousState() {
+		final GLES20ContextState first = GLES20ContextState.newCurrent();
+		assertSame(first, GLES20ContextState.getCurrent());
+		assertTrue(first.isCurrent());
+
+		// EGL コンテキストが生成し直された場合は、以前の状態を参照しません。
+		final GLES20ContextState second = GLES20ContextState.newCurrent();
+		assertNotSame(first, second);
+		assertSame(second, GLES20ContextState.getCurrent());
+		assertTrue(first.isDiscarded());
+		assertFalse(first.isCurrent());
+		assertNotSame(first.getProgramCache(), second.getProgramCache());
+		assertNotSame(first.getGeometry(), second.getGeometry());
+		assertNotSame(first.getTextureCache(), second.getTextureCache());
+
+		second.discard();
+		assertFalse(second.isCurrent());
+		assertNotSame(second, GLES20ContextState.getCurrent());
+	}
+
+	@Test
+	public void testGetCurrentIsBoundToThread() throws InterruptedException {
+		final GLES20ContextState state = GLES20ContextState.newCurrent();
+		final GLES20ContextState[] other = new GLES20ContextState[1];
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				other[0] = GLES20ContextState.getCurrent();
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertNotNull(other[0]);
+		assertNotSame(state, other[0]);
+		assertSame(state, GLES20ContextState.getCurrent());
+		state.discard();
+	}
+
+	@Test
+	public void testDiscardDoesNotDeletePrograms() {
+		final FakeProgramFactory factory = new FakeProgramFactory();
+		final GLES20ContextState state = new GLES20ContextState(new GLES20ProgramCache(factory, 0), new GLES20Geometry(), new GLES20TextureCache(0));
+
+		final int program = state.getProgramCache().obtain("vs", "fs");
+		state.discard();
+		assertTrue(state.isDiscarded());
+
+		// 失われた EGL コンテキストの識別子は削除しません。
+		state.getProgramCache().release(program);
+		assertTrue(factory.deleted.isEmpty());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * {@link GLES20FeatureReducer} の単体テストです。
+ */
+public final class GLES20FeatureReducerTest {
+
+	private static final float DELTA = 1e-6f;
+
+	@Test
+	public void testReduce() {
+		final int width = 16;
+		final int height = 8;
+		final float[] scores = new float[width * height];
+		scores[1 * width + 2] = 0.5f;
+		scores[1 * width + 3] = 0.4f;	// 近傍により抑制されます。
+		scores[6 * width + 13] = 0.9f;
+		scores[5 * width + 9] = 0.7f;
+		scores[2 * width + 8] = 0.05f;	// 閾値以下
+
+		final float[] features = new float[10 * GLES20FeatureReducer.FEATURE_SIZE];
+		final int count = GLES20FeatureReducer.reduce(scores, width, height, 4, 0.1f, features, 10);
+
+		assertEquals(3, count);
+		assertArrayEquals(new float[] {
+				13, 6, 0.9f,
+				9, 5, 0.7f,
+				2, 1, 0.5f
+			}, Arrays.copyOf(features, count * GLES20FeatureReducer.FEATURE_SIZE), DELTA);
+	}
+
+	@Test
+	public void testReduceKeepsOnePerBlock() {
+		final int width = 8;
+		final int height = 8;
+		final float[] scores = new float[width * height];
+		// 同じブロック内の離れた極大値は大きい方のみ残ります。
+		scores[0 * width + 0] = 0.3f;
+		scores[3 * width + 3] = 0.6f;
+		// 端数のブロックも処理します。
+		final float[] features = new float[4 * GLES20FeatureReducer.FEATURE_SIZE];
+
+		assertEquals(1, GLES20FeatureReducer.reduce(scores, width, height, 4, 0.1f, features, 4));
+		assertEquals(3f, features[0], 0f);
+		assertEquals(3f, features[1], 0f);
+
+		final float[] odd = new float[5 * 5];
+		odd[4 * 5 + 4] = 0.8f;
+		assertEquals(1, GLES20FeatureReducer.reduce(odd, 5, 5, 4, 0.1f, features, 4));
+		assertEquals(4f, features[0], 0f);
+		assertEquals(4f, features[1], 0f);
+	}
+
+	@Test
+	public void testSelectTopFeatures() {
+		final float[] blocks = {
+				0, 0, 0.2f,
+				1, 0, 0.0f,
+				2, 0, 0.8f,
+				3, 0, 0.5f,
+				4, 0, 0.8f,
+				5, 0, 0.9f
+			};
+		final float[] features = new float[3 * GLES20FeatureReducer.FEATURE_SIZE];
+		assertEquals(3, GLES20FeatureReducer.selectTopFeatures(blocks, 6, features, 3));
+		// 同じ特徴量はブロックの順序を維持します。
+		assertArrayEquals(new float[] { 5, 0, 0.9f, 2, 0, 0.8f, 4, 0, 0.8f }, features, DELTA);
+		assertEquals(0, GLES20FeatureReducer.selectTopFeatures(blocks, 6, features, 0));
+	}
+
+	@Test
+	public void testDecodeBlocks() {
+		final int blockSize = GLES20FeatureReducer.MAX_BLOCK_SIZE;
+		final ByteBuffer pixels = ByteBuffer.allocate(blockSize * 4);
+		// GPU と同じく (位置 + 0.5) / blockSize を 8 ビットへ丸めて格納します。
+		for (int i = 0; i < blockSize; i++) {
+			pixels.put((byte) 255);
+			pixels.put((byte) Math.round((i + 0.5f) / blockSize * 255f));
+			pixels.put((byte) Math.round((blockSize - i - 0.5f) / blockSize * 255f));
+			pixels.put((byte) 255);
+		}
+		final float[] blocks = new float[blockSize * GLES20FeatureReducer.FEATURE_SIZE];
+		assertEquals(blockSize, GLES20FeatureReducer.decodeBlocks(pixels, blockSize, 1, blockSize, blocks));
+		for (int i = 0; i < blockSize; i++) {
+			assertEquals(i * blockSize + i, blocks[i * 3], 0f);
+			assertEquals(blockSize - i - 1, blocks[i * 3 + 1], 0f);
+			assertEquals(1f, blocks[i * 3 + 2], 0f);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * {@link GLES20FramebufferPyramid} の単体テストです。
+ */
+public final class GLES20FramebufferPyramidTest {
+
+	@Test
+	public void testGetLevelSize() {
+		assertEquals(1280, GLES20FramebufferPyramid.getLevelSize(1280, 0));
+		assertEquals(640, GLES20FramebufferPyramid.getLevelSize(1280, 1));
+		assertEquals(320, GLES20FramebufferPyramid.getLevelSize(1280, 2));
+		assertEquals(160, GLES20FramebufferPyramid.getLevelSize(1280, 3));
+		assertEquals(360, GLES20FramebufferPyramid.getLevelSize(721, 1));
+		// 0 にはなりません。
+		assertEquals(1, GLES20FramebufferPyramid.getLevelSize(6, 4));
+	}
+
+	@Test
+	public void testComputeMemorySize() {
+		assertEquals(0L, GLES20FramebufferPyramid.computeMemorySize(1280, 720, 0));
+		assertEquals(640L * 360 * 4, GLES20FramebufferPyramid.computeMemorySize(1280, 720, 1));
+		// 全てのレベルを合わせても元の大きさの 1/3 未満です。
+		assertEquals((640L * 360 + 320 * 180 + 160 * 90) * 4, GLES20FramebufferPyramid.computeMemorySize(1280, 720, 3));
+	}
+
+}
\ No newline at end of file
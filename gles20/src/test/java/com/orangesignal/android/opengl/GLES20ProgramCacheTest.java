@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * {@link GLES20ProgramCache} の単体テストです。
+ */
+public final class GLES20ProgramCacheTest {
+
+	/**
+	 * GL を使用せずにプログラムオブジェクトの生成と破棄を記録します。
+	 */
+	private static final class FakeProgramFactory implements GLES20ProgramCache.ProgramFactory {
+
+		final List<Integer> deleted = new ArrayList<Integer>();
+		int created;
+
+		@Override
+		public int createProgram(final String key, final String vertexSource, final String fragmentSource) {
+			return ++created;
+		}
+
+		@Override
+		public void deleteProgram(final int program) {
+			deleted.add(program);
+		}
+
+	}
+
+	@Test
+	public void testObtainSharesProgramWithSameSource() {
+		final FakeProgramFactory factory = new FakeProgramFactory();
+		final GLES20ProgramCache cache = new GLES20ProgramCache(factory, 0);
+
+		final int a = cache.obtain("vs", "fs");
+		final int b = cache.obtain("vs", "fs");
+		final int c = cache.obtain("vs", "fs2");
+		assertEquals(a, b);
+		assertFalse(a == c);
+		assertEquals(2, factory.created);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+
+		// 参照が残っている間は破棄しません。
+		cache.release(a);
+		assertTrue(factory.deleted.isEmpty());
+		cache.release(b);
+		assertEquals(1, factory.deleted.size());
+		assertEquals(a, (int) factory.deleted.get(0));
+		assertEquals(1, cache.getProgramCount());
+	}
+
+	@Test
+	public void testReleaseKeepsIdleProgramsInLruOrder() {
+		final FakeProgramFactory factory = new FakeProgramFactory();
+		final GLES20ProgramCache cache = new GLES20ProgramCache(factory, 2);
+
+		final int a = cache.obtain("vs", "a");
+		final int b = cache.obtain("vs", "b");
+		cache.release(a);
+		cache.release(b);
+		assertTrue(factory.deleted.isEmpty());
+		assertEquals(2, cache.getIdleProgramCount());
+
+		// 再利用した a が最近使用したものになり、最も長く使用されていない b が破棄されます。
+		assertEquals(a, cache.obtain("vs", "a"));
+		cache.release(a);
+		final int c = cache.obtain("vs", "c");
+		assertTrue(factory.deleted.isEmpty());
+		cache.release(c);
+		assertEquals(1, factory.deleted.size());
+		assertEquals(b, (int) factory.deleted.get(0));
+		assertEquals(2, cache.getProgramCount());
+
+		// 参照中のプログラムオブジェクトは破棄しません。
+		cache.obtain("vs", "a");
+		cache.trimToSize();
+		assertEquals(2, factory.deleted.size());
+		assertEquals(c, (int) factory.deleted.get(1));
+		assertEquals(1, cache.getProgramCount());
+		assertEquals(0, cache.getIdleProgramCount());
+	}
+
+	@Test
+	public void testCreateKey() {
+		final String key = GLES20ProgramCache.createKey("vs", "fs");
+		assertEquals(40, key.length());
+		assertEquals(key, GLES20ProgramCache.createKey("vs", "fs"));
+		// 連結位置が異なれば別のキーになります。
+		assertFalse(key.equals(GLES20ProgramCache.createKey("vsf", "s")));
+	}
+
+}
\ No newline at end of file
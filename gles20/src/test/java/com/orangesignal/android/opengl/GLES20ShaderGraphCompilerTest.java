@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.orangesignal.android.opengl.GLES20ShaderGraphCompiler.Pass;
+import com.orangesignal.android.opengl.GLES20ShaderGraphCompiler.Plan;
+import com.orangesignal.android.opengl.shader.GLES20BoxBlurShader;
+import com.orangesignal.android.opengl.shader.GLES20BrightnessShader;
+import com.orangesignal.android.opengl.shader.GLES20ColorMatrixShader;
+import com.orangesignal.android.opengl.shader.GLES20ContrastShader;
+import com.orangesignal.android.opengl.shader.GLES20MonochromeShader;
+import com.orangesignal.android.opengl.shader.GLES20SaturationShader;
+import com.orangesignal.android.opengl.shader.GLES20VignetteShader;
+
+/**
+ * {@link GLES20ShaderGraphCompiler} の単体テストです。
+ */
+public final class GLES20ShaderGraphCompilerTest {
+
+	@Test
+	public void testCompileFusesConsecutivePointwiseShaders() {
+		final List<GLES20Shader> shaders = Arrays.<GLES20Shader>asList(
+				new GLES20BrightnessShader(),
+				new GLES20ContrastShader(),
+				new GLES20SaturationShader(),
+				new GLES20VignetteShader()
+			);
+		final Plan plan = GLES20ShaderGraphCompiler.compile(shaders, true);
+
+		assertEquals(1, plan.getPassCount());
+		final Pass pass = plan.getPasses().get(0);
+		assertTrue(pass.isFused());
+		assertEquals(shaders, pass.getShaders());
+		assertEquals("[fused(GLES20BrightnessShader, GLES20ContrastShader, GLES20SaturationShader, GLES20VignetteShader)]", plan.toString());
+	}
+
+	@Test
+	public void testCompileSplitsAtNonPointwiseShader() {
+		final GLES20Shader brightness = new GLES20BrightnessShader();
+		final GLES20Shader contrast = new GLES20ContrastShader();
+		final GLES20Shader blur = new GLES20BoxBlurShader();
+		final GLES20Shader vignette = new GLES20VignetteShader();
+		final Plan plan = GLES20ShaderGraphCompiler.compile(Arrays.asList(brightness, contrast, blur, vignette), true);
+
+		assertEquals(3, plan.getPassCount());
+		assertTrue(plan.getPasses().get(0).isFused());
+		assertFalse(plan.getPasses().get(1).isFused());
+		assertSame(blur, plan.getPasses().get(1).getShaders().get(0));
+		// 1 つだけのピクセル単位のシェーダーは融合しません。
+		assertFalse(plan.getPasses().get(2).isFused());
+		assertSame(vignette, plan.getPasses().get(2).getShaders().get(0));
+		assertNull(plan.getPasses().get(2).getFragmentShaderSource());
+		assertEquals("[fused(GLES20BrightnessShader, GLES20ContrastShader), GLES20BoxBlurShader, GLES20VignetteShader]", plan.toString());
+	}
+
+	@Test
+	public void testCompilePrefixesStageVariables() {
+		final Plan plan = GLES20ShaderGraphCompiler.compile(Arrays.asList(
+				new GLES20ColorMatrixShader(),
+				new GLES20MonochromeShader()
+			), true);
+		final Pass pass = plan.getPasses().get(0);
+		final String source = pass.getFragmentShaderSource();
+
+		assertEquals("s0_", pass.getPrefix(0));
+		assertEquals("s1_", pass.getPrefix(1));
+		// 同じ名前の変数がステージごとに別の名前になります。
+		assertTrue(source.contains("uniform lowp float s0_intensity;"));
+		assertTrue(source.contains("uniform float s1_intensity;"));
+		assertTrue(source.contains("uniform lowp mat4 s0_colorMatrix;"));
+		assertTrue(source.contains("mix(color.rgb, outputColor.rgb, s1_intensity)"));
+		assertFalse(source.matches("(?s).*[^_]intensity\\b.*"));
+		assertTrue(source.contains("gl_FragColor = color;"));
+	}
+
+	@Test
+	public void testCompileWithoutFusion() {
+		final Plan plan = GLES20ShaderGraphCompiler.compile(Arrays.asList(
+				new GLES20BrightnessShader(),
+				new GLES20ContrastShader()
+			), false);
+
+		assertEquals(2, plan.getPassCount());
+		for (final Pass pass : plan.getPasses()) {
+			assertFalse(pass.isFused());
+			assertNull(pass.getPrefix(0));
+		}
+	}
+
+	@Test
+	public void testCompileEmpty() {
+		assertEquals(0, GLES20ShaderGraphCompiler.compile(null, true).getPassCount());
+	}
+
+}
\ No newline at end of file
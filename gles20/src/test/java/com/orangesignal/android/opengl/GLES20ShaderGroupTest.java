@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * {@link GLES20ShaderGroup} の単体テストです。
+ */
+public final class GLES20ShaderGroupTest {
+
+	@Test
+	public void testGetFramebufferCount() {
+		assertEquals(0, GLES20ShaderGroup.getFramebufferCount(0));
+		assertEquals(0, GLES20ShaderGroup.getFramebufferCount(1));
+		assertEquals(1, GLES20ShaderGroup.getFramebufferCount(2));
+		assertEquals(2, GLES20ShaderGroup.getFramebufferCount(3));
+		assertEquals(2, GLES20ShaderGroup.getFramebufferCount(10));
+	}
+
+	@Test
+	public void testFramebufferMemorySize() {
+		final long rgba = 1920L * 1080 * 4;
+		assertEquals(rgba, GLES20FramebufferObject.computeMemorySize(1920, 1080, false));
+		assertEquals(rgba + 1920L * 1080 * 2, GLES20FramebufferObject.computeMemorySize(1920, 1080, true));
+
+		// 10 段のシェーダーグループは従来 9 つの深度バッファ付きのフレームバッファオブジェクトを確保していました。
+		final long before = 9 * GLES20FramebufferObject.computeMemorySize(1920, 1080, true);
+		final long after = GLES20ShaderGroup.getFramebufferCount(10) * GLES20FramebufferObject.computeMemorySize(1920, 1080, false);
+		assertEquals(111974400L, before);
+		assertEquals(16588800L, after);
+	}
+
+	@Test
+	public void testGetFramebufferMemorySizeBeforeSetup() {
+		assertEquals(0, new GLES20ShaderGroup(new GLES20Shader(), new GLES20Shader()).getFramebufferMemorySize());
+	}
+
+}
\ No newline at end of file
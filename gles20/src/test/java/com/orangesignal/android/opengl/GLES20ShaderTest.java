@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.orangesignal.android.opengl.shader.GLES20SaturationShader;
+import com.orangesignal.android.opengl.shader.GLES20VignetteShader;
+
+/**
+ * {@link GLES20Shader} の単体テストです。<p>
+ * ハンドルが描画時ではなく構成時に解決されることと、融合されたシェーダーの描画時のステージの呼び出しがメモリを確保しないことを検証します。
+ * GL の呼び出し自体は JVM 上で実行できないため、{@link GLES20Shader#draw(int, GLES20FramebufferObject)} の全体は検証の対象外です。
+ */
+public final class GLES20ShaderTest {
+
+	private com.sun.management.ThreadMXBean mThreadMXBean;
+
+	/**
+	 * GL を呼び出さずに変数名の長さをハンドルとして返すシェーダーです。
+	 */
+	private static final class HeadlessShader extends GLES20Shader {
+
+		int mLookupCount;
+
+		@Override
+		int findHandle(final String name) {
+			mLookupCount++;
+			return name.length();
+		}
+
+	}
+
+	/**
+	 * 構成時に解決したハンドルを描画時に参照するだけのステージです。
+	 */
+	private static final class StageShader extends GLES20Shader {
+
+		private int mValueHandle = -1;
+		private int mIntensityHandle = -1;
+		int mSum;
+
+		@Override
+		protected void onSetupHandles() {
+			mValueHandle = getHandle("value");
+			mIntensityHandle = getHandle("intensity");
+		}
+
+		@Override
+		protected void onDraw() {
+			mSum += mValueHandle;
+			mSum += mIntensityHandle;
+		}
+
+	}
+
+	@Before
+	public void setUp() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		mThreadMXBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(mThreadMXBean.isThreadAllocatedMemorySupported());
+		mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private long getAllocatedBytes() {
+		return mThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	@Test
+	public void testGetHandleCachesPrefixedName() {
+		final HeadlessShader owner = new HeadlessShader();
+		final StageShader stage = new StageShader();
+		stage.setHandleOwner(owner, "s0_");
+		assertEquals(2, owner.mLookupCount);
+
+		assertEquals("s0_value".length(), stage.getHandle("value"));
+		assertEquals("s0_value".length(), stage.getHandle("value"));
+		assertEquals(2, owner.mLookupCount);
+
+		// ステージを切り離すとキャッシュは破棄されます。
+		stage.setHandleOwner(owner, "s10_");
+		assertEquals("s10_value".length(), stage.getHandle("value"));
+	}
+
+	@Test
+	public void testHandlesAreResolvedBeforeDraw() {
+		final HeadlessShader owner = new HeadlessShader();
+		final StageShader stage = new StageShader();
+		stage.setHandleOwner(owner, "s0_");
+		final int lookups = owner.mLookupCount;
+
+		for (int i = 0; i < 100; i++) {
+			stage.onDraw();
+		}
+		assertEquals(lookups, owner.mLookupCount);
+		assertEquals(100 * ("s0_value".length() + "s0_intensity".length()), stage.mSum);
+
+		// 実際のステージも融合された時点でハンドルを解決します。
+		final GLES20Shader saturation = new GLES20SaturationShader();
+		saturation.setHandleOwner(owner, "s1_");
+		assertEquals(lookups + 1, owner.mLookupCount);
+		final GLES20Shader vignette = new GLES20VignetteShader();
+		vignette.setHandleOwner(owner, "s2_");
+		assertEquals(lookups + 5, owner.mLookupCount);
+	}
+
+	@Test
+	public void testFusedDrawDoesNotAllocateAfterWarmUp() {
+		final HeadlessShader owner = new HeadlessShader();
+		final List<GLES20Shader> stages = new ArrayList<GLES20Shader>();
+		final List<String> prefixes = new ArrayList<String>();
+		for (int i = 0; i < 4; i++) {
+			final StageShader stage = new StageShader();
+			stage.setHandleOwner(owner, "s" + i + "_");
+			stages.add(stage);
+			prefixes.add("s" + i + "_");
+		}
+		final GLES20FusedShader fused = new GLES20FusedShader(new GLES20ShaderGraphCompiler.Pass(stages, prefixes, GLES20Shader.DEFAULT_FRAGMENT_SHADER));
+
+		// ウォームアップします。
+		for (int i = 0; i < 10000; i++) {
+			fused.onDraw();
+		}
+		assertEquals(8, owner.mLookupCount);
+
+		getAllocatedBytes();
+		final long before = getAllocatedBytes();
+		for (int i = 0; i < 10000; i++) {
+			fused.onDraw();
+		}
+		final long after = getAllocatedBytes();
+
+		assertEquals(0L, after - before);
+	}
+
+}
\ No newline at end of file
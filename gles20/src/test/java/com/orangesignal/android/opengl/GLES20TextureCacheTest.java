@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+
+/**
+ * {@link GLES20TextureCache} の単体テストです。
+ */
+public final class GLES20TextureCacheTest {
+
+	/**
+	 * GL を使用せずにテクスチャの構成と破棄を記録します。
+	 */
+	private static final class FakeTexture implements Texture {
+
+		final int size;
+		int setupCount;
+		boolean released;
+
+		FakeTexture(final int size) {
+			this.size = size;
+		}
+
+		@Override
+		public int getTexName() {
+			return 1;
+		}
+
+		@Override
+		public int getWidth() {
+			return size;
+		}
+
+		@Override
+		public int getHeight() {
+			return size;
+		}
+
+		@Override
+		public void setup() {
+			setupCount++;
+		}
+
+		@Override
+		public void release() {
+			released = true;
+		}
+
+	}
+
+	/**
+	 * GL を使用せずに画像データの読み込みに失敗するテクスチャです。
+	 */
+	private static final class FailingTexture extends GLES20ImageTexture {
+
+		boolean released;
+
+		@Override
+		protected Bitmap decodeBitmap(final int maxTextureSize) {
+			throw new IllegalStateException("Could not decode");
+		}
+
+		@Override
+		public void setup() {}
+
+		@Override
+		public void release() {
+			released = true;
+		}
+
+	}
+
+	private static final class FakeTextureFactory implements GLES20TextureCache.TextureFactory {
+
+		final int size;
+		FakeTexture last;
+		int created;
+
+		FakeTextureFactory(final int size) {
+			this.size = size;
+		}
+
+		@Override
+		public Texture newTexture() {
+			created++;
+			last = new FakeTexture(size);
+			return last;
+		}
+
+	}
+
+	@Test
+	public void testObtainSharesTextureWithSameKey() {
+		final GLES20TextureCache cache = new GLES20TextureCache(0);
+		final FakeTextureFactory factory = new FakeTextureFactory(2);
+
+		final Texture a = cache.obtain("a", factory);
+		final Texture b = cache.obtain("a", factory);
+		final Texture c = cache.obtain("c", factory);
+		assertSame(a, b);
+		assertNotSame(a, c);
+		assertEquals(2, factory.created);
+		assertEquals(1, ((FakeTexture) a).setupCount);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(1f / 3, cache.getHitRate(), 0.0001f);
+		assertEquals(2 * 16, cache.getResidentBytes());
+
+		// 参照が残っている間は上限を超えても破棄しません。
+		cache.release(a);
+		assertFalse(((FakeTexture) a).released);
+		cache.release(b);
+		assertTrue(((FakeTexture) a).released);
+		assertEquals(1, cache.getTextureCount());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testReleaseKeepsIdleTexturesWithinBudget() {
+		// 2x2 のテクスチャ (16 バイト) を 2 つまで保持します。
+		final GLES20TextureCache cache = new GLES20TextureCache(32);
+		final FakeTextureFactory factory = new FakeTextureFactory(2);
+
+		final Texture a = cache.obtain("a", factory);
+		final Texture b = cache.obtain("b", factory);
+		cache.release(a);
+		cache.release(b);
+		assertEquals(2, cache.getTextureCount());
+		assertEquals(32, cache.getResidentBytes());
+
+		// 再利用した a が最近使用したものになり、最も長く使用されていない b が破棄されます。
+		assertSame(a, cache.obtain("a", factory));
+		cache.release(a);
+		final Texture c = cache.obtain("c", factory);
+		assertTrue(((FakeTexture) b).released);
+		assertFalse(((FakeTexture) a).released);
+		assertEquals(2, cache.getTextureCount());
+
+		// 上限を下げると参照されていないテクスチャから破棄します。
+		cache.setMaxBytes(16);
+		assertTrue(((FakeTexture) a).released);
+		assertFalse(((FakeTexture) c).released);
+
+		cache.release(c);
+		cache.trimToSize();
+		assertTrue(((FakeTexture) c).released);
+		assertEquals(0, cache.getTextureCount());
+		assertEquals(0, cache.getResidentBytes());
+	}
+
+	@Test
+	public void testObtainReloadsFailedTexture() {
+		final GLES20TextureCache cache = new GLES20TextureCache(0);
+		final GLES20TextureCache.TextureFactory factory = new GLES20TextureCache.TextureFactory() {
+			@Override
+			public Texture newTexture() {
+				final FailingTexture texture = new FailingTexture();
+				texture.prepareAsync(new Executor() {
+					@Override
+					public void execute(final Runnable command) {
+						command.run();
+					}
+				});
+				return texture;
+			}
+		};
+
+		final FailingTexture a = (FailingTexture) cache.obtain("a", factory);
+		assertTrue(a.getError() instanceof IllegalStateException);
+
+		// 読み込みに失敗したテクスチャは共有せずに生成し直します。
+		final Texture b = cache.obtain("a", factory);
+		assertNotSame(a, b);
+		assertTrue(a.released);
+		assertEquals(1, cache.getTextureCount());
+		assertEquals(2, cache.getMissCount());
+
+		// 取り除かれたテクスチャの返却は無視されます。
+		cache.release(a);
+		assertEquals(1, cache.getTextureCount());
+	}
+
+	@Test
+	public void testCreateKey() {
+		assertEquals("res:1", GLES20TextureCache.createResourceKey(1));
+		assertEquals("sha1:da39a3ee5e6b4b0d3255bfef95601890afd80709", GLES20TextureCache.createContentKey(new byte[0]));
+		assertFalse(GLES20TextureCache.createContentKey(new byte[] { 1 }).equals(GLES20TextureCache.createContentKey(new byte[] { 2 })));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+package com.orangesignal.android.opengl.shader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * {@link GLES20GaussianKernel} の単体テストです。
+ */
+public final class GLES20GaussianKernelTest {
+
+	private static final float DELTA = 1e-5f;
+
+	@Test
+	public void testCreate() {
+		final GLES20GaussianKernel kernel = GLES20GaussianKernel.create(2f);
+		assertEquals(6, kernel.getRadius());
+		assertEquals(3, kernel.getPairCount());
+		// 13 タップが 7 回のテクスチャフェッチになります。
+		assertEquals(7, kernel.getTapCount());
+		assertEquals(0f, kernel.getOffsets()[0], 0f);
+
+		float sum = kernel.getWeights()[0];
+		for (int k = 1; k <= kernel.getPairCount(); k++) {
+			sum += kernel.getWeights()[k] * 2;
+			// 畳み込んだタップは元の 2 つのタップの間に位置します。
+			assertEquals(k * 2 - 0.5f, kernel.getOffsets()[k], 0.5f);
+		}
+		assertEquals(1f, sum, DELTA);
+	}
+
+	@Test
+	public void testCreateClampsRadius() {
+		assertEquals(1, GLES20GaussianKernel.create(0.1f).getRadius());
+		assertEquals(1, GLES20GaussianKernel.create(0.1f).getPairCount());
+		assertEquals(GLES20GaussianKernel.MAX_RADIUS, GLES20GaussianKernel.create(100f).getRadius());
+		assertEquals(7, GLES20GaussianKernel.create(100f).getPairCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateIllegalArgumentException() {
+		GLES20GaussianKernel.create(0f);
+	}
+
+	@Test
+	public void testFoldedTapsMatchDiscreteConvolution() {
+		for (final float sigma : new float[] { 0.8f, 1.5f, 2f, 3.3f, 4.6f }) {
+			final GLES20GaussianKernel kernel = GLES20GaussianKernel.create(sigma);
+			final int radius = kernel.getRadius();
+
+			// 打ち切って正規化した離散的な重みを計算します。
+			final double[] discrete = new double[radius + 1];
+			double total = 0;
+			for (int i = 0; i <= radius; i++) {
+				discrete[i] = Math.exp(-(i * i) / (2.0 * sigma * sigma));
+				total += i == 0 ? discrete[i] : discrete[i] * 2;
+			}
+
+			final float[] signal = new float[64];
+			final Random random = new Random(sigma > 2f ? 1 : 2);
+			for (int i = 0; i < signal.length; i++) {
+				signal[i] = random.nextFloat();
+			}
+
+			final int center = signal.length / 2;
+			double expected = 0;
+			for (int i = -radius; i <= radius; i++) {
+				expected += signal[center + i] * discrete[Math.abs(i)] / total;
+			}
+
+			// バイリニア補間によるサンプリングを模倣します。
+			double actual = kernel.getWeights()[0] * signal[center];
+			for (int k = 1; k <= kernel.getPairCount(); k++) {
+				final float offset = kernel.getOffsets()[k];
+				actual += kernel.getWeights()[k] * (sample(signal, center + offset) + sample(signal, center - offset));
+			}
+			assertEquals("sigma " + sigma, expected, actual, DELTA);
+		}
+	}
+
+	private static double sample(final float[] signal, final float x) {
+		final int i = (int) Math.floor(x);
+		final float t = x - i;
+		return signal[i] * (1f - t) + signal[i + 1] * t;
+	}
+
+}
\ No newline at end of file
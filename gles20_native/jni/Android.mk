@@ -11,7 +11,14 @@ include $(CLEAR_VARS)
 
 LOCAL_MODULE    := orangesignal-gles20
 LOCAL_C_INCLUDES := $(LOCAL_PATH)/include
-LOCAL_SRC_FILES := ./src/GLES20CompatJNI.cpp ./src/GLES20PreviewTextureJNI.cpp ./src/GLES20UtilsJNI.cpp ./src/YuvDataUtils.cpp
+LOCAL_SRC_FILES := ./src/GLES20CompatJNI.cpp ./src/GLES20PreviewTextureJNI.cpp ./src/GLES20UtilsJNI.cpp ./src/YuvDataUtils.cpp ./src/YuvDataKernels.cpp
+
+# armeabi-v7a では NEON 命令のカーネルを追加して、実行時に cpufeatures で NEON のサポートを確認してから使用します。
+ifeq ($(TARGET_ARCH_ABI),armeabi-v7a)
+LOCAL_CFLAGS += -DHAVE_NEON=1
+LOCAL_SRC_FILES += ./src/YuvDataKernelsNeon.cpp.neon
+LOCAL_STATIC_LIBRARIES += cpufeatures
+endif
 
 #LOCAL_CPP_FEATURES += exceptions
 #LOCAL_CPP_FEATURES += rtti
@@ -20,8 +27,11 @@ LOCAL_SRC_FILES := ./src/GLES20CompatJNI.cpp ./src/GLES20PreviewTextureJNI.cpp .
 LOCAL_LDLIBS += -llog			# ログ機能を使用するので Android-specific Log Support を追加します。
 #LOCAL_LDLIBS += -ldl
 LOCAL_LDLIBS += -lGLESv2		# OpenGL ES 2.0 を使用するので OpenGL ES 2.0 ライブラリを追加します。
+LOCAL_LDLIBS += -lEGL			# 拡張機能の関数を eglGetProcAddress で取得するので EGL ライブラリを追加します。
 #LOCAL_LDLIBS += -ljnigraphics	# Java ビットマップオブジェクトへアクセスするので jnigraphics ライブラリを追加します。(ソースコード上で使用するには <android/bitmap.h> ヘッダファイルをインクルードする必要があります)
 
 include $(BUILD_SHARED_LIBRARY)
 
+$(call import-module,android/cpufeatures)
+
 #-----------------------------------------------------------------------------
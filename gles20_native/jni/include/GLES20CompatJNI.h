@@ -12,6 +12,9 @@ extern "C" {
 #endif
 
 JNIEXPORT void JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_glVertexAttribPointer(JNIEnv* env, jclass clazz, jint indx, jint size, jint type, jboolean normalized, jint stride, jint offset);
+JNIEXPORT jboolean JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_isProgramBinaryAvailable(JNIEnv* env, jclass clazz);
+JNIEXPORT jint JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_glGetProgramBinaryOES(JNIEnv* env, jclass clazz, jint program, jint bufSize, jintArray binaryFormat, jobject binary);
+JNIEXPORT void JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_glProgramBinaryOES(JNIEnv* env, jclass clazz, jint program, jint binaryFormat, jobject binary, jint length);
 
 #ifdef __cplusplus
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+#ifndef ORANGESIGNAL_YUVDATAKERNELS_H_
+#define ORANGESIGNAL_YUVDATAKERNELS_H_
+
+namespace orangesignal {
+
+/**
+ * 変換後のピクセル形式を表します。
+ */
+enum YuvPixelFormat {
+	YUV_PIXEL_FORMAT_RGB,	// R, G, B
+	YUV_PIXEL_FORMAT_RGBA,	// R, G, B, 255
+	YUV_PIXEL_FORMAT_ARGB	// 255, R, G, B
+};
+
+/**
+ * 指定された行範囲を変換するカーネル関数の型です。<p>
+ * 行範囲の開始行は偶数でなければなりません。カーネル関数は 2 行ずつ処理して、1 つの色差を 2x2 ピクセルで共有します。
+ */
+typedef void (*YuvRowsKernel)(const unsigned char* y, const unsigned char* uv, const int width, const int rowBegin, const int rowEnd, unsigned char* out);
+
+/**
+ * YUV420sp (NV21) を変換する 2x2 ブロック単位のカーネルと、行ストライプ単位のマルチスレッド実行を提供します。
+ * 
+ * @author 杉澤 浩二
+ */
+class YuvDataKernels {
+private:
+
+	/**
+	 * インスタンス化できない事を強制します。
+	 */
+	YuvDataKernels();
+
+public:
+
+	/**
+	 * 指定されたピクセル形式へ変換します。<p>
+	 * SIMD 命令が使用可能な場合は SIMD 命令のカーネルを、それ以外の場合は C++ のカーネルを使用して、
+	 * 画像を行ストライプに分割して複数のスレッドで変換します。
+	 * ストライプは最初の変換で起動して常駐させたワーカースレッドと呼び出し元のスレッドで分担し、小さい画像は呼び出し元のスレッドのみで変換します。
+	 */
+	static void convert(const YuvPixelFormat format, const unsigned char* y, const unsigned char* uv, const int width, const int height, unsigned char* out);
+
+	/**
+	 * SIMD 命令のカーネルが使用可能かどうかを返します。
+	 */
+	static bool isSimdAvailable();
+
+	/**
+	 * 最大スレッド数を設定します。{@code 0} 以下の場合は CPU のコア数から自動的に決定します。
+	 */
+	static void setMaxThreadCount(const int count);
+
+	/**
+	 * 指定されたピクセル形式の C++ のカーネルを返します。
+	 */
+	static YuvRowsKernel getGenericKernel(const YuvPixelFormat format);
+
+	/**
+	 * 指定されたピクセル形式の SIMD 命令のカーネルを返します。使用できない場合は {@code NULL} を返します。
+	 */
+	static YuvRowsKernel getSimdKernel(const YuvPixelFormat format);
+
+	/**
+	 * 指定された行範囲の指定された列以降を C++ のカーネルで変換します。SIMD 命令のカーネルの端数処理に使用します。
+	 */
+	static void convertTail(const YuvPixelFormat format, const unsigned char* y, const unsigned char* uv, const int width, const int colBegin, const int rowBegin, const int rowEnd, unsigned char* out);
+
+};
+
+#ifdef HAVE_NEON
+/**
+ * NEON 命令のカーネルを返します。(YuvDataKernelsNeon.cpp)<p>
+ * 呼び出す前に実行中の CPU が NEON 命令をサポートしている事を確認する必要があります。
+ */
+YuvRowsKernel getNeonKernel(const YuvPixelFormat format);
+#endif
+
+} // namespace orangesignal
+#endif // ORANGESIGNAL_YUVDATAKERNELS_H_
@@ -27,6 +27,42 @@ public:
 	static void toRGBA(const unsigned char* yuv420sp, const int width, const int height, unsigned char* rgba);
 	static void toARGB(const unsigned char* yuv420sp, const int width, const int height, unsigned char* arbg);
 
+	/**
+	 * SIMD 命令とマルチスレッドによる高速な変換を使用するかどうかを設定します。<p>
+	 * 使用しない場合や SIMD 命令が使用できない環境では 1 ピクセルずつ変換する従来の実装で変換します。
+	 *
+	 * @param enabled 高速な変換を使用するかどうか
+	 */
+	static void setAccelerationEnabled(const bool enabled);
+
+	/**
+	 * 高速な変換を使用するかどうかを返します。
+	 *
+	 * @return 高速な変換を使用するかどうか
+	 */
+	static bool isAccelerationEnabled();
+
+	/**
+	 * 実行中の CPU で SIMD 命令 (NEON または SSE2) による変換が使用可能かどうかを返します。
+	 *
+	 * @return SIMD 命令による変換が使用可能かどうか
+	 */
+	static bool isSimdAvailable();
+
+	/**
+	 * 高速な変換で使用する最大スレッド数を設定します。<p>
+	 * {@code 0} 以下が指定された場合は CPU のコア数から自動的に決定します。
+	 *
+	 * @param count 最大スレッド数
+	 */
+	static void setMaxThreadCount(const int count);
+
+private:
+
+	static void toRGBScalar(const unsigned char* y, const unsigned char* uv, const int width, const int height, unsigned char* rgb);
+	static void toRGBAScalar(const unsigned char* yuv420sp, const int width, const int height, unsigned char* rgba);
+	static void toARGBScalar(const unsigned char* yuv420sp, const int width, const int height, unsigned char* arbg);
+
 };
 
 } // namespace orangesignal
@@ -4,8 +4,47 @@
 
 #include "GLES20CompatJNI.h"
 
+#include <EGL/egl.h>
 #include <GLES2/gl2.h>
+#include <GLES2/gl2ext.h>
 
 JNIEXPORT void JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_glVertexAttribPointer(JNIEnv* env, jclass clazz, jint index, jint size, jint type, jboolean normalized, jint stride, jint offset) {
 	glVertexAttribPointer((GLuint) index, (GLint) size, (GLenum) type, (GLboolean) (normalized == JNI_TRUE), (GLsizei) stride, (const GLvoid *) offset);
 }
+
+//////////////////////////////////////////////////////////////////////////////
+// GL_OES_get_program_binary
+
+// 拡張機能の関数は NDK のライブラリからエクスポートされていないため、eglGetProcAddress で取得します。
+static PFNGLGETPROGRAMBINARYOESPROC sGetProgramBinaryOES = NULL;
+static PFNGLPROGRAMBINARYOESPROC sProgramBinaryOES = NULL;
+
+JNIEXPORT jboolean JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_isProgramBinaryAvailable(JNIEnv* env, jclass clazz) {
+	if (sGetProgramBinaryOES == NULL || sProgramBinaryOES == NULL) {
+		sGetProgramBinaryOES = (PFNGLGETPROGRAMBINARYOESPROC) eglGetProcAddress("glGetProgramBinaryOES");
+		sProgramBinaryOES = (PFNGLPROGRAMBINARYOESPROC) eglGetProcAddress("glProgramBinaryOES");
+	}
+	return (sGetProgramBinaryOES != NULL && sProgramBinaryOES != NULL) ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jint JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_glGetProgramBinaryOES(JNIEnv* env, jclass clazz, jint program, jint bufSize, jintArray binaryFormat, jobject binary) {
+	if (sGetProgramBinaryOES == NULL) {
+		return 0;
+	}
+	void* _binary = env->GetDirectBufferAddress(binary);
+	GLsizei length = 0;
+	GLenum format = 0;
+	sGetProgramBinaryOES((GLuint) program, (GLsizei) bufSize, &length, &format, _binary);
+
+	jint _format = (jint) format;
+	env->SetIntArrayRegion(binaryFormat, 0, 1, &_format);
+	return (jint) length;
+}
+
+JNIEXPORT void JNICALL Java_com_orangesignal_android_opengl_GLES20Compat_glProgramBinaryOES(JNIEnv* env, jclass clazz, jint program, jint binaryFormat, jobject binary, jint length) {
+	if (sProgramBinaryOES == NULL) {
+		return;
+	}
+	const void* _binary = env->GetDirectBufferAddress(binary);
+	sProgramBinaryOES((GLuint) program, (GLenum) binaryFormat, _binary, (GLint) length);
+}
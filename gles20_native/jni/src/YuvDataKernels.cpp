@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+#include "YuvDataKernels.h"
+
+#include <pthread.h>
+#include <stddef.h>
+#include <unistd.h>
+
+#if defined(__SSE2__)
+#include <emmintrin.h>
+#endif
+
+#if defined(HAVE_NEON) && defined(__ANDROID__)
+#include <cpu-features.h>
+#endif
+
+namespace orangesignal {
+
+YuvDataKernels::YuvDataKernels() {}
+
+//////////////////////////////////////////////////////////////////////////////
+// C++ カーネル
+
+/**
+ * 固定小数点の演算結果を 0 ～ 255 へ丸めます。
+ * min(262143, max(0, n)) >> 10 と同じ結果になります。
+ */
+static inline unsigned char clamp10(int n) {
+	n >>= 10;
+	return (unsigned char) (n < 0 ? 0 : (n > 255 ? 255 : n));
+}
+
+template<YuvPixelFormat FORMAT>
+static inline void storePixel(unsigned char* out, const int nY, const int nR, const int nG, const int nB) {
+	const int y1192 = 1192 * (nY < 16 ? 0 : nY - 16);
+	const unsigned char r = clamp10(y1192 + nR);
+	const unsigned char g = clamp10(y1192 + nG);
+	const unsigned char b = clamp10(y1192 + nB);
+	switch (FORMAT) {
+		case YUV_PIXEL_FORMAT_RGB:
+			out[0] = r; out[1] = g; out[2] = b;
+			break;
+		case YUV_PIXEL_FORMAT_RGBA:
+			out[0] = r; out[1] = g; out[2] = b; out[3] = 255;
+			break;
+		case YUV_PIXEL_FORMAT_ARGB:
+			out[0] = 255; out[1] = r; out[2] = g; out[3] = b;
+			break;
+	}
+}
+
+template<YuvPixelFormat FORMAT>
+static void convertBlocks(const unsigned char* y, const unsigned char* uv, const int width, const int colBegin, const int rowBegin, const int rowEnd, unsigned char* out) {
+	const int bpp = FORMAT == YUV_PIXEL_FORMAT_RGB ? 3 : 4;
+	for (int i = rowBegin; i < rowEnd; i += 2) {
+		const unsigned char* y0 = y + i * width;
+		const unsigned char* y1 = y0 + width;
+		const unsigned char* c = uv + (i >> 1) * width;
+		unsigned char* o0 = out + i * width * bpp;
+		unsigned char* o1 = o0 + width * bpp;
+		const bool hasSecondRow = i + 1 < rowEnd;
+
+		for (int j = colBegin; j < width; j += 2) {
+			// 2x2 ピクセルで共有する色差の項を 1 度だけ計算します。
+			const int nV = c[j] - 128;
+			const int nU = c[j + 1] - 128;
+			const int nR = 1634 * nV;
+			const int nG = -833 * nV - 400 * nU;
+			const int nB = 2066 * nU;
+
+			storePixel<FORMAT>(o0 + j * bpp, y0[j], nR, nG, nB);
+			if (j + 1 < width) {
+				storePixel<FORMAT>(o0 + (j + 1) * bpp, y0[j + 1], nR, nG, nB);
+			}
+			if (hasSecondRow) {
+				storePixel<FORMAT>(o1 + j * bpp, y1[j], nR, nG, nB);
+				if (j + 1 < width) {
+					storePixel<FORMAT>(o1 + (j + 1) * bpp, y1[j + 1], nR, nG, nB);
+				}
+			}
+		}
+	}
+}
+
+template<YuvPixelFormat FORMAT>
+static void convertRowsGeneric(const unsigned char* y, const unsigned char* uv, const int width, const int rowBegin, const int rowEnd, unsigned char* out) {
+	convertBlocks<FORMAT>(y, uv, width, 0, rowBegin, rowEnd, out);
+}
+
+YuvRowsKernel YuvDataKernels::getGenericKernel(const YuvPixelFormat format) {
+	switch (format) {
+		case YUV_PIXEL_FORMAT_RGB:
+			return convertRowsGeneric<YUV_PIXEL_FORMAT_RGB>;
+		case YUV_PIXEL_FORMAT_RGBA:
+			return convertRowsGeneric<YUV_PIXEL_FORMAT_RGBA>;
+		default:
+			return convertRowsGeneric<YUV_PIXEL_FORMAT_ARGB>;
+	}
+}
+
+void YuvDataKernels::convertTail(const YuvPixelFormat format, const unsigned char* y, const unsigned char* uv, const int width, const int colBegin, const int rowBegin, const int rowEnd, unsigned char* out) {
+	if (colBegin >= width) {
+		return;
+	}
+	switch (format) {
+		case YUV_PIXEL_FORMAT_RGB:
+			convertBlocks<YUV_PIXEL_FORMAT_RGB>(y, uv, width, colBegin, rowBegin, rowEnd, out);
+			break;
+		case YUV_PIXEL_FORMAT_RGBA:
+			convertBlocks<YUV_PIXEL_FORMAT_RGBA>(y, uv, width, colBegin, rowBegin, rowEnd, out);
+			break;
+		default:
+			convertBlocks<YUV_PIXEL_FORMAT_ARGB>(y, uv, width, colBegin, rowBegin, rowEnd, out);
+			break;
+	}
+}
+
+//////////////////////////////////////////////////////////////////////////////
+// SSE2 カーネル
+
+#if defined(__SSE2__)
+
+/**
+ * 8 ピクセル分の輝度と 4 組の色差の項から 8 ピクセル分の R, G, B を求めます。
+ * パック命令の飽和演算により min(262143, max(0, n)) >> 10 と同じ結果になります。
+ */
+static inline void computeSse2(const unsigned char* y, const __m128i& rLo, const __m128i& rHi, const __m128i& gLo, const __m128i& gHi, const __m128i& bLo, const __m128i& bHi, __m128i& r, __m128i& g, __m128i& b) {
+	const __m128i zero = _mm_setzero_si128();
+	__m128i y16 = _mm_unpacklo_epi8(_mm_loadl_epi64((const __m128i*) y), zero);
+	y16 = _mm_max_epi16(_mm_sub_epi16(y16, _mm_set1_epi16(16)), zero);
+	// (Y, 0) の組と (1192, 0) の積和で 32 ビットの 1192 * Y を求めます。
+	const __m128i k = _mm_set1_epi32(1192);
+	const __m128i yLo = _mm_madd_epi16(_mm_unpacklo_epi16(y16, zero), k);
+	const __m128i yHi = _mm_madd_epi16(_mm_unpackhi_epi16(y16, zero), k);
+
+	r = _mm_packs_epi32(_mm_srai_epi32(_mm_add_epi32(yLo, rLo), 10), _mm_srai_epi32(_mm_add_epi32(yHi, rHi), 10));
+	g = _mm_packs_epi32(_mm_srai_epi32(_mm_add_epi32(yLo, gLo), 10), _mm_srai_epi32(_mm_add_epi32(yHi, gHi), 10));
+	b = _mm_packs_epi32(_mm_srai_epi32(_mm_add_epi32(yLo, bLo), 10), _mm_srai_epi32(_mm_add_epi32(yHi, bHi), 10));
+	r = _mm_packus_epi16(r, r);
+	g = _mm_packus_epi16(g, g);
+	b = _mm_packus_epi16(b, b);
+}
+
+template<YuvPixelFormat FORMAT>
+static inline void storeSse2(unsigned char* out, const __m128i& r, const __m128i& g, const __m128i& b) {
+	const __m128i a = _mm_set1_epi8((char) 0xff);
+	__m128i lo, hi;
+	if (FORMAT == YUV_PIXEL_FORMAT_ARGB) {
+		const __m128i ar = _mm_unpacklo_epi8(a, r);
+		const __m128i gb = _mm_unpacklo_epi8(g, b);
+		lo = _mm_unpacklo_epi16(ar, gb);
+		hi = _mm_unpackhi_epi16(ar, gb);
+	} else {
+		const __m128i rg = _mm_unpacklo_epi8(r, g);
+		const __m128i ba = _mm_unpacklo_epi8(b, a);
+		lo = _mm_unpacklo_epi16(rg, ba);
+		hi = _mm_unpackhi_epi16(rg, ba);
+	}
+	if (FORMAT == YUV_PIXEL_FORMAT_RGB) {
+		// SSE2 には 3 バイト単位のインターリーブ命令がないため、RGBA から詰め直します。
+		unsigned char rgba[32] __attribute__((aligned(16)));
+		_mm_store_si128((__m128i*) rgba, lo);
+		_mm_store_si128((__m128i*) (rgba + 16), hi);
+		for (int i = 0; i < 8; i++) {
+			out[i * 3]     = rgba[i * 4];
+			out[i * 3 + 1] = rgba[i * 4 + 1];
+			out[i * 3 + 2] = rgba[i * 4 + 2];
+		}
+	} else {
+		_mm_storeu_si128((__m128i*) out, lo);
+		_mm_storeu_si128((__m128i*) (out + 16), hi);
+	}
+}
+
+template<YuvPixelFormat FORMAT>
+static void convertRowsSse2(const unsigned char* y, const unsigned char* uv, const int width, const int rowBegin, const int rowEnd, unsigned char* out) {
+	const int bpp = FORMAT == YUV_PIXEL_FORMAT_RGB ? 3 : 4;
+	const int simdWidth = width & ~7;
+	const __m128i zero = _mm_setzero_si128();
+	const __m128i bias = _mm_set1_epi16(128);
+	// (V, U) の組との積和で各色差の項を求めるための係数です。
+	const __m128i kR = _mm_set_epi16(0, 1634, 0, 1634, 0, 1634, 0, 1634);
+	const __m128i kG = _mm_set_epi16(-400, -833, -400, -833, -400, -833, -400, -833);
+	const __m128i kB = _mm_set_epi16(2066, 0, 2066, 0, 2066, 0, 2066, 0);
+
+	for (int i = rowBegin; i < rowEnd; i += 2) {
+		const unsigned char* y0 = y + i * width;
+		const unsigned char* y1 = y0 + width;
+		const unsigned char* c = uv + (i >> 1) * width;
+		unsigned char* o0 = out + i * width * bpp;
+		unsigned char* o1 = o0 + width * bpp;
+		const bool hasSecondRow = i + 1 < rowEnd;
+
+		for (int j = 0; j < simdWidth; j += 8) {
+			// V0 U0 V1 U1 V2 U2 V3 U3
+			const __m128i vu = _mm_sub_epi16(_mm_unpacklo_epi8(_mm_loadl_epi64((const __m128i*) (c + j)), zero), bias);
+			const __m128i nR = _mm_madd_epi16(vu, kR);
+			const __m128i nG = _mm_madd_epi16(vu, kG);
+			const __m128i nB = _mm_madd_epi16(vu, kB);
+			// 各色差の項を 2 ピクセルずつへ複製します。
+			const __m128i rLo = _mm_shuffle_epi32(nR, _MM_SHUFFLE(1, 1, 0, 0));
+			const __m128i rHi = _mm_shuffle_epi32(nR, _MM_SHUFFLE(3, 3, 2, 2));
+			const __m128i gLo = _mm_shuffle_epi32(nG, _MM_SHUFFLE(1, 1, 0, 0));
+			const __m128i gHi = _mm_shuffle_epi32(nG, _MM_SHUFFLE(3, 3, 2, 2));
+			const __m128i bLo = _mm_shuffle_epi32(nB, _MM_SHUFFLE(1, 1, 0, 0));
+			const __m128i bHi = _mm_shuffle_epi32(nB, _MM_SHUFFLE(3, 3, 2, 2));
+
+			__m128i r, g, b;
+			computeSse2(y0 + j, rLo, rHi, gLo, gHi, bLo, bHi, r, g, b);
+			storeSse2<FORMAT>(o0 + j * bpp, r, g, b);
+			if (hasSecondRow) {
+				computeSse2(y1 + j, rLo, rHi, gLo, gHi, bLo, bHi, r, g, b);
+				storeSse2<FORMAT>(o1 + j * bpp, r, g, b);
+			}
+		}
+	}
+	YuvDataKernels::convertTail(FORMAT, y, uv, width, simdWidth, rowBegin, rowEnd, out);
+}
+
+#endif // __SSE2__
+
+//////////////////////////////////////////////////////////////////////////////
+
+bool YuvDataKernels::isSimdAvailable() {
+#if defined(__SSE2__)
+	return true;
+#elif defined(HAVE_NEON) && defined(__ANDROID__)
+	return android_getCpuFamily() == ANDROID_CPU_FAMILY_ARM && (android_getCpuFeatures() & ANDROID_CPU_ARM_FEATURE_NEON) != 0;
+#elif defined(HAVE_NEON)
+	return true;
+#else
+	return false;
+#endif
+}
+
+YuvRowsKernel YuvDataKernels::getSimdKernel(const YuvPixelFormat format) {
+	if (!isSimdAvailable()) {
+		return NULL;
+	}
+#if defined(__SSE2__)
+	switch (format) {
+		case YUV_PIXEL_FORMAT_RGB:
+			return convertRowsSse2<YUV_PIXEL_FORMAT_RGB>;
+		case YUV_PIXEL_FORMAT_RGBA:
+			return convertRowsSse2<YUV_PIXEL_FORMAT_RGBA>;
+		default:
+			return convertRowsSse2<YUV_PIXEL_FORMAT_ARGB>;
+	}
+#elif defined(HAVE_NEON)
+	return getNeonKernel(format);
+#else
+	return NULL;
+#endif
+}
+
+//////////////////////////////////////////////////////////////////////////////
+// マルチスレッド実行
+
+/**
+ * 自動的に決定する場合の最大スレッド数です。
+ */
+static const int MAX_AUTO_THREAD_COUNT = 4;
+
+/**
+ * 最大スレッド数の上限です。
+ */
+static const int MAX_THREAD_COUNT = 16;
+
+/**
+ * 1 スレッドあたりの最小行数です。これより小さい画像はスレッドを分けずに変換します。
+ */
+static const int MIN_ROWS_PER_THREAD = 64;
+
+/**
+ * 1 スレッドあたりの最小ピクセル数です。これより小さい画像はスレッドを分けずに変換します。<p>
+ * QVGA 程度の画像ではワーカースレッドとの同期のコストが変換の時間に対して無視できないため、呼び出し元のスレッドのみで変換します。
+ */
+static const int MIN_PIXELS_PER_THREAD = 320 * 240;
+
+static volatile int sMaxThreadCount = 0;
+
+void YuvDataKernels::setMaxThreadCount(const int count) {
+	sMaxThreadCount = count;
+}
+
+static int getThreadCount(const int width, const int height) {
+	int count = sMaxThreadCount;
+	if (count <= 0) {
+		const long cpus = sysconf(_SC_NPROCESSORS_ONLN);
+		count = cpus < 1 ? 1 : (cpus > MAX_AUTO_THREAD_COUNT ? MAX_AUTO_THREAD_COUNT : (int) cpus);
+	}
+	if (count > MAX_THREAD_COUNT) {
+		count = MAX_THREAD_COUNT;
+	}
+	const int rowLimit = height / MIN_ROWS_PER_THREAD;
+	if (count > rowLimit) {
+		count = rowLimit;
+	}
+	const int pixelLimit = (int) (((long long) width * height) / MIN_PIXELS_PER_THREAD);
+	if (count > pixelLimit) {
+		count = pixelLimit;
+	}
+	return count < 1 ? 1 : count;
+}
+
+struct YuvStripe {
+	YuvRowsKernel kernel;
+	const unsigned char* y;
+	const unsigned char* uv;
+	int width;
+	int rowBegin;
+	int rowEnd;
+	unsigned char* out;
+};
+
+static void runStripe(const YuvStripe* stripe) {
+	stripe->kernel(stripe->y, stripe->uv, stripe->width, stripe->rowBegin, stripe->rowEnd, stripe->out);
+}
+
+/**
+ * 1 回の変換で分担するストライプの集合です。
+ */
+struct YuvBatch {
+	const YuvStripe* stripes;
+	int count;		// ストライプの数
+	int next;		// 次に変換するストライプ
+	int remaining;	// 変換が完了していないストライプの数
+};
+
+/**
+ * ワーカースレッドの状態を保護するミューテックスです。
+ */
+static pthread_mutex_t sPoolMutex = PTHREAD_MUTEX_INITIALIZER;
+
+/**
+ * 変換するストライプが追加された事をワーカースレッドへ通知する条件変数です。
+ */
+static pthread_cond_t sWorkCond = PTHREAD_COND_INITIALIZER;
+
+/**
+ * 全てのストライプの変換が完了した事を呼び出し元のスレッドへ通知する条件変数です。
+ */
+static pthread_cond_t sDoneCond = PTHREAD_COND_INITIALIZER;
+
+/**
+ * ワーカースレッドを使用する変換を 1 つずつに制限するミューテックスです。
+ */
+static pthread_mutex_t sBatchMutex = PTHREAD_MUTEX_INITIALIZER;
+
+/**
+ * ワーカースレッドが変換中のストライプの集合です。
+ */
+static YuvBatch* sBatch = NULL;
+
+/**
+ * 起動済みのワーカースレッドの数です。ワーカースレッドはプロセスの終了まで再利用します。
+ */
+static int sWorkerCount = 0;
+
+static void* runWorker(void* arg) {
+	pthread_mutex_lock(&sPoolMutex);
+	for (;;) {
+		while (sBatch == NULL || sBatch->next >= sBatch->count) {
+			pthread_cond_wait(&sWorkCond, &sPoolMutex);
+		}
+		YuvBatch* batch = sBatch;
+		const YuvStripe* stripe = &batch->stripes[batch->next++];
+		pthread_mutex_unlock(&sPoolMutex);
+
+		runStripe(stripe);
+
+		pthread_mutex_lock(&sPoolMutex);
+		if (--batch->remaining == 0) {
+			pthread_cond_signal(&sDoneCond);
+		}
+	}
+	return NULL;
+}
+
+/**
+ * 起動済みのワーカースレッドが指定された数に満たない場合は、不足分のワーカースレッドを起動します。
+ * 呼び出す前に sPoolMutex を取得している必要があります。
+ */
+static void ensureWorkers(const int count) {
+	if (sWorkerCount >= count) {
+		return;
+	}
+	pthread_attr_t attr;
+	pthread_attr_init(&attr);
+	pthread_attr_setdetachstate(&attr, PTHREAD_CREATE_DETACHED);
+	while (sWorkerCount < count) {
+		pthread_t thread;
+		if (pthread_create(&thread, &attr, runWorker, NULL) != 0) {
+			break;	// 起動できたワーカースレッドと呼び出し元のスレッドで変換します。
+		}
+		sWorkerCount++;
+	}
+	pthread_attr_destroy(&attr);
+}
+
+void YuvDataKernels::convert(const YuvPixelFormat format, const unsigned char* y, const unsigned char* uv, const int width, const int height, unsigned char* out) {
+	YuvRowsKernel kernel = getSimdKernel(format);
+	if (kernel == NULL) {
+		kernel = getGenericKernel(format);
+	}
+
+	const int threadCount = getThreadCount(width, height);
+	if (threadCount <= 1) {
+		kernel(y, uv, width, 0, height, out);
+		return;
+	}
+
+	// 他のスレッドがワーカースレッドを使用中の場合は、完了を待たずに呼び出し元のスレッドのみで変換します。
+	if (pthread_mutex_trylock(&sBatchMutex) != 0) {
+		kernel(y, uv, width, 0, height, out);
+		return;
+	}
+
+	// 色差を共有する 2 行が別々のストライプにならないよう、ストライプの行数は偶数にします。
+	const int rowsPerStripe = (((height + threadCount - 1) / threadCount) + 1) & ~1;
+
+	YuvStripe stripes[MAX_THREAD_COUNT];
+	int count = 0;
+	for (int row = 0; row < height; row += rowsPerStripe) {
+		YuvStripe& stripe = stripes[count];
+		stripe.kernel = kernel;
+		stripe.y = y;
+		stripe.uv = uv;
+		stripe.width = width;
+		stripe.rowBegin = row;
+		stripe.rowEnd = row + rowsPerStripe < height ? row + rowsPerStripe : height;
+		stripe.out = out;
+		count++;
+	}
+
+	// 先頭のストライプは呼び出し元のスレッドで変換し、残りのストライプを常駐するワーカースレッドへ分担させます。
+	YuvBatch batch;
+	batch.stripes = stripes;
+	batch.count = count;
+	batch.next = 1;
+	batch.remaining = count - 1;
+
+	pthread_mutex_lock(&sPoolMutex);
+	ensureWorkers(count - 1);
+	sBatch = &batch;
+	pthread_cond_broadcast(&sWorkCond);
+	pthread_mutex_unlock(&sPoolMutex);
+
+	runStripe(&stripes[0]);
+
+	// ワーカースレッドが取得していないストライプは呼び出し元のスレッドでも変換します。
+	pthread_mutex_lock(&sPoolMutex);
+	while (batch.next < batch.count) {
+		const YuvStripe* stripe = &stripes[batch.next++];
+		pthread_mutex_unlock(&sPoolMutex);
+		runStripe(stripe);
+		pthread_mutex_lock(&sPoolMutex);
+		batch.remaining--;
+	}
+	while (batch.remaining > 0) {
+		pthread_cond_wait(&sDoneCond, &sPoolMutex);
+	}
+	sBatch = NULL;
+	pthread_mutex_unlock(&sPoolMutex);
+
+	pthread_mutex_unlock(&sBatchMutex);
+}
+
+} // namespace orangesignal
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+#include "YuvDataKernels.h"
+
+#ifdef HAVE_NEON
+
+#include <arm_neon.h>
+
+namespace orangesignal {
+
+/**
+ * 8 ピクセル分の輝度と 8 組の色差の項から 8 ピクセル分の R, G, B を求めます。
+ * 飽和シフトと飽和ナロー命令により min(262143, max(0, n)) >> 10 と同じ結果になります。
+ */
+static inline void computeNeon(const uint8x8_t y, const int32x4_t rLo, const int32x4_t rHi, const int32x4_t gLo, const int32x4_t gHi, const int32x4_t bLo, const int32x4_t bHi, uint8x8_t& r, uint8x8_t& g, uint8x8_t& b) {
+	int16x8_t y16 = vreinterpretq_s16_u16(vmovl_u8(y));
+	y16 = vmaxq_s16(vsubq_s16(y16, vdupq_n_s16(16)), vdupq_n_s16(0));
+	const int32x4_t yLo = vmull_n_s16(vget_low_s16(y16), 1192);
+	const int32x4_t yHi = vmull_n_s16(vget_high_s16(y16), 1192);
+
+	r = vqmovun_s16(vcombine_s16(vqshrn_n_s32(vaddq_s32(yLo, rLo), 10), vqshrn_n_s32(vaddq_s32(yHi, rHi), 10)));
+	g = vqmovun_s16(vcombine_s16(vqshrn_n_s32(vaddq_s32(yLo, gLo), 10), vqshrn_n_s32(vaddq_s32(yHi, gHi), 10)));
+	b = vqmovun_s16(vcombine_s16(vqshrn_n_s32(vaddq_s32(yLo, bLo), 10), vqshrn_n_s32(vaddq_s32(yHi, bHi), 10)));
+}
+
+template<YuvPixelFormat FORMAT>
+static inline void storeNeon(unsigned char* out, const uint8x8_t re, const uint8x8_t ge, const uint8x8_t be, const uint8x8_t ro, const uint8x8_t go, const uint8x8_t bo) {
+	// 偶数列と奇数列のピクセルを並べ直します。
+	const uint8x8x2_t r = vzip_u8(re, ro);
+	const uint8x8x2_t g = vzip_u8(ge, go);
+	const uint8x8x2_t b = vzip_u8(be, bo);
+	if (FORMAT == YUV_PIXEL_FORMAT_RGB) {
+		uint8x16x3_t rgb;
+		rgb.val[0] = vcombine_u8(r.val[0], r.val[1]);
+		rgb.val[1] = vcombine_u8(g.val[0], g.val[1]);
+		rgb.val[2] = vcombine_u8(b.val[0], b.val[1]);
+		vst3q_u8(out, rgb);
+	} else if (FORMAT == YUV_PIXEL_FORMAT_RGBA) {
+		uint8x16x4_t rgba;
+		rgba.val[0] = vcombine_u8(r.val[0], r.val[1]);
+		rgba.val[1] = vcombine_u8(g.val[0], g.val[1]);
+		rgba.val[2] = vcombine_u8(b.val[0], b.val[1]);
+		rgba.val[3] = vdupq_n_u8(255);
+		vst4q_u8(out, rgba);
+	} else {
+		uint8x16x4_t argb;
+		argb.val[0] = vdupq_n_u8(255);
+		argb.val[1] = vcombine_u8(r.val[0], r.val[1]);
+		argb.val[2] = vcombine_u8(g.val[0], g.val[1]);
+		argb.val[3] = vcombine_u8(b.val[0], b.val[1]);
+		vst4q_u8(out, argb);
+	}
+}
+
+template<YuvPixelFormat FORMAT>
+static inline void convertRowNeon(const unsigned char* y, unsigned char* out, const int32x4_t rLo, const int32x4_t rHi, const int32x4_t gLo, const int32x4_t gHi, const int32x4_t bLo, const int32x4_t bHi) {
+	// 偶数列と奇数列の輝度に分けて読み込むことで、各列が同じ添字の色差の項を使用できるようにします。
+	const uint8x8x2_t y2 = vld2_u8(y);
+	uint8x8_t re, ge, be, ro, go, bo;
+	computeNeon(y2.val[0], rLo, rHi, gLo, gHi, bLo, bHi, re, ge, be);
+	computeNeon(y2.val[1], rLo, rHi, gLo, gHi, bLo, bHi, ro, go, bo);
+	storeNeon<FORMAT>(out, re, ge, be, ro, go, bo);
+}
+
+template<YuvPixelFormat FORMAT>
+static void convertRowsNeon(const unsigned char* y, const unsigned char* uv, const int width, const int rowBegin, const int rowEnd, unsigned char* out) {
+	const int bpp = FORMAT == YUV_PIXEL_FORMAT_RGB ? 3 : 4;
+	const int simdWidth = width & ~15;
+	const int16x8_t bias = vdupq_n_s16(128);
+
+	for (int i = rowBegin; i < rowEnd; i += 2) {
+		const unsigned char* y0 = y + i * width;
+		const unsigned char* y1 = y0 + width;
+		const unsigned char* c = uv + (i >> 1) * width;
+		unsigned char* o0 = out + i * width * bpp;
+		unsigned char* o1 = o0 + width * bpp;
+		const bool hasSecondRow = i + 1 < rowEnd;
+
+		for (int j = 0; j < simdWidth; j += 16) {
+			// 8 組の色差を V と U に分けて読み込みます。
+			const uint8x8x2_t vu = vld2_u8(c + j);
+			const int16x8_t v = vsubq_s16(vreinterpretq_s16_u16(vmovl_u8(vu.val[0])), bias);
+			const int16x8_t u = vsubq_s16(vreinterpretq_s16_u16(vmovl_u8(vu.val[1])), bias);
+
+			const int32x4_t rLo = vmull_n_s16(vget_low_s16(v), 1634);
+			const int32x4_t rHi = vmull_n_s16(vget_high_s16(v), 1634);
+			const int32x4_t gLo = vmlal_n_s16(vmull_n_s16(vget_low_s16(v), -833), vget_low_s16(u), -400);
+			const int32x4_t gHi = vmlal_n_s16(vmull_n_s16(vget_high_s16(v), -833), vget_high_s16(u), -400);
+			const int32x4_t bLo = vmull_n_s16(vget_low_s16(u), 2066);
+			const int32x4_t bHi = vmull_n_s16(vget_high_s16(u), 2066);
+
+			convertRowNeon<FORMAT>(y0 + j, o0 + j * bpp, rLo, rHi, gLo, gHi, bLo, bHi);
+			if (hasSecondRow) {
+				convertRowNeon<FORMAT>(y1 + j, o1 + j * bpp, rLo, rHi, gLo, gHi, bLo, bHi);
+			}
+		}
+	}
+	YuvDataKernels::convertTail(FORMAT, y, uv, width, simdWidth, rowBegin, rowEnd, out);
+}
+
+YuvRowsKernel getNeonKernel(const YuvPixelFormat format) {
+	switch (format) {
+		case YUV_PIXEL_FORMAT_RGB:
+			return convertRowsNeon<YUV_PIXEL_FORMAT_RGB>;
+		case YUV_PIXEL_FORMAT_RGBA:
+			return convertRowsNeon<YUV_PIXEL_FORMAT_RGBA>;
+		default:
+			return convertRowsNeon<YUV_PIXEL_FORMAT_ARGB>;
+	}
+}
+
+} // namespace orangesignal
+
+#endif // HAVE_NEON
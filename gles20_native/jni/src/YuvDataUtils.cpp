@@ -3,6 +3,7 @@
  */
 
 #include "YuvDataUtils.h"
+#include "YuvDataKernels.h"
 
 namespace orangesignal {
 
@@ -13,13 +14,61 @@ namespace orangesignal {
 
 YuvDataUtils::YuvDataUtils() {}
 
+/**
+ * SIMD 命令とマルチスレッドによる高速な変換を使用するかどうかを保持します。
+ */
+static volatile bool sAccelerationEnabled = true;
+
+void YuvDataUtils::setAccelerationEnabled(const bool enabled) {
+	sAccelerationEnabled = enabled;
+}
+
+bool YuvDataUtils::isAccelerationEnabled() {
+	return sAccelerationEnabled;
+}
+
+bool YuvDataUtils::isSimdAvailable() {
+	return YuvDataKernels::isSimdAvailable();
+}
+
+void YuvDataUtils::setMaxThreadCount(const int count) {
+	YuvDataKernels::setMaxThreadCount(count);
+}
+
 void YuvDataUtils::toRGB(const unsigned char* yuv420sp, const int width, const int height, unsigned char* rgb) {
 	toRGB(yuv420sp, yuv420sp + width * height, width, height, rgb);
 }
 
+void YuvDataUtils::toRGB(const unsigned char* y, const unsigned char* uv, const int width, const int height, unsigned char* rgb) {
+	if (sAccelerationEnabled) {
+		YuvDataKernels::convert(YUV_PIXEL_FORMAT_RGB, y, uv, width, height, rgb);
+	} else {
+		toRGBScalar(y, uv, width, height, rgb);
+	}
+}
+
+void YuvDataUtils::toRGBA(const unsigned char* yuv420sp, const int width, const int height, unsigned char* rgba) {
+	if (sAccelerationEnabled) {
+		YuvDataKernels::convert(YUV_PIXEL_FORMAT_RGBA, yuv420sp, yuv420sp + width * height, width, height, rgba);
+	} else {
+		toRGBAScalar(yuv420sp, width, height, rgba);
+	}
+}
+
+void YuvDataUtils::toARGB(const unsigned char* yuv420sp, const int width, const int height, unsigned char* arbg) {
+	if (sAccelerationEnabled) {
+		YuvDataKernels::convert(YUV_PIXEL_FORMAT_ARGB, yuv420sp, yuv420sp + width * height, width, height, arbg);
+	} else {
+		toARGBScalar(yuv420sp, width, height, arbg);
+	}
+}
+
+//////////////////////////////////////////////////////////////////////////////
+// 1 ピクセルずつ変換する従来の実装
+
 static const int bytes_per_pixel = 2;
 
-void YuvDataUtils::toRGB(const unsigned char* y, const unsigned char* uv, const int width, const int height, unsigned char* rgb) {
+void YuvDataUtils::toRGBScalar(const unsigned char* y, const unsigned char* uv, const int width, const int height, unsigned char* rgb) {
 	int i, j;
 	int nR, nG, nB;
 	int nY, nU, nV;
@@ -62,7 +111,7 @@ void YuvDataUtils::toRGB(const unsigned char* y, const unsigned char* uv, const
 	}
 }
 
-void YuvDataUtils::toRGBA(const unsigned char* yuv420sp, const int width, const int height, unsigned char* rgba) {
+void YuvDataUtils::toRGBAScalar(const unsigned char* yuv420sp, const int width, const int height, unsigned char* rgba) {
 	const unsigned char* y = yuv420sp;
 	const unsigned char* uv = yuv420sp + width * height;
 	int i, j;
@@ -108,7 +157,7 @@ void YuvDataUtils::toRGBA(const unsigned char* yuv420sp, const int width, const
 	}
 }
 
-void YuvDataUtils::toARGB(const unsigned char* yuv420sp, const int width, const int height, unsigned char* arbg) {
+void YuvDataUtils::toARGBScalar(const unsigned char* yuv420sp, const int width, const int height, unsigned char* arbg) {
 	const unsigned char* y = yuv420sp;
 	const unsigned char* uv = yuv420sp + width * height;
 	int i, j;
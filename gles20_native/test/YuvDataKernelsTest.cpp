@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2013 OrangeSignal.com All Rights Reserved.
+ */
+
+/*
+ * YuvDataKernels の変換結果が従来の 1 ピクセルずつ変換する実装と一致するかどうかをホスト環境 (x86 Linux など) で検証します。
+ * 
+ * g++ -O2 -I../jni/include ../jni/src/YuvDataUtils.cpp ../jni/src/YuvDataKernels.cpp YuvDataKernelsTest.cpp -o YuvDataKernelsTest -lpthread
+ * ./YuvDataKernelsTest
+ */
+
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <time.h>
+
+#include "YuvDataUtils.h"
+#include "YuvDataKernels.h"
+
+using namespace orangesignal;
+
+static int sFailures = 0;
+
+static void fill(unsigned char* data, const int length, const unsigned int seed) {
+	unsigned int n = seed;
+	for (int i = 0; i < length; i++) {
+		n = n * 1103515245 + 12345;
+		data[i] = (unsigned char) (n >> 16);
+	}
+}
+
+static void convert(const YuvPixelFormat format, const unsigned char* yuv, const int width, const int height, unsigned char* out) {
+	switch (format) {
+		case YUV_PIXEL_FORMAT_RGB:
+			YuvDataUtils::toRGB(yuv, width, height, out);
+			break;
+		case YUV_PIXEL_FORMAT_RGBA:
+			YuvDataUtils::toRGBA(yuv, width, height, out);
+			break;
+		default:
+			YuvDataUtils::toARGB(yuv, width, height, out);
+			break;
+	}
+}
+
+static void check(const char* name, const unsigned char* expected, const unsigned char* actual, const int length, const YuvPixelFormat format, const int width, const int height) {
+	if (memcmp(expected, actual, length) != 0) {
+		printf("FAILED %s format=%d %dx%d\n", name, format, width, height);
+		sFailures++;
+	}
+}
+
+static void verify(const YuvPixelFormat format, const int width, const int height) {
+	const int bpp = format == YUV_PIXEL_FORMAT_RGB ? 3 : 4;
+	const int yuvLength = width * height + width * ((height + 1) / 2);
+	const int length = width * height * bpp;
+
+	unsigned char* yuv = new unsigned char[yuvLength];
+	unsigned char* expected = new unsigned char[length];
+	unsigned char* actual = new unsigned char[length];
+	fill(yuv, yuvLength, width * 31 + height);
+
+	YuvDataUtils::setAccelerationEnabled(false);
+	convert(format, yuv, width, height, expected);
+
+	// C++ のカーネル
+	memset(actual, 0, length);
+	YuvDataKernels::getGenericKernel(format)(yuv, yuv + width * height, width, 0, height, actual);
+	check("generic", expected, actual, length, format, width, height);
+
+	// SIMD 命令のカーネル
+	const YuvRowsKernel simd = YuvDataKernels::getSimdKernel(format);
+	if (simd != NULL) {
+		memset(actual, 0, length);
+		simd(yuv, yuv + width * height, width, 0, height, actual);
+		check("simd", expected, actual, length, format, width, height);
+	}
+
+	// マルチスレッド
+	YuvDataUtils::setAccelerationEnabled(true);
+	for (int threads = 1; threads <= 5; threads++) {
+		YuvDataUtils::setMaxThreadCount(threads);
+		memset(actual, 0, length);
+		convert(format, yuv, width, height, actual);
+		check("threads", expected, actual, length, format, width, height);
+	}
+	YuvDataUtils::setMaxThreadCount(0);
+
+	delete[] yuv;
+	delete[] expected;
+	delete[] actual;
+}
+
+static double measure(const bool accelerated, const int width, const int height, const int iterations) {
+	const int yuvLength = width * height * 3 / 2;
+	unsigned char* yuv = new unsigned char[yuvLength];
+	unsigned char* rgba = new unsigned char[width * height * 4];
+	fill(yuv, yuvLength, 1);
+
+	YuvDataUtils::setAccelerationEnabled(accelerated);
+	timespec begin, end;
+	clock_gettime(CLOCK_MONOTONIC, &begin);
+	for (int i = 0; i < iterations; i++) {
+		YuvDataUtils::toRGBA(yuv, width, height, rgba);
+	}
+	clock_gettime(CLOCK_MONOTONIC, &end);
+	YuvDataUtils::setAccelerationEnabled(true);
+
+	delete[] yuv;
+	delete[] rgba;
+	return ((end.tv_sec - begin.tv_sec) * 1000.0 + (end.tv_nsec - begin.tv_nsec) / 1000000.0) / iterations;
+}
+
+int main(int argc, char** argv) {
+	static const int sizes[][2] = {
+		{ 2, 2 }, { 6, 4 }, { 8, 2 }, { 16, 2 }, { 18, 6 }, { 30, 7 }, { 176, 144 }, { 320, 240 }, { 322, 131 }, { 640, 480 }, { 1280, 720 }
+	};
+	static const YuvPixelFormat formats[] = { YUV_PIXEL_FORMAT_RGB, YUV_PIXEL_FORMAT_RGBA, YUV_PIXEL_FORMAT_ARGB };
+
+	for (unsigned int i = 0; i < sizeof(sizes) / sizeof(sizes[0]); i++) {
+		for (unsigned int j = 0; j < sizeof(formats) / sizeof(formats[0]); j++) {
+			verify(formats[j], sizes[i][0], sizes[i][1]);
+		}
+	}
+
+	printf("simd=%s\n", YuvDataUtils::isSimdAvailable() ? "yes" : "no");
+	printf("toRGBA 1280x720 scalar=%.3fms accelerated=%.3fms\n", measure(false, 1280, 720, 20), measure(true, 1280, 720, 20));
+
+	if (sFailures > 0) {
+		printf("%d failures\n", sFailures);
+		return 1;
+	}
+	printf("OK\n");
+	return 0;
+}